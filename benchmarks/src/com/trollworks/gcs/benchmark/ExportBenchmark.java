@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.benchmark;
+
+import com.trollworks.gcs.character.TextTemplate;
+import com.trollworks.toolkit.utility.FileType;
+import com.trollworks.toolkit.utility.PathUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures the cost of exporting a sheet in each of the formats offered on the command line. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ExportBenchmark {
+    private File mTemplate;
+    private File mOutputDir;
+
+    /** Locates the text template and creates a directory to export into. */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mTemplate = TextTemplate.resolveTextTemplate(null);
+        mOutputDir = File.createTempFile("benchmark", ""); //$NON-NLS-1$ //$NON-NLS-2$
+        if (!mOutputDir.delete() || !mOutputDir.mkdir()) {
+            throw new IOException("Unable to create " + mOutputDir); //$NON-NLS-1$
+        }
+    }
+
+    /** Removes everything that was exported. */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = mOutputDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mOutputDir.delete();
+    }
+
+    /**
+     * @param state The sheet to export.
+     * @return Whether the export succeeded.
+     */
+    @Benchmark
+    public boolean exportText(SheetState state) {
+        return new TextTemplate(state.mSheet).export(new File(mOutputDir, "sheet." + PathUtils.getExtension(mTemplate.getName())), mTemplate); //$NON-NLS-1$
+    }
+
+    /**
+     * @param state The sheet to export.
+     * @return Whether the export succeeded.
+     */
+    @Benchmark
+    public boolean exportPDF(SheetState state) {
+        return state.mSheet.saveAsPDF(new File(mOutputDir, "sheet." + FileType.PDF_EXTENSION)); //$NON-NLS-1$
+    }
+
+    /**
+     * @param state The sheet to export.
+     * @return Whether the export succeeded.
+     */
+    @Benchmark
+    public boolean exportPNG(SheetState state) {
+        return state.mSheet.saveAsPNG(new File(mOutputDir, "sheet." + FileType.PNG_EXTENSION), new ArrayList<>()); //$NON-NLS-1$
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.benchmark;
+
+import com.trollworks.gcs.advantage.AdvantageList;
+import com.trollworks.gcs.character.GURPSCharacter;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures the cost of loading sheets and libraries from disk. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class LoadBenchmark {
+    /** The number of rows in each list. */
+    @Param({ "100", "1000" })
+    public int   rows;
+    /** The number of modifiers on each advantage. */
+    @Param({ "3" })
+    public int   modifiers;
+    /** The depth of the containers that rows are placed in. */
+    @Param({ "2" })
+    public int   nesting;
+    private File mCharacterFile;
+    private File mAdvantagesFile;
+
+    /** Writes the files to be loaded. */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SheetState.prepareEnvironment();
+        SyntheticData data = new SyntheticData(rows, 4, modifiers, nesting);
+        mCharacterFile = SyntheticData.write(data.createCharacter(), "benchmark", GURPSCharacter.EXTENSION); //$NON-NLS-1$
+        mAdvantagesFile = SyntheticData.write(data.createAdvantageList(), "benchmark", AdvantageList.EXTENSION); //$NON-NLS-1$
+    }
+
+    /** @return The loaded character. */
+    @Benchmark
+    public GURPSCharacter loadCharacter() throws Exception {
+        return new GURPSCharacter(mCharacterFile);
+    }
+
+    /** @return The loaded library. */
+    @Benchmark
+    public AdvantageList loadAdvantageList() throws Exception {
+        AdvantageList list = new AdvantageList();
+        list.load(mAdvantagesFile);
+        return list;
+    }
+
+    /** @return The loaded library, with the details of its rows left until they are needed. */
+    @Benchmark
+    public AdvantageList loadAdvantageListDeferringDetails() throws Exception {
+        AdvantageList list = new AdvantageList();
+        list.loadDeferringDetails(mAdvantagesFile);
+        return list;
+    }
+}
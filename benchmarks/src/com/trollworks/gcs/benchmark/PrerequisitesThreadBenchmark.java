@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.benchmark;
+
+import com.trollworks.gcs.character.PrerequisitesThread;
+import com.trollworks.gcs.skill.Skill;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long a running prerequisites thread takes to settle after a burst of edits: a
+ * change to a single skill, which only its dependents need to follow, immediately followed by one
+ * that requires a full update. The passes the thread started and abandoned are reported alongside
+ * each result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PrerequisitesThreadBenchmark {
+    private PrerequisitesThread mThread;
+    private Skill               mSkill;
+    private int                 mEdits;
+
+    /**
+     * The passes of the prerequisites thread, totalled over each iteration. JMH requires these to
+     * be public fields.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Passes {
+        /** The number of passes started. */
+        public long started;
+        /** The number of passes abandoned because a full update was requested. */
+        public long abandoned;
+    }
+
+    /**
+     * Starts the prerequisites thread and waits for its first pass to finish.
+     *
+     * @param state The sheet to attach the thread to.
+     */
+    @Setup(Level.Trial)
+    public void setUp(SheetState state) throws Exception {
+        for (Skill skill : state.mCharacter.getSkillsIterator()) {
+            if (!skill.canHaveChildren()) {
+                mSkill = skill;
+                break;
+            }
+        }
+        mThread = new PrerequisitesThread(state.mSheet);
+        mThread.start();
+        mThread.markForUpdate().get();
+    }
+
+    /**
+     * Edits the character, then waits for the thread to have no pending work.
+     *
+     * @param state The sheet being edited.
+     * @param passes Collects the passes made.
+     */
+    @Benchmark
+    public void editAndSettle(SheetState state, Passes passes) throws Exception {
+        int started = mThread.getPassCount();
+        int abandoned = mThread.getAbortedPassCount();
+        mEdits++;
+        mSkill.setPoints(1 + mEdits % 4);
+        state.mCharacter.notifySingle(Skill.ID_LIST_CHANGED, null);
+        mThread.getIdleFuture().get();
+        passes.started += mThread.getPassCount() - started;
+        passes.abandoned += mThread.getAbortedPassCount() - abandoned;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.benchmark;
+
+import com.trollworks.gcs.character.GURPSCharacter;
+import com.trollworks.gcs.character.PrerequisitesThread;
+import com.trollworks.gcs.skill.Skill;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of bringing a character up to date after a change: applying the features of
+ * its rows, calculating its skill levels and a full pass of the prerequisites thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RecalculationBenchmark {
+    /**
+     * Builds and applies the feature index, using the same code as each pass of the prerequisites
+     * thread.
+     *
+     * @param state The sheet whose character is updated.
+     */
+    @Benchmark
+    public void setFeatureMap(SheetState state) throws Exception {
+        PrerequisitesThread.processFeaturesSynchronously(state.mSheet);
+    }
+
+    /**
+     * Calculates the level of every skill from scratch.
+     *
+     * @param state The character whose skills are calculated.
+     * @param blackhole Consumes the results.
+     */
+    @Benchmark
+    public void calculateSkillLevels(SheetState state, Blackhole blackhole) {
+        GURPSCharacter character = state.mCharacter;
+        for (Skill skill : character.getSkillsIterator()) {
+            if (!skill.canHaveChildren()) {
+                blackhole.consume(skill.calculateLevel(character, skill.getName(), skill.getSpecialization(), skill.getDefaults(), skill.getAttribute(), skill.getDifficulty(), skill.getPoints(), new HashSet<>(), skill.getEncumbrancePenaltyMultiplier()));
+            }
+        }
+    }
+
+    /**
+     * Resolves every feature and prerequisite of the character, as the prerequisites thread does
+     * after a change.
+     *
+     * @param state The sheet to process.
+     */
+    @Benchmark
+    public void prerequisites(SheetState state) throws Exception {
+        PrerequisitesThread.processSynchronously(state.mSheet);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.benchmark;
+
+import com.trollworks.gcs.app.GCS;
+import com.trollworks.gcs.character.CharacterSheet;
+import com.trollworks.gcs.character.GURPSCharacter;
+import com.trollworks.gcs.character.PrerequisitesThread;
+import com.trollworks.toolkit.ui.App;
+import com.trollworks.toolkit.ui.GraphicsUtilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A synthetic character, written out and loaded back in, along with a sheet laid out for it the
+ * same way the command line prepares sheets for export. The parameters control the size and shape
+ * of the character and are reported with each result; JMH requires them to be public fields.
+ */
+@State(Scope.Benchmark)
+public class SheetState {
+    /** The number of rows in each list. */
+    @Param({ "100", "500" })
+    public int     rows;
+    /** The length of the chains of skills that default to one another. */
+    @Param({ "4" })
+    public int     defaultDepth;
+    /** The number of modifiers on each advantage. */
+    @Param({ "3" })
+    public int     modifiers;
+    /** The depth of the containers that rows are placed in. */
+    @Param({ "2" })
+    public int     nesting;
+    File           mFile;
+    GURPSCharacter mCharacter;
+    CharacterSheet mSheet;
+
+    /** Creates the character and its sheet. */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        prepareEnvironment();
+        mFile = SyntheticData.write(new SyntheticData(rows, defaultDepth, modifiers, nesting).createCharacter(), "benchmark", GURPSCharacter.EXTENSION); //$NON-NLS-1$
+        mCharacter = new GURPSCharacter(mFile);
+        mSheet = new CharacterSheet(mCharacter);
+        mSheet.addNotify(); // Required to allow layout to work
+        mSheet.rebuild();
+        PrerequisitesThread.processSynchronously(mSheet);
+        mSheet.rebuild();
+        mSheet.setSize(mSheet.getPreferredSize());
+    }
+
+    /** Disposes of the sheet. */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mSheet.dispose();
+    }
+
+    /**
+     * Sets up the app the way the command line does before converting sheets. The user's home is
+     * moved to a temporary directory first, so that default preferences are used rather than the
+     * gcs.pref of whoever runs the benchmarks.
+     */
+    static void prepareEnvironment() throws IOException {
+        System.setProperty("user.home", Files.createTempDirectory("gcs-benchmark").toString()); //$NON-NLS-1$ //$NON-NLS-2$
+        App.setup(GCS.class);
+        GCS.initialize();
+        GraphicsUtilities.setHeadlessPrintMode(true);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.benchmark;
+
+import com.trollworks.gcs.character.GURPSCharacter;
+import com.trollworks.gcs.skill.Skill;
+import com.trollworks.gcs.skill.SkillAttribute;
+import com.trollworks.gcs.skill.SkillDefault;
+import com.trollworks.gcs.skill.SkillDefaultType;
+import com.trollworks.gcs.skill.SkillDifficulty;
+import com.trollworks.gcs.skill.SkillLevelMemo;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of recalculating every skill level on a synthetic sheet where a group of weapon
+ * skills all default to each other, with and without a {@link SkillLevelMemo} in place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SkillLevelBenchmark {
+    /** The number of skills that default to each other. */
+    @Param({ "60" })
+    public int               count;
+    /** Whether a {@link SkillLevelMemo} is in place while recalculating. */
+    @Param({ "false", "true" })
+    public boolean           memoize;
+    private ArrayList<Skill> mSkills;
+
+    /** Creates the skills. */
+    @Setup(Level.Trial)
+    public void setUp() {
+        mSkills = createSkills(new GURPSCharacter(), count);
+    }
+
+    /** Recalculates every skill level once. */
+    @Benchmark
+    public void recalculate() {
+        recalculate(mSkills, memoize);
+    }
+
+    private static ArrayList<Skill> createSkills(GURPSCharacter character, int count) {
+        ArrayList<Skill> skills = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Skill skill = new Skill(character, false);
+            skill.setName("Weapon " + i); //$NON-NLS-1$
+            skill.setDifficulty(SkillAttribute.DX, SkillDifficulty.A);
+            // Only every fourth skill has points, so the rest must resolve through their defaults.
+            skill.setPoints(i % 4 == 0 ? 1 + i % 8 : 0);
+            skills.add(skill);
+        }
+        for (int i = 0; i < count; i++) {
+            ArrayList<SkillDefault> defaults = new ArrayList<>(count);
+            for (int j = 0; j < count; j++) {
+                if (i != j) {
+                    defaults.add(new SkillDefault(SkillDefaultType.Skill, "Weapon " + j, null, -2 - (Math.abs(i - j) % 4))); //$NON-NLS-1$
+                }
+            }
+            skills.get(i).setDefaults(defaults);
+            character.getSkillsRoot().addRow(skills.get(i));
+        }
+        character.notifySingle(Skill.ID_LIST_CHANGED, null);
+        return skills;
+    }
+
+    private static void recalculate(ArrayList<Skill> skills, boolean memoize) {
+        SkillLevelMemo memo = memoize ? SkillLevelMemo.begin() : null;
+        try {
+            for (Skill skill : skills) {
+                skill.updateLevel(false);
+            }
+        } finally {
+            if (memo != null) {
+                memo.end();
+            }
+        }
+    }
+}
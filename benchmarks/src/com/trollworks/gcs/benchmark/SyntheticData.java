@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.benchmark;
+
+import com.trollworks.gcs.advantage.Advantage;
+import com.trollworks.gcs.advantage.AdvantageList;
+import com.trollworks.gcs.character.GURPSCharacter;
+import com.trollworks.gcs.common.DataFile;
+import com.trollworks.gcs.equipment.Equipment;
+import com.trollworks.gcs.feature.AttributeBonus;
+import com.trollworks.gcs.feature.BonusAttributeType;
+import com.trollworks.gcs.feature.Feature;
+import com.trollworks.gcs.feature.SkillBonus;
+import com.trollworks.gcs.modifier.Modifier;
+import com.trollworks.gcs.prereq.PrereqList;
+import com.trollworks.gcs.prereq.SkillPrereq;
+import com.trollworks.gcs.skill.Skill;
+import com.trollworks.gcs.skill.SkillAttribute;
+import com.trollworks.gcs.skill.SkillDefault;
+import com.trollworks.gcs.skill.SkillDefaultType;
+import com.trollworks.gcs.skill.SkillDifficulty;
+import com.trollworks.gcs.spell.Spell;
+import com.trollworks.gcs.widgets.outline.ListRow;
+import com.trollworks.toolkit.ui.widget.outline.OutlineModel;
+import com.trollworks.toolkit.utility.units.WeightUnits;
+import com.trollworks.toolkit.utility.units.WeightValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Generates characters and libraries of a controlled size and shape, so that benchmarks measure
+ * the same data from one run to the next without relying on any particular library being present.
+ */
+public class SyntheticData {
+    private int mRows;
+    private int mDefaultDepth;
+    private int mModifiers;
+    private int mNesting;
+
+    /**
+     * @param rows The number of rows to create in each list.
+     * @param defaultDepth The length of the chains of skills that default to one another.
+     * @param modifiers The number of modifiers on each advantage.
+     * @param nesting The depth of the containers that rows are placed in.
+     */
+    public SyntheticData(int rows, int defaultDepth, int modifiers, int nesting) {
+        mRows = rows;
+        mDefaultDepth = Math.max(defaultDepth, 1);
+        mModifiers = modifiers;
+        mNesting = nesting;
+    }
+
+    /** @return A new character holding advantages, skills, spells and equipment. */
+    public GURPSCharacter createCharacter() {
+        GURPSCharacter character = new GURPSCharacter();
+        character.getDescription().setName("Synthetic"); //$NON-NLS-1$
+        addAdvantages(character, character.getAdvantagesModel());
+        addSkills(character, character.getSkillsRoot());
+        addSpells(character, character.getSpellsRoot());
+        addEquipment(character, character.getEquipmentRoot());
+        return character;
+    }
+
+    /** @return A new advantages library. */
+    public AdvantageList createAdvantageList() {
+        AdvantageList list = new AdvantageList();
+        addAdvantages(list, list.getModel());
+        return list;
+    }
+
+    /**
+     * @param dataFile The data file to write.
+     * @param prefix The prefix for the name of the temporary file.
+     * @param extension The extension for the file.
+     * @return The temporary file the data file was written to. It will be removed when the VM
+     *         exits.
+     */
+    public static File write(DataFile dataFile, String prefix, String extension) throws IOException {
+        File file = File.createTempFile(prefix, "." + extension); //$NON-NLS-1$
+        file.deleteOnExit();
+        if (!dataFile.save(file)) {
+            throw new IOException("Unable to write " + file); //$NON-NLS-1$
+        }
+        return file;
+    }
+
+    private void addAdvantages(DataFile dataFile, OutlineModel model) {
+        List<ListRow> parents = createContainers(model, () -> new Advantage(dataFile, true), "Advantages"); //$NON-NLS-1$
+        for (int i = 0; i < mRows; i++) {
+            Advantage advantage = new Advantage(dataFile, false);
+            advantage.setName("Advantage " + i); //$NON-NLS-1$
+            advantage.setPoints(5);
+            advantage.setPointsPerLevel(i % 2 == 0 ? 0 : 3);
+            advantage.setLevels(i % 2 == 0 ? -1 : 1 + i % 4);
+            ArrayList<Modifier> modifiers = new ArrayList<>(mModifiers);
+            for (int j = 0; j < mModifiers; j++) {
+                Modifier modifier = new Modifier(dataFile);
+                modifier.setName("Modifier " + j); //$NON-NLS-1$
+                modifier.setCost(j % 2 == 0 ? 10 * (j + 1) : -5 * j);
+                modifiers.add(modifier);
+            }
+            advantage.setModifiers(modifiers);
+            ArrayList<Feature> features = new ArrayList<>();
+            SkillBonus skillBonus = new SkillBonus();
+            skillBonus.getNameCriteria().setQualifier(skillName(i));
+            features.add(skillBonus);
+            if (i % 10 == 0) {
+                AttributeBonus attributeBonus = new AttributeBonus();
+                attributeBonus.setAttribute(BonusAttributeType.values()[i / 10 % BonusAttributeType.values().length]);
+                features.add(attributeBonus);
+            }
+            advantage.setFeatures(features);
+            if (i % 3 == 0) {
+                advantage.setPrereqs(createSkillPrereq(i + 1));
+            }
+            add(model, parents, i, advantage);
+        }
+    }
+
+    private void addSkills(DataFile dataFile, OutlineModel model) {
+        List<ListRow> parents = createContainers(model, () -> new Skill(dataFile, true), "Skills"); //$NON-NLS-1$
+        for (int i = 0; i < mRows; i++) {
+            Skill skill = new Skill(dataFile, false);
+            skill.setName(skillName(i));
+            skill.setDifficulty(SkillAttribute.values()[i % 4], SkillDifficulty.values()[i % 4]);
+            ArrayList<SkillDefault> defaults = new ArrayList<>();
+            defaults.add(new SkillDefault(SkillDefaultType.DX, null, null, -5));
+            if (i % mDefaultDepth == 0) {
+                // The head of each chain has points, so the rest must resolve through their defaults
+                skill.setPoints(1 + i % 8);
+            } else {
+                defaults.add(new SkillDefault(SkillDefaultType.Skill, skillName(i - 1), null, -2));
+            }
+            skill.setDefaults(defaults);
+            if (i % 5 == 0 && i > 0) {
+                skill.setPrereqs(createSkillPrereq(i - 1));
+            }
+            add(model, parents, i, skill);
+        }
+    }
+
+    private void addSpells(DataFile dataFile, OutlineModel model) {
+        List<ListRow> parents = createContainers(model, () -> new Spell(dataFile, true), "Spells"); //$NON-NLS-1$
+        int count = mRows / 2;
+        for (int i = 0; i < count; i++) {
+            Spell spell = new Spell(dataFile, false);
+            spell.setName("Spell " + i); //$NON-NLS-1$
+            spell.setCollege("College " + i % 10); //$NON-NLS-1$
+            spell.setPoints(1 + i % 4);
+            add(model, parents, i, spell);
+        }
+    }
+
+    private void addEquipment(DataFile dataFile, OutlineModel model) {
+        List<ListRow> parents = createContainers(model, () -> new Equipment(dataFile, true), "Equipment"); //$NON-NLS-1$
+        for (int i = 0; i < mRows; i++) {
+            Equipment equipment = new Equipment(dataFile, false);
+            equipment.setDescription("Item " + i); //$NON-NLS-1$
+            equipment.setQuantity(1 + i % 3);
+            equipment.setValue(10 + i % 100);
+            equipment.setWeight(new WeightValue(1 + i % 5, WeightUnits.LB));
+            add(model, parents, i, equipment);
+        }
+    }
+
+    private static String skillName(int index) {
+        return "Skill " + index; //$NON-NLS-1$
+    }
+
+    private static PrereqList createSkillPrereq(int skillIndex) {
+        PrereqList prereqs = new PrereqList(null, true);
+        SkillPrereq prereq = new SkillPrereq(prereqs);
+        prereq.getNameCriteria().setQualifier(skillName(skillIndex));
+        prereqs.add(0, prereq);
+        return prereqs;
+    }
+
+    /**
+     * Creates one chain of nested containers for every ten rows, returning the innermost container
+     * of each chain, or an empty list if rows aren't to be nested.
+     */
+    private List<ListRow> createContainers(OutlineModel model, Supplier<ListRow> factory, String name) {
+        ArrayList<ListRow> parents = new ArrayList<>();
+        if (mNesting > 0) {
+            int chains = Math.max(mRows / 10, 1);
+            for (int i = 0; i < chains; i++) {
+                ListRow parent = null;
+                for (int depth = 0; depth < mNesting; depth++) {
+                    ListRow container = factory.get();
+                    if (container instanceof Advantage) {
+                        ((Advantage) container).setName(name + " " + i + "." + depth); //$NON-NLS-1$ //$NON-NLS-2$
+                    } else if (container instanceof Skill) {
+                        ((Skill) container).setName(name + " " + i + "." + depth); //$NON-NLS-1$ //$NON-NLS-2$
+                    } else if (container instanceof Spell) {
+                        ((Spell) container).setName(name + " " + i + "." + depth); //$NON-NLS-1$ //$NON-NLS-2$
+                    } else if (container instanceof Equipment) {
+                        ((Equipment) container).setDescription(name + " " + i + "." + depth); //$NON-NLS-1$ //$NON-NLS-2$
+                    }
+                    if (parent == null) {
+                        model.addRow(container);
+                    } else {
+                        parent.addChild(container);
+                    }
+                    parent = container;
+                }
+                parents.add(parent);
+            }
+        }
+        return parents;
+    }
+
+    private static void add(OutlineModel model, List<ListRow> parents, int index, ListRow row) {
+        if (parents.isEmpty()) {
+            model.addRow(row);
+        } else {
+            parents.get(index % parents.size()).addChild(row);
+        }
+    }
+}
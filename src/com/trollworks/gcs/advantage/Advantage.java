@@ -32,6 +32,7 @@ import com.trollworks.toolkit.io.xml.XMLReader;
 import com.trollworks.toolkit.io.xml.XMLWriter;
 import com.trollworks.toolkit.ui.image.StdImage;
 import com.trollworks.toolkit.ui.widget.outline.Column;
+import com.trollworks.toolkit.ui.widget.outline.OutlineModel;
 import com.trollworks.toolkit.ui.widget.outline.Row;
 import com.trollworks.toolkit.utility.Localization;
 import com.trollworks.toolkit.utility.text.Enums;
@@ -136,6 +137,8 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
     private ArrayList<Modifier>        mModifiers;
     private boolean                    mRoundCostDown;
     private boolean                    mDisabled;
+    private boolean                    mAdjustedPointsCached;
+    private int                        mCachedAdjustedPoints;
 
     /**
      * Creates a new advantage.
@@ -188,7 +191,9 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
         }
         mModifiers = new ArrayList<>(advantage.mModifiers.size());
         for (Modifier modifier : advantage.mModifiers) {
-            mModifiers.add(new Modifier(mDataFile, modifier));
+            Modifier copy = new Modifier(mDataFile, modifier);
+            copy.setOwner(this);
+            mModifiers.add(copy);
         }
         if (deep) {
             int count = advantage.getChildCount();
@@ -283,7 +288,9 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
         } else if (!state.mForUndo && (TAG_ADVANTAGE.equals(name) || TAG_ADVANTAGE_CONTAINER.equals(name))) {
             addChild(new Advantage(mDataFile, reader, state));
         } else if (Modifier.TAG_MODIFIER.equals(name)) {
-            mModifiers.add(new Modifier(getDataFile(), reader, state));
+            Modifier modifier = new Modifier(getDataFile(), reader, state);
+            modifier.setOwner(this);
+            mModifiers.add(modifier);
         } else if (!canHaveChildren()) {
             if (TAG_TYPE.equals(name)) {
                 mType = getTypeFromText(reader.readText());
@@ -311,6 +318,11 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
         }
     }
 
+    @Override
+    protected boolean isDetailTag(String name) {
+        return !SkillDefault.TAG_ROOT.equals(name) && super.isDetailTag(name);
+    }
+
     @Override
     protected void finishedLoading(LoadState state) {
         if (mOldPointsString != null) {
@@ -344,6 +356,7 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
         }
         // We no longer have defaults... that was solely for the weapons
         setDefaults(new ArrayList<SkillDefault>());
+        invalidateAdjustedPointsOfTree();
         super.finishedLoading(state);
     }
 
@@ -416,6 +429,7 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
     public boolean setContainerType(AdvantageContainerType type) {
         if (mContainerType != type) {
             mContainerType = type;
+            invalidateAdjustedPoints();
             notifySingle(ID_CONTAINER_TYPE);
             return true;
         }
@@ -475,6 +489,7 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
     public boolean setCR(SelfControlRoll cr) {
         if (mCR != cr) {
             mCR = cr;
+            invalidateAdjustedPoints();
             notifySingle(ID_CR);
             return true;
         }
@@ -516,6 +531,7 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
     public boolean setLevels(int levels) {
         if (mLevels != levels) {
             mLevels = levels;
+            invalidateAdjustedPoints();
             notifySingle(ID_LEVELS);
             return true;
         }
@@ -539,6 +555,7 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
     public boolean setHalfLevel(boolean halfLevel) {
         if (mHalfLevel != halfLevel) {
             mHalfLevel = halfLevel;
+            invalidateAdjustedPoints();
             notifySingle(ID_HALF_LEVEL);
             return true;
         }
@@ -567,24 +584,33 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
 
     /** @return The total points, taking levels into account. */
     public int getAdjustedPoints() {
+        if (!mAdjustedPointsCached) {
+            mCachedAdjustedPoints = calculateAdjustedPoints();
+            mAdjustedPointsCached = true;
+        }
+        return mCachedAdjustedPoints;
+    }
+
+    private int calculateAdjustedPoints() {
         if (isDisabled()) {
             return 0;
         }
         if (canHaveChildren()) {
             int points = 0;
             if (mContainerType == AdvantageContainerType.ALTERNATIVE_ABILITIES) {
-                ArrayList<Integer> values = new ArrayList<>();
+                int[] values = new int[getChildCount()];
+                int count = 0;
                 for (Advantage child : new FilteredIterator<>(getChildren(), Advantage.class)) {
                     int pts = child.getAdjustedPoints();
-                    values.add(new Integer(pts));
+                    values[count++] = pts;
                     if (pts > points) {
                         points = pts;
                     }
                 }
                 int max = points;
                 boolean found = false;
-                for (Integer one : values) {
-                    int value = one.intValue();
+                for (int i = 0; i < count; i++) {
+                    int value = values[i];
                     if (!found && max == value) {
                         found = true;
                     } else {
@@ -601,6 +627,49 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
         return getAdjustedPoints(mPoints, mLevels, mAllowHalfLevels && mHalfLevel, mPointsPerLevel, mCR, getAllModifiers(), mRoundCostDown);
     }
 
+    /**
+     * Discards the cached point cost of this advantage and of each container above it, so that
+     * they will be recalculated upon next use.
+     */
+    public void invalidateAdjustedPoints() {
+        Row row = this;
+        while (row instanceof Advantage) {
+            ((Advantage) row).mAdjustedPointsCached = false;
+            row = row.getParent();
+        }
+    }
+
+    /**
+     * Discards the cached point cost of this advantage, of everything below it and of each
+     * container above it. Used for changes that are inherited by children, such as modifiers and
+     * the enabled state.
+     */
+    public void invalidateAdjustedPointsOfTree() {
+        invalidateAdjustedPointsOfChildren();
+        invalidateAdjustedPoints();
+    }
+
+    private void invalidateAdjustedPointsOfChildren() {
+        if (canHaveChildren()) {
+            for (Advantage child : new FilteredIterator<>(getChildren(), Advantage.class)) {
+                child.mAdjustedPointsCached = false;
+                child.invalidateAdjustedPointsOfChildren();
+            }
+        }
+    }
+
+    /**
+     * Discards the cached point costs of every advantage in a model. Used when rows have been
+     * added, removed or moved, or when the rules for modifiers have changed.
+     *
+     * @param model The model holding the advantages.
+     */
+    public static void invalidateAdjustedPoints(OutlineModel model) {
+        for (Advantage advantage : new FilteredIterator<>(model.getTopLevelRows(), Advantage.class)) {
+            advantage.invalidateAdjustedPointsOfTree();
+        }
+    }
+
     private static int applyRounding(double value, boolean roundCostDown) {
         return (int) (roundCostDown ? Math.floor(value) : Math.ceil(value));
     }
@@ -637,6 +706,7 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
     public boolean setEnabled(boolean enabled) {
         if (mDisabled == enabled) {
             mDisabled = !enabled;
+            invalidateAdjustedPointsOfTree();
             startNotify();
             notify(ID_DISABLED, this);
             notify(ID_POINTS, this);
@@ -769,6 +839,7 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
     public boolean setPoints(int points) {
         if (mPoints != points) {
             mPoints = points;
+            invalidateAdjustedPoints();
             notifySingle(ID_POINTS);
             return true;
         }
@@ -787,6 +858,7 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
     public boolean setPointsPerLevel(int points) {
         if (mPointsPerLevel != points) {
             mPointsPerLevel = points;
+            invalidateAdjustedPoints();
             notifySingle(ID_POINTS);
             return true;
         }
@@ -829,6 +901,7 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
     public boolean setShouldRoundCostDown(boolean shouldRoundDown) {
         if (mRoundCostDown != shouldRoundDown) {
             mRoundCostDown = shouldRoundDown;
+            invalidateAdjustedPoints();
             notifySingle(ID_ROUND_COST_DOWN);
             return true;
         }
@@ -843,6 +916,7 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
     public boolean setAllowHalfLevels(boolean allowHalfLevels) {
         if (mAllowHalfLevels != allowHalfLevels) {
             mAllowHalfLevels = allowHalfLevels;
+            invalidateAdjustedPoints();
             notifySingle(ID_ALLOW_HALF_LEVELS);
             return true;
         }
@@ -1034,6 +1108,10 @@ public class Advantage extends ListRow implements HasSourceReference, Switchable
     public boolean setModifiers(List<Modifier> modifiers) {
         if (!mModifiers.equals(modifiers)) {
             mModifiers = new ArrayList<>(modifiers);
+            for (Modifier modifier : mModifiers) {
+                modifier.setOwner(this);
+            }
+            invalidateAdjustedPointsOfTree();
             notifySingle(ID_MODIFIER_STATUS_CHANGED);
             return true;
         }
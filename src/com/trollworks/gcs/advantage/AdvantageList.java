@@ -51,6 +51,14 @@ public class AdvantageList extends ListFile {
         return GCSImages.getAdvantagesDocumentIcons();
     }
 
+    @Override
+    public void notify(String type, Object data) {
+        super.notify(type, data);
+        if (Advantage.ID_LIST_CHANGED.equals(type)) {
+            Advantage.invalidateAdjustedPoints(getModel());
+        }
+    }
+
     @Override
     protected void loadList(XMLReader reader, LoadState state) throws IOException {
         OutlineModel model = getModel();
@@ -67,4 +75,9 @@ public class AdvantageList extends ListFile {
             }
         } while (reader.withinMarker(marker));
     }
+
+    @Override
+    public boolean isRowTag(String name) {
+        return Advantage.TAG_ADVANTAGE.equals(name) || Advantage.TAG_ADVANTAGE_CONTAINER.equals(name);
+    }
 }
@@ -13,9 +13,11 @@ package com.trollworks.gcs.app;
 
 import com.trollworks.gcs.advantage.AdvantageList;
 import com.trollworks.gcs.character.CharacterSheet;
+import com.trollworks.gcs.character.ExportTiming;
 import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.character.PrerequisitesThread;
 import com.trollworks.gcs.character.TextTemplate;
+import com.trollworks.gcs.common.NotificationStats;
 import com.trollworks.gcs.equipment.EquipmentList;
 import com.trollworks.gcs.library.LibraryFile;
 import com.trollworks.gcs.skill.SkillList;
@@ -41,11 +43,18 @@ import com.trollworks.toolkit.utility.text.Numbers;
 import com.trollworks.toolkit.utility.units.LengthUnits;
 
 import java.io.File;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /** The main entry point for the character sheet. */
 public class GCS {
@@ -162,6 +171,22 @@ public class GCS {
     private static String INVALID_PAPER_MARGINS;
     @Localize("    Used text template file \"{0}\".")
     private static String TEMPLATE_USED;
+    @Localize("    Layout: {0}, paint: {1}, encode: {2}")
+    private static String EXPORT_TIMING;
+    @Localize("    Notifications: {0} batch(es), {1} sent, {2} coalesced, largest batch {3}")
+    private static String NOTIFICATIONS;
+    @Localize("Also report the notifications sent while preparing each sheet.")
+    private static String VERBOSE_OPTION_DESCRIPTION;
+    @Localize("The number of sheets to convert concurrently. Defaults to 1.")
+    private static String JOBS_OPTION_DESCRIPTION;
+    @Localize("  Finished \"{0}\" in {1}.")
+    private static String FILE_FINISHED;
+    @Localize("\n{0} sheet(s) processed, {1} failed, {2} file(s) created.")
+    private static String SUMMARY;
+    @Localize("The following sheets could not be converted:")
+    private static String FAILURES;
+    @Localize("    {0}")
+    private static String FAILED_FILE;
 
     static {
         System.setProperty("locale.file", ".gcs_language"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -174,6 +199,8 @@ public class GCS {
     private static final CmdLineOption PNG_OPTION           = new CmdLineOption(PNG_OPTION_DESCRIPTION, null, FileType.PNG_EXTENSION);
     private static final CmdLineOption SIZE_OPTION          = new CmdLineOption(SIZE_OPTION_DESCRIPTION, "SIZE", "paper");                            								//$NON-NLS-1$ //$NON-NLS-2$
     private static final CmdLineOption MARGIN_OPTION        = new CmdLineOption(MARGIN_OPTION_DESCRIPTION, "MARGINS", "margins");                     						//$NON-NLS-1$ //$NON-NLS-2$
+    private static final CmdLineOption JOBS_OPTION          = new CmdLineOption(JOBS_OPTION_DESCRIPTION, "N", "jobs");                                     						//$NON-NLS-1$ //$NON-NLS-2$
+    private static final CmdLineOption VERBOSE_OPTION       = new CmdLineOption(VERBOSE_OPTION_DESCRIPTION, null, "verbose");                         									//$NON-NLS-1$
     private static final String        REFERENCE_URL        = "http://gcs.trollworks.com";                                                            																//$NON-NLS-1$
 
     /**
@@ -185,7 +212,7 @@ public class GCS {
         App.setup(GCS.class);
         Dice.setAssumedSideCount(6);
         CmdLine cmdLine = new CmdLine();
-        cmdLine.addOptions(TEXT_OPTION, TEXT_TEMPLATE_OPTION, PDF_OPTION, PNG_OPTION, SIZE_OPTION, MARGIN_OPTION);
+        cmdLine.addOptions(TEXT_OPTION, TEXT_TEMPLATE_OPTION, PDF_OPTION, PNG_OPTION, SIZE_OPTION, MARGIN_OPTION, JOBS_OPTION, VERBOSE_OPTION);
         cmdLine.processArguments(args);
         if (cmdLine.isOptionUsed(TEXT_OPTION) || cmdLine.isOptionUsed(PDF_OPTION) || cmdLine.isOptionUsed(PNG_OPTION)) {
             System.setProperty("java.awt.headless", Boolean.TRUE.toString()); //$NON-NLS-1$
@@ -193,11 +220,19 @@ public class GCS {
             Timing timing = new Timing();
             System.out.println(BundleInfo.getDefault().getAppBanner());
             System.out.println();
-            if (convert(cmdLine) < 1) {
+            ArrayList<File> failures = new ArrayList<>();
+            if (convert(cmdLine, failures) < 1 && failures.isEmpty()) {
                 System.out.println(NO_FILES_TO_PROCESS);
                 System.exit(1);
             }
             System.out.println(MessageFormat.format(FINISHED, timing));
+            if (!failures.isEmpty()) {
+                System.out.println(FAILURES);
+                for (File file : failures) {
+                    System.out.println(MessageFormat.format(FAILED_FILE, file));
+                }
+                System.exit(1);
+            }
             System.exit(0);
         } else {
             LaunchProxy.configure(cmdLine.getArgumentsAsFiles());
@@ -211,7 +246,8 @@ public class GCS {
         }
     }
 
-    private static void initialize() {
+    /** Prepares the fonts, preferences and file types that laying out and exporting sheets rely on. */
+    public static void initialize() {
         GraphicsUtilities.configureStandardUI();
         Preferences.setPreferenceFile("gcs.pref"); //$NON-NLS-1$
         GCSFonts.register();
@@ -254,103 +290,205 @@ public class GCS {
         FileType.registerPng(null, null, false, false);
     }
 
-    private static int convert(CmdLine cmdLine) {
+    private static int convert(CmdLine cmdLine, ArrayList<File> failures) {
         boolean text = cmdLine.isOptionUsed(GCS.TEXT_OPTION);
         boolean pdf = cmdLine.isOptionUsed(GCS.PDF_OPTION);
         boolean png = cmdLine.isOptionUsed(GCS.PNG_OPTION);
+        boolean verbose = cmdLine.isOptionUsed(GCS.VERBOSE_OPTION);
         int count = 0;
 
         if (text || pdf || png) {
             double[] paperSize = getPaperSize(cmdLine);
             double[] margins = getMargins(cmdLine);
-            Timing timing = new Timing();
             String textTemplateOption = cmdLine.getOptionArgument(GCS.TEXT_TEMPLATE_OPTION);
             File textTemplate = null;
+            ArrayList<Conversion> conversions = new ArrayList<>();
+            ArrayList<Future<Conversion>> results = new ArrayList<>();
+            ExecutorService executor = Executors.newFixedThreadPool(getJobs(cmdLine));
 
             if (textTemplateOption != null) {
                 textTemplate = new File(textTemplateOption);
             }
+            if (text) {
+                textTemplate = TextTemplate.resolveTextTemplate(textTemplate);
+            }
             GraphicsUtilities.setHeadlessPrintMode(true);
             for (File file : cmdLine.getArgumentsAsFiles()) {
                 if (GURPSCharacter.EXTENSION.equals(PathUtils.getExtension(file.getName())) && file.canRead()) {
-                    System.out.print(MessageFormat.format(LOADING, file));
-                    System.out.flush();
-                    timing.reset();
-                    try {
-                        GURPSCharacter character = new GURPSCharacter(file);
-                        CharacterSheet sheet = new CharacterSheet(character);
-                        PrerequisitesThread prereqs = new PrerequisitesThread(sheet);
-                        PrintManager settings = character.getPageSettings();
-                        File output;
-                        boolean success;
-
-                        sheet.addNotify(); // Required to allow layout to work
-                        sheet.rebuild();
-                        prereqs.start();
-                        PrerequisitesThread.waitForProcessingToFinish(character);
-
-                        if (paperSize != null && settings != null) {
-                            settings.setPageSize(paperSize, LengthUnits.IN);
-                        }
-                        if (margins != null && settings != null) {
-                            settings.setPageMargins(margins, LengthUnits.IN);
-                        }
-                        sheet.rebuild();
-                        sheet.setSize(sheet.getPreferredSize());
-
-                        System.out.println(timing);
-                        if (text) {
-                            System.out.print(CREATING_TEXT);
-                            System.out.flush();
-                            textTemplate = TextTemplate.resolveTextTemplate(textTemplate);
-                            output = new File(file.getParentFile(), PathUtils.enforceExtension(PathUtils.getLeafName(file.getName(), false), PathUtils.getExtension(textTemplate.getName())));
-                            timing.reset();
-                            success = new TextTemplate(sheet).export(output, textTemplate);
-                            System.out.println(timing);
-                            System.out.println(MessageFormat.format(TEMPLATE_USED, PathUtils.getFullPath(textTemplate)));
-                            if (success) {
-                                System.out.println(MessageFormat.format(CREATED, output));
-                                count++;
-                            }
-                        }
-                        if (pdf) {
-                            System.out.print(CREATING_PDF);
-                            System.out.flush();
-                            output = new File(file.getParentFile(), PathUtils.enforceExtension(PathUtils.getLeafName(file.getName(), false), FileType.PDF_EXTENSION));
-                            timing.reset();
-                            success = sheet.saveAsPDF(output);
-                            System.out.println(timing);
-                            if (success) {
-                                System.out.println(MessageFormat.format(CREATED, output));
-                                count++;
-                            }
-                        }
-                        if (png) {
-                            ArrayList<File> result = new ArrayList<>();
-
-                            System.out.print(CREATING_PNG);
-                            System.out.flush();
-                            output = new File(file.getParentFile(), PathUtils.enforceExtension(PathUtils.getLeafName(file.getName(), false), FileType.PNG_EXTENSION));
-                            timing.reset();
-                            success = sheet.saveAsPNG(output, result);
-                            System.out.println(timing);
-                            for (File one : result) {
-                                System.out.println(MessageFormat.format(CREATED, one));
-                                count++;
-                            }
-                        }
-                        sheet.dispose();
-                    } catch (Exception exception) {
-                        exception.printStackTrace();
-                        System.out.println(PROCESSING_FAILED);
-                    }
+                    Conversion conversion = new Conversion(file, text ? textTemplate : null, pdf, png, paperSize, margins, verbose);
+                    conversions.add(conversion);
+                    results.add(executor.submit(conversion));
+                }
+            }
+            executor.shutdown();
+            // Report in the order the files were given, as each completes.
+            for (int i = 0; i < conversions.size(); i++) {
+                Conversion conversion = conversions.get(i);
+                try {
+                    results.get(i).get();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    exception.printStackTrace();
+                    break;
+                } catch (ExecutionException exception) {
+                    conversion.failed(exception.getCause());
+                }
+                System.out.print(conversion.mLog);
+                System.out.flush();
+                count += conversion.mCreated;
+                if (conversion.mFailed) {
+                    failures.add(conversion.mFile);
                 }
             }
             GraphicsUtilities.setHeadlessPrintMode(false);
+            System.out.println(MessageFormat.format(SUMMARY, Integer.valueOf(conversions.size()), Integer.valueOf(failures.size()), Integer.valueOf(count)));
         }
         return count;
     }
 
+    private static int getJobs(CmdLine cmdLine) {
+        if (cmdLine.isOptionUsed(GCS.JOBS_OPTION)) {
+            return Math.max(Numbers.extractInteger(cmdLine.getOptionArgument(GCS.JOBS_OPTION), 1, true), 1);
+        }
+        return 1;
+    }
+
+    /** Converts a single sheet, collecting its output so that concurrent conversions don't mix. */
+    private static class Conversion implements Callable<Conversion> {
+        private File          mFile;
+        private File          mTextTemplate;
+        private boolean       mPDF;
+        private boolean       mPNG;
+        private double[]      mPaperSize;
+        private double[]      mMargins;
+        private boolean       mVerbose;
+        private StringBuilder mLog;
+        private int           mCreated;
+        private boolean       mFailed;
+
+        Conversion(File file, File textTemplate, boolean pdf, boolean png, double[] paperSize, double[] margins, boolean verbose) {
+            mFile = file;
+            mTextTemplate = textTemplate;
+            mPDF = pdf;
+            mPNG = png;
+            mPaperSize = paperSize;
+            mMargins = margins;
+            mVerbose = verbose;
+            mLog = new StringBuilder();
+        }
+
+        /**
+         * Loads, builds and exports the sheet on the calling thread. The sheet is never displayed
+         * and schedules no layouts on the event dispatch thread, so nothing it holds is shared with
+         * other conversions.
+         */
+        @Override
+        public Conversion call() {
+            Timing overall = new Timing();
+            Timing timing = new Timing();
+            mLog.append(MessageFormat.format(LOADING, mFile));
+            try {
+                export(new GURPSCharacter(mFile), timing);
+            } catch (Exception exception) {
+                failed(exception);
+            }
+            mLog.append(MessageFormat.format(FILE_FINISHED, mFile, overall)).append('\n');
+            return this;
+        }
+
+        private void export(GURPSCharacter character, Timing timing) {
+            try {
+                CharacterSheet sheet = new CharacterSheet(character);
+                PrintManager settings = character.getPageSettings();
+                File output;
+
+                sheet.layoutOnRequestOnly();
+                sheet.addNotify(); // Required to allow layout to work
+                sheet.rebuild();
+                PrerequisitesThread.processSynchronously(sheet);
+
+                if (mPaperSize != null && settings != null) {
+                    settings.setPageSize(mPaperSize, LengthUnits.IN);
+                }
+                if (mMargins != null && settings != null) {
+                    settings.setPageMargins(mMargins, LengthUnits.IN);
+                }
+                sheet.markForRebuild();
+                sheet.run();
+                sheet.setSize(sheet.getPreferredSize());
+
+                mLog.append(timing).append('\n');
+                if (mTextTemplate != null) {
+                    mLog.append(CREATING_TEXT);
+                    output = new File(mFile.getParentFile(), PathUtils.enforceExtension(PathUtils.getLeafName(mFile.getName(), false), PathUtils.getExtension(mTextTemplate.getName())));
+                    timing.reset();
+                    boolean success = new TextTemplate(sheet).export(output, mTextTemplate);
+                    mLog.append(timing).append('\n');
+                    mLog.append(MessageFormat.format(TEMPLATE_USED, PathUtils.getFullPath(mTextTemplate))).append('\n');
+                    created(output, success);
+                }
+                if (mPDF) {
+                    mLog.append(CREATING_PDF);
+                    output = new File(mFile.getParentFile(), PathUtils.enforceExtension(PathUtils.getLeafName(mFile.getName(), false), FileType.PDF_EXTENSION));
+                    ExportTiming breakdown = new ExportTiming();
+                    timing.reset();
+                    boolean success = sheet.saveAsPDF(output, breakdown);
+                    mLog.append(timing).append('\n');
+                    logBreakdown(breakdown);
+                    created(output, success);
+                }
+                if (mPNG) {
+                    ArrayList<File> result = new ArrayList<>();
+
+                    mLog.append(CREATING_PNG);
+                    output = new File(mFile.getParentFile(), PathUtils.enforceExtension(PathUtils.getLeafName(mFile.getName(), false), FileType.PNG_EXTENSION));
+                    ExportTiming breakdown = new ExportTiming();
+                    timing.reset();
+                    boolean success = sheet.saveAsPNG(output, result, breakdown);
+                    mLog.append(timing).append('\n');
+                    logBreakdown(breakdown);
+                    for (File one : result) {
+                        created(one, true);
+                    }
+                    if (!success) {
+                        mFailed = true;
+                    }
+                }
+                if (mVerbose) {
+                    logNotifications(character.getNotificationStats());
+                }
+                sheet.dispose();
+            } catch (Exception exception) {
+                failed(exception);
+            }
+        }
+
+        void failed(Throwable throwable) {
+            StringWriter trace = new StringWriter();
+            throwable.printStackTrace(new PrintWriter(trace));
+            mLog.append('\n').append(trace);
+            mLog.append(PROCESSING_FAILED).append('\n');
+            mFailed = true;
+        }
+
+        private void logBreakdown(ExportTiming breakdown) {
+            mLog.append(MessageFormat.format(EXPORT_TIMING, ExportTiming.format(breakdown.getLayoutTime()), ExportTiming.format(breakdown.getPaintTime()), ExportTiming.format(breakdown.getEncodeTime()))).append('\n');
+        }
+
+        private void logNotifications(NotificationStats stats) {
+            mLog.append(MessageFormat.format(NOTIFICATIONS, Long.valueOf(stats.getBatchCount()), Long.valueOf(stats.getEventCount()), Long.valueOf(stats.getCoalescedCount()), Integer.valueOf(stats.getLargestBatchEventCount()))).append('\n');
+        }
+
+        private void created(File output, boolean success) {
+            if (success) {
+                mLog.append(MessageFormat.format(CREATED, output)).append('\n');
+                mCreated++;
+            } else {
+                mFailed = true;
+            }
+        }
+    }
+
     private static double[] getPaperSize(CmdLine cmdLine) {
         if (cmdLine.isOptionUsed(GCS.SIZE_OPTION)) {
             String argument = cmdLine.getOptionArgument(GCS.SIZE_OPTION);
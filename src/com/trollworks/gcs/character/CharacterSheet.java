@@ -19,11 +19,14 @@ import com.trollworks.gcs.advantage.Advantage;
 import com.trollworks.gcs.advantage.AdvantageOutline;
 import com.trollworks.gcs.app.GCSApp;
 import com.trollworks.gcs.app.GCSFonts;
+import com.trollworks.gcs.character.PageAssembler.Checkpoint;
+import com.trollworks.gcs.common.NotificationRouter;
 import com.trollworks.gcs.equipment.Equipment;
 import com.trollworks.gcs.equipment.EquipmentColumn;
 import com.trollworks.gcs.equipment.EquipmentOutline;
 import com.trollworks.gcs.notes.Note;
 import com.trollworks.gcs.notes.NoteOutline;
+import com.trollworks.gcs.page.PNGEncoder;
 import com.trollworks.gcs.page.Page;
 import com.trollworks.gcs.page.PageField;
 import com.trollworks.gcs.page.PageOwner;
@@ -100,13 +103,23 @@ import java.awt.print.PageFormat;
 import java.awt.print.Paper;
 import java.io.File;
 import java.io.FileOutputStream;
-import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JPanel;
 import javax.swing.RepaintManager;
@@ -193,29 +206,58 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
         Localization.initialize();
     }
 
-    private static final String BOXING_SKILL_NAME   = "Boxing";  		//$NON-NLS-1$
-    private static final String KARATE_SKILL_NAME   = "Karate";  		//$NON-NLS-1$
-    private static final String BRAWLING_SKILL_NAME = "Brawling";	//$NON-NLS-1$
-    private static final int    GAP                 = 2;
-    private Scale               mScale;
-    private GURPSCharacter      mCharacter;
-    private int                 mLastPage;
-    private boolean             mBatchMode;
-    private AdvantageOutline    mAdvantageOutline;
-    private SkillOutline        mSkillOutline;
-    private SpellOutline        mSpellOutline;
-    private EquipmentOutline    mEquipmentOutline;
-    private NoteOutline         mNoteOutline;
-    private Outline             mMeleeWeaponOutline;
-    private Outline             mRangedWeaponOutline;
-    private boolean             mRebuildPending;
-    private Set<Outline>        mRootsToSync;
-    private PrintManager        mPrintManager;
-    private Scale               mSavedScale;
-    private boolean             mOkToPaint          = true;
-    private boolean             mIsPrinting;
-    private boolean             mSyncWeapons;
-    private boolean             mDisposed;
+    private static final String             BOXING_SKILL_NAME   = "Boxing";  		//$NON-NLS-1$
+    private static final String             KARATE_SKILL_NAME   = "Karate";  		//$NON-NLS-1$
+    private static final String             BRAWLING_SKILL_NAME = "Brawling";	//$NON-NLS-1$
+    private static final int                GAP                 = 2;
+    private static final int                PNG_PAGES_IN_FLIGHT = 4;
+    private static final int                ROUTE_REBUILD       = 1 << 0;
+    private static final int                ROUTE_ADVANTAGES    = 1 << 1;
+    private static final int                ROUTE_SKILLS        = 1 << 2;
+    private static final int                ROUTE_SPELLS        = 1 << 3;
+    private static final int                ROUTE_EQUIPMENT     = 1 << 4;
+    private static final int                ROUTE_NOTES         = 1 << 5;
+    private static final int                ROUTE_LAST_MODIFIED = 1 << 6;
+    private static final int                ROUTE_WEAPONS       = 1 << 7;
+    private static final int                ROUTE_WEAPON_LEVELS = 1 << 8;
+    private static final int                ROUTE_CARRIED       = 1 << 9;
+    private static final NotificationRouter ROUTER              = new NotificationRouter();
+    private Scale                           mScale;
+    private GURPSCharacter                  mCharacter;
+    private int                             mLastPage;
+    private boolean                         mBatchMode;
+    private AdvantageOutline                mAdvantageOutline;
+    private SkillOutline                    mSkillOutline;
+    private SpellOutline                    mSpellOutline;
+    private EquipmentOutline                mEquipmentOutline;
+    private NoteOutline                     mNoteOutline;
+    private Outline                         mMeleeWeaponOutline;
+    private Outline                         mRangedWeaponOutline;
+    private boolean                         mRebuildPending;
+    private boolean                         mFullRebuildPending;
+    private Set<Outline>                    mRootsToSync;
+    private List<Outline[]>                 mSections;
+    private List<Checkpoint>                mSectionStarts;
+    private PrintManager                    mPrintManager;
+    private Scale                           mSavedScale;
+    private boolean                         mOkToPaint          = true;
+    private boolean                         mIsPrinting;
+    private boolean                         mSyncWeapons;
+    private boolean                         mDisposed;
+    private boolean                         mLayoutOnRequestOnly;
+
+    static {
+        ROUTER.add(ROUTE_REBUILD, SheetPreferences.OPTIONAL_DICE_RULES_PREF_KEY, Fonts.FONT_NOTIFICATION_KEY, SheetPreferences.WEIGHT_UNITS_PREF_KEY, SheetPreferences.GURPS_METRIC_RULES_PREF_KEY, Profile.ID_BODY_TYPE, SheetPreferences.OPTIONAL_STRENGTH_RULES_PREF_KEY, SheetPreferences.OPTIONAL_REDUCED_SWING_PREF_KEY);
+        ROUTER.addPrefix(ROUTE_ADVANTAGES, Advantage.PREFIX);
+        ROUTER.addPrefix(ROUTE_SKILLS, Skill.PREFIX);
+        ROUTER.addPrefix(ROUTE_SPELLS, Spell.PREFIX);
+        ROUTER.addPrefix(ROUTE_EQUIPMENT, Equipment.PREFIX);
+        ROUTER.addPrefix(ROUTE_NOTES, Note.PREFIX);
+        ROUTER.add(ROUTE_LAST_MODIFIED, GURPSCharacter.ID_LAST_MODIFIED);
+        ROUTER.add(ROUTE_WEAPONS, Advantage.ID_DISABLED, Equipment.ID_STATE, Equipment.ID_QUANTITY, Equipment.ID_WEAPON_STATUS_CHANGED, Advantage.ID_WEAPON_STATUS_CHANGED, Spell.ID_WEAPON_STATUS_CHANGED, Skill.ID_WEAPON_STATUS_CHANGED, GURPSCharacter.ID_INCLUDE_PUNCH, GURPSCharacter.ID_INCLUDE_KICK, GURPSCharacter.ID_INCLUDE_BOOTS);
+        ROUTER.add(ROUTE_WEAPON_LEVELS, GURPSCharacter.ID_PARRY_BONUS, Skill.ID_LEVEL);
+        ROUTER.add(ROUTE_CARRIED, GURPSCharacter.ID_CARRIED_WEIGHT, GURPSCharacter.ID_CARRIED_WEALTH);
+    }
 
     /**
      * Creates a new character sheet display. {@link #rebuild()} must be called prior to the first
@@ -242,6 +284,10 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
         Preferences.getInstance().getNotifier().remove(this);
         mCharacter.resetNotifier();
         mDisposed = true;
+        PrerequisitesThread thread = PrerequisitesThread.getThread(mCharacter);
+        if (thread != null) {
+            thread.wakeUp();
+        }
     }
 
     /** @return Whether the sheet has had {@link #dispose()} called on it. */
@@ -269,11 +315,22 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
 
     /** Synchronizes the display with the underlying model. */
     public void rebuild() {
+        layout(null);
+    }
+
+    /**
+     * Lays out the sheet.
+     *
+     * @param changed The outlines whose content has changed, or <code>null</code> to rebuild all
+     *            of the pages and panels. When not <code>null</code>, the panels and any pages
+     *            before the first changed outline are kept, and only the outlines from there on are
+     *            flowed onto pages again.
+     */
+    private void layout(Set<Outline> changed) {
         KeyboardFocusManager focusMgr = KeyboardFocusManager.getCurrentKeyboardFocusManager();
         Component focus = focusMgr.getPermanentFocusOwner();
         int firstRow = 0;
         String focusKey = null;
-        PageAssembler pageAssembler;
 
         if (UIUtilities.getSelfOrAncestorOfType(focus, CharacterSheet.class) == this) {
             if (focus instanceof PageField) {
@@ -295,43 +352,55 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
             focus = null;
         }
 
-        // Make sure our primary outlines exist
-        createAdvantageOutline();
-        createSkillOutline();
-        createSpellOutline();
-        createMeleeWeaponOutline();
-        createRangedWeaponOutline();
-        createEquipmentOutline();
-        createNoteOutline();
-
-        // Clear out the old pages
-        removeAll();
-        List<NotifierTarget> targets = new ArrayList<>();
-        targets.add(PrerequisitesThread.getThread(mCharacter));
-        SheetDockable sheetDockable = UIUtilities.getAncestorOfType(this, SheetDockable.class);
-        if (sheetDockable != null) {
-            targets.add(sheetDockable);
-        }
-        mCharacter.resetNotifier(targets.toArray(new NotifierTarget[targets.size()]));
+        boolean full = changed == null || mSectionStarts == null;
+        if (full) {
+            // Make sure our primary outlines exist
+            createAdvantageOutline();
+            createSkillOutline();
+            createSpellOutline();
+            createMeleeWeaponOutline();
+            createRangedWeaponOutline();
+            createEquipmentOutline();
+            createNoteOutline();
+
+            // Clear out the old pages
+            removeAll();
+            List<NotifierTarget> targets = new ArrayList<>();
+            targets.add(PrerequisitesThread.getThread(mCharacter));
+            SheetDockable sheetDockable = UIUtilities.getAncestorOfType(this, SheetDockable.class);
+            if (sheetDockable != null) {
+                targets.add(sheetDockable);
+            }
+            mCharacter.resetNotifier(targets.toArray(new NotifierTarget[targets.size()]));
 
-        // Create the first page, which holds stuff that has a fixed vertical size.
-        pageAssembler = new PageAssembler(this);
-        pageAssembler.addToContent(hwrap(new PortraitPanel(this), vwrap(hwrap(new IdentityPanel(this), new PlayerInfoPanel(this)), new DescriptionPanel(this)), new PointsPanel(this)), null, null);
-        pageAssembler.addToContent(hwrap(new AttributesPanel(this), vwrap(new EncumbrancePanel(this), new LiftPanel(this)), new HitLocationPanel(this), new HitPointsPanel(this)), null, null);
+            // Create the first page, which holds stuff that has a fixed vertical size.
+            PageAssembler pageAssembler = new PageAssembler(this);
+            pageAssembler.addToContent(hwrap(new PortraitPanel(this), vwrap(hwrap(new IdentityPanel(this), new PlayerInfoPanel(this)), new DescriptionPanel(this)), new PointsPanel(this)), null, null);
+            pageAssembler.addToContent(hwrap(new AttributesPanel(this), vwrap(new EncumbrancePanel(this), new LiftPanel(this)), new HitLocationPanel(this), new HitPointsPanel(this)), null, null);
 
-        // Add our outlines
-        if (mAdvantageOutline.getModel().getRowCount() > 0 && mSkillOutline.getModel().getRowCount() > 0) {
-            addOutline(pageAssembler, mAdvantageOutline, ADVANTAGES, mSkillOutline, SKILLS);
+            // Add our outlines
+            mSections = new ArrayList<>();
+            mSectionStarts = new ArrayList<>();
+            addOutlines(pageAssembler, planOutlines(), 0);
         } else {
-            addOutline(pageAssembler, mAdvantageOutline, ADVANTAGES);
-            addOutline(pageAssembler, mSkillOutline, SKILLS);
-        }
-        addOutline(pageAssembler, mSpellOutline, SPELLS);
-        addOutline(pageAssembler, mMeleeWeaponOutline, MELEE_WEAPONS);
-        addOutline(pageAssembler, mRangedWeaponOutline, RANGED_WEAPONS);
-        addOutline(pageAssembler, mEquipmentOutline, EQUIPMENT);
-        addOutline(pageAssembler, mNoteOutline, NOTES);
-        pageAssembler.finish();
+            // Find the first outline whose pages need to change
+            List<Outline[]> plan = planOutlines();
+            int first = 0;
+            while (first < plan.size() && first < mSections.size() && Arrays.equals(plan.get(first), mSections.get(first)) && Collections.disjoint(changed, Arrays.asList(plan.get(first)))) {
+                first++;
+            }
+            if (first < plan.size() || first < mSections.size()) {
+                for (int i = first; i < mSections.size(); i++) {
+                    for (Outline outline : mSections.get(i)) {
+                        resetOutline(outline);
+                    }
+                }
+                PageAssembler pageAssembler = new PageAssembler(this, mSectionStarts.get(first));
+                mSections.subList(first, mSections.size()).clear();
+                mSectionStarts.subList(first, mSectionStarts.size()).clear();
+                addOutlines(pageAssembler, plan, first);
+            }
+        }
 
         // Ensure everything is laid out and register for notification
         validate();
@@ -342,8 +411,10 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
         OutlineSyncer.remove(mNoteOutline);
         OutlineSyncer.remove(mMeleeWeaponOutline);
         OutlineSyncer.remove(mRangedWeaponOutline);
-        mCharacter.addTarget(this, GURPSCharacter.CHARACTER_PREFIX);
-        mCharacter.calculateWeightAndWealthCarried(true);
+        if (full) {
+            mCharacter.addTarget(this, GURPSCharacter.CHARACTER_PREFIX);
+            mCharacter.calculateWeightAndWealthCarried(true);
+        }
         if (focusKey != null) {
             restoreFocusToKey(focusKey, this);
         } else if (focus instanceof Outline) {
@@ -377,6 +448,104 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
         return false;
     }
 
+    /**
+     * Repaints just the outlines (including their proxies on later pages) that display the
+     * specified rows, rather than the whole sheet.
+     *
+     * @param rows The rows that have changed.
+     */
+    public void repaintRows(Collection<? extends ListRow> rows) {
+        HashSet<Outline> outlines = new HashSet<>();
+        for (ListRow row : rows) {
+            if (row instanceof Advantage) {
+                outlines.add(mAdvantageOutline);
+            } else if (row instanceof Skill) {
+                outlines.add(mSkillOutline);
+            } else if (row instanceof Spell) {
+                outlines.add(mSpellOutline);
+            } else if (row instanceof Equipment) {
+                outlines.add(mEquipmentOutline);
+            }
+        }
+        outlines.remove(null);
+        if (!outlines.isEmpty()) {
+            repaintOutlines(outlines, this);
+        }
+    }
+
+    private void repaintOutlines(Set<Outline> outlines, Component panel) {
+        if (panel instanceof Outline) {
+            if (outlines.contains(((Outline) panel).getRealOutline())) {
+                panel.repaint();
+            }
+        } else if (panel instanceof Container) {
+            for (Component child : ((Container) panel).getComponents()) {
+                repaintOutlines(outlines, child);
+            }
+        }
+    }
+
+    /** @return The non-empty outlines, grouped in the order they are placed on the pages. */
+    private List<Outline[]> planOutlines() {
+        List<Outline[]> plan = new ArrayList<>();
+        if (mAdvantageOutline.getModel().getRowCount() > 0 && mSkillOutline.getModel().getRowCount() > 0) {
+            plan.add(new Outline[] { mAdvantageOutline, mSkillOutline });
+        } else {
+            planOutline(plan, mAdvantageOutline);
+            planOutline(plan, mSkillOutline);
+        }
+        planOutline(plan, mSpellOutline);
+        planOutline(plan, mMeleeWeaponOutline);
+        planOutline(plan, mRangedWeaponOutline);
+        planOutline(plan, mEquipmentOutline);
+        planOutline(plan, mNoteOutline);
+        return plan;
+    }
+
+    private static void planOutline(List<Outline[]> plan, Outline outline) {
+        if (outline.getModel().getRowCount() > 0) {
+            plan.add(new Outline[] { outline });
+        }
+    }
+
+    private void addOutlines(PageAssembler pageAssembler, List<Outline[]> plan, int first) {
+        for (int i = first; i < plan.size(); i++) {
+            Outline[] outlines = plan.get(i);
+            mSections.add(outlines);
+            mSectionStarts.add(pageAssembler.checkpoint());
+            if (outlines.length == 2) {
+                addOutline(pageAssembler, outlines[0], getTitle(outlines[0]), outlines[1], getTitle(outlines[1]));
+            } else {
+                addOutline(pageAssembler, outlines[0], getTitle(outlines[0]));
+            }
+        }
+        // Keep the end, too, so that an outline that becomes non-empty can be appended
+        mSectionStarts.add(pageAssembler.checkpoint());
+        pageAssembler.finish();
+    }
+
+    private String getTitle(Outline outline) {
+        if (outline == mAdvantageOutline) {
+            return ADVANTAGES;
+        }
+        if (outline == mSkillOutline) {
+            return SKILLS;
+        }
+        if (outline == mSpellOutline) {
+            return SPELLS;
+        }
+        if (outline == mMeleeWeaponOutline) {
+            return MELEE_WEAPONS;
+        }
+        if (outline == mRangedWeaponOutline) {
+            return RANGED_WEAPONS;
+        }
+        if (outline == mEquipmentOutline) {
+            return EQUIPMENT;
+        }
+        return NOTES;
+    }
+
     private void addOutline(PageAssembler pageAssembler, Outline outline, String title) {
         if (outline.getModel().getRowCount() > 0) {
             OutlineInfo info = new OutlineInfo(outline, pageAssembler.getContentWidth());
@@ -707,18 +876,22 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
         if (mLastPage != pageIndex) {
             mLastPage = pageIndex;
         } else {
-            Component comp = getComponent(pageIndex);
-            RepaintManager mgr = RepaintManager.currentManager(comp);
-            boolean saved = mgr.isDoubleBufferingEnabled();
-            mgr.setDoubleBufferingEnabled(false);
-            mOkToPaint = true;
-            comp.print(graphics);
-            mOkToPaint = false;
-            mgr.setDoubleBufferingEnabled(saved);
+            printPage(graphics, pageIndex);
         }
         return PAGE_EXISTS;
     }
 
+    private void printPage(Graphics graphics, int pageIndex) {
+        Component comp = getComponent(pageIndex);
+        RepaintManager mgr = RepaintManager.currentManager(comp);
+        boolean saved = mgr.isDoubleBufferingEnabled();
+        mgr.setDoubleBufferingEnabled(false);
+        mOkToPaint = true;
+        comp.print(graphics);
+        mOkToPaint = false;
+        mgr.setDoubleBufferingEnabled(saved);
+    }
+
     @Override
     public void enterBatchMode() {
         mBatchMode = true;
@@ -732,22 +905,24 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
 
     @Override
     public void handleNotification(Object producer, String type, Object data) {
-        if (SheetPreferences.OPTIONAL_DICE_RULES_PREF_KEY.equals(type) || Fonts.FONT_NOTIFICATION_KEY.equals(type) || SheetPreferences.WEIGHT_UNITS_PREF_KEY.equals(type) || SheetPreferences.GURPS_METRIC_RULES_PREF_KEY.equals(type) || Profile.ID_BODY_TYPE.equals(type) || SheetPreferences.OPTIONAL_STRENGTH_RULES_PREF_KEY.equals(type) || SheetPreferences.OPTIONAL_REDUCED_SWING_PREF_KEY.equals(type)) {
+        int route = ROUTER.getMask(type);
+        if ((route & ROUTE_REBUILD) != 0) {
+            mCharacter.invalidateWeaponStats();
             markForRebuild();
         } else {
-            if (type.startsWith(Advantage.PREFIX)) {
+            if ((route & ROUTE_ADVANTAGES) != 0) {
                 OutlineSyncer.add(mAdvantageOutline);
-            } else if (type.startsWith(Skill.PREFIX)) {
+            } else if ((route & ROUTE_SKILLS) != 0) {
                 OutlineSyncer.add(mSkillOutline);
-            } else if (type.startsWith(Spell.PREFIX)) {
+            } else if ((route & ROUTE_SPELLS) != 0) {
                 OutlineSyncer.add(mSpellOutline);
-            } else if (type.startsWith(Equipment.PREFIX)) {
+            } else if ((route & ROUTE_EQUIPMENT) != 0) {
                 OutlineSyncer.add(mEquipmentOutline);
-            } else if (type.startsWith(Note.PREFIX)) {
+            } else if ((route & ROUTE_NOTES) != 0) {
                 OutlineSyncer.add(mNoteOutline);
             }
 
-            if (GURPSCharacter.ID_LAST_MODIFIED.equals(type)) {
+            if ((route & ROUTE_LAST_MODIFIED) != 0) {
                 int count = getComponentCount();
 
                 for (int i = 0; i < count; i++) {
@@ -759,13 +934,13 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
                     bounds.height = insets.bottom;
                     repaint(bounds);
                 }
-            } else if (Advantage.ID_DISABLED.equals(type) || Equipment.ID_STATE.equals(type) || Equipment.ID_QUANTITY.equals(type) || Equipment.ID_WEAPON_STATUS_CHANGED.equals(type) || Advantage.ID_WEAPON_STATUS_CHANGED.equals(type) || Spell.ID_WEAPON_STATUS_CHANGED.equals(type) || Skill.ID_WEAPON_STATUS_CHANGED.equals(type) || GURPSCharacter.ID_INCLUDE_PUNCH.equals(type) || GURPSCharacter.ID_INCLUDE_KICK.equals(type) || GURPSCharacter.ID_INCLUDE_BOOTS.equals(type)) {
+            } else if ((route & ROUTE_WEAPONS) != 0) {
                 mSyncWeapons = true;
-                markForRebuild();
-            } else if (GURPSCharacter.ID_PARRY_BONUS.equals(type) || Skill.ID_LEVEL.equals(type)) {
+                markForRelayout();
+            } else if ((route & ROUTE_WEAPON_LEVELS) != 0) {
                 OutlineSyncer.add(mMeleeWeaponOutline);
                 OutlineSyncer.add(mRangedWeaponOutline);
-            } else if (GURPSCharacter.ID_CARRIED_WEIGHT.equals(type) || GURPSCharacter.ID_CARRIED_WEALTH.equals(type)) {
+            } else if ((route & ROUTE_CARRIED) != 0) {
                 Column column = mEquipmentOutline.getModel().getColumnWithID(EquipmentColumn.DESCRIPTION.ordinal());
                 column.setName(EquipmentColumn.DESCRIPTION.toString(mCharacter));
             } else if (!mBatchMode) {
@@ -854,47 +1029,90 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
         String command = event.getActionCommand();
         if (Outline.CMD_POTENTIAL_CONTENT_SIZE_CHANGE.equals(command)) {
             mRootsToSync.add(((Outline) event.getSource()).getRealOutline());
-            markForRebuild();
+            markForRelayout();
         }
     }
 
     /** Marks the sheet for a rebuild in the near future. */
     public void markForRebuild() {
+        mFullRebuildPending = true;
+        markForRelayout();
+    }
+
+    /**
+     * Marks the sheet for a layout in the near future that only flows the outlines that have
+     * changed, and those after them, onto pages again.
+     */
+    public void markForRelayout() {
         if (!mRebuildPending) {
             mRebuildPending = true;
-            EventQueue.invokeLater(this);
+            if (!mLayoutOnRequestOnly) {
+                EventQueue.invokeLater(this);
+            }
         }
     }
 
+    /**
+     * Stops the sheet from scheduling layouts on the event dispatch thread, so that it may be
+     * built, laid out and exported entirely on another thread. Pending changes are then only
+     * applied when {@link #run()} is called. Intended for sheets that are never displayed.
+     */
+    public void layoutOnRequestOnly() {
+        mLayoutOnRequestOnly = true;
+    }
+
     @Override
     public void run() {
-        syncRoots();
-        rebuild();
+        Set<Outline> changed = syncRoots();
+        if (mFullRebuildPending) {
+            rebuild();
+        } else {
+            layout(changed);
+        }
+        mFullRebuildPending = false;
         mRebuildPending = false;
     }
 
-    private void syncRoots() {
+    /** @return The outlines whose content has changed. */
+    private Set<Outline> syncRoots() {
+        Set<Outline> changed = new HashSet<>(mRootsToSync);
         if (mSyncWeapons || mRootsToSync.contains(mEquipmentOutline) || mRootsToSync.contains(mAdvantageOutline) || mRootsToSync.contains(mSpellOutline) || mRootsToSync.contains(mSkillOutline)) {
-            OutlineModel outlineModel = mMeleeWeaponOutline.getModel();
-            String sortConfig = outlineModel.getSortConfig();
-
-            outlineModel.removeAllRows();
-            for (WeaponDisplayRow row : collectWeapons(MeleeWeaponStats.class)) {
-                outlineModel.addRow(row);
+            if (syncWeapons(mMeleeWeaponOutline, MeleeWeaponStats.class)) {
+                changed.add(mMeleeWeaponOutline);
             }
-            outlineModel.applySortConfig(sortConfig);
-
-            outlineModel = mRangedWeaponOutline.getModel();
-            sortConfig = outlineModel.getSortConfig();
-
-            outlineModel.removeAllRows();
-            for (WeaponDisplayRow row : collectWeapons(RangedWeaponStats.class)) {
-                outlineModel.addRow(row);
+            if (syncWeapons(mRangedWeaponOutline, RangedWeaponStats.class)) {
+                changed.add(mRangedWeaponOutline);
             }
-            outlineModel.applySortConfig(sortConfig);
         }
         mSyncWeapons = false;
         mRootsToSync.clear();
+        return changed;
+    }
+
+    /** @return Whether the weapons in the outline had to be replaced. */
+    private boolean syncWeapons(Outline outline, Class<? extends WeaponStats> weaponClass) {
+        OutlineModel outlineModel = outline.getModel();
+        ArrayList<WeaponDisplayRow> weapons = collectWeapons(weaponClass);
+        // Weapons are compared by identity, so that rows left pointing at a replaced or deleted
+        // owner are rebuilt even when an identical weapon takes their place
+        Set<WeaponStats> current = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Row row : outlineModel.getRows()) {
+            current.add(((WeaponDisplayRow) row).getWeapon());
+        }
+        Set<WeaponStats> updated = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (WeaponDisplayRow row : weapons) {
+            updated.add(row.getWeapon());
+        }
+        if (current.equals(updated)) {
+            return false;
+        }
+        String sortConfig = outlineModel.getSortConfig();
+        outlineModel.removeAllRows();
+        for (WeaponDisplayRow row : weapons) {
+            outlineModel.addRow(row);
+        }
+        outlineModel.applySortConfig(sortConfig);
+        return true;
     }
 
     @Override
@@ -1044,6 +1262,16 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
      * @return <code>true</code> on success.
      */
     public boolean saveAsPDF(File file) {
+        return saveAsPDF(file, null);
+    }
+
+    /**
+     * @param file The file to save to.
+     * @param timing The timing breakdown to add to. May be <code>null</code>.
+     * @return <code>true</code> on success.
+     */
+    public boolean saveAsPDF(File file, ExportTiming timing) {
+        long start = System.nanoTime();
         HashSet<Row> changed = expandAllContainers();
         try {
             PrintManager settings = mCharacter.getPageSettings();
@@ -1054,32 +1282,42 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
 
             adjustToPageSetupChanges(true);
             setPrinting(true);
+            if (timing != null) {
+                timing.addLayout(start);
+            }
 
             com.lowagie.text.Document pdfDoc = new com.lowagie.text.Document(new com.lowagie.text.Rectangle(width, height));
             try (FileOutputStream out = new FileOutputStream(file)) {
                 PdfWriter writer = PdfWriter.getInstance(pdfDoc, out);
-                int pageNum = 0;
+                int pageCount = getPageCount();
                 PdfContentByte cb;
 
                 pdfDoc.open();
                 cb = writer.getDirectContent();
-                while (true) {
+                for (int pageNum = 0; pageNum < pageCount; pageNum++) {
+                    start = System.nanoTime();
                     PdfTemplate template = cb.createTemplate(width, height);
                     Graphics2D g2d = template.createGraphics(width, height, new DefaultFontMapper());
-
-                    if (print(g2d, format, pageNum) == NO_SUCH_PAGE) {
-                        g2d.dispose();
-                        break;
+                    g2d.setClip(0, 0, (int) width, (int) height);
+                    printPage(g2d, pageNum);
+                    if (timing != null) {
+                        timing.addPaint(start);
                     }
+                    start = System.nanoTime();
+                    g2d.dispose();
                     if (pageNum != 0) {
                         pdfDoc.newPage();
                     }
-                    g2d.setClip(0, 0, (int) width, (int) height);
-                    print(g2d, format, pageNum++);
-                    g2d.dispose();
                     cb.addTemplate(template, 0, 0);
+                    if (timing != null) {
+                        timing.addEncode(start);
+                    }
                 }
+                start = System.nanoTime();
                 pdfDoc.close();
+                if (timing != null) {
+                    timing.addEncode(start);
+                }
             }
             return true;
         } catch (Exception exception) {
@@ -1096,7 +1334,21 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
      * @return <code>true</code> on success.
      */
     public boolean saveAsPNG(File file, ArrayList<File> createdFiles) {
+        return saveAsPNG(file, createdFiles, null);
+    }
+
+    /**
+     * @param file The file to save to.
+     * @param createdFiles The files that were created.
+     * @param timing The timing breakdown to add to. May be <code>null</code>.
+     * @return <code>true</code> on success.
+     */
+    public boolean saveAsPNG(File file, ArrayList<File> createdFiles, ExportTiming timing) {
+        long start = System.nanoTime();
         HashSet<Row> changed = expandAllContainers();
+        ExecutorService encoders = null;
+        ArrayList<Future<File>> pending = new ArrayList<>();
+        boolean success = false;
         try {
             int dpi = OutputPreferences.getPNGResolution();
             PrintManager settings = mCharacter.getPageSettings();
@@ -1104,44 +1356,112 @@ public class CharacterSheet extends JPanel implements ChangeListener, Scrollable
             Paper paper = format.getPaper();
             int width = (int) (paper.getWidth() / 72.0 * dpi);
             int height = (int) (paper.getHeight() / 72.0 * dpi);
-            StdImage buffer = StdImage.create(width, height, Transparency.OPAQUE);
-            int pageNum = 0;
             String name = PathUtils.getLeafName(file.getName(), false);
+            PNGEncoder encoder = new PNGEncoder(OutputPreferences.getPNGCompressionLevel(), OutputPreferences.getPNGFilter());
+            int pageCount;
+            int encoderCount;
+            BlockingQueue<StdImage> buffers;
+            int bufferCount = 0;
 
             file = file.getParentFile();
 
             adjustToPageSetupChanges(true);
             setPrinting(true);
+            pageCount = getPageCount();
+            if (timing != null) {
+                timing.addLayout(start);
+            }
 
-            while (true) {
-                File pngFile;
-
-                Graphics2D gc = buffer.getGraphics();
-                if (print(gc, format, pageNum) == NO_SUCH_PAGE) {
-                    gc.dispose();
-                    break;
+            // Pages are painted on this thread and compressed on the encoders. Each page in flight
+            // holds its own raster, so the number of rasters bounds the memory used.
+            encoderCount = Math.max(Math.min(Runtime.getRuntime().availableProcessors(), Math.min(pageCount, PNG_PAGES_IN_FLIGHT) - 1), 1);
+            buffers = new ArrayBlockingQueue<>(encoderCount + 1);
+            encoders = Executors.newFixedThreadPool(encoderCount);
+            for (int pageNum = 1; pageNum <= pageCount; pageNum++) {
+                StdImage buffer = buffers.poll();
+                if (buffer == null) {
+                    if (bufferCount <= encoderCount) {
+                        buffer = StdImage.create(width, height, Transparency.OPAQUE);
+                        bufferCount++;
+                    } else {
+                        buffer = buffers.take();
+                    }
                 }
+                start = System.nanoTime();
+                Graphics2D gc = buffer.getGraphics();
                 gc.setClip(0, 0, width, height);
                 gc.setBackground(Color.WHITE);
                 gc.clearRect(0, 0, width, height);
                 gc.scale(dpi / 72.0, dpi / 72.0);
-                print(gc, format, pageNum++);
+                printPage(gc, pageNum - 1);
                 gc.dispose();
-                pngFile = new File(file, PathUtils.enforceExtension(name + (pageNum > 1 ? " " + pageNum : ""), FileType.PNG_EXTENSION)); //$NON-NLS-1$ //$NON-NLS-2$
-                if (!StdImage.writePNG(pngFile, buffer, dpi)) {
-                    throw new IOException();
+                if (timing != null) {
+                    timing.addPaint(start);
                 }
-                createdFiles.add(pngFile);
+                File pngFile = new File(file, PathUtils.enforceExtension(name + (pageNum > 1 ? " " + pageNum : ""), FileType.PNG_EXTENSION)); //$NON-NLS-1$ //$NON-NLS-2$
+                StdImage page = buffer;
+                pending.add(encoders.submit(() -> {
+                    long encodeStart = System.nanoTime();
+                    try {
+                        encoder.write(pngFile, page, dpi);
+                    } finally {
+                        buffers.add(page);
+                    }
+                    if (timing != null) {
+                        timing.addEncode(encodeStart);
+                    }
+                    return pngFile;
+                }));
+            }
+            for (Future<File> one : pending) {
+                createdFiles.add(one.get());
             }
+            success = true;
             return true;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException exception) {
+            Log.error(exception.getCause());
+            return false;
         } catch (Exception exception) {
             return false;
         } finally {
+            if (encoders != null) {
+                encoders.shutdownNow();
+                if (!success) {
+                    discardPages(encoders, pending, createdFiles);
+                }
+            }
             setPrinting(false);
             closeContainers(changed);
         }
     }
 
+    /** Waits for the encoders to stop, then removes the pages they managed to write. */
+    private static void discardPages(ExecutorService encoders, ArrayList<Future<File>> pending, ArrayList<File> createdFiles) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            encoders.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            interrupted = true;
+        }
+        for (Future<File> one : pending) {
+            if (one.isDone() && !one.isCancelled()) {
+                try {
+                    File page = one.get();
+                    page.delete();
+                    createdFiles.remove(page);
+                } catch (Exception exception) {
+                    // The page was never written
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @Override
     public int getNotificationPriority() {
         return 0;
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.character;
+
+import com.trollworks.toolkit.utility.PathUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A text template that has been parsed into runs of literal text, <code>@KEY</code> references
+ * and loops. Templates are cached by path and modification time, so a template is parsed again
+ * once its file has been modified. Only the most recently used templates are kept.
+ */
+class CompiledTextTemplate {
+    private static final int           MAXIMUM_CACHED_TEMPLATES = 8;
+    private static final TemplateCache CACHE                    = new TemplateCache();
+    private List<Segment>              mSegments;
+
+    /**
+     * @param file The template file.
+     * @param loopEnds Returns the key that ends the loop started by a key, or <code>null</code> if
+     *            the key doesn't start a loop.
+     * @return The compiled template.
+     */
+    static CompiledTextTemplate get(File file, Function<String, String> loopEnds) throws IOException {
+        Key key = new Key(PathUtils.getFullPath(file), file.lastModified(), file.length());
+        CompiledTextTemplate template;
+        synchronized (CACHE) {
+            template = CACHE.get(key);
+        }
+        if (template == null) {
+            template = new CompiledTextTemplate(file, loopEnds);
+            synchronized (CACHE) {
+                CACHE.put(key, template);
+            }
+        }
+        return template;
+    }
+
+    private CompiledTextTemplate(File file, Function<String, String> loopEnds) throws IOException {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file)))) {
+            mSegments = Collections.unmodifiableList(parse(in, loopEnds, null));
+        }
+    }
+
+    /** @return The top-level segments of the template. */
+    List<Segment> getSegments() {
+        return mSegments;
+    }
+
+    /**
+     * Parses segments up to the end of the stream, or until <code>endKey</code> is found.
+     *
+     * @param in The stream to read.
+     * @param loopEnds Used to find loops, or <code>null</code> if loops should be treated as keys.
+     * @param endKey The key to stop at, or <code>null</code>.
+     */
+    private static List<Segment> parse(BufferedReader in, Function<String, String> loopEnds, String endKey) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        StringBuilder keyBuffer = new StringBuilder();
+        boolean lookForKeyMarker = true;
+        int ch;
+        while ((ch = in.read()) != -1) {
+            if (lookForKeyMarker) {
+                if (ch == '@') {
+                    lookForKeyMarker = false;
+                    in.mark(1);
+                } else {
+                    text.append((char) ch);
+                }
+            } else if (ch == '_' || Character.isLetterOrDigit(ch)) {
+                keyBuffer.append((char) ch);
+                in.mark(1);
+            } else {
+                // The character that ended the key is part of whatever follows it.
+                in.reset();
+                String key = keyBuffer.toString();
+                keyBuffer.setLength(0);
+                lookForKeyMarker = true;
+                addText(segments, text);
+                if (key.equals(endKey)) {
+                    return segments;
+                }
+                addKey(segments, key, in, loopEnds);
+            }
+        }
+        addText(segments, text);
+        if (keyBuffer.length() != 0) {
+            String key = keyBuffer.toString();
+            if (!key.equals(endKey)) {
+                addKey(segments, key, in, loopEnds);
+            }
+        }
+        return segments;
+    }
+
+    private static void addText(List<Segment> segments, StringBuilder text) {
+        if (text.length() > 0) {
+            segments.add(new Segment(text.toString(), false, null));
+            text.setLength(0);
+        }
+    }
+
+    private static void addKey(List<Segment> segments, String key, BufferedReader in, Function<String, String> loopEnds) throws IOException {
+        String loopEnd = loopEnds != null ? loopEnds.apply(key) : null;
+        segments.add(new Segment(key, true, loopEnd != null ? Collections.unmodifiableList(parse(in, null, loopEnd)) : null));
+    }
+
+    /** A run of literal text, a key, or a loop and its body. */
+    static class Segment {
+        private String        mText;
+        private boolean       mKey;
+        private List<Segment> mBody;
+
+        Segment(String text, boolean key, List<Segment> body) {
+            mText = text;
+            mKey = key;
+            mBody = body;
+        }
+
+        /** @return The literal text, or the key. */
+        String getText() {
+            return mText;
+        }
+
+        /** @return Whether this segment is a key rather than literal text. */
+        boolean isKey() {
+            return mKey;
+        }
+
+        /** @return The body of the loop, or <code>null</code> if this segment isn't a loop. */
+        List<Segment> getBody() {
+            return mBody;
+        }
+    }
+
+    private static class TemplateCache extends LinkedHashMap<Key, CompiledTextTemplate> {
+        TemplateCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CompiledTextTemplate> eldest) {
+            return size() > MAXIMUM_CACHED_TEMPLATES;
+        }
+    }
+
+    private static class Key {
+        private String mPath;
+        private long   mLastModified;
+        private long   mLength;
+
+        Key(String path, long lastModified, long length) {
+            mPath = path;
+            mLastModified = lastModified;
+            mLength = length;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return mPath.equals(other.mPath) && mLastModified == other.mLastModified && mLength == other.mLength;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mPath, Long.valueOf(mLastModified), Long.valueOf(mLength));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.character;
+
+import com.trollworks.gcs.feature.BonusAttributeType;
+import com.trollworks.gcs.widgets.outline.ListRow;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Records which pieces of character data each row reads while resolving its prerequisites and
+ * skill defaults, so that a change to a single value only requires the rows that depend upon it
+ * to be recalculated.
+ */
+public class DependencyGraph {
+    /** The key used by rows that depend upon the character's tech level. */
+    public static final String                TECH_LEVEL      = "tl";        	//$NON-NLS-1$
+    /** The key used by rows that depend upon the character's encumbrance level. */
+    public static final String                ENCUMBRANCE     = "enc";       	//$NON-NLS-1$
+    private static final String               SKILL_KIND      = "skill:";    	//$NON-NLS-1$
+    private static final String               SPELL_KIND      = "spell:";    	//$NON-NLS-1$
+    private static final String               ADVANTAGE_KIND  = "advantage:";	//$NON-NLS-1$
+    private static final String               ATTRIBUTE_KIND  = "attribute:";	//$NON-NLS-1$
+    private static final String               ANY             = "*";         	//$NON-NLS-1$
+    private HashMap<String, HashSet<ListRow>> mDependents     = new HashMap<>();
+    private HashMap<String, HashSet<ListRow>> mKindDependents = new HashMap<>();
+    private HashMap<ListRow, HashSet<String>> mKeysByRow      = new HashMap<>();
+
+    /**
+     * @param name The name of the skill, or <code>null</code> for any skill.
+     * @return The key for a dependency upon the skill.
+     */
+    public static String skillKey(String name) {
+        return createKey(SKILL_KIND, name);
+    }
+
+    /**
+     * @param name The name of the spell, or <code>null</code> for any spell.
+     * @return The key for a dependency upon the spell.
+     */
+    public static String spellKey(String name) {
+        return createKey(SPELL_KIND, name);
+    }
+
+    /**
+     * @param name The name of the advantage, or <code>null</code> for any advantage.
+     * @return The key for a dependency upon the advantage.
+     */
+    public static String advantageKey(String name) {
+        return createKey(ADVANTAGE_KIND, name);
+    }
+
+    /**
+     * @param attribute The attribute.
+     * @return The key for a dependency upon the attribute.
+     */
+    public static String attributeKey(BonusAttributeType attribute) {
+        return ATTRIBUTE_KIND + attribute.name();
+    }
+
+    private static String createKey(String kind, String name) {
+        return kind + (name == null ? ANY : name.toLowerCase());
+    }
+
+    private static String getKind(String key) {
+        int index = key.indexOf(':');
+        return index == -1 ? key : key.substring(0, index + 1);
+    }
+
+    /** @return Whether any rows have been recorded. */
+    public boolean isEmpty() {
+        return mKeysByRow.isEmpty();
+    }
+
+    /** Removes all recorded rows. */
+    public void clear() {
+        mDependents.clear();
+        mKindDependents.clear();
+        mKeysByRow.clear();
+    }
+
+    /**
+     * Records the keys the row currently depends upon, replacing any that were previously
+     * recorded for it.
+     *
+     * @param row The row to record.
+     */
+    public void record(ListRow row) {
+        HashSet<String> keys = new HashSet<>();
+        row.fillWithDependencyKeys(keys);
+        remove(row);
+        if (!keys.isEmpty()) {
+            mKeysByRow.put(row, keys);
+            for (String key : keys) {
+                add(mDependents, key, row);
+                add(mKindDependents, getKind(key), row);
+            }
+        }
+    }
+
+    /** @param row The row to stop tracking. */
+    public void remove(ListRow row) {
+        HashSet<String> keys = mKeysByRow.remove(row);
+        if (keys != null) {
+            for (String key : keys) {
+                discard(mDependents, key, row);
+                discard(mKindDependents, getKind(key), row);
+            }
+        }
+    }
+
+    private static void add(HashMap<String, HashSet<ListRow>> map, String key, ListRow row) {
+        HashSet<ListRow> rows = map.get(key);
+        if (rows == null) {
+            rows = new HashSet<>();
+            map.put(key, rows);
+        }
+        rows.add(row);
+    }
+
+    private static void discard(HashMap<String, HashSet<ListRow>> map, String key, ListRow row) {
+        HashSet<ListRow> rows = map.get(key);
+        if (rows != null) {
+            rows.remove(row);
+            if (rows.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Collects the rows that depend upon the specified key. Keys created for a specific name also
+     * pull in those rows that depend upon any item of the same kind.
+     *
+     * @param key The key that changed.
+     * @param dirty The set to add the dependent rows to.
+     */
+    public void collectDependents(String key, Set<ListRow> dirty) {
+        addAll(mDependents.get(key), dirty);
+        String kind = getKind(key);
+        if (!kind.equals(key)) {
+            addAll(mDependents.get(kind + ANY), dirty);
+        }
+    }
+
+    /**
+     * Collects the rows that depend upon any key of the same kind as the specified key. Used when
+     * an item's identity changes, such as when it is renamed, since the rows that referred to the
+     * old name can no longer be found by it.
+     *
+     * @param key A key of the kind that changed.
+     * @param dirty The set to add the dependent rows to.
+     */
+    public void collectDependentsOfKind(String key, Set<ListRow> dirty) {
+        addAll(mKindDependents.get(getKind(key)), dirty);
+    }
+
+    private static void addAll(Collection<ListRow> rows, Set<ListRow> dirty) {
+        if (rows != null) {
+            dirty.addAll(rows);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.character;
+
+/**
+ * Accumulates the time spent in each stage of exporting a {@link CharacterSheet}. Stages that run
+ * on several threads at once report the sum of their time on each thread.
+ */
+public class ExportTiming {
+    private long mLayout;
+    private long mPaint;
+    private long mEncode;
+
+    /** @return The time spent laying out the pages, in nanoseconds. */
+    public synchronized long getLayoutTime() {
+        return mLayout;
+    }
+
+    /** @return The time spent painting the pages, in nanoseconds. */
+    public synchronized long getPaintTime() {
+        return mPaint;
+    }
+
+    /**
+     * @return The time spent encoding and writing the pages, in nanoseconds. Summed across the
+     *         encoder threads.
+     */
+    public synchronized long getEncodeTime() {
+        return mEncode;
+    }
+
+    /** @param start The {@link System#nanoTime()} the layout began at. */
+    synchronized void addLayout(long start) {
+        mLayout += System.nanoTime() - start;
+    }
+
+    /** @param start The {@link System#nanoTime()} the painting began at. */
+    synchronized void addPaint(long start) {
+        mPaint += System.nanoTime() - start;
+    }
+
+    /** @param start The {@link System#nanoTime()} the encoding began at. */
+    synchronized void addEncode(long start) {
+        mEncode += System.nanoTime() - start;
+    }
+
+    /**
+     * @param nanos A time, in nanoseconds.
+     * @return The time formatted in seconds, in the same form as the toolkit's Timing.
+     */
+    public static String format(long nanos) {
+        return String.format("%,.3fs", Double.valueOf(nanos / 1000000000.0)); //$NON-NLS-1$
+    }
+}
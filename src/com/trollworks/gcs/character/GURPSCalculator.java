@@ -19,7 +19,6 @@ import com.trollworks.gcs.services.WebServiceClient;
 import com.trollworks.toolkit.annotation.Localize;
 import com.trollworks.toolkit.io.Log;
 import com.trollworks.toolkit.io.xml.XMLWriter;
-import com.trollworks.toolkit.ui.image.StdImage;
 import com.trollworks.toolkit.ui.menu.Command;
 import com.trollworks.toolkit.ui.widget.WindowUtils;
 import com.trollworks.toolkit.utility.Localization;
@@ -35,7 +34,6 @@ import java.io.PrintWriter;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.file.Files;
 import java.text.MessageFormat;
 import java.util.Scanner;
 import java.util.UUID;
@@ -98,10 +96,10 @@ public class GURPSCalculator {
                                 if (!result.isEmpty()) {
                                     throw new IOException("Bad response from the web server for template write"); //$NON-NLS-1$
                                 }
-                                try (TemporaryFile image = new TemporaryFile("gcalcImage", ".png")) { //$NON-NLS-1$ //$NON-NLS-2$
-                                    StdImage.writePNG(image, character.getDescription().getPortrait().getRetina(), 150);
+                                Portrait portrait = character.getDescription().getPortrait();
+                                if (portrait != null) {
                                     path = String.format("api/SaveCharacterImage/%s/%s", id, key); //$NON-NLS-1$
-                                    result = client.sendRequest(HttpMethodType.POST, path, Files.readAllBytes(image.toPath()));
+                                    result = client.sendRequest(HttpMethodType.POST, path, portrait.getPNG());
                                     if (!result.isEmpty()) {
                                         throw new IOException("Bad response from the web server for image write"); //$NON-NLS-1$
                                     }
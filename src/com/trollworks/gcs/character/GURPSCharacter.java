@@ -17,13 +17,13 @@ import com.trollworks.gcs.advantage.AdvantageList;
 import com.trollworks.gcs.app.GCSImages;
 import com.trollworks.gcs.common.DataFile;
 import com.trollworks.gcs.common.LoadState;
+import com.trollworks.gcs.common.NotificationRouter;
 import com.trollworks.gcs.equipment.Equipment;
 import com.trollworks.gcs.equipment.EquipmentList;
+import com.trollworks.gcs.equipment.FixedWeight;
 import com.trollworks.gcs.feature.AttributeBonusLimitation;
-import com.trollworks.gcs.feature.Bonus;
 import com.trollworks.gcs.feature.BonusAttributeType;
-import com.trollworks.gcs.feature.CostReduction;
-import com.trollworks.gcs.feature.Feature;
+import com.trollworks.gcs.feature.FeatureIndex;
 import com.trollworks.gcs.feature.SkillBonus;
 import com.trollworks.gcs.feature.SpellBonus;
 import com.trollworks.gcs.feature.WeaponBonus;
@@ -33,6 +33,7 @@ import com.trollworks.gcs.notes.NoteList;
 import com.trollworks.gcs.preferences.OutputPreferences;
 import com.trollworks.gcs.preferences.SheetPreferences;
 import com.trollworks.gcs.skill.Skill;
+import com.trollworks.gcs.skill.SkillLevelMemo;
 import com.trollworks.gcs.skill.SkillList;
 import com.trollworks.gcs.skill.Technique;
 import com.trollworks.gcs.spell.Spell;
@@ -63,9 +64,10 @@ import java.io.IOException;
 import java.text.DateFormat;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 
 /** A GURPS character. */
 public class GURPSCharacter extends DataFile {
@@ -319,9 +321,20 @@ public class GURPSCharacter extends DataFile {
     public static final String                  ID_UNCONSCIOUS_CHECKS_FATIGUE_POINTS = FATIGUE_POINTS_PREFIX + "UnconsciousChecks";                					//$NON-NLS-1$
     /** The field ID for unconscious fatigue point changes. */
     public static final String                  ID_UNCONSCIOUS_FATIGUE_POINTS        = FATIGUE_POINTS_PREFIX + "Unconscious";                      						//$NON-NLS-1$
+    private static final int                    ROUTE_ADVANTAGE_INDEX                = 1 << 0;
+    private static final int                    ROUTE_SKILL_INDEX                    = 1 << 1;
+    private static final int                    ROUTE_SPELL_INDEX                    = 1 << 2;
+    private static final int                    ROUTE_ADVANTAGE_POINTS               = 1 << 3;
+    private static final int                    ROUTE_SKILL_POINTS                   = 1 << 4;
+    private static final int                    ROUTE_SPELL_POINTS                   = 1 << 5;
+    private static final int                    ROUTE_EQUIPMENT                      = 1 << 6;
+    private static final int                    ROUTE_ATTRIBUTE_POINTS               = 1 << 7;
+    private static final int                    ROUTE_WEAPON_STATS                   = 1 << 8;
+    private static final int                    ROUTE_ADVANTAGE_TREE                 = 1 << 9;
+    private static final NotificationRouter     ROUTER                               = new NotificationRouter();
     private long                                mLastModified;
     private long                                mCreatedOn;
-    private HashMap<String, ArrayList<Feature>> mFeatureMap;
+    private FeatureIndex                        mFeatureIndex;
     private int                                 mStrength;
     private int                                 mStrengthBonus;
     private int                                 mLiftingStrengthBonus;
@@ -366,6 +379,10 @@ public class GURPSCharacter extends DataFile {
     private OutlineModel                        mSpells;
     private OutlineModel                        mEquipment;
     private OutlineModel                        mNotes;
+    private RowNameIndex<Advantage>             mAdvantageIndex;
+    private RowNameIndex<Skill>                 mSkillIndex;
+    private RowNameIndex<Spell>                 mSpellIndex;
+    private RowNameIndex<Spell>                 mSpellCollegeIndex;
     private boolean                             mDidModify;
     private boolean                             mNeedAttributePointCalculation;
     private boolean                             mNeedAdvantagesPointCalculation;
@@ -387,6 +404,21 @@ public class GURPSCharacter extends DataFile {
     private boolean                             mIncludePunch;
     private boolean                             mIncludeKick;
     private boolean                             mIncludeKickBoots;
+    private volatile int                        mWeaponStatsGeneration;
+
+    static {
+        ROUTER.add(ROUTE_ADVANTAGE_INDEX, Advantage.ID_NAME, Advantage.ID_LIST_CHANGED);
+        ROUTER.add(ROUTE_SKILL_INDEX, Skill.ID_NAME, Skill.ID_SPECIALIZATION, Skill.ID_LIST_CHANGED);
+        ROUTER.add(ROUTE_SPELL_INDEX, Spell.ID_NAME, Spell.ID_COLLEGE, Spell.ID_LIST_CHANGED);
+        ROUTER.add(ROUTE_ADVANTAGE_POINTS, Advantage.ID_POINTS, Advantage.ID_ROUND_COST_DOWN, Advantage.ID_LEVELS, Advantage.ID_CONTAINER_TYPE, Advantage.ID_LIST_CHANGED, Advantage.ID_CR, Modifier.ID_LIST_CHANGED, Modifier.ID_ENABLED);
+        ROUTER.add(ROUTE_SKILL_POINTS, Skill.ID_POINTS, Skill.ID_LIST_CHANGED);
+        ROUTER.add(ROUTE_SPELL_POINTS, Spell.ID_POINTS, Spell.ID_LIST_CHANGED);
+        ROUTER.add(ROUTE_EQUIPMENT, Equipment.ID_QUANTITY, Equipment.ID_WEIGHT, Equipment.ID_EXTENDED_WEIGHT, Equipment.ID_LIST_CHANGED);
+        ROUTER.add(ROUTE_ATTRIBUTE_POINTS, Profile.ID_SIZE_MODIFIER, SheetPreferences.OPTIONAL_STRENGTH_RULES_PREF_KEY);
+        ROUTER.addPrefix(ROUTE_WEAPON_STATS, ATTRIBUTES_PREFIX);
+        ROUTER.add(ROUTE_ADVANTAGE_TREE, Advantage.ID_LIST_CHANGED);
+        ROUTER.add(ROUTE_WEAPON_STATS, ID_CARRIED_WEIGHT, Skill.ID_LEVEL, Skill.ID_NAME, Skill.ID_SPECIALIZATION, Skill.ID_LIST_CHANGED, Advantage.ID_LEVELS);
+    }
 
     /** Creates a new character with only default values set. */
     public GURPSCharacter() {
@@ -403,17 +435,36 @@ public class GURPSCharacter extends DataFile {
      *             sheet.
      */
     public GURPSCharacter(File file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * Creates a new character from the specified file.
+     *
+     * @param file The file to load the data from.
+     * @param recoverUnsavedChanges Whether unsaved changes recorded for the file should be
+     *            recovered.
+     * @throws IOException if the data cannot be read or the file doesn't contain a valid character
+     *             sheet.
+     */
+    public GURPSCharacter(File file, boolean recoverUnsavedChanges) throws IOException {
         super();
-        load(file);
+        LoadState state = new LoadState();
+        state.mRecoverUnsavedChanges = recoverUnsavedChanges;
+        load(file, state);
     }
 
     private void characterInitialize(boolean full) {
-        mFeatureMap = new HashMap<>();
+        mFeatureIndex = new FeatureIndex();
         mAdvantages = new OutlineModel();
         mSkills = new OutlineModel();
         mSpells = new OutlineModel();
         mEquipment = new OutlineModel();
         mNotes = new OutlineModel();
+        mAdvantageIndex = new RowNameIndex<>(() -> getAdvantagesIterator(true), Advantage::getName, null);
+        mSkillIndex = new RowNameIndex<>(this::getSkillsIterator, Skill::getName, Skill::getSpecialization);
+        mSpellIndex = new RowNameIndex<>(this::getSpellsIterator, Spell::getName, null);
+        mSpellCollegeIndex = new RowNameIndex<>(this::getSpellsIterator, Spell::getCollege, null);
         mTotalPoints = SheetPreferences.getInitialPoints();
         mStrength = 10;
         mDexterity = 10;
@@ -525,6 +576,10 @@ public class GURPSCharacter extends DataFile {
             }
         } while (reader.withinMarker(marker));
 
+        // Rows are added without notification while loading, so the name indexes and any levels
+        // that were resolved through them only reflect the rows that had been read at the time.
+        invalidateNameIndexes();
+        updateLevelsAfterLoad();
         calculateAll();
         if (unspentPoints != 0) {
             setEarnedPoints(unspentPoints);
@@ -885,20 +940,39 @@ public class GURPSCharacter extends DataFile {
     @Override
     public void notify(String type, Object data) {
         super.notify(type, data);
-        if (Advantage.ID_POINTS.equals(type) || Advantage.ID_ROUND_COST_DOWN.equals(type) || Advantage.ID_LEVELS.equals(type) || Advantage.ID_CONTAINER_TYPE.equals(type) || Advantage.ID_LIST_CHANGED.equals(type) || Advantage.ID_CR.equals(type) || Modifier.ID_LIST_CHANGED.equals(type) || Modifier.ID_ENABLED.equals(type)) {
-            mNeedAdvantagesPointCalculation = true;
-        }
-        if (Skill.ID_POINTS.equals(type) || Skill.ID_LIST_CHANGED.equals(type)) {
-            mNeedSkillPointCalculation = true;
-        }
-        if (Spell.ID_POINTS.equals(type) || Spell.ID_LIST_CHANGED.equals(type)) {
-            mNeedSpellPointCalculation = true;
-        }
-        if (Equipment.ID_QUANTITY.equals(type) || Equipment.ID_WEIGHT.equals(type) || Equipment.ID_EXTENDED_WEIGHT.equals(type) || Equipment.ID_LIST_CHANGED.equals(type)) {
-            mNeedEquipmentCalculation = true;
-        }
-        if (Profile.ID_SIZE_MODIFIER.equals(type) || SheetPreferences.OPTIONAL_STRENGTH_RULES_PREF_KEY.equals(type)) {
-            mNeedAttributePointCalculation = true;
+        int route = ROUTER.getMask(type);
+        if (route != 0) {
+            if ((route & ROUTE_ADVANTAGE_INDEX) != 0) {
+                mAdvantageIndex.invalidate();
+            }
+            if ((route & ROUTE_SKILL_INDEX) != 0) {
+                mSkillIndex.invalidate();
+            }
+            if ((route & ROUTE_SPELL_INDEX) != 0) {
+                mSpellIndex.invalidate();
+                mSpellCollegeIndex.invalidate();
+            }
+            if ((route & ROUTE_ADVANTAGE_TREE) != 0) {
+                Advantage.invalidateAdjustedPoints(mAdvantages);
+            }
+            if ((route & ROUTE_ADVANTAGE_POINTS) != 0) {
+                mNeedAdvantagesPointCalculation = true;
+            }
+            if ((route & ROUTE_SKILL_POINTS) != 0) {
+                mNeedSkillPointCalculation = true;
+            }
+            if ((route & ROUTE_SPELL_POINTS) != 0) {
+                mNeedSpellPointCalculation = true;
+            }
+            if ((route & ROUTE_EQUIPMENT) != 0) {
+                mNeedEquipmentCalculation = true;
+            }
+            if ((route & ROUTE_ATTRIBUTE_POINTS) != 0) {
+                mNeedAttributePointCalculation = true;
+            }
+            if ((route & ROUTE_WEAPON_STATS) != 0) {
+                mWeaponStatsGeneration++;
+            }
         }
     }
 
@@ -911,25 +985,25 @@ public class GURPSCharacter extends DataFile {
     protected void endNotifyAtBatchLevelOne() {
         if (mNeedAttributePointCalculation) {
             calculateAttributePoints();
-            notify(ID_ATTRIBUTE_POINTS, new Integer(getAttributePoints()));
+            notify(ID_ATTRIBUTE_POINTS, Integer.valueOf(getAttributePoints()));
         }
         if (mNeedAdvantagesPointCalculation) {
             calculateAdvantagePoints();
-            notify(ID_ADVANTAGE_POINTS, new Integer(getAdvantagePoints()));
-            notify(ID_DISADVANTAGE_POINTS, new Integer(getDisadvantagePoints()));
-            notify(ID_QUIRK_POINTS, new Integer(getQuirkPoints()));
-            notify(ID_RACE_POINTS, new Integer(getRacePoints()));
+            notify(ID_ADVANTAGE_POINTS, Integer.valueOf(getAdvantagePoints()));
+            notify(ID_DISADVANTAGE_POINTS, Integer.valueOf(getDisadvantagePoints()));
+            notify(ID_QUIRK_POINTS, Integer.valueOf(getQuirkPoints()));
+            notify(ID_RACE_POINTS, Integer.valueOf(getRacePoints()));
         }
         if (mNeedSkillPointCalculation) {
             calculateSkillPoints();
-            notify(ID_SKILL_POINTS, new Integer(getSkillPoints()));
+            notify(ID_SKILL_POINTS, Integer.valueOf(getSkillPoints()));
         }
         if (mNeedSpellPointCalculation) {
             calculateSpellPoints();
-            notify(ID_SPELL_POINTS, new Integer(getSpellPoints()));
+            notify(ID_SPELL_POINTS, Integer.valueOf(getSpellPoints()));
         }
         if (mNeedAttributePointCalculation || mNeedAdvantagesPointCalculation || mNeedSkillPointCalculation || mNeedSpellPointCalculation) {
-            notify(ID_EARNED_POINTS, new Integer(getEarnedPoints()));
+            notify(ID_EARNED_POINTS, Integer.valueOf(getEarnedPoints()));
         }
         if (mNeedEquipmentCalculation) {
             calculateWeightAndWealthCarried(true);
@@ -939,7 +1013,7 @@ public class GURPSCharacter extends DataFile {
 
             if (mLastModified != now) {
                 mLastModified = now;
-                notify(ID_LAST_MODIFIED, new Long(mLastModified));
+                notify(ID_LAST_MODIFIED, Long.valueOf(mLastModified));
             }
         }
     }
@@ -978,9 +1052,35 @@ public class GURPSCharacter extends DataFile {
         setCreatedOn(Numbers.extractDate(date));
     }
 
+    private void invalidateNameIndexes() {
+        mAdvantageIndex.invalidate();
+        mSkillIndex.invalidate();
+        mSpellIndex.invalidate();
+        mSpellCollegeIndex.invalidate();
+    }
+
+    private void updateLevelsAfterLoad() {
+        SkillLevelMemo memo = SkillLevelMemo.begin();
+        try {
+            for (Skill skill : getSkillsIterator()) {
+                skill.updateLevel(false);
+            }
+        } finally {
+            memo.end();
+        }
+        for (Spell spell : getSpellsIterator()) {
+            spell.updateLevel(false);
+        }
+    }
+
     private void updateSkills() {
-        for (Skill skill : getSkillsIterator()) {
-            skill.updateLevel(true);
+        SkillLevelMemo memo = SkillLevelMemo.begin();
+        try {
+            for (Skill skill : getSkillsIterator()) {
+                skill.updateLevel(true);
+            }
+        } finally {
+            memo.end();
         }
         mSkillsUpdated = true;
     }
@@ -1069,7 +1169,7 @@ public class GURPSCharacter extends DataFile {
 
         startNotify();
         if (notifyST) {
-            notify(ID_STRENGTH, new Integer(getStrength()));
+            notify(ID_STRENGTH, Integer.valueOf(getStrength()));
             notifyOfBaseHitPointChange();
         }
         WeightValue newLift = getBasicLift();
@@ -1377,10 +1477,10 @@ public class GURPSCharacter extends DataFile {
         mSpeedBonus = bonus;
 
         startNotify();
-        notify(ID_BASIC_SPEED, new Double(getBasicSpeed()));
+        notify(ID_BASIC_SPEED, Double.valueOf(getBasicSpeed()));
         tmp = getBasicMove();
         if (move != tmp) {
-            notify(ID_BASIC_MOVE, new Integer(tmp));
+            notify(ID_BASIC_MOVE, Integer.valueOf(tmp));
         }
         notifyIfMoveOrDodgeAltered(data);
         mNeedAttributePointCalculation = true;
@@ -1437,7 +1537,7 @@ public class GURPSCharacter extends DataFile {
         startNotify();
         mMove = move;
         mMoveBonus = bonus;
-        notify(ID_BASIC_MOVE, new Integer(getBasicMove()));
+        notify(ID_BASIC_MOVE, Integer.valueOf(getBasicMove()));
         notifyIfMoveOrDodgeAltered(data);
         mNeedAttributePointCalculation = true;
         endNotify();
@@ -1482,7 +1582,7 @@ public class GURPSCharacter extends DataFile {
 
             mDodgeBonus = bonus;
             startNotify();
-            notifySingle(ID_DODGE_BONUS, new Integer(mDodgeBonus));
+            notifySingle(ID_DODGE_BONUS, Integer.valueOf(mDodgeBonus));
             notifyIfMoveOrDodgeAltered(data);
             endNotify();
         }
@@ -1497,7 +1597,7 @@ public class GURPSCharacter extends DataFile {
     public void setParryBonus(int bonus) {
         if (mParryBonus != bonus) {
             mParryBonus = bonus;
-            notifySingle(ID_PARRY_BONUS, new Integer(mParryBonus));
+            notifySingle(ID_PARRY_BONUS, Integer.valueOf(mParryBonus));
         }
     }
 
@@ -1510,7 +1610,7 @@ public class GURPSCharacter extends DataFile {
     public void setBlockBonus(int bonus) {
         if (mBlockBonus != bonus) {
             mBlockBonus = bonus;
-            notifySingle(ID_BLOCK_BONUS, new Integer(mBlockBonus));
+            notifySingle(ID_BLOCK_BONUS, Integer.valueOf(mBlockBonus));
         }
     }
 
@@ -1592,31 +1692,28 @@ public class GURPSCharacter extends DataFile {
      *            the previous values.
      */
     public void calculateWeightAndWealthCarried(boolean notify) {
-        WeightValue savedWeight = new WeightValue(mCachedWeightCarried);
+        WeightUnits units = SheetPreferences.getWeightUnits();
+        boolean gurpsMetric = SheetPreferences.areGurpsMetricRulesUsed();
+        long weight = 0;
         double savedWealth = mCachedWealthCarried;
-        mCachedWeightCarried = new WeightValue(0, SheetPreferences.getWeightUnits());
         mCachedWealthCarried = 0.0;
         for (Row one : mEquipment.getTopLevelRows()) {
             Equipment equipment = (Equipment) one;
             if (equipment.isCarried()) {
-                WeightValue weight = new WeightValue(equipment.getExtendedWeight());
-                if (SheetPreferences.areGurpsMetricRulesUsed()) {
-                    if (SheetPreferences.getWeightUnits().isMetric()) {
-                        weight = GURPSCharacter.convertToGurpsMetric(weight);
-                    } else {
-                        weight = GURPSCharacter.convertFromGurpsMetric(weight);
-                    }
-                }
-                mCachedWeightCarried.add(weight);
+                weight += FixedWeight.convert(equipment.getExtendedWeightFixed(), equipment.getWeight().getUnits(), units, gurpsMetric);
             }
             mCachedWealthCarried += equipment.getExtendedValue();
         }
+        boolean weightChanged = units != mCachedWeightCarried.getUnits() || weight != FixedWeight.toFixed(mCachedWeightCarried);
+        if (weightChanged) {
+            mCachedWeightCarried = FixedWeight.toWeightValue(weight, units);
+        }
         if (notify) {
-            if (!savedWeight.equals(mCachedWeightCarried)) {
+            if (weightChanged) {
                 notify(ID_CARRIED_WEIGHT, mCachedWeightCarried);
             }
             if (savedWealth != mCachedWealthCarried) {
-                notify(ID_CARRIED_WEALTH, new Double(mCachedWealthCarried));
+                notify(ID_CARRIED_WEALTH, Double.valueOf(mCachedWealthCarried));
             }
         }
     }
@@ -1638,11 +1735,11 @@ public class GURPSCharacter extends DataFile {
             int index = encumbrance.ordinal();
             int tmp = getDodge(encumbrance);
             if (tmp != data[values.length + index]) {
-                notify(DODGE_PREFIX + index, new Integer(tmp));
+                notify(DODGE_PREFIX + index, Integer.valueOf(tmp));
             }
             tmp = getMove(encumbrance);
             if (tmp != data[index]) {
-                notify(MOVE_PREFIX + index, new Integer(tmp));
+                notify(MOVE_PREFIX + index, Integer.valueOf(tmp));
             }
         }
     }
@@ -1697,14 +1794,14 @@ public class GURPSCharacter extends DataFile {
         mDexterityBonus = bonus;
 
         startNotify();
-        notify(ID_DEXTERITY, new Integer(getDexterity()));
+        notify(ID_DEXTERITY, Integer.valueOf(getDexterity()));
         newSpeed = getBasicSpeed();
         if (newSpeed != speed) {
-            notify(ID_BASIC_SPEED, new Double(newSpeed));
+            notify(ID_BASIC_SPEED, Double.valueOf(newSpeed));
         }
         newMove = getBasicMove();
         if (newMove != move) {
-            notify(ID_BASIC_MOVE, new Integer(newMove));
+            notify(ID_BASIC_MOVE, Integer.valueOf(newMove));
         }
         notifyIfMoveOrDodgeAltered(data);
         updateSkills();
@@ -1765,19 +1862,19 @@ public class GURPSCharacter extends DataFile {
         mIntelligenceBonus = bonus;
 
         startNotify();
-        notify(ID_INTELLIGENCE, new Integer(getIntelligence()));
+        notify(ID_INTELLIGENCE, Integer.valueOf(getIntelligence()));
         newPerception = getPerception();
         if (newPerception != perception) {
-            notify(ID_PERCEPTION, new Integer(newPerception));
-            notify(ID_VISION, new Integer(getVision()));
-            notify(ID_HEARING, new Integer(getHearing()));
-            notify(ID_TASTE_AND_SMELL, new Integer(getTasteAndSmell()));
-            notify(ID_TOUCH, new Integer(getTouch()));
+            notify(ID_PERCEPTION, Integer.valueOf(newPerception));
+            notify(ID_VISION, Integer.valueOf(getVision()));
+            notify(ID_HEARING, Integer.valueOf(getHearing()));
+            notify(ID_TASTE_AND_SMELL, Integer.valueOf(getTasteAndSmell()));
+            notify(ID_TOUCH, Integer.valueOf(getTouch()));
         }
         newWill = getWill();
         if (newWill != will) {
-            notify(ID_WILL, new Integer(newWill));
-            notify(ID_FRIGHT_CHECK, new Integer(getFrightCheck()));
+            notify(ID_WILL, Integer.valueOf(newWill));
+            notify(ID_FRIGHT_CHECK, Integer.valueOf(getFrightCheck()));
         }
         updateSkills();
         updateSpells();
@@ -1840,16 +1937,16 @@ public class GURPSCharacter extends DataFile {
         mHealthBonus = bonus;
 
         startNotify();
-        notify(ID_HEALTH, new Integer(getHealth()));
+        notify(ID_HEALTH, Integer.valueOf(getHealth()));
 
         newSpeed = getBasicSpeed();
         if (newSpeed != speed) {
-            notify(ID_BASIC_SPEED, new Double(newSpeed));
+            notify(ID_BASIC_SPEED, Double.valueOf(newSpeed));
         }
 
         tmp = getBasicMove();
         if (tmp != move) {
-            notify(ID_BASIC_MOVE, new Integer(tmp));
+            notify(ID_BASIC_MOVE, Integer.valueOf(tmp));
         }
         notifyIfMoveOrDodgeAltered(data);
         notifyOfBaseFatiguePointChange();
@@ -1893,7 +1990,7 @@ public class GURPSCharacter extends DataFile {
             mTotalPoints = earned + getSpentPoints();
             startNotify();
             notify(ID_EARNED_POINTS, value);
-            notify(ID_TOTAL_POINTS, new Integer(getTotalPoints()));
+            notify(ID_TOTAL_POINTS, Integer.valueOf(getTotalPoints()));
             endNotify();
         }
     }
@@ -2000,7 +2097,7 @@ public class GURPSCharacter extends DataFile {
         if (mIncludePunch != include) {
             postUndoEdit(INCLUDE_PUNCH_UNDO, ID_INCLUDE_PUNCH, new Boolean(mIncludePunch), new Boolean(include));
             mIncludePunch = include;
-            notifySingle(ID_INCLUDE_PUNCH, new Boolean(mIncludePunch));
+            notifySingle(ID_INCLUDE_PUNCH, Boolean.valueOf(mIncludePunch));
         }
     }
 
@@ -2014,7 +2111,7 @@ public class GURPSCharacter extends DataFile {
         if (mIncludeKick != include) {
             postUndoEdit(INCLUDE_KICK_UNDO, ID_INCLUDE_KICK, new Boolean(mIncludeKick), new Boolean(include));
             mIncludeKick = include;
-            notifySingle(ID_INCLUDE_KICK, new Boolean(mIncludeKick));
+            notifySingle(ID_INCLUDE_KICK, Boolean.valueOf(mIncludeKick));
         }
     }
 
@@ -2028,7 +2125,7 @@ public class GURPSCharacter extends DataFile {
         if (mIncludeKickBoots != include) {
             postUndoEdit(INCLUDE_BOOTS_UNDO, ID_INCLUDE_BOOTS, new Boolean(mIncludeKickBoots), new Boolean(include));
             mIncludeKickBoots = include;
-            notifySingle(ID_INCLUDE_BOOTS, new Boolean(mIncludeKickBoots));
+            notifySingle(ID_INCLUDE_BOOTS, Boolean.valueOf(mIncludeKickBoots));
         }
     }
 
@@ -2094,13 +2191,13 @@ public class GURPSCharacter extends DataFile {
 
     private void notifyOfBaseHitPointChange() {
         startNotify();
-        notify(ID_HIT_POINTS, new Integer(getHitPoints()));
-        notify(ID_DEATH_CHECK_1_HIT_POINTS, new Integer(getDeathCheck1HitPoints()));
-        notify(ID_DEATH_CHECK_2_HIT_POINTS, new Integer(getDeathCheck2HitPoints()));
-        notify(ID_DEATH_CHECK_3_HIT_POINTS, new Integer(getDeathCheck3HitPoints()));
-        notify(ID_DEATH_CHECK_4_HIT_POINTS, new Integer(getDeathCheck4HitPoints()));
-        notify(ID_DEAD_HIT_POINTS, new Integer(getDeadHitPoints()));
-        notify(ID_REELING_HIT_POINTS, new Integer(getReelingHitPoints()));
+        notify(ID_HIT_POINTS, Integer.valueOf(getHitPoints()));
+        notify(ID_DEATH_CHECK_1_HIT_POINTS, Integer.valueOf(getDeathCheck1HitPoints()));
+        notify(ID_DEATH_CHECK_2_HIT_POINTS, Integer.valueOf(getDeathCheck2HitPoints()));
+        notify(ID_DEATH_CHECK_3_HIT_POINTS, Integer.valueOf(getDeathCheck3HitPoints()));
+        notify(ID_DEATH_CHECK_4_HIT_POINTS, Integer.valueOf(getDeathCheck4HitPoints()));
+        notify(ID_DEAD_HIT_POINTS, Integer.valueOf(getDeadHitPoints()));
+        notify(ID_REELING_HIT_POINTS, Integer.valueOf(getReelingHitPoints()));
         endNotify();
     }
 
@@ -2191,8 +2288,8 @@ public class GURPSCharacter extends DataFile {
         mWillBonus = bonus;
 
         startNotify();
-        notify(ID_WILL, new Integer(getWill()));
-        notify(ID_FRIGHT_CHECK, new Integer(getFrightCheck()));
+        notify(ID_WILL, Integer.valueOf(getWill()));
+        notify(ID_FRIGHT_CHECK, Integer.valueOf(getFrightCheck()));
         updateSkills();
         mNeedAttributePointCalculation = true;
         endNotify();
@@ -2224,7 +2321,7 @@ public class GURPSCharacter extends DataFile {
         if (mFrightCheckBonus != bonus) {
             mFrightCheckBonus = bonus;
             startNotify();
-            notify(ID_FRIGHT_CHECK, new Integer(getFrightCheck()));
+            notify(ID_FRIGHT_CHECK, Integer.valueOf(getFrightCheck()));
             endNotify();
         }
     }
@@ -2244,7 +2341,7 @@ public class GURPSCharacter extends DataFile {
         if (mVisionBonus != bonus) {
             mVisionBonus = bonus;
             startNotify();
-            notify(ID_VISION, new Integer(getVision()));
+            notify(ID_VISION, Integer.valueOf(getVision()));
             endNotify();
         }
     }
@@ -2264,7 +2361,7 @@ public class GURPSCharacter extends DataFile {
         if (mHearingBonus != bonus) {
             mHearingBonus = bonus;
             startNotify();
-            notify(ID_HEARING, new Integer(getHearing()));
+            notify(ID_HEARING, Integer.valueOf(getHearing()));
             endNotify();
         }
     }
@@ -2284,7 +2381,7 @@ public class GURPSCharacter extends DataFile {
         if (mTouchBonus != bonus) {
             mTouchBonus = bonus;
             startNotify();
-            notify(ID_TOUCH, new Integer(getTouch()));
+            notify(ID_TOUCH, Integer.valueOf(getTouch()));
             endNotify();
         }
     }
@@ -2304,7 +2401,7 @@ public class GURPSCharacter extends DataFile {
         if (mTasteAndSmellBonus != bonus) {
             mTasteAndSmellBonus = bonus;
             startNotify();
-            notify(ID_TASTE_AND_SMELL, new Integer(getTasteAndSmell()));
+            notify(ID_TASTE_AND_SMELL, Integer.valueOf(getTasteAndSmell()));
             endNotify();
         }
     }
@@ -2344,11 +2441,11 @@ public class GURPSCharacter extends DataFile {
         mPerceptionBonus = bonus;
 
         startNotify();
-        notify(ID_PERCEPTION, new Integer(getPerception()));
-        notify(ID_VISION, new Integer(getVision()));
-        notify(ID_HEARING, new Integer(getHearing()));
-        notify(ID_TASTE_AND_SMELL, new Integer(getTasteAndSmell()));
-        notify(ID_TOUCH, new Integer(getTouch()));
+        notify(ID_PERCEPTION, Integer.valueOf(getPerception()));
+        notify(ID_VISION, Integer.valueOf(getVision()));
+        notify(ID_HEARING, Integer.valueOf(getHearing()));
+        notify(ID_TASTE_AND_SMELL, Integer.valueOf(getTasteAndSmell()));
+        notify(ID_TOUCH, Integer.valueOf(getTouch()));
         updateSkills();
         mNeedAttributePointCalculation = true;
         endNotify();
@@ -2402,10 +2499,10 @@ public class GURPSCharacter extends DataFile {
 
     private void notifyOfBaseFatiguePointChange() {
         startNotify();
-        notify(ID_FATIGUE_POINTS, new Integer(getFatiguePoints()));
-        notify(ID_UNCONSCIOUS_CHECKS_FATIGUE_POINTS, new Integer(getUnconsciousChecksFatiguePoints()));
-        notify(ID_UNCONSCIOUS_FATIGUE_POINTS, new Integer(getUnconsciousFatiguePoints()));
-        notify(ID_TIRED_FATIGUE_POINTS, new Integer(getTiredFatiguePoints()));
+        notify(ID_FATIGUE_POINTS, Integer.valueOf(getFatiguePoints()));
+        notify(ID_UNCONSCIOUS_CHECKS_FATIGUE_POINTS, Integer.valueOf(getUnconsciousChecksFatiguePoints()));
+        notify(ID_UNCONSCIOUS_FATIGUE_POINTS, Integer.valueOf(getUnconsciousFatiguePoints()));
+        notify(ID_TIRED_FATIGUE_POINTS, Integer.valueOf(getTiredFatiguePoints()));
         endNotify();
     }
 
@@ -2480,14 +2577,30 @@ public class GURPSCharacter extends DataFile {
      * @return The advantage, if present, or <code>null</code>.
      */
     public Advantage getAdvantageNamed(String name) {
-        for (Advantage advantage : getAdvantagesIterator(false)) {
-            if (advantage.getName().equals(name)) {
+        for (Advantage advantage : mAdvantageIndex.get(name)) {
+            if (advantage.isEnabled() && advantage.getName().equals(name)) {
                 return advantage;
             }
         }
         return null;
     }
 
+    /**
+     * Searches the character's current enabled advantages for the specified name, ignoring case.
+     *
+     * @param name The name to look for.
+     * @return The matching advantages, in the order they appear on the sheet.
+     */
+    public List<Advantage> getAdvantagesNamed(String name) {
+        List<Advantage> advantages = new ArrayList<>();
+        for (Advantage advantage : mAdvantageIndex.get(name)) {
+            if (advantage.isEnabled()) {
+                advantages.add(advantage);
+            }
+        }
+        return advantages;
+    }
+
     /**
      * Searches the character's current advantages list for the specified name.
      *
@@ -2518,18 +2631,14 @@ public class GURPSCharacter extends DataFile {
      * @param excludes The set of {@link Skill}s to exclude from consideration.
      * @return The skill if it is present, or <code>null</code> if its not.
      */
-    public ArrayList<Skill> getSkillNamed(String name, String specialization, boolean requirePoints, HashSet<String> excludes) {
+    public ArrayList<Skill> getSkillNamed(String name, String specialization, boolean requirePoints, HashSet<Skill> excludes) {
         ArrayList<Skill> skills = new ArrayList<>();
         boolean checkSpecialization = specialization != null && specialization.length() > 0;
-        for (Skill skill : getSkillsIterator()) {
+        for (Skill skill : checkSpecialization ? mSkillIndex.get(name, specialization) : mSkillIndex.get(name)) {
             if (!skill.canHaveChildren()) {
-                if (excludes == null || !excludes.contains(skill.toString())) {
+                if (excludes == null || !excludes.contains(skill)) {
                     if (!requirePoints || skill.getPoints() > 0) {
-                        if (skill.getName().equalsIgnoreCase(name)) {
-                            if (!checkSpecialization || skill.getSpecialization().equalsIgnoreCase(specialization)) {
-                                skills.add(skill);
-                            }
-                        }
+                        skills.add(skill);
                     }
                 }
             }
@@ -2537,6 +2646,16 @@ public class GURPSCharacter extends DataFile {
         return skills;
     }
 
+    /**
+     * Searches the character's current skill list for the specified name, ignoring case.
+     *
+     * @param name The name to look for.
+     * @return The matching skills and skill containers, in the order they appear on the sheet.
+     */
+    public List<Skill> getSkillsNamed(String name) {
+        return Collections.unmodifiableList(mSkillIndex.get(name));
+    }
+
     /**
      * Searches the character's current {@link Skill} list for the {@link Skill} with the best level
      * that matches the name.
@@ -2548,7 +2667,7 @@ public class GURPSCharacter extends DataFile {
      * @param excludes The set of {@link Skill}s to exclude from consideration.
      * @return The {@link Skill} that matches with the highest level.
      */
-    public Skill getBestSkillNamed(String name, String specialization, boolean requirePoints, HashSet<String> excludes) {
+    public Skill getBestSkillNamed(String name, String specialization, boolean requirePoints, HashSet<Skill> excludes) {
         Skill best = null;
         int level = Integer.MIN_VALUE;
 
@@ -2573,6 +2692,27 @@ public class GURPSCharacter extends DataFile {
         return new RowIterator<>(mSpells);
     }
 
+    /**
+     * Searches the character's current spell list for the specified name, ignoring case.
+     *
+     * @param name The name to look for.
+     * @return The matching spells, in the order they appear on the sheet.
+     */
+    public List<Spell> getSpellsNamed(String name) {
+        return Collections.unmodifiableList(mSpellIndex.get(name));
+    }
+
+    /**
+     * Searches the character's current spell list for spells in the specified college, ignoring
+     * case.
+     *
+     * @param college The college to look for.
+     * @return The matching spells, in the order they appear on the sheet.
+     */
+    public List<Spell> getSpellsInCollege(String college) {
+        return Collections.unmodifiableList(mSpellCollegeIndex.get(college));
+    }
+
     /** @return The outline model for the character's equipment. */
     public OutlineModel getEquipmentRoot() {
         return mEquipment;
@@ -2593,38 +2733,39 @@ public class GURPSCharacter extends DataFile {
         return new RowIterator<>(mNotes);
     }
 
-    /** @param map The new feature map. */
-    public void setFeatureMap(HashMap<String, ArrayList<Feature>> map) {
-        mFeatureMap = map;
+    /** @param index The new feature index. */
+    public void setFeatureMap(FeatureIndex index) {
+        mFeatureIndex = index;
+        mWeaponStatsGeneration++;
         mSkillsUpdated = false;
         mSpellsUpdated = false;
 
         startNotify();
-        setStrengthBonus(getIntegerBonusFor(ID_STRENGTH));
-        setStrengthCostReduction(getCostReductionFor(ID_STRENGTH));
-        setLiftingStrengthBonus(getIntegerBonusFor(ID_LIFTING_STRENGTH));
-        setStrikingStrengthBonus(getIntegerBonusFor(ID_STRIKING_STRENGTH));
-        setDexterityBonus(getIntegerBonusFor(ID_DEXTERITY));
-        setDexterityCostReduction(getCostReductionFor(ID_DEXTERITY));
-        setIntelligenceBonus(getIntegerBonusFor(ID_INTELLIGENCE));
-        setIntelligenceCostReduction(getCostReductionFor(ID_INTELLIGENCE));
-        setHealthBonus(getIntegerBonusFor(ID_HEALTH));
-        setHealthCostReduction(getCostReductionFor(ID_HEALTH));
-        setWillBonus(getIntegerBonusFor(ID_WILL));
-        setFrightCheckBonus(getIntegerBonusFor(ID_FRIGHT_CHECK));
-        setPerceptionBonus(getIntegerBonusFor(ID_PERCEPTION));
-        setVisionBonus(getIntegerBonusFor(ID_VISION));
-        setHearingBonus(getIntegerBonusFor(ID_HEARING));
-        setTasteAndSmellBonus(getIntegerBonusFor(ID_TASTE_AND_SMELL));
-        setTouchBonus(getIntegerBonusFor(ID_TOUCH));
-        setHitPointBonus(getIntegerBonusFor(ID_HIT_POINTS));
-        setFatiguePointBonus(getIntegerBonusFor(ID_FATIGUE_POINTS));
+        setStrengthBonus(index.getAttributeIntegerBonus(BonusAttributeType.ST));
+        setStrengthCostReduction(getCostReductionFor(BonusAttributeType.ST));
+        setLiftingStrengthBonus(index.getAttributeIntegerBonus(BonusAttributeType.ST, AttributeBonusLimitation.LIFTING_ONLY));
+        setStrikingStrengthBonus(index.getAttributeIntegerBonus(BonusAttributeType.ST, AttributeBonusLimitation.STRIKING_ONLY));
+        setDexterityBonus(index.getAttributeIntegerBonus(BonusAttributeType.DX));
+        setDexterityCostReduction(getCostReductionFor(BonusAttributeType.DX));
+        setIntelligenceBonus(index.getAttributeIntegerBonus(BonusAttributeType.IQ));
+        setIntelligenceCostReduction(getCostReductionFor(BonusAttributeType.IQ));
+        setHealthBonus(index.getAttributeIntegerBonus(BonusAttributeType.HT));
+        setHealthCostReduction(getCostReductionFor(BonusAttributeType.HT));
+        setWillBonus(index.getAttributeIntegerBonus(BonusAttributeType.WILL));
+        setFrightCheckBonus(index.getAttributeIntegerBonus(BonusAttributeType.FRIGHT_CHECK));
+        setPerceptionBonus(index.getAttributeIntegerBonus(BonusAttributeType.PERCEPTION));
+        setVisionBonus(index.getAttributeIntegerBonus(BonusAttributeType.VISION));
+        setHearingBonus(index.getAttributeIntegerBonus(BonusAttributeType.HEARING));
+        setTasteAndSmellBonus(index.getAttributeIntegerBonus(BonusAttributeType.TASTE_SMELL));
+        setTouchBonus(index.getAttributeIntegerBonus(BonusAttributeType.TOUCH));
+        setHitPointBonus(index.getAttributeIntegerBonus(BonusAttributeType.HP));
+        setFatiguePointBonus(index.getAttributeIntegerBonus(BonusAttributeType.FP));
         mDescription.update();
-        setDodgeBonus(getIntegerBonusFor(ID_DODGE_BONUS));
-        setParryBonus(getIntegerBonusFor(ID_PARRY_BONUS));
-        setBlockBonus(getIntegerBonusFor(ID_BLOCK_BONUS));
-        setBasicSpeedBonus(getDoubleBonusFor(ID_BASIC_SPEED));
-        setBasicMoveBonus(getIntegerBonusFor(ID_BASIC_MOVE));
+        setDodgeBonus(index.getAttributeIntegerBonus(BonusAttributeType.DODGE));
+        setParryBonus(index.getAttributeIntegerBonus(BonusAttributeType.PARRY));
+        setBlockBonus(index.getAttributeIntegerBonus(BonusAttributeType.BLOCK));
+        setBasicSpeedBonus(index.getAttributeBonus(BonusAttributeType.SPEED));
+        setBasicMoveBonus(index.getAttributeIntegerBonus(BonusAttributeType.MOVE));
         mArmor.update();
         if (!mSkillsUpdated) {
             updateSkills();
@@ -2640,20 +2781,28 @@ public class GURPSCharacter extends DataFile {
      * @return The cost reduction, as a percentage.
      */
     public int getCostReductionFor(String id) {
-        int total = 0;
-        ArrayList<Feature> list = mFeatureMap.get(id.toLowerCase());
+        return Math.min(mFeatureIndex.getCostReduction(id), 80);
+    }
 
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof CostReduction) {
-                    total += ((CostReduction) feature).getPercentage();
-                }
-            }
-        }
-        if (total > 80) {
-            total = 80;
-        }
-        return total;
+    /**
+     * @param attribute The attribute to search for.
+     * @return The cost reduction, as a percentage.
+     */
+    public int getCostReductionFor(BonusAttributeType attribute) {
+        return Math.min(mFeatureIndex.getAttributeCostReduction(attribute), 80);
+    }
+
+    /**
+     * @return A value that changes whenever something the resolved weapon stats depend upon
+     *         changes: attributes and their bonuses, encumbrance, skill levels and weapon bonuses.
+     */
+    public int getWeaponStatsGeneration() {
+        return mWeaponStatsGeneration;
+    }
+
+    /** Forces resolved weapon stats to be recalculated upon next use. */
+    public void invalidateWeaponStats() {
+        mWeaponStatsGeneration++;
     }
 
     /**
@@ -2661,16 +2810,7 @@ public class GURPSCharacter extends DataFile {
      * @return The bonus.
      */
     public int getIntegerBonusFor(String id) {
-        int total = 0;
-        ArrayList<Feature> list = mFeatureMap.get(id.toLowerCase());
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof Bonus && !(feature instanceof WeaponBonus)) {
-                    total += ((Bonus) feature).getAmount().getIntegerAdjustedAmount();
-                }
-            }
-        }
-        return total;
+        return mFeatureIndex.getIntegerBonus(id);
     }
 
     /**
@@ -2692,15 +2832,9 @@ public class GURPSCharacter extends DataFile {
         }
 
         if (rsl != Integer.MIN_VALUE) {
-            ArrayList<Feature> list = mFeatureMap.get(id.toLowerCase());
-            if (list != null) {
-                for (Feature feature : list) {
-                    if (feature instanceof WeaponBonus) {
-                        WeaponBonus bonus = (WeaponBonus) feature;
-                        if (bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(specializationQualifier) && bonus.getLevelCriteria().matches(rsl)) {
-                            bonuses.add(bonus);
-                        }
-                    }
+            for (WeaponBonus bonus : mFeatureIndex.getWeaponBonuses(id)) {
+                if (bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(specializationQualifier) && bonus.getLevelCriteria().matches(rsl)) {
+                    bonuses.add(bonus);
                 }
             }
         }
@@ -2715,15 +2849,9 @@ public class GURPSCharacter extends DataFile {
      */
     public int getSkillComparedIntegerBonusFor(String id, String nameQualifier, String specializationQualifier) {
         int total = 0;
-        ArrayList<Feature> list = mFeatureMap.get(id.toLowerCase());
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof SkillBonus) {
-                    SkillBonus bonus = (SkillBonus) feature;
-                    if (bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(specializationQualifier)) {
-                        total += bonus.getAmount().getIntegerAdjustedAmount();
-                    }
-                }
+        for (SkillBonus bonus : mFeatureIndex.getSkillBonuses(id)) {
+            if (bonus.getNameCriteria().matches(nameQualifier) && bonus.getSpecializationCriteria().matches(specializationQualifier)) {
+                total += bonus.getAmount().getIntegerAdjustedAmount();
             }
         }
         return total;
@@ -2736,15 +2864,9 @@ public class GURPSCharacter extends DataFile {
      */
     public int getSpellComparedIntegerBonusFor(String id, String qualifier) {
         int total = 0;
-        ArrayList<Feature> list = mFeatureMap.get(id.toLowerCase());
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof SpellBonus) {
-                    SpellBonus bonus = (SpellBonus) feature;
-                    if (bonus.getNameCriteria().matches(qualifier)) {
-                        total += bonus.getAmount().getIntegerAdjustedAmount();
-                    }
-                }
+        for (SpellBonus bonus : mFeatureIndex.getSpellBonuses(id)) {
+            if (bonus.getNameCriteria().matches(qualifier)) {
+                total += bonus.getAmount().getIntegerAdjustedAmount();
             }
         }
         return total;
@@ -2755,16 +2877,7 @@ public class GURPSCharacter extends DataFile {
      * @return The bonus.
      */
     public double getDoubleBonusFor(String id) {
-        double total = 0;
-        ArrayList<Feature> list = mFeatureMap.get(id.toLowerCase());
-        if (list != null) {
-            for (Feature feature : list) {
-                if (feature instanceof Bonus && !(feature instanceof WeaponBonus)) {
-                    total += ((Bonus) feature).getAmount().getAdjustedAmount();
-                }
-            }
-        }
-        return total;
+        return mFeatureIndex.getBonus(id);
     }
 
     /**
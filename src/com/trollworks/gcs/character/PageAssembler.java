@@ -20,6 +20,7 @@ import com.trollworks.toolkit.ui.widget.Wrapper;
 import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Insets;
+import java.util.ArrayList;
 
 /** Assembles pages in a sheet. */
 public class PageAssembler {
@@ -30,6 +31,7 @@ public class PageAssembler {
     private int              mRemaining;
     private int              mContentHeight;
     private int              mContentWidth;
+    private ArrayList<Page>  mSparePages;
 
     /**
      * Create a new page assembler.
@@ -39,16 +41,53 @@ public class PageAssembler {
     PageAssembler(CharacterSheet sheet) {
         mSheet = sheet;
         Scale.setOverride(mSheet.getScale());
+        mSparePages = new ArrayList<>();
         addPageInternal();
     }
 
+    /**
+     * Create a new page assembler that resumes adding content at a checkpoint taken during an
+     * earlier assembly. Everything added to the sheet after the checkpoint is removed, although
+     * the pages are kept for reuse.
+     *
+     * @param sheet The sheet to assemble pages within.
+     * @param checkpoint The checkpoint to resume from.
+     */
+    PageAssembler(CharacterSheet sheet, Checkpoint checkpoint) {
+        mSheet = sheet;
+        Scale.setOverride(mSheet.getScale());
+        mSparePages = new ArrayList<>();
+        for (int i = mSheet.getComponentCount() - 1; i > checkpoint.mPageIndex; i--) {
+            mSparePages.add((Page) mSheet.getComponent(i));
+            mSheet.remove(i);
+        }
+        mPage = (Page) mSheet.getComponent(checkpoint.mPageIndex);
+        mContent = (Wrapper) mPage.getComponent(0);
+        for (int i = mContent.getComponentCount() - 1; i >= checkpoint.mContentCount; i--) {
+            mContent.remove(i);
+        }
+        mRemaining = checkpoint.mRemaining;
+        mContentHeight = checkpoint.mContentHeight;
+        mContentWidth = checkpoint.mContentWidth;
+    }
+
+    /** @return A checkpoint that a later assembly may resume from. */
+    public Checkpoint checkpoint() {
+        return new Checkpoint(this);
+    }
+
     /** @return The content width. */
     public int getContentWidth() {
         return mContentWidth;
     }
 
     private void addPageInternal() {
-        mPage = new Page(mSheet);
+        if (mSparePages.isEmpty()) {
+            mPage = new Page(mSheet);
+        } else {
+            mPage = mSparePages.remove(mSparePages.size() - 1);
+            mPage.removeAll();
+        }
         mSheet.add(mPage);
         if (mContentHeight < 1) {
             Insets insets = mPage.getInsets();
@@ -146,8 +185,25 @@ public class PageAssembler {
         return true;
     }
 
-    @SuppressWarnings("static-method")
     public void finish() {
+        mSparePages.clear();
         Scale.setOverride(null);
     }
+
+    /** The state of a {@link PageAssembler} at the point content was about to be added. */
+    public static class Checkpoint {
+        int mPageIndex;
+        int mContentCount;
+        int mRemaining;
+        int mContentHeight;
+        int mContentWidth;
+
+        Checkpoint(PageAssembler assembler) {
+            mPageIndex = assembler.mSheet.getComponentCount() - 1;
+            mContentCount = assembler.mContent.getComponentCount();
+            mRemaining = assembler.mRemaining;
+            mContentHeight = assembler.mContentHeight;
+            mContentWidth = assembler.mContentWidth;
+        }
+    }
 }
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.character;
+
+import com.trollworks.toolkit.ui.image.StdImage;
+import com.trollworks.toolkit.utility.FileType;
+import com.trollworks.toolkit.utility.text.Text;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.imageio.ImageIO;
+
+/**
+ * A character portrait. The portrait is kept as PNG data and is only decoded when it is first
+ * displayed. Scaled variants of it are held in a small cache shared by all portraits, so that
+ * having many sheets open does not keep a decoded copy of every portrait around.
+ */
+public class Portrait {
+    /** The resolution, in dots per inch, used when printing a portrait. */
+    public static final int           PRINT_DPI               = 150;
+    private static final int          MAXIMUM_CACHED_VARIANTS = 24;
+    private static final byte[]       PNG_SIGNATURE           = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    private static final VariantCache VARIANTS                = new VariantCache();
+    private static String             DEFAULT_PATH;
+    private static Portrait           DEFAULT;
+    private byte[]                    mData;
+    private String                    mBase64;
+    private StdImage                  mImage;
+
+    /**
+     * @param data Data that may hold an image.
+     * @return <code>true</code> if the data is a PNG image whose size can be read without
+     *         decoding it.
+     */
+    private static boolean isPNG(byte[] data) {
+        if (data == null || data.length < 24) {
+            return false;
+        }
+        for (int i = 0; i < PNG_SIGNATURE.length; i++) {
+            if (data[i] != PNG_SIGNATURE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param data The image data, such as that saved with a sheet.
+     * @return The new portrait, or <code>null</code> if the data could not be decoded. PNG data
+     *         that is already at the retina size of a portrait is kept as-is and only decoded when
+     *         it is displayed. Anything else is decoded now and scaled to the retina size.
+     */
+    public static Portrait create(byte[] data) {
+        if (isPNG(data) && readInt(data, 16) == Profile.PORTRAIT_WIDTH * 2 && readInt(data, 20) == Profile.PORTRAIT_HEIGHT * 2) {
+            return new Portrait(data, null);
+        }
+        return create(StdImage.loadImage(data));
+    }
+
+    /**
+     * @param image The image to use. It will be scaled to the retina size of a portrait, if
+     *            necessary.
+     * @return The new portrait, or <code>null</code> if the image was <code>null</code>.
+     */
+    public static Portrait create(StdImage image) {
+        if (image == null) {
+            return null;
+        }
+        if (image.getWidth() != Profile.PORTRAIT_WIDTH * 2 || image.getHeight() != Profile.PORTRAIT_HEIGHT * 2) {
+            image = StdImage.scale(image, Profile.PORTRAIT_WIDTH * 2, Profile.PORTRAIT_HEIGHT * 2);
+        }
+        return new Portrait(null, image);
+    }
+
+    /**
+     * @param path The default portrait path.
+     * @return The portrait to use for characters that don't have their own. The same portrait is
+     *         shared by all such characters.
+     */
+    public static synchronized Portrait getDefault(String path) {
+        if (DEFAULT_PATH == null || !DEFAULT_PATH.equals(path)) {
+            DEFAULT = create(Profile.getPortraitFromPortraitPath(path));
+            DEFAULT_PATH = path;
+        }
+        return DEFAULT;
+    }
+
+    private Portrait(byte[] data, StdImage image) {
+        mData = data;
+        mImage = image;
+    }
+
+    /**
+     * @return The portrait as PNG data. Data the portrait was created from is returned as-is,
+     *         without decoding it.
+     */
+    public synchronized byte[] getPNG() throws IOException {
+        if (mData == null) {
+            try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+                ImageIO.write(mImage, FileType.PNG_EXTENSION, baos);
+                mData = baos.toByteArray();
+            }
+        }
+        return mData;
+    }
+
+    /**
+     * @return The PNG data, encoded as Base64 for saving. The encoding is only done once, so that
+     *         saves, which serialize the whole sheet on the event dispatch thread, don't repeat it.
+     */
+    public synchronized String getBase64() throws IOException {
+        if (mBase64 == null) {
+            mBase64 = Text.standardizeLineEndings(Base64.getMimeEncoder().encodeToString(getPNG()));
+        }
+        return mBase64;
+    }
+
+    /** @return The portrait at its normal size. */
+    public StdImage getNormalImage() {
+        return getImage(Profile.PORTRAIT_WIDTH, Profile.PORTRAIT_HEIGHT);
+    }
+
+    /** @return The portrait at twice its normal size, for high resolution displays. */
+    public StdImage getRetinaImage() {
+        return getImage(Profile.PORTRAIT_WIDTH * 2, Profile.PORTRAIT_HEIGHT * 2);
+    }
+
+    /**
+     * @return The portrait at {@link #PRINT_DPI}, or at the size it was supplied in, whichever is
+     *         smaller.
+     */
+    public StdImage getPrintImage() {
+        int width = Profile.PORTRAIT_WIDTH * PRINT_DPI / 72;
+        int height = Profile.PORTRAIT_HEIGHT * PRINT_DPI / 72;
+        int sourceWidth;
+        int sourceHeight;
+        if (mImage != null) {
+            sourceWidth = mImage.getWidth();
+            sourceHeight = mImage.getHeight();
+        } else {
+            // The PNG header holds the size, so there is no need to decode the image to find it
+            sourceWidth = readInt(mData, 16);
+            sourceHeight = readInt(mData, 20);
+        }
+        if (sourceWidth > 0 && sourceHeight > 0 && sourceWidth < width) {
+            width = sourceWidth;
+            height = sourceHeight;
+        }
+        return getImage(width, height);
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16 | (data[offset + 2] & 0xFF) << 8 | data[offset + 3] & 0xFF;
+    }
+
+    private StdImage getImage(int width, int height) {
+        Variant key = new Variant(this, width, height);
+        synchronized (VARIANTS) {
+            StdImage image = VARIANTS.get(key);
+            if (image != null) {
+                return image;
+            }
+        }
+        StdImage image = mImage != null ? mImage : StdImage.loadImage(mData);
+        if (image == null) {
+            return null;
+        }
+        if (image.getWidth() != width || image.getHeight() != height) {
+            image = StdImage.scale(image, width, height);
+        }
+        synchronized (VARIANTS) {
+            VARIANTS.put(key, image);
+        }
+        return image;
+    }
+
+    private static class VariantCache extends LinkedHashMap<Variant, StdImage> {
+        VariantCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Variant, StdImage> eldest) {
+            return size() > MAXIMUM_CACHED_VARIANTS;
+        }
+    }
+
+    private static class Variant {
+        private Portrait mPortrait;
+        private int      mWidth;
+        private int      mHeight;
+
+        Variant(Portrait portrait, int width, int height) {
+            mPortrait = portrait;
+            mWidth = width;
+            mHeight = height;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj instanceof Variant) {
+                Variant other = (Variant) obj;
+                return mPortrait == other.mPortrait && mWidth == other.mWidth && mHeight == other.mHeight;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Integer.valueOf(System.identityHashCode(mPortrait)), Integer.valueOf(mWidth), Integer.valueOf(mHeight));
+        }
+    }
+}
@@ -16,7 +16,6 @@ import com.trollworks.gcs.page.DropPanel;
 import com.trollworks.gcs.preferences.SheetPreferences;
 import com.trollworks.toolkit.annotation.Localize;
 import com.trollworks.toolkit.ui.GraphicsUtilities;
-import com.trollworks.toolkit.ui.RetinaIcon;
 import com.trollworks.toolkit.ui.border.TitledBorder;
 import com.trollworks.toolkit.ui.image.StdImage;
 import com.trollworks.toolkit.ui.scale.Scale;
@@ -103,10 +102,22 @@ public class PortraitPanel extends DropPanel implements NotifierTarget {
     protected void paintComponent(Graphics g) {
         Graphics2D gc = GraphicsUtilities.prepare(g);
         super.paintComponent(gc);
-        RetinaIcon portrait = mSheet.getCharacter().getDescription().getPortrait();
+        Portrait portrait = mSheet.getCharacter().getDescription().getPortrait();
         if (portrait != null) {
-            Insets insets = getInsets();
-            portrait.paintIcon(this, gc, insets.left, insets.top);
+            Scale scale = Scale.get(this);
+            int width = scale.scale(Profile.PORTRAIT_WIDTH);
+            StdImage image;
+            if (mSheet.isPrinting()) {
+                image = portrait.getPrintImage();
+            } else if (width * gc.getTransform().getScaleX() > Profile.PORTRAIT_WIDTH) {
+                image = portrait.getRetinaImage();
+            } else {
+                image = portrait.getNormalImage();
+            }
+            if (image != null) {
+                Insets insets = getInsets();
+                gc.drawImage(image, insets.left, insets.top, width, scale.scale(Profile.PORTRAIT_HEIGHT), null);
+            }
         }
     }
 
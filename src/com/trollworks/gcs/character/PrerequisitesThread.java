@@ -14,10 +14,13 @@ package com.trollworks.gcs.character;
 import com.trollworks.gcs.advantage.Advantage;
 import com.trollworks.gcs.equipment.Equipment;
 import com.trollworks.gcs.feature.Bonus;
+import com.trollworks.gcs.feature.BonusAttributeType;
 import com.trollworks.gcs.feature.Feature;
+import com.trollworks.gcs.feature.FeatureIndex;
 import com.trollworks.gcs.modifier.Modifier;
 import com.trollworks.gcs.preferences.SheetPreferences;
 import com.trollworks.gcs.skill.Skill;
+import com.trollworks.gcs.skill.SkillLevelMemo;
 import com.trollworks.gcs.skill.Technique;
 import com.trollworks.gcs.spell.Spell;
 import com.trollworks.gcs.widgets.outline.ListRow;
@@ -26,12 +29,17 @@ import com.trollworks.toolkit.utility.Localization;
 import com.trollworks.toolkit.utility.Preferences;
 import com.trollworks.toolkit.utility.notification.NotifierTarget;
 
-import java.util.ArrayList;
+import java.awt.EventQueue;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * A thread for doing background updates of the prerequisite status of a character sheet.
+ * A thread for doing background updates of the prerequisite status of a character sheet. Changes
+ * that alter the features the character has cause a full pass over every row. All other changes
+ * are resolved through a {@link DependencyGraph}, so that only the rows which read the changed
+ * value are recalculated.
  */
 public class PrerequisitesThread extends Thread implements NotifierTarget {
     @Localize("Reason:")
@@ -41,13 +49,26 @@ public class PrerequisitesThread extends Thread implements NotifierTarget {
         Localization.initialize();
     }
 
-    private static HashMap<GURPSCharacter, PrerequisitesThread> MAP     = new HashMap<>();
-    private static int                                          COUNTER = 0;
+    private static HashMap<GURPSCharacter, PrerequisitesThread> MAP           = new HashMap<>();
+    private static HashMap<String, BonusAttributeType>          ATTRIBUTE_MAP = new HashMap<>();
+    private static int                                          COUNTER       = 0;
     private CharacterSheet                                      mSheet;
     private GURPSCharacter                                      mCharacter;
+    private DependencyGraph                                     mGraph;
+    private HashSet<ListRow>                                    mDirtyRows;
+    private CompletableFuture<Void>                             mIdle;
     private boolean                                             mNeedUpdate;
-    private boolean                                             mNeedRepaint;
-    private boolean                                             mIsProcessing;
+    private int                                                 mPassCount;
+    private int                                                 mAbortedPassCount;
+
+    static {
+        ATTRIBUTE_MAP.put(GURPSCharacter.ID_STRENGTH, BonusAttributeType.ST);
+        ATTRIBUTE_MAP.put(GURPSCharacter.ID_DEXTERITY, BonusAttributeType.DX);
+        ATTRIBUTE_MAP.put(GURPSCharacter.ID_INTELLIGENCE, BonusAttributeType.IQ);
+        ATTRIBUTE_MAP.put(GURPSCharacter.ID_HEALTH, BonusAttributeType.HT);
+        ATTRIBUTE_MAP.put(GURPSCharacter.ID_WILL, BonusAttributeType.WILL);
+        ATTRIBUTE_MAP.put(GURPSCharacter.ID_PERCEPTION, BonusAttributeType.PERCEPTION);
+    }
 
     /**
      * @param character The character being processed.
@@ -68,17 +89,7 @@ public class PrerequisitesThread extends Thread implements NotifierTarget {
     public static PrerequisitesThread waitForProcessingToFinish(GURPSCharacter character) {
         PrerequisitesThread thread = getThread(character);
         if (thread != null && thread != Thread.currentThread()) {
-            boolean checkAgain = true;
-            while (checkAgain) {
-                synchronized (thread) {
-                    checkAgain = thread.mIsProcessing || thread.mNeedUpdate;
-                }
-                try {
-                    sleep(200);
-                } catch (Exception exception) {
-                    // Ignore...
-                }
-            }
+            thread.getIdleFuture().join();
         }
         return thread;
     }
@@ -89,11 +100,7 @@ public class PrerequisitesThread extends Thread implements NotifierTarget {
      * @param sheet The sheet we're attached to.
      */
     public PrerequisitesThread(CharacterSheet sheet) {
-        super("Prerequisites #" + ++COUNTER); //$NON-NLS-1$
-        setPriority(NORM_PRIORITY);
-        setDaemon(true);
-        mSheet = sheet;
-        mCharacter = sheet.getCharacter();
+        this(sheet, "Prerequisites #" + ++COUNTER); //$NON-NLS-1$
         mNeedUpdate = true;
         mCharacter.addTarget(this, Profile.ID_TECH_LEVEL, GURPSCharacter.ID_STRENGTH, GURPSCharacter.ID_DEXTERITY, GURPSCharacter.ID_INTELLIGENCE, GURPSCharacter.ID_HEALTH, GURPSCharacter.ID_WILL, GURPSCharacter.ID_PERCEPTION, Spell.ID_NAME, Spell.ID_COLLEGE, Spell.ID_POINTS, Spell.ID_LIST_CHANGED, Skill.ID_NAME, Skill.ID_SPECIALIZATION, Skill.ID_LEVEL, Skill.ID_RELATIVE_LEVEL, Skill.ID_ENCUMBRANCE_PENALTY, Skill.ID_POINTS, Skill.ID_TECH_LEVEL, Skill.ID_LIST_CHANGED, Advantage.ID_NAME, Advantage.ID_LEVELS, Advantage.ID_LIST_CHANGED, Equipment.ID_EXTENDED_WEIGHT, Equipment.ID_STATE, Equipment.ID_QUANTITY, Equipment.ID_LIST_CHANGED);
         Preferences.getInstance().getNotifier().add(this, SheetPreferences.OPTIONAL_IQ_RULES_PREF_KEY, SheetPreferences.OPTIONAL_MODIFIER_RULES_PREF_KEY, SheetPreferences.OPTIONAL_STRENGTH_RULES_PREF_KEY);
@@ -102,67 +109,129 @@ public class PrerequisitesThread extends Thread implements NotifierTarget {
         }
     }
 
+    private PrerequisitesThread(CharacterSheet sheet, String name) {
+        super(name);
+        setPriority(NORM_PRIORITY);
+        setDaemon(true);
+        mSheet = sheet;
+        mCharacter = sheet.getCharacter();
+        mDirtyRows = new HashSet<>();
+        mIdle = new CompletableFuture<>();
+    }
+
+    /**
+     * Resolves the features and prerequisites of a sheet's character on the calling thread,
+     * without starting a background thread or listening for further changes. Intended for batch
+     * processing, where the sheet will not be edited afterwards.
+     *
+     * @param sheet The sheet to process.
+     * @throws Exception if the character could not be processed.
+     */
+    public static void processSynchronously(CharacterSheet sheet) throws Exception {
+        new PrerequisitesThread(sheet, "Prerequisites (synchronous)").processAll(new HashSet<>()); //$NON-NLS-1$
+    }
+
+    /**
+     * Rebuilds the feature index of a sheet's character on the calling thread, exactly as each pass
+     * of the thread does. Intended for batch processing and measurement.
+     *
+     * @param sheet The sheet to process.
+     * @throws Exception if the features could not be processed.
+     */
+    public static void processFeaturesSynchronously(CharacterSheet sheet) throws Exception {
+        new PrerequisitesThread(sheet, "Prerequisites (synchronous)").processFeatures(); //$NON-NLS-1$
+    }
+
     @Override
     public void run() {
         try {
             while (!mSheet.hasBeenDisposed()) {
+                HashSet<ListRow> changed = new HashSet<>();
                 try {
                     boolean needUpdate;
+                    HashSet<ListRow> dirty = null;
                     synchronized (this) {
+                        while (!mNeedUpdate && mDirtyRows.isEmpty() && !mSheet.hasBeenDisposed()) {
+                            mIdle.complete(null);
+                            wait();
+                        }
                         needUpdate = mNeedUpdate;
                         mNeedUpdate = false;
-                        mIsProcessing = needUpdate;
-                    }
-                    if (!needUpdate) {
-                        sleep(500);
-                    } else {
-                        processFeatures();
-                        processRows(mCharacter.getAdvantagesIterator(false));
-                        processRows(mCharacter.getSkillsIterator());
-                        processRows(mCharacter.getSpellsIterator());
-                        processRows(mCharacter.getEquipmentIterator());
-                        if (mNeedRepaint) {
-                            mSheet.repaint();
-                        }
-                        synchronized (this) {
-                            mIsProcessing = false;
+                        if (needUpdate) {
+                            // A full pass covers anything that was pending.
+                            mDirtyRows.clear();
+                            mPassCount++;
+                        } else if (!mDirtyRows.isEmpty()) {
+                            dirty = mDirtyRows;
+                            mDirtyRows = new HashSet<>();
+                            mPassCount++;
                         }
                     }
+                    if (needUpdate) {
+                        processAll(changed);
+                    } else if (dirty != null) {
+                        processDirtyRows(dirty, changed);
+                    }
+                    repaintRows(changed);
                 } catch (InterruptedException iEx) {
                     throw iEx;
                 } catch (Exception exception) {
                     // Catch everything here so that manipulations to the character
                     // sheet that invalidate state don't stop our thread from
                     // continuing.
+                    repaintRows(changed);
                     synchronized (this) {
-                        mNeedUpdate = true;
-                    }
-                    if (mNeedRepaint) {
-                        mSheet.repaint();
+                        if (!mNeedUpdate) {
+                            // Not a superseded pass, so give the model a moment to settle
+                            // before trying again, unless more work arrives first.
+                            mNeedUpdate = true;
+                            wait(200);
+                        }
                     }
-                    sleep(200);
                 }
             }
         } catch (InterruptedException outerIEx) {
             // Someone is trying to terminate us... let them.
         }
-        mNeedUpdate = mIsProcessing = false;
+        synchronized (this) {
+            mNeedUpdate = false;
+            mDirtyRows.clear();
+            mIdle.complete(null);
+        }
         Preferences.getInstance().getNotifier().remove(this);
         synchronized (MAP) {
             MAP.remove(mCharacter);
         }
     }
 
+    private void processAll(HashSet<ListRow> changed) throws Exception {
+        DependencyGraph graph = new DependencyGraph();
+        processFeatures();
+        processRows(mCharacter.getAdvantagesIterator(false), graph, changed);
+        processRows(mCharacter.getSkillsIterator(), graph, changed);
+        processRows(mCharacter.getSpellsIterator(), graph, changed);
+        processRows(mCharacter.getEquipmentIterator(), graph, changed);
+        synchronized (this) {
+            mGraph = graph;
+        }
+    }
+
+    private void repaintRows(HashSet<ListRow> changed) {
+        if (!changed.isEmpty()) {
+            EventQueue.invokeLater(() -> mSheet.repaintRows(changed));
+        }
+    }
+
     private void processFeatures() throws Exception {
-        HashMap<String, ArrayList<Feature>> map = new HashMap<>();
-        buildFeatureMap(map, mCharacter.getAdvantagesIterator(false));
-        buildFeatureMap(map, mCharacter.getSkillsIterator());
-        buildFeatureMap(map, mCharacter.getSpellsIterator());
-        buildFeatureMap(map, mCharacter.getEquipmentIterator());
-        mCharacter.setFeatureMap(map);
+        FeatureIndex index = new FeatureIndex();
+        buildFeatureMap(index, mCharacter.getAdvantagesIterator(false));
+        buildFeatureMap(index, mCharacter.getSkillsIterator());
+        buildFeatureMap(index, mCharacter.getSpellsIterator());
+        buildFeatureMap(index, mCharacter.getEquipmentIterator());
+        mCharacter.setFeatureMap(index);
     }
 
-    private void buildFeatureMap(HashMap<String, ArrayList<Feature>> map, Iterator<? extends ListRow> iterator) throws Exception {
+    private void buildFeatureMap(FeatureIndex index, Iterator<? extends ListRow> iterator) throws Exception {
         while (iterator.hasNext()) {
             ListRow row = iterator.next();
             if (row instanceof Equipment) {
@@ -173,17 +242,17 @@ public class PrerequisitesThread extends Thread implements NotifierTarget {
                 }
             }
             for (Feature feature : row.getFeatures()) {
-                processFeature(map, row instanceof Advantage ? ((Advantage) row).getLevels() : 0, feature);
+                processFeature(index, row instanceof Advantage ? ((Advantage) row).getLevels() : 0, feature);
             }
             if (row instanceof Advantage) {
                 Advantage advantage = (Advantage) row;
                 for (Bonus bonus : advantage.getCRAdj().getBonuses(advantage.getCR())) {
-                    processFeature(map, 0, bonus);
+                    processFeature(index, 0, bonus);
                 }
                 for (Modifier modifier : advantage.getModifiers()) {
                     if (modifier.isEnabled()) {
                         for (Feature feature : modifier.getFeatures()) {
-                            processFeature(map, modifier.getLevels(), feature);
+                            processFeature(index, modifier.getLevels(), feature);
                         }
                     }
                 }
@@ -192,56 +261,126 @@ public class PrerequisitesThread extends Thread implements NotifierTarget {
         }
     }
 
-    private static void processFeature(HashMap<String, ArrayList<Feature>> map, int levels, Feature feature) {
-        String key = feature.getKey().toLowerCase();
-        ArrayList<Feature> list = map.get(key);
-        if (list == null) {
-            list = new ArrayList<>(1);
-            map.put(key, list);
-        }
+    private static void processFeature(FeatureIndex index, int levels, Feature feature) {
         if (feature instanceof Bonus) {
             ((Bonus) feature).getAmount().setLevel(levels);
         }
-        list.add(feature);
+        index.add(feature);
     }
 
     private void checkIfUpdated() throws Exception {
         boolean needUpdate;
         synchronized (this) {
             needUpdate = mNeedUpdate;
+            if (needUpdate) {
+                mAbortedPassCount++;
+            }
         }
         if (needUpdate || mSheet.hasBeenDisposed()) {
             throw new Exception();
         }
     }
 
-    private void processRows(Iterator<? extends ListRow> iterator) throws Exception {
-        StringBuilder builder = new StringBuilder();
+    private void processRows(Iterator<? extends ListRow> iterator, DependencyGraph graph, HashSet<ListRow> changed) throws Exception {
         while (iterator.hasNext()) {
             ListRow row = iterator.next();
-            builder.setLength(0);
-            boolean satisfied = row.getPrereqs().satisfied(mCharacter, row, builder, "<li>"); //$NON-NLS-1$
-            if (satisfied && row instanceof Technique) {
-                satisfied = ((Technique) row).satisfied(builder, "<li>"); //$NON-NLS-1$
-            }
-            if (row.isSatisfied() != satisfied) {
-                row.setSatisfied(satisfied);
-                mNeedRepaint = true;
-            }
-            if (!satisfied) {
-                builder.insert(0, "<html><body>" + REASON + "<ul>"); //$NON-NLS-1$ //$NON-NLS-2$
-                builder.append("</ul></body></html>"); //$NON-NLS-1$
-                row.setReasonForUnsatisfied(builder.toString().replaceAll("<ul>", "<ul style='margin-top: 0; margin-bottom: 0;'>")); //$NON-NLS-1$ //$NON-NLS-2$
-            }
+            graph.record(row);
+            processRow(row, changed);
             checkIfUpdated();
         }
     }
 
-    /** Marks an update request. */
-    public void markForUpdate() {
+    private void processDirtyRows(HashSet<ListRow> dirty, HashSet<ListRow> changed) throws Exception {
+        SkillLevelMemo memo = SkillLevelMemo.begin();
+        try {
+            for (ListRow row : dirty) {
+                if (row instanceof Skill) {
+                    // Any resulting level change will come back to us as a notification, which in
+                    // turn marks the skills that default to this one.
+                    ((Skill) row).updateLevel(true);
+                }
+                synchronized (this) {
+                    if (mGraph != null) {
+                        mGraph.record(row);
+                    }
+                }
+                processRow(row, changed);
+                checkIfUpdated();
+            }
+        } finally {
+            memo.end();
+        }
+    }
+
+    private void processRow(ListRow row, HashSet<ListRow> changed) {
+        boolean satisfied = row.getPrereqs().satisfied(mCharacter, row);
+        if (satisfied && row instanceof Technique) {
+            satisfied = ((Technique) row).satisfied(null, null);
+        }
+        if (row.isSatisfied() != satisfied) {
+            row.setSatisfied(satisfied);
+            changed.add(row);
+        }
+        if (!satisfied) {
+            // Describing the failures means checking every prerequisite instead of stopping at the
+            // first that decides the result, so it is left until something asks, such as a tooltip
+            row.setLazyReasonForUnsatisfied(() -> describeUnsatisfied(row));
+        }
+    }
+
+    private String describeUnsatisfied(ListRow row) {
+        StringBuilder failures = new StringBuilder();
+        if (row.getPrereqs().satisfied(mCharacter, row, failures, "<li>") && row instanceof Technique) { //$NON-NLS-1$
+            ((Technique) row).satisfied(failures, "<li>"); //$NON-NLS-1$
+        }
+        if (failures.length() == 0) {
+            // Satisfied again since the pass that judged it; the next pass will clear the flag
+            return null;
+        }
+        StringBuilder builder = new StringBuilder();
+        builder.append("<html><body>" + REASON + "<ul>"); //$NON-NLS-1$ //$NON-NLS-2$
+        builder.append(failures);
+        builder.append("</ul></body></html>"); //$NON-NLS-1$
+        return builder.toString().replaceAll("<ul>", "<ul style='margin-top: 0; margin-bottom: 0;'>"); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Marks an update request.
+     *
+     * @return A future that completes once the thread has finished processing the request.
+     */
+    public CompletableFuture<Void> markForUpdate() {
         synchronized (this) {
             mNeedUpdate = true;
+            return wakeUp();
+        }
+    }
+
+    /**
+     * @return A future that completes the next time the thread has no pending work. If it is
+     *         already idle, the future will be complete.
+     */
+    public synchronized CompletableFuture<Void> getIdleFuture() {
+        return mIdle;
+    }
+
+    /** @return The number of passes that have been started. */
+    public synchronized int getPassCount() {
+        return mPassCount;
+    }
+
+    /** @return The number of passes that were abandoned because a full update was requested. */
+    public synchronized int getAbortedPassCount() {
+        return mAbortedPassCount;
+    }
+
+    /** Wakes the thread so that it notices work has been requested or the sheet was disposed. */
+    synchronized CompletableFuture<Void> wakeUp() {
+        if (mIdle.isDone() && isAlive()) {
+            mIdle = new CompletableFuture<>();
         }
+        notifyAll();
+        return mIdle;
     }
 
     @Override
@@ -252,10 +391,66 @@ public class PrerequisitesThread extends Thread implements NotifierTarget {
             mCharacter.notifySingle(Advantage.ID_LIST_CHANGED, null);
         } else if (SheetPreferences.OPTIONAL_STRENGTH_RULES_PREF_KEY.equals(type)) {
             mCharacter.notifySingle(type, data);
+        } else if (markDependentsForUpdate(type, data)) {
+            return;
         }
         markForUpdate();
     }
 
+    /**
+     * Marks the rows that depend upon the changed value for an update, if the change is one that
+     * the {@link DependencyGraph} can resolve.
+     *
+     * @param type The notification type.
+     * @param data The notification data.
+     * @return <code>false</code> if a full update is required instead.
+     */
+    private boolean markDependentsForUpdate(String type, Object data) {
+        HashSet<ListRow> dirty = new HashSet<>();
+        synchronized (this) {
+            if (mGraph == null) {
+                return false;
+            }
+            BonusAttributeType attribute = ATTRIBUTE_MAP.get(type);
+            if (attribute != null) {
+                mGraph.collectDependents(DependencyGraph.attributeKey(attribute), dirty);
+            } else if (Profile.ID_TECH_LEVEL.equals(type)) {
+                mGraph.collectDependents(DependencyGraph.TECH_LEVEL, dirty);
+            } else if (data instanceof Skill) {
+                String key = DependencyGraph.skillKey(((Skill) data).getName());
+                if (Skill.ID_NAME.equals(type) || Skill.ID_SPECIALIZATION.equals(type)) {
+                    mGraph.collectDependentsOfKind(key, dirty);
+                } else if (Skill.ID_LEVEL.equals(type) || Skill.ID_RELATIVE_LEVEL.equals(type) || Skill.ID_POINTS.equals(type) || Skill.ID_ENCUMBRANCE_PENALTY.equals(type) || Skill.ID_TECH_LEVEL.equals(type)) {
+                    mGraph.collectDependents(key, dirty);
+                } else {
+                    return false;
+                }
+                dirty.add((Skill) data);
+            } else if (data instanceof Spell) {
+                String key = DependencyGraph.spellKey(((Spell) data).getName());
+                if (Spell.ID_NAME.equals(type)) {
+                    mGraph.collectDependentsOfKind(key, dirty);
+                } else if (Spell.ID_COLLEGE.equals(type) || Spell.ID_POINTS.equals(type)) {
+                    mGraph.collectDependents(key, dirty);
+                } else {
+                    return false;
+                }
+                dirty.add((Spell) data);
+            } else if (data instanceof Advantage && Advantage.ID_NAME.equals(type)) {
+                mGraph.collectDependentsOfKind(DependencyGraph.advantageKey(null), dirty);
+                dirty.add((Advantage) data);
+            } else if (data instanceof Equipment && Equipment.ID_EXTENDED_WEIGHT.equals(type)) {
+                mGraph.collectDependents(DependencyGraph.ENCUMBRANCE, dirty);
+                dirty.add((Equipment) data);
+            } else {
+                return false;
+            }
+            mDirtyRows.addAll(dirty);
+            wakeUp();
+        }
+        return true;
+    }
+
     @Override
     public int getNotificationPriority() {
         return 0;
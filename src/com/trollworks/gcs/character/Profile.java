@@ -22,7 +22,6 @@ import com.trollworks.toolkit.io.xml.XMLReader;
 import com.trollworks.toolkit.io.xml.XMLWriter;
 import com.trollworks.toolkit.ui.RetinaIcon;
 import com.trollworks.toolkit.ui.image.StdImage;
-import com.trollworks.toolkit.utility.FileType;
 import com.trollworks.toolkit.utility.Localization;
 import com.trollworks.toolkit.utility.Preferences;
 import com.trollworks.toolkit.utility.text.Text;
@@ -31,7 +30,6 @@ import com.trollworks.toolkit.utility.units.LengthValue;
 import com.trollworks.toolkit.utility.units.WeightUnits;
 import com.trollworks.toolkit.utility.units.WeightValue;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.text.MessageFormat;
@@ -41,8 +39,6 @@ import java.util.Base64;
 import java.util.Date;
 import java.util.Random;
 
-import javax.imageio.ImageIO;
-
 /** Holds the character profile. */
 public class Profile {
     @Localize("{0}, {1}, {2}")
@@ -374,7 +370,7 @@ public class Profile {
     private static final String[] HAIR_OPTIONS;
     private GURPSCharacter        mCharacter;
     private boolean               mCustomPortrait;
-    private RetinaIcon            mPortrait;
+    private Portrait              mPortrait;
     private String                mName;
     private String                mTitle;
     private int                   mAge;
@@ -415,7 +411,6 @@ public class Profile {
         mReligion = EMPTY;
         mPlayerName = full ? getDefaultPlayerName() : EMPTY;
         mCampaign = full ? getDefaultCampaign() : EMPTY;
-        mPortrait = createPortrait(getPortraitFromPortraitPath(getDefaultPortraitPath()));
         mHitLocationTable = HitLocationTable.HUMANOID;
     }
 
@@ -477,8 +472,11 @@ public class Profile {
             mReligion = reader.readText();
         } else if (TAG_PORTRAIT.equals(tag)) {
             try {
-                mPortrait = createPortrait(StdImage.loadImage(Base64.getMimeDecoder().decode(reader.readText())));
-                mCustomPortrait = true;
+                Portrait portrait = Portrait.create(Base64.getMimeDecoder().decode(reader.readText()));
+                if (portrait != null) {
+                    mPortrait = portrait;
+                    mCustomPortrait = true;
+                }
             } catch (Exception imageException) {
                 // Ignore
             }
@@ -514,13 +512,11 @@ public class Profile {
         out.simpleTagNotEmpty(TAG_RELIGION, mReligion);
         if (mCustomPortrait && mPortrait != null) {
             try {
-                try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-                    ImageIO.write(mPortrait.getRetina(), FileType.PNG_EXTENSION, baos);
-                    out.writeComment(PORTRAIT_COMMENT);
-                    out.startSimpleTagEOL(TAG_PORTRAIT);
-                    out.println(Text.standardizeLineEndings(Base64.getMimeEncoder().encodeToString(baos.toByteArray())));
-                    out.endTagEOL(TAG_PORTRAIT, true);
-                }
+                String data = mPortrait.getBase64();
+                out.writeComment(PORTRAIT_COMMENT);
+                out.startSimpleTagEOL(TAG_PORTRAIT);
+                out.println(data);
+                out.endTagEOL(TAG_PORTRAIT, true);
             } catch (Exception ex) {
                 throw new RuntimeException(PORTRAIT_WRITE_ERROR);
             }
@@ -533,8 +529,8 @@ public class Profile {
     }
 
     /** @return The portrait. */
-    public RetinaIcon getPortrait() {
-        return mPortrait;
+    public Portrait getPortrait() {
+        return mCustomPortrait ? mPortrait : Portrait.getDefault(getDefaultPortraitPath());
     }
 
     /**
@@ -543,10 +539,20 @@ public class Profile {
      * @param portrait The new portrait.
      */
     public void setPortrait(StdImage portrait) {
-        if (portrait == null ? mPortrait != null : mPortrait.getRetina() != portrait) {
+        setPortrait(Portrait.create(portrait));
+    }
+
+    /**
+     * Sets the portrait.
+     *
+     * @param portrait The new portrait.
+     */
+    public void setPortrait(Portrait portrait) {
+        Portrait old = getPortrait();
+        if (old != portrait) {
             mCustomPortrait = true;
-            mCharacter.postUndoEdit(PORTRAIT_UNDO, ID_PORTRAIT, mPortrait, portrait);
-            mPortrait = createPortrait(portrait);
+            mCharacter.postUndoEdit(PORTRAIT_UNDO, ID_PORTRAIT, old, portrait);
+            mPortrait = portrait;
             mCharacter.notifySingle(ID_PORTRAIT, mPortrait);
         }
     }
@@ -943,7 +949,7 @@ public class Profile {
     public void setSizeModifierBonus(int bonus) {
         if (mSizeModifierBonus != bonus) {
             mSizeModifierBonus = bonus;
-            mCharacter.notifySingle(ID_SIZE_MODIFIER, new Integer(getSizeModifier()));
+            mCharacter.notifySingle(ID_SIZE_MODIFIER, Integer.valueOf(getSizeModifier()));
         }
     }
 
@@ -1035,6 +1041,8 @@ public class Profile {
             } else if (ID_PORTRAIT.equals(id)) {
                 if (value instanceof StdImage) {
                     setPortrait((StdImage) value);
+                } else if (value == null || value instanceof Portrait) {
+                    setPortrait((Portrait) value);
                 }
             } else if (ID_SIZE_MODIFIER.equals(id)) {
                 setSizeModifier(((Integer) value).intValue());
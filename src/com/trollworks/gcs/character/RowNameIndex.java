@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.character;
+
+import com.trollworks.gcs.widgets.outline.ListRow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A lazily built index of rows, keyed by lower-cased name and, optionally, by lower-cased name and
+ * specialization. Rows within each key retain the order they were supplied in. The index must be
+ * invalidated whenever a row is added, removed, moved or renamed.
+ */
+class RowNameIndex<T extends ListRow> {
+    private Supplier<Iterable<T>>         mSource;
+    private Function<T, String>           mNameGetter;
+    private Function<T, String>           mSpecializationGetter;
+    private HashMap<String, ArrayList<T>> mIndex;
+
+    /**
+     * Creates a new row index.
+     *
+     * @param source Supplies the rows to index.
+     * @param nameGetter Extracts the name from a row.
+     * @param specializationGetter Extracts the specialization from a row. May be <code>null</code>.
+     */
+    RowNameIndex(Supplier<Iterable<T>> source, Function<T, String> nameGetter, Function<T, String> specializationGetter) {
+        mSource = source;
+        mNameGetter = nameGetter;
+        mSpecializationGetter = specializationGetter;
+    }
+
+    /** Discards the index, so that it will be rebuilt upon next use. */
+    synchronized void invalidate() {
+        mIndex = null;
+    }
+
+    /**
+     * @param name The name to look for.
+     * @return The rows with the name, compared case-insensitively.
+     */
+    List<T> get(String name) {
+        return lookup(createKey(name, null));
+    }
+
+    /**
+     * @param name The name to look for.
+     * @param specialization The specialization to look for.
+     * @return The rows with the name and specialization, compared case-insensitively.
+     */
+    List<T> get(String name, String specialization) {
+        return lookup(createKey(name, specialization));
+    }
+
+    private synchronized List<T> lookup(String key) {
+        if (mIndex == null) {
+            mIndex = new HashMap<>();
+            for (T row : mSource.get()) {
+                String name = mNameGetter.apply(row);
+                add(createKey(name, null), row);
+                if (mSpecializationGetter != null) {
+                    add(createKey(name, mSpecializationGetter.apply(row)), row);
+                }
+            }
+        }
+        List<T> rows = mIndex.get(key);
+        return rows != null ? rows : Collections.emptyList();
+    }
+
+    private void add(String key, T row) {
+        ArrayList<T> rows = mIndex.get(key);
+        if (rows == null) {
+            rows = new ArrayList<>(1);
+            mIndex.put(key, rows);
+        }
+        rows.add(row);
+    }
+
+    private static String createKey(String name, String specialization) {
+        String key = name != null ? name.toLowerCase() : ""; //$NON-NLS-1$
+        if (specialization != null) {
+            key += '\u0000' + specialization.toLowerCase();
+        }
+        return key;
+    }
+}
@@ -13,6 +13,7 @@ package com.trollworks.gcs.character;
 
 import com.trollworks.gcs.advantage.Advantage;
 import com.trollworks.gcs.advantage.AdvantageColumn;
+import com.trollworks.gcs.character.CompiledTextTemplate.Segment;
 import com.trollworks.gcs.equipment.Equipment;
 import com.trollworks.gcs.notes.Note;
 import com.trollworks.gcs.preferences.OutputPreferences;
@@ -29,21 +30,19 @@ import com.trollworks.gcs.weapon.WeaponStats;
 import com.trollworks.gcs.widgets.outline.ListRow;
 import com.trollworks.toolkit.collections.FilteredIterator;
 import com.trollworks.toolkit.io.xml.XMLWriter;
-import com.trollworks.toolkit.ui.image.StdImage;
 import com.trollworks.toolkit.utility.FileType;
 import com.trollworks.toolkit.utility.PathUtils;
 import com.trollworks.toolkit.utility.text.Numbers;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.file.Files;
 import java.text.DateFormat;
 import java.text.MessageFormat;
 import java.util.Date;
+import java.util.List;
 import java.util.function.Function;
 
 /** Provides text template output. */
@@ -241,35 +240,13 @@ public class TextTemplate {
      */
     public boolean export(File exportTo, File template) {
         try {
-            char[] buffer = new char[1];
-            boolean lookForKeyMarker = true;
-            StringBuilder keyBuffer = new StringBuilder();
-            template = resolveTextTemplate(template);
-            try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(template)))) {
-                try (BufferedWriter out = new BufferedWriter(new FileWriter(exportTo))) {
-                    while (in.read(buffer) != -1) {
-                        char ch = buffer[0];
-                        if (lookForKeyMarker) {
-                            if (ch == '@') {
-                                lookForKeyMarker = false;
-                                in.mark(1);
-                            } else {
-                                out.append(ch);
-                            }
-                        } else {
-                            if (ch == '_' || Character.isLetterOrDigit(ch)) {
-                                keyBuffer.append(ch);
-                                in.mark(1);
-                            } else {
-                                in.reset();
-                                emitKey(in, out, keyBuffer.toString(), exportTo);
-                                keyBuffer.setLength(0);
-                                lookForKeyMarker = true;
-                            }
-                        }
-                    }
-                    if (keyBuffer.length() != 0) {
-                        emitKey(in, out, keyBuffer.toString(), exportTo);
+            CompiledTextTemplate compiled = CompiledTextTemplate.get(resolveTextTemplate(template), TextTemplate::getLoopEnd);
+            try (BufferedWriter out = new BufferedWriter(new FileWriter(exportTo))) {
+                for (Segment segment : compiled.getSegments()) {
+                    if (segment.isKey()) {
+                        emitKey(out, segment, exportTo);
+                    } else {
+                        out.write(segment.getText());
                     }
                 }
             }
@@ -279,7 +256,43 @@ public class TextTemplate {
         }
     }
 
-    private void emitKey(BufferedReader in, BufferedWriter out, String key, File base) throws IOException {
+    private static String getLoopEnd(String key) {
+        if (key.startsWith(KEY_ENCUMBRANCE_LOOP_START)) {
+            return KEY_ENCUMBRANCE_LOOP_END;
+        } else if (key.startsWith(KEY_HIT_LOCATION_LOOP_START)) {
+            return KEY_HIT_LOCATION_LOOP_END;
+        } else if (key.startsWith(KEY_ADVANTAGES_LOOP_START)) {
+            return KEY_ADVANTAGES_LOOP_END;
+        } else if (key.startsWith(KEY_ADVANTAGES_ONLY_LOOP_START)) {
+            return KEY_ADVANTAGES_ONLY_LOOP_END;
+        } else if (key.startsWith(KEY_DISADVANTAGES_LOOP_START)) {
+            return KEY_DISADVANTAGES_LOOP_END;
+        } else if (key.startsWith(KEY_QUIRKS_LOOP_START)) {
+            return KEY_QUIRKS_LOOP_END;
+        } else if (key.startsWith(KEY_PERKS_LOOP_START)) {
+            return KEY_PERKS_LOOP_END;
+        } else if (key.startsWith(KEY_LANGUAGES_LOOP_START)) {
+            return KEY_LANGUAGES_LOOP_END;
+        } else if (key.startsWith(KEY_CULTURAL_FAMILIARITIES_LOOP_START)) {
+            return KEY_CULTURAL_FAMILIARITIES_LOOP_END;
+        } else if (key.startsWith(KEY_SKILLS_LOOP_START)) {
+            return KEY_SKILLS_LOOP_END;
+        } else if (key.startsWith(KEY_SPELLS_LOOP_START)) {
+            return KEY_SPELLS_LOOP_END;
+        } else if (key.startsWith(KEY_MELEE_LOOP_START)) {
+            return KEY_MELEE_LOOP_END;
+        } else if (key.startsWith(KEY_RANGED_LOOP_START)) {
+            return KEY_RANGED_LOOP_END;
+        } else if (key.startsWith(KEY_EQUIPMENT_LOOP_START)) {
+            return KEY_EQUIPMENT_LOOP_END;
+        } else if (key.startsWith(KEY_NOTES_LOOP_START)) {
+            return KEY_NOTES_LOOP_END;
+        }
+        return null;
+    }
+
+    private void emitKey(BufferedWriter out, Segment segment, File base) throws IOException {
+        String key = segment.getText();
         GURPSCharacter gurpsCharacter = mSheet.getCharacter();
         Profile description = gurpsCharacter.getDescription();
         switch (key) {
@@ -288,7 +301,10 @@ public class TextTemplate {
                 break;
             case KEY_PORTRAIT:
                 String fileName = PathUtils.enforceExtension(PathUtils.getLeafName(base.getName(), false), FileType.PNG_EXTENSION);
-                StdImage.writePNG(new File(base.getParentFile(), fileName), description.getPortrait().getRetina(), 150);
+                Portrait portrait = description.getPortrait();
+                if (portrait != null) {
+                    Files.write(new File(base.getParentFile(), fileName).toPath(), portrait.getPNG());
+                }
                 writeEncodedData(out, fileName);
                 break;
             case KEY_NAME:
@@ -544,35 +560,35 @@ public class TextTemplate {
                 break;
             default:
                 if (key.startsWith(KEY_ENCUMBRANCE_LOOP_START)) {
-                    processEncumbranceLoop(out, extractUpToMarker(in, KEY_ENCUMBRANCE_LOOP_END));
+                    processEncumbranceLoop(out, segment.getBody());
                 } else if (key.startsWith(KEY_HIT_LOCATION_LOOP_START)) {
-                    processHitLocationLoop(out, extractUpToMarker(in, KEY_HIT_LOCATION_LOOP_END));
+                    processHitLocationLoop(out, segment.getBody());
                 } else if (key.startsWith(KEY_ADVANTAGES_LOOP_START)) {
-                    processAdvantagesLoop(out, extractUpToMarker(in, KEY_ADVANTAGES_LOOP_END), AdvantagesLoopType.ALL);
+                    processAdvantagesLoop(out, segment.getBody(), AdvantagesLoopType.ALL);
                 } else if (key.startsWith(KEY_ADVANTAGES_ONLY_LOOP_START)) {
-                    processAdvantagesLoop(out, extractUpToMarker(in, KEY_ADVANTAGES_ONLY_LOOP_END), AdvantagesLoopType.ADS);
+                    processAdvantagesLoop(out, segment.getBody(), AdvantagesLoopType.ADS);
                 } else if (key.startsWith(KEY_DISADVANTAGES_LOOP_START)) {
-                    processAdvantagesLoop(out, extractUpToMarker(in, KEY_DISADVANTAGES_LOOP_END), AdvantagesLoopType.DISADS);
+                    processAdvantagesLoop(out, segment.getBody(), AdvantagesLoopType.DISADS);
                 } else if (key.startsWith(KEY_QUIRKS_LOOP_START)) {
-                    processAdvantagesLoop(out, extractUpToMarker(in, KEY_QUIRKS_LOOP_END), AdvantagesLoopType.QUIRKS);
+                    processAdvantagesLoop(out, segment.getBody(), AdvantagesLoopType.QUIRKS);
                 } else if (key.startsWith(KEY_PERKS_LOOP_START)) {
-                    processAdvantagesLoop(out, extractUpToMarker(in, KEY_PERKS_LOOP_END), AdvantagesLoopType.PERKS);
+                    processAdvantagesLoop(out, segment.getBody(), AdvantagesLoopType.PERKS);
                 } else if (key.startsWith(KEY_LANGUAGES_LOOP_START)) {
-                    processAdvantagesLoop(out, extractUpToMarker(in, KEY_LANGUAGES_LOOP_END), AdvantagesLoopType.LANGUAGES);
+                    processAdvantagesLoop(out, segment.getBody(), AdvantagesLoopType.LANGUAGES);
                 } else if (key.startsWith(KEY_CULTURAL_FAMILIARITIES_LOOP_START)) {
-                    processAdvantagesLoop(out, extractUpToMarker(in, KEY_CULTURAL_FAMILIARITIES_LOOP_END), AdvantagesLoopType.CULTURAL_FAMILIARITIES);
+                    processAdvantagesLoop(out, segment.getBody(), AdvantagesLoopType.CULTURAL_FAMILIARITIES);
                 } else if (key.startsWith(KEY_SKILLS_LOOP_START)) {
-                    processSkillsLoop(out, extractUpToMarker(in, KEY_SKILLS_LOOP_END));
+                    processSkillsLoop(out, segment.getBody());
                 } else if (key.startsWith(KEY_SPELLS_LOOP_START)) {
-                    processSpellsLoop(out, extractUpToMarker(in, KEY_SPELLS_LOOP_END));
+                    processSpellsLoop(out, segment.getBody());
                 } else if (key.startsWith(KEY_MELEE_LOOP_START)) {
-                    processMeleeLoop(out, extractUpToMarker(in, KEY_MELEE_LOOP_END));
+                    processMeleeLoop(out, segment.getBody());
                 } else if (key.startsWith(KEY_RANGED_LOOP_START)) {
-                    processRangedLoop(out, extractUpToMarker(in, KEY_RANGED_LOOP_END));
+                    processRangedLoop(out, segment.getBody());
                 } else if (key.startsWith(KEY_EQUIPMENT_LOOP_START)) {
-                    processEquipmentLoop(out, extractUpToMarker(in, KEY_EQUIPMENT_LOOP_END));
+                    processEquipmentLoop(out, segment.getBody());
                 } else if (key.startsWith(KEY_NOTES_LOOP_START)) {
-                    processNotesLoop(out, extractUpToMarker(in, KEY_NOTES_LOOP_END));
+                    processNotesLoop(out, segment.getBody());
                 } else {
                     writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
                 }
@@ -605,182 +621,103 @@ public class TextTemplate {
         out.write(mEncodeText ? XMLWriter.encodeData(text).replaceAll("&#10;", "<br>").replaceAll("\"", "&quot;") : text);
     }
 
-    private static String extractUpToMarker(BufferedReader in, String marker) throws IOException {
-        char[] buffer = new char[1];
-        StringBuilder keyBuffer = new StringBuilder();
-        StringBuilder extraction = new StringBuilder();
-        boolean lookForKeyMarker = true;
-        while (in.read(buffer) != -1) {
-            char ch = buffer[0];
-            if (lookForKeyMarker) {
-                if (ch == '@') {
-                    lookForKeyMarker = false;
-                    in.mark(1);
-                } else {
-                    extraction.append(ch);
-                }
-            } else {
-                if (ch == '_' || Character.isLetterOrDigit(ch)) {
-                    keyBuffer.append(ch);
-                    in.mark(1);
-                } else {
-                    String key = keyBuffer.toString();
-                    in.reset();
-                    if (key.equals(marker)) {
-                        return extraction.toString();
-                    }
-                    extraction.append('@');
-                    extraction.append(key);
-                    keyBuffer.setLength(0);
-                    lookForKeyMarker = true;
-                }
-            }
-        }
-        return extraction.toString();
-    }
-
-    private void processEncumbranceLoop(BufferedWriter out, String contents) throws IOException {
+    private void processEncumbranceLoop(BufferedWriter out, List<Segment> body) throws IOException {
         GURPSCharacter gurpsCharacter = mSheet.getCharacter();
-        int length = contents.length();
-        StringBuilder keyBuffer = new StringBuilder();
-        boolean lookForKeyMarker = true;
         for (Encumbrance encumbrance : Encumbrance.values()) {
-            for (int i = 0; i < length; i++) {
-                char ch = contents.charAt(i);
-                if (lookForKeyMarker) {
-                    if (ch == '@') {
-                        lookForKeyMarker = false;
-                    } else {
-                        out.append(ch);
+            for (Segment segment : body) {
+                if (segment.isKey()) {
+                    String key = segment.getText();
+                    switch (key) {
+                        case KEY_CURRENT_MARKER:
+                            if (encumbrance == gurpsCharacter.getEncumbranceLevel()) {
+                                out.write(CURRENT);
+                            }
+                            break;
+                        case KEY_LEVEL:
+                            writeEncodedText(out, MessageFormat.format(encumbrance == gurpsCharacter.getEncumbranceLevel() ? EncumbrancePanel.CURRENT_ENCUMBRANCE_FORMAT : EncumbrancePanel.ENCUMBRANCE_FORMAT, encumbrance, Numbers.format(-encumbrance.getEncumbrancePenalty())));
+                            break;
+                        case KEY_MAX_LOAD:
+                            writeEncodedText(out, gurpsCharacter.getMaximumCarry(encumbrance).toString());
+                            break;
+                        case KEY_MOVE:
+                            writeEncodedText(out, Numbers.format(gurpsCharacter.getMove(encumbrance)));
+                            break;
+                        case KEY_DODGE:
+                            writeEncodedText(out, Numbers.format(gurpsCharacter.getDodge(encumbrance)));
+                            break;
+                        default:
+                            writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
+                            break;
                     }
                 } else {
-                    if (ch == '_' || Character.isLetterOrDigit(ch)) {
-                        keyBuffer.append(ch);
-                    } else {
-                        String key = keyBuffer.toString();
-                        i--;
-                        keyBuffer.setLength(0);
-                        lookForKeyMarker = true;
-                        switch (key) {
-                            case KEY_CURRENT_MARKER:
-                                if (encumbrance == gurpsCharacter.getEncumbranceLevel()) {
-                                    out.write(CURRENT);
-                                }
-                                break;
-                            case KEY_LEVEL:
-                                writeEncodedText(out, MessageFormat.format(encumbrance == gurpsCharacter.getEncumbranceLevel() ? EncumbrancePanel.CURRENT_ENCUMBRANCE_FORMAT : EncumbrancePanel.ENCUMBRANCE_FORMAT, encumbrance, Numbers.format(-encumbrance.getEncumbrancePenalty())));
-                                break;
-                            case KEY_MAX_LOAD:
-                                writeEncodedText(out, gurpsCharacter.getMaximumCarry(encumbrance).toString());
-                                break;
-                            case KEY_MOVE:
-                                writeEncodedText(out, Numbers.format(gurpsCharacter.getMove(encumbrance)));
-                                break;
-                            case KEY_DODGE:
-                                writeEncodedText(out, Numbers.format(gurpsCharacter.getDodge(encumbrance)));
-                                break;
-                            default:
-                                writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
-                                break;
-                        }
-                    }
+                    out.write(segment.getText());
                 }
             }
         }
     }
 
-    private void processHitLocationLoop(BufferedWriter out, String contents) throws IOException {
+    private void processHitLocationLoop(BufferedWriter out, List<Segment> body) throws IOException {
         GURPSCharacter gurpsCharacter = mSheet.getCharacter();
-        int length = contents.length();
-        StringBuilder keyBuffer = new StringBuilder();
-        boolean lookForKeyMarker = true;
         HitLocationTable table = gurpsCharacter.getDescription().getHitLocationTable();
         for (HitLocationTableEntry entry : table.getEntries()) {
-            for (int i = 0; i < length; i++) {
-                char ch = contents.charAt(i);
-                if (lookForKeyMarker) {
-                    if (ch == '@') {
-                        lookForKeyMarker = false;
-                    } else {
-                        out.append(ch);
+            for (Segment segment : body) {
+                if (segment.isKey()) {
+                    String key = segment.getText();
+                    switch (key) {
+                        case KEY_ROLL:
+                            writeEncodedText(out, entry.getRoll());
+                            break;
+                        case KEY_WHERE:
+                            writeEncodedText(out, entry.getName());
+                            break;
+                        case KEY_PENALTY:
+                            writeEncodedText(out, Numbers.format(entry.getHitPenalty()));
+                            break;
+                        case KEY_DR:
+                            writeEncodedText(out, Numbers.format(((Integer) gurpsCharacter.getValueForID(entry.getKey())).intValue()));
+                            break;
+                        default:
+                            writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
+                            break;
                     }
                 } else {
-                    if (ch == '_' || Character.isLetterOrDigit(ch)) {
-                        keyBuffer.append(ch);
-                    } else {
-                        String key = keyBuffer.toString();
-                        i--;
-                        keyBuffer.setLength(0);
-                        lookForKeyMarker = true;
-                        switch (key) {
-                            case KEY_ROLL:
-                                writeEncodedText(out, entry.getRoll());
-                                break;
-                            case KEY_WHERE:
-                                writeEncodedText(out, entry.getName());
-                                break;
-                            case KEY_PENALTY:
-                                writeEncodedText(out, Numbers.format(entry.getHitPenalty()));
-                                break;
-                            case KEY_DR:
-                                writeEncodedText(out, Numbers.format(((Integer) gurpsCharacter.getValueForID(entry.getKey())).intValue()));
-                                break;
-                            default:
-                                writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
-                                break;
-                        }
-                    }
+                    out.write(segment.getText());
                 }
             }
         }
     }
 
-    private void processAdvantagesLoop(BufferedWriter out, String contents, AdvantagesLoopType loopType) throws IOException {
-        int length = contents.length();
-        StringBuilder keyBuffer = new StringBuilder();
-        boolean lookForKeyMarker = true;
+    private void processAdvantagesLoop(BufferedWriter out, List<Segment> body, AdvantagesLoopType loopType) throws IOException {
         int counter = 0;
         for (Advantage advantage : mSheet.getCharacter().getAdvantagesIterator(false)) {
             if (loopType.shouldInclude(advantage)) {
                 counter++;
-                for (int i = 0; i < length; i++) {
-                    char ch = contents.charAt(i);
-                    if (lookForKeyMarker) {
-                        if (ch == '@') {
-                            lookForKeyMarker = false;
-                        } else {
-                            out.append(ch);
-                        }
-                    } else {
-                        if (ch == '_' || Character.isLetterOrDigit(ch)) {
-                            keyBuffer.append(ch);
-                        } else {
-                            String key = keyBuffer.toString();
-                            i--;
-                            keyBuffer.setLength(0);
-                            lookForKeyMarker = true;
-                            if (!processStyleIndentWarning(key, out, advantage)) {
-                                if (!processDescription(key, out, advantage)) {
-                                    switch (key) {
-                                        case KEY_POINTS:
-                                            writeEncodedText(out, AdvantageColumn.POINTS.getDataAsText(advantage));
-                                            break;
-                                        case KEY_REF:
-                                            writeEncodedText(out, AdvantageColumn.REFERENCE.getDataAsText(advantage));
-                                            break;
-                                        case KEY_ID:
-                                            writeEncodedText(out, Integer.toString(counter));
-                                            break;
-                                        case KEY_TYPE:
-                                            writeEncodedText(out, advantage.canHaveChildren() ? advantage.getContainerType().name() : ITEM);
-                                            break;
-                                        default:
-                                            writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
-                                            break;
-                                    }
+                for (Segment segment : body) {
+                    if (segment.isKey()) {
+                        String key = segment.getText();
+                        if (!processStyleIndentWarning(key, out, advantage)) {
+                            if (!processDescription(key, out, advantage)) {
+                                switch (key) {
+                                    case KEY_POINTS:
+                                        writeEncodedText(out, AdvantageColumn.POINTS.getDataAsText(advantage));
+                                        break;
+                                    case KEY_REF:
+                                        writeEncodedText(out, AdvantageColumn.REFERENCE.getDataAsText(advantage));
+                                        break;
+                                    case KEY_ID:
+                                        writeEncodedText(out, Integer.toString(counter));
+                                        break;
+                                    case KEY_TYPE:
+                                        writeEncodedText(out, advantage.canHaveChildren() ? advantage.getContainerType().name() : ITEM);
+                                        break;
+                                    default:
+                                        writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
+                                        break;
                                 }
                             }
                         }
+                    } else {
+                        out.write(segment.getText());
                     }
                 }
             }
@@ -825,57 +762,42 @@ public class TextTemplate {
         }
     }
 
-    private void processSkillsLoop(BufferedWriter out, String contents) throws IOException {
-        int length = contents.length();
-        StringBuilder keyBuffer = new StringBuilder();
-        boolean lookForKeyMarker = true;
+    private void processSkillsLoop(BufferedWriter out, List<Segment> body) throws IOException {
         int counter = 0;
         for (Skill skill : mSheet.getCharacter().getSkillsIterator()) {
             counter++;
-            for (int i = 0; i < length; i++) {
-                char ch = contents.charAt(i);
-                if (lookForKeyMarker) {
-                    if (ch == '@') {
-                        lookForKeyMarker = false;
-                    } else {
-                        out.append(ch);
-                    }
-                } else {
-                    if (ch == '_' || Character.isLetterOrDigit(ch)) {
-                        keyBuffer.append(ch);
-                    } else {
-                        String key = keyBuffer.toString();
-                        i--;
-                        keyBuffer.setLength(0);
-                        lookForKeyMarker = true;
-                        if (!processStyleIndentWarning(key, out, skill)) {
-                            if (!processDescription(key, out, skill)) {
-                                switch (key) {
-                                    case KEY_SL:
-                                        writeEncodedText(out, SkillColumn.LEVEL.getDataAsText(skill));
-                                        break;
-                                    case KEY_RSL:
-                                        writeEncodedText(out, SkillColumn.RELATIVE_LEVEL.getDataAsText(skill));
-                                        break;
-                                    case KEY_DIFFICULTY:
-                                        writeEncodedText(out, SkillColumn.DIFFICULTY.getDataAsText(skill));
-                                        break;
-                                    case KEY_POINTS:
-                                        writeEncodedText(out, SkillColumn.POINTS.getDataAsText(skill));
-                                        break;
-                                    case KEY_REF:
-                                        writeEncodedText(out, SkillColumn.REFERENCE.getDataAsText(skill));
-                                        break;
-                                    case KEY_ID:
-                                        writeEncodedText(out, Integer.toString(counter));
-                                        break;
-                                    default:
-                                        writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
-                                        break;
-                                }
+            for (Segment segment : body) {
+                if (segment.isKey()) {
+                    String key = segment.getText();
+                    if (!processStyleIndentWarning(key, out, skill)) {
+                        if (!processDescription(key, out, skill)) {
+                            switch (key) {
+                                case KEY_SL:
+                                    writeEncodedText(out, SkillColumn.LEVEL.getDataAsText(skill));
+                                    break;
+                                case KEY_RSL:
+                                    writeEncodedText(out, SkillColumn.RELATIVE_LEVEL.getDataAsText(skill));
+                                    break;
+                                case KEY_DIFFICULTY:
+                                    writeEncodedText(out, SkillColumn.DIFFICULTY.getDataAsText(skill));
+                                    break;
+                                case KEY_POINTS:
+                                    writeEncodedText(out, SkillColumn.POINTS.getDataAsText(skill));
+                                    break;
+                                case KEY_REF:
+                                    writeEncodedText(out, SkillColumn.REFERENCE.getDataAsText(skill));
+                                    break;
+                                case KEY_ID:
+                                    writeEncodedText(out, Integer.toString(counter));
+                                    break;
+                                default:
+                                    writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
+                                    break;
                             }
                         }
                     }
+                } else {
+                    out.write(segment.getText());
                 }
             }
         }
@@ -911,129 +833,48 @@ public class TextTemplate {
         return true;
     }
 
-    private void processSpellsLoop(BufferedWriter out, String contents) throws IOException {
-        int length = contents.length();
-        StringBuilder keyBuffer = new StringBuilder();
-        boolean lookForKeyMarker = true;
+    private void processSpellsLoop(BufferedWriter out, List<Segment> body) throws IOException {
         int counter = 0;
         for (Spell spell : mSheet.getCharacter().getSpellsIterator()) {
             counter++;
-            for (int i = 0; i < length; i++) {
-                char ch = contents.charAt(i);
-                if (lookForKeyMarker) {
-                    if (ch == '@') {
-                        lookForKeyMarker = false;
-                    } else {
-                        out.append(ch);
-                    }
-                } else {
-                    if (ch == '_' || Character.isLetterOrDigit(ch)) {
-                        keyBuffer.append(ch);
-                    } else {
-                        String key = keyBuffer.toString();
-                        i--;
-                        keyBuffer.setLength(0);
-                        lookForKeyMarker = true;
-                        if (!processStyleIndentWarning(key, out, spell)) {
-                            if (!processDescription(key, out, spell)) {
-                                switch (key) {
-                                    case KEY_CLASS:
-                                        writeEncodedText(out, spell.getSpellClass());
-                                        break;
-                                    case KEY_COLLEGE:
-                                        writeEncodedText(out, spell.getCollege());
-                                        break;
-                                    case KEY_MANA_CAST:
-                                        writeEncodedText(out, spell.getCastingCost());
-                                        break;
-                                    case KEY_MANA_MAINTAIN:
-                                        writeEncodedText(out, spell.getMaintenance());
-                                        break;
-                                    case KEY_TIME_CAST:
-                                        writeEncodedText(out, spell.getCastingTime());
-                                        break;
-                                    case KEY_DURATION:
-                                        writeEncodedText(out, spell.getDuration());
-                                        break;
-                                    case KEY_SL:
-                                        writeEncodedText(out, SpellColumn.LEVEL.getDataAsText(spell));
-                                        break;
-                                    case KEY_RSL:
-                                        writeEncodedText(out, SpellColumn.RELATIVE_LEVEL.getDataAsText(spell));
-                                        break;
-                                    case KEY_DIFFICULTY:
-                                        writeEncodedText(out, (spell.isVeryHard() ? SkillDifficulty.VH : SkillDifficulty.H).toString());
-                                        break;
-                                    case KEY_POINTS:
-                                        writeEncodedText(out, SpellColumn.POINTS.getDataAsText(spell));
-                                        break;
-                                    case KEY_REF:
-                                        writeEncodedText(out, SpellColumn.REFERENCE.getDataAsText(spell));
-                                        break;
-                                    case KEY_ID:
-                                        writeEncodedText(out, Integer.toString(counter));
-                                        break;
-                                    default:
-                                        writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
-                                        break;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
-    }
-
-    private void processMeleeLoop(BufferedWriter out, String contents) throws IOException {
-        int length = contents.length();
-        StringBuilder keyBuffer = new StringBuilder();
-        boolean lookForKeyMarker = true;
-        int counter = 0;
-        for (WeaponDisplayRow row : new FilteredIterator<>(mSheet.getMeleeWeaponOutline().getModel().getRows(), WeaponDisplayRow.class)) {
-            counter++;
-            MeleeWeaponStats weapon = (MeleeWeaponStats) row.getWeapon();
-            for (int i = 0; i < length; i++) {
-                char ch = contents.charAt(i);
-                if (lookForKeyMarker) {
-                    if (ch == '@') {
-                        lookForKeyMarker = false;
-                    } else {
-                        out.append(ch);
-                    }
-                } else {
-                    if (ch == '_' || Character.isLetterOrDigit(ch)) {
-                        keyBuffer.append(ch);
-                    } else {
-                        String key = keyBuffer.toString();
-                        i--;
-                        keyBuffer.setLength(0);
-                        lookForKeyMarker = true;
-                        if (!processDescription(key, out, weapon)) {
+            for (Segment segment : body) {
+                if (segment.isKey()) {
+                    String key = segment.getText();
+                    if (!processStyleIndentWarning(key, out, spell)) {
+                        if (!processDescription(key, out, spell)) {
                             switch (key) {
-                                case KEY_USAGE:
-                                    writeEncodedText(out, weapon.getUsage());
+                                case KEY_CLASS:
+                                    writeEncodedText(out, spell.getSpellClass());
+                                    break;
+                                case KEY_COLLEGE:
+                                    writeEncodedText(out, spell.getCollege());
                                     break;
-                                case KEY_LEVEL:
-                                    writeEncodedText(out, Numbers.format(weapon.getSkillLevel()));
+                                case KEY_MANA_CAST:
+                                    writeEncodedText(out, spell.getCastingCost());
                                     break;
-                                case KEY_PARRY:
-                                    writeEncodedText(out, weapon.getResolvedParry());
+                                case KEY_MANA_MAINTAIN:
+                                    writeEncodedText(out, spell.getMaintenance());
                                     break;
-                                case KEY_BLOCK:
-                                    writeEncodedText(out, weapon.getResolvedBlock());
+                                case KEY_TIME_CAST:
+                                    writeEncodedText(out, spell.getCastingTime());
                                     break;
-                                case KEY_DAMAGE:
-                                    writeEncodedText(out, weapon.getResolvedDamage());
+                                case KEY_DURATION:
+                                    writeEncodedText(out, spell.getDuration());
                                     break;
-                                case KEY_UNMODIFIED_DAMAGE:
-                                    writeEncodedText(out, weapon.getDamage());
+                                case KEY_SL:
+                                    writeEncodedText(out, SpellColumn.LEVEL.getDataAsText(spell));
                                     break;
-                                case KEY_REACH:
-                                    writeEncodedText(out, weapon.getReach());
+                                case KEY_RSL:
+                                    writeEncodedText(out, SpellColumn.RELATIVE_LEVEL.getDataAsText(spell));
                                     break;
-                                case KEY_WEAPON_STRENGTH:
-                                    writeEncodedText(out, weapon.getStrength());
+                                case KEY_DIFFICULTY:
+                                    writeEncodedText(out, (spell.isVeryHard() ? SkillDifficulty.VH : SkillDifficulty.H).toString());
+                                    break;
+                                case KEY_POINTS:
+                                    writeEncodedText(out, SpellColumn.POINTS.getDataAsText(spell));
+                                    break;
+                                case KEY_REF:
+                                    writeEncodedText(out, SpellColumn.REFERENCE.getDataAsText(spell));
                                     break;
                                 case KEY_ID:
                                     writeEncodedText(out, Integer.toString(counter));
@@ -1044,6 +885,57 @@ public class TextTemplate {
                             }
                         }
                     }
+                } else {
+                    out.write(segment.getText());
+                }
+            }
+        }
+    }
+
+    private void processMeleeLoop(BufferedWriter out, List<Segment> body) throws IOException {
+        int counter = 0;
+        for (WeaponDisplayRow row : new FilteredIterator<>(mSheet.getMeleeWeaponOutline().getModel().getRows(), WeaponDisplayRow.class)) {
+            counter++;
+            MeleeWeaponStats weapon = (MeleeWeaponStats) row.getWeapon();
+            for (Segment segment : body) {
+                if (segment.isKey()) {
+                    String key = segment.getText();
+                    if (!processDescription(key, out, weapon)) {
+                        switch (key) {
+                            case KEY_USAGE:
+                                writeEncodedText(out, weapon.getUsage());
+                                break;
+                            case KEY_LEVEL:
+                                writeEncodedText(out, Numbers.format(weapon.getSkillLevel()));
+                                break;
+                            case KEY_PARRY:
+                                writeEncodedText(out, weapon.getResolvedParry());
+                                break;
+                            case KEY_BLOCK:
+                                writeEncodedText(out, weapon.getResolvedBlock());
+                                break;
+                            case KEY_DAMAGE:
+                                writeEncodedText(out, weapon.getResolvedDamage());
+                                break;
+                            case KEY_UNMODIFIED_DAMAGE:
+                                writeEncodedText(out, weapon.getDamage());
+                                break;
+                            case KEY_REACH:
+                                writeEncodedText(out, weapon.getReach());
+                                break;
+                            case KEY_WEAPON_STRENGTH:
+                                writeEncodedText(out, weapon.getStrength());
+                                break;
+                            case KEY_ID:
+                                writeEncodedText(out, Integer.toString(counter));
+                                break;
+                            default:
+                                writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
+                                break;
+                        }
+                    }
+                } else {
+                    out.write(segment.getText());
                 }
             }
         }
@@ -1063,64 +955,94 @@ public class TextTemplate {
         return true;
     }
 
-    private void processRangedLoop(BufferedWriter out, String contents) throws IOException {
-        int length = contents.length();
-        StringBuilder keyBuffer = new StringBuilder();
-        boolean lookForKeyMarker = true;
+    private void processRangedLoop(BufferedWriter out, List<Segment> body) throws IOException {
         int counter = 0;
         for (WeaponDisplayRow row : new FilteredIterator<>(mSheet.getRangedWeaponOutline().getModel().getRows(), WeaponDisplayRow.class)) {
             counter++;
             RangedWeaponStats weapon = (RangedWeaponStats) row.getWeapon();
-            for (int i = 0; i < length; i++) {
-                char ch = contents.charAt(i);
-                if (lookForKeyMarker) {
-                    if (ch == '@') {
-                        lookForKeyMarker = false;
-                    } else {
-                        out.append(ch);
+            for (Segment segment : body) {
+                if (segment.isKey()) {
+                    String key = segment.getText();
+                    if (!processDescription(key, out, weapon)) {
+                        switch (key) {
+                            case KEY_USAGE:
+                                writeEncodedText(out, weapon.getUsage());
+                                break;
+                            case KEY_LEVEL:
+                                writeEncodedText(out, Numbers.format(weapon.getSkillLevel()));
+                                break;
+                            case KEY_ACCURACY:
+                                writeEncodedText(out, weapon.getAccuracy());
+                                break;
+                            case KEY_DAMAGE:
+                                writeEncodedText(out, weapon.getResolvedDamage());
+                                break;
+                            case KEY_UNMODIFIED_DAMAGE:
+                                writeEncodedText(out, weapon.getDamage());
+                                break;
+                            case KEY_RANGE:
+                                writeEncodedText(out, weapon.getResolvedRange());
+                                break;
+                            case KEY_ROF:
+                                writeEncodedText(out, weapon.getRateOfFire());
+                                break;
+                            case KEY_SHOTS:
+                                writeEncodedText(out, weapon.getShots());
+                                break;
+                            case KEY_BULK:
+                                writeEncodedText(out, weapon.getBulk());
+                                break;
+                            case KEY_RECOIL:
+                                writeEncodedText(out, weapon.getRecoil());
+                                break;
+                            case KEY_WEAPON_STRENGTH:
+                                writeEncodedText(out, weapon.getStrength());
+                                break;
+                            case KEY_ID:
+                                writeEncodedText(out, Integer.toString(counter));
+                                break;
+                            default:
+                                writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
+                                break;
+                        }
                     }
                 } else {
-                    if (ch == '_' || Character.isLetterOrDigit(ch)) {
-                        keyBuffer.append(ch);
-                    } else {
-                        String key = keyBuffer.toString();
-                        i--;
-                        keyBuffer.setLength(0);
-                        lookForKeyMarker = true;
-                        if (!processDescription(key, out, weapon)) {
+                    out.write(segment.getText());
+                }
+            }
+        }
+    }
+
+    private void processEquipmentLoop(BufferedWriter out, List<Segment> body) throws IOException {
+        int counter = 0;
+        for (Equipment equipment : mSheet.getCharacter().getEquipmentIterator()) {
+            counter++;
+            for (Segment segment : body) {
+                if (segment.isKey()) {
+                    String key = segment.getText();
+                    if (!processStyleIndentWarning(key, out, equipment)) {
+                        if (!processDescription(key, out, equipment)) {
                             switch (key) {
-                                case KEY_USAGE:
-                                    writeEncodedText(out, weapon.getUsage());
-                                    break;
-                                case KEY_LEVEL:
-                                    writeEncodedText(out, Numbers.format(weapon.getSkillLevel()));
+                                case KEY_STATE:
+                                    out.write(equipment.getState().toShortName());
                                     break;
-                                case KEY_ACCURACY:
-                                    writeEncodedText(out, weapon.getAccuracy());
+                                case KEY_QTY:
+                                    writeEncodedText(out, Numbers.format(equipment.getQuantity()));
                                     break;
-                                case KEY_DAMAGE:
-                                    writeEncodedText(out, weapon.getResolvedDamage());
+                                case KEY_COST:
+                                    writeEncodedText(out, Numbers.format(equipment.getValue()));
                                     break;
-                                case KEY_UNMODIFIED_DAMAGE:
-                                    writeEncodedText(out, weapon.getDamage());
+                                case KEY_WEIGHT:
+                                    writeEncodedText(out, equipment.getWeight().toString());
                                     break;
-                                case KEY_RANGE:
-                                    writeEncodedText(out, weapon.getResolvedRange());
+                                case KEY_COST_SUMMARY:
+                                    writeEncodedText(out, Numbers.format(equipment.getExtendedValue()));
                                     break;
-                                case KEY_ROF:
-                                    writeEncodedText(out, weapon.getRateOfFire());
+                                case KEY_WEIGHT_SUMMARY:
+                                    writeEncodedText(out, equipment.getExtendedWeight().toString());
                                     break;
-                                case KEY_SHOTS:
-                                    writeEncodedText(out, weapon.getShots());
-                                    break;
-                                case KEY_BULK:
-                                    writeEncodedText(out, weapon.getBulk());
-                                    break;
-                                case KEY_RECOIL:
-                                    writeEncodedText(out, weapon.getRecoil());
-                                    break;
-                                case KEY_WEAPON_STRENGTH:
-                                    writeEncodedText(out, weapon.getStrength());
+                                case KEY_REF:
+                                    writeEncodedText(out, equipment.getReference());
                                     break;
                                 case KEY_ID:
                                     writeEncodedText(out, Integer.toString(counter));
@@ -1131,110 +1053,35 @@ public class TextTemplate {
                             }
                         }
                     }
-                }
-            }
-        }
-    }
-
-    private void processEquipmentLoop(BufferedWriter out, String contents) throws IOException {
-        int length = contents.length();
-        StringBuilder keyBuffer = new StringBuilder();
-        boolean lookForKeyMarker = true;
-        int counter = 0;
-        for (Equipment equipment : mSheet.getCharacter().getEquipmentIterator()) {
-            counter++;
-            for (int i = 0; i < length; i++) {
-                char ch = contents.charAt(i);
-                if (lookForKeyMarker) {
-                    if (ch == '@') {
-                        lookForKeyMarker = false;
-                    } else {
-                        out.append(ch);
-                    }
                 } else {
-                    if (ch == '_' || Character.isLetterOrDigit(ch)) {
-                        keyBuffer.append(ch);
-                    } else {
-                        String key = keyBuffer.toString();
-                        i--;
-                        keyBuffer.setLength(0);
-                        lookForKeyMarker = true;
-                        if (!processStyleIndentWarning(key, out, equipment)) {
-                            if (!processDescription(key, out, equipment)) {
-                                switch (key) {
-                                    case KEY_STATE:
-                                        out.write(equipment.getState().toShortName());
-                                        break;
-                                    case KEY_QTY:
-                                        writeEncodedText(out, Numbers.format(equipment.getQuantity()));
-                                        break;
-                                    case KEY_COST:
-                                        writeEncodedText(out, Numbers.format(equipment.getValue()));
-                                        break;
-                                    case KEY_WEIGHT:
-                                        writeEncodedText(out, equipment.getWeight().toString());
-                                        break;
-                                    case KEY_COST_SUMMARY:
-                                        writeEncodedText(out, Numbers.format(equipment.getExtendedValue()));
-                                        break;
-                                    case KEY_WEIGHT_SUMMARY:
-                                        writeEncodedText(out, equipment.getExtendedWeight().toString());
-                                        break;
-                                    case KEY_REF:
-                                        writeEncodedText(out, equipment.getReference());
-                                        break;
-                                    case KEY_ID:
-                                        writeEncodedText(out, Integer.toString(counter));
-                                        break;
-                                    default:
-                                        writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
-                                        break;
-                                }
-                            }
-                        }
-                    }
+                    out.write(segment.getText());
                 }
             }
         }
     }
 
-    private void processNotesLoop(BufferedWriter out, String contents) throws IOException {
-        int length = contents.length();
-        StringBuilder keyBuffer = new StringBuilder();
-        boolean lookForKeyMarker = true;
+    private void processNotesLoop(BufferedWriter out, List<Segment> body) throws IOException {
         int counter = 0;
         for (Note note : mSheet.getCharacter().getNoteIterator()) {
             counter++;
-            for (int i = 0; i < length; i++) {
-                char ch = contents.charAt(i);
-                if (lookForKeyMarker) {
-                    if (ch == '@') {
-                        lookForKeyMarker = false;
-                    } else {
-                        out.append(ch);
-                    }
-                } else {
-                    if (ch == '_' || Character.isLetterOrDigit(ch)) {
-                        keyBuffer.append(ch);
-                    } else {
-                        String key = keyBuffer.toString();
-                        i--;
-                        keyBuffer.setLength(0);
-                        lookForKeyMarker = true;
-                        if (!processStyleIndentWarning(key, out, note)) {
-                            switch (key) {
-                                case KEY_NOTE:
-                                    writeEncodedText(out, note.getDescription());
-                                    break;
-                                case KEY_ID:
-                                    writeEncodedText(out, Integer.toString(counter));
-                                    break;
-                                default:
-                                    writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
-                                    break;
-                            }
+            for (Segment segment : body) {
+                if (segment.isKey()) {
+                    String key = segment.getText();
+                    if (!processStyleIndentWarning(key, out, note)) {
+                        switch (key) {
+                            case KEY_NOTE:
+                                writeEncodedText(out, note.getDescription());
+                                break;
+                            case KEY_ID:
+                                writeEncodedText(out, Integer.toString(counter));
+                                break;
+                            default:
+                                writeEncodedText(out, String.format(UNIDENTIFIED_KEY, key));
+                                break;
                         }
                     }
+                } else {
+                    out.write(segment.getText());
                 }
             }
         }
@@ -11,7 +11,9 @@
 
 package com.trollworks.gcs.common;
 
+import com.trollworks.gcs.preferences.SheetPreferences;
 import com.trollworks.toolkit.annotation.Localize;
+import com.trollworks.toolkit.io.Log;
 import com.trollworks.toolkit.ui.UIUtilities;
 import com.trollworks.toolkit.ui.menu.edit.Undoable;
 import com.trollworks.toolkit.ui.menu.file.CloseHandler;
@@ -28,8 +30,10 @@ import com.trollworks.toolkit.utility.undo.StdUndoManager;
 import java.awt.BorderLayout;
 import java.awt.Window;
 import java.io.File;
+import java.io.IOException;
 
 import javax.swing.Icon;
+import javax.swing.Timer;
 
 /** Provides a common base for library and sheet files. */
 public abstract class CommonDockable extends Dockable implements CloseHandler, Saveable, Undoable {
@@ -43,8 +47,17 @@ public abstract class CommonDockable extends Dockable implements CloseHandler, S
         Localization.initialize();
     }
 
-    private DataFile mDataFile;
-    private String   mUntitledName;
+    private static final int AUTOSAVE_INTERVAL       = 30000;
+    private static final int AUTOSAVE_MAXIMUM_DEFERS = 3;
+    private DataFile         mDataFile;
+    private String           mUntitledName;
+    private boolean          mSaveInBackground        = true;
+    private Timer            mAutosaveTimer;
+    private SaveJournal      mJournal;
+    private File             mJournalFor;
+    private long             mJournaledModificationCount;
+    private long             mLastSeenModificationCount;
+    private int              mAutosaveDefers;
 
     /**
      * Creates a new {@link CommonDockable}.
@@ -55,6 +68,65 @@ public abstract class CommonDockable extends Dockable implements CloseHandler, S
         super(new BorderLayout());
         mDataFile = file;
         mDataFile.setUndoManager(new StdUndoManager());
+        if (mDataFile.isRecovered()) {
+            getJournal(mDataFile.getFile());
+        }
+        mAutosaveTimer = new Timer(AUTOSAVE_INTERVAL, (event) -> autosave());
+        mAutosaveTimer.start();
+    }
+
+    /**
+     * Records the unsaved state of the data file in its {@link SaveJournal}, if it has changed
+     * since the last time it was recorded. Taking the snapshot means serializing the data file on
+     * the event dispatch thread, so nothing is done while the data is unmodified, and while it is
+     * still being edited the snapshot is put off for a few intervals in the hope of catching a
+     * pause.
+     */
+    private void autosave() {
+        File file = mDataFile.getFile();
+        long modificationCount = mDataFile.getModificationCount();
+        boolean stillEditing = modificationCount != mLastSeenModificationCount;
+        mLastSeenModificationCount = modificationCount;
+        if (file != null && mDataFile.isModified() && modificationCount != mJournaledModificationCount && SheetPreferences.isAutosaveEnabled()) {
+            if (stillEditing && mAutosaveDefers < AUTOSAVE_MAXIMUM_DEFERS) {
+                mAutosaveDefers++;
+                return;
+            }
+            mAutosaveDefers = 0;
+            try {
+                byte[] snapshot = mDataFile.createSnapshot();
+                SaveJournal journal = getJournal(file);
+                mJournaledModificationCount = modificationCount;
+                DataFile.runOnSaveThread(() -> {
+                    try {
+                        journal.append(snapshot);
+                    } catch (IOException exception) {
+                        Log.error(exception);
+                    }
+                });
+            } catch (IOException exception) {
+                Log.error(exception);
+            }
+        }
+    }
+
+    private SaveJournal getJournal(File file) {
+        if (mJournal == null || !file.equals(mJournalFor)) {
+            discardJournal();
+            mJournal = new SaveJournal(file);
+            mJournalFor = file;
+        }
+        return mJournal;
+    }
+
+    private void discardJournal() {
+        SaveJournal journal = mJournal;
+        if (journal != null) {
+            DataFile.runOnSaveThread(journal::discard);
+        }
+        mJournal = null;
+        mJournalFor = null;
+        mJournaledModificationCount = 0;
     }
 
     /** @return The {@link DataFile}. */
@@ -111,13 +183,33 @@ public abstract class CommonDockable extends Dockable implements CloseHandler, S
 
     @Override
     public File[] saveTo(File file) {
-        if (mDataFile.save(file)) {
-            mDataFile.setFile(file);
-            getDockContainer().updateTitle(this);
-            return new File[] { file };
+        if (mSaveInBackground) {
+            // Writing the file is left to a background thread, so that large files don't stall the
+            // UI. The document only switches to the new file once it has been written; should the
+            // write fail, it keeps its old file and remains marked as modified.
+            mDataFile.saveInBackground(file, (success) -> {
+                if (success.booleanValue()) {
+                    saveCompleted(file);
+                } else {
+                    WindowUtils.showError(this, SAVE_ERROR);
+                }
+            });
+        } else if (mDataFile.save(file)) {
+            saveCompleted(file);
+        } else {
+            WindowUtils.showError(this, SAVE_ERROR);
+            return new File[0];
+        }
+        return new File[] { file };
+    }
+
+    private void saveCompleted(File file) {
+        discardJournal();
+        mDataFile.setFile(file);
+        DockContainer dc = getDockContainer();
+        if (dc != null) {
+            dc.updateTitle(this);
         }
-        WindowUtils.showError(this, SAVE_ERROR);
-        return new File[0];
     }
 
     @Override
@@ -127,9 +219,17 @@ public abstract class CommonDockable extends Dockable implements CloseHandler, S
 
     @Override
     public boolean attemptClose() {
-        if (SaveCommand.attemptSave(this)) {
-            getDockContainer().close(this);
-            return true;
+        // Wait for the save when closing, so that a failure can still be acted upon
+        mSaveInBackground = false;
+        try {
+            if (SaveCommand.attemptSave(this)) {
+                mAutosaveTimer.stop();
+                discardJournal();
+                getDockContainer().close(this);
+                return true;
+            }
+        } finally {
+            mSaveInBackground = true;
         }
         return false;
     }
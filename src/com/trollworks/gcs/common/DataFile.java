@@ -27,13 +27,26 @@ import com.trollworks.toolkit.utility.notification.Notifier;
 import com.trollworks.toolkit.utility.notification.NotifierTarget;
 import com.trollworks.toolkit.utility.undo.StdUndoManager;
 
+import java.awt.EventQueue;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import javax.swing.undo.UndoableEdit;
 
@@ -41,6 +54,7 @@ import javax.swing.undo.UndoableEdit;
 public abstract class DataFile implements Undoable {
     /** The 'id' attribute. */
     public static final String              ATTRIBUTE_ID           = "id";                					//$NON-NLS-1$
+    private static final ExecutorService    SAVE_EXECUTOR          = createSaveExecutor();
     private File                            mFile;
     private UUID                            mId                    = UUID.randomUUID();
     private Notifier                        mNotifier              = new Notifier();
@@ -48,11 +62,43 @@ public abstract class DataFile implements Undoable {
     private StdUndoManager                  mUndoManager           = new StdUndoManager();
     private ArrayList<DataModifiedListener> mDataModifiedListeners = new ArrayList<>();
     private boolean                         mSortingMarksDirty     = true;
+    private HashMap<String, Object>         mBatchValues           = new HashMap<>();
+    private NotificationStats               mNotificationStats     = new NotificationStats();
+    private boolean                         mRecovered;
+    private long                            mModificationCount;
+
+    private static ExecutorService createSaveExecutor() {
+        ExecutorService executor = Executors.newSingleThreadExecutor((runnable) -> {
+            Thread thread = new Thread(runnable, "Save"); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Give saves still in progress a chance to finish when the app exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        return executor;
+    }
 
     /** @param file The file to load. */
     public void load(File file) throws IOException {
+        load(file, new LoadState());
+    }
+
+    /**
+     * @param file The file to load.
+     * @param state The {@link LoadState} to use.
+     */
+    protected void load(File file, LoadState state) throws IOException {
         setFile(file);
-        try (FileReader fileReader = new FileReader(file)) {
+        byte[] recovered = state.mRecoverUnsavedChanges ? SaveJournal.recover(file) : null;
+        mRecovered = recovered != null;
+        try (Reader fileReader = mRecovered ? new InputStreamReader(new ByteArrayInputStream(recovered), StandardCharsets.UTF_8) : new FileReader(file)) {
             try (XMLReader reader = new XMLReader(fileReader)) {
                 XMLNodeType type = reader.next();
                 boolean found = false;
@@ -62,7 +108,7 @@ public abstract class DataFile implements Undoable {
                         if (matchesRootTag(name)) {
                             if (!found) {
                                 found = true;
-                                load(reader, new LoadState());
+                                load(reader, state);
                             } else {
                                 throw new IOException();
                             }
@@ -76,7 +122,15 @@ public abstract class DataFile implements Undoable {
                 }
             }
         }
-        mModified = false;
+        mModified = mRecovered;
+    }
+
+    /**
+     * @return Whether the data was recovered from unsaved changes recorded in a
+     *         {@link SaveJournal}, rather than loaded from the file itself.
+     */
+    public boolean isRecovered() {
+        return mRecovered;
     }
 
     /**
@@ -105,35 +159,116 @@ public abstract class DataFile implements Undoable {
     protected abstract void loadSelf(XMLReader reader, LoadState state) throws IOException;
 
     /**
-     * Saves the data out to the specified file. Does not affect the result of {@link #getFile()}.
+     * Saves the data out to the specified file, waiting for the file to be written. Does not affect
+     * the result of {@link #getFile()}.
      *
      * @param file The file to write to.
      * @return <code>true</code> on success.
      */
     public boolean save(File file) {
+        try {
+            long modificationCount = mModificationCount;
+            if (SAVE_EXECUTOR.submit(createSaveTask(file)).get().booleanValue()) {
+                saveCompleted(modificationCount);
+                return true;
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (Exception exception) {
+            Log.error(exception);
+        }
+        return false;
+    }
+
+    /**
+     * Saves the data out to the specified file. A snapshot of the data is taken immediately, then
+     * written to the file on a background thread. Does not affect the result of
+     * {@link #getFile()}. Must be called on the event dispatch thread.
+     *
+     * @param file The file to write to.
+     * @param onCompletion Called on the event dispatch thread once the file has been written, with
+     *            whether the save succeeded. The data is only marked as unmodified if no changes
+     *            were made while it was being written.
+     */
+    public void saveInBackground(File file, Consumer<Boolean> onCompletion) {
+        Callable<Boolean> task;
+        try {
+            task = createSaveTask(file);
+        } catch (Exception exception) {
+            Log.error(exception);
+            onCompletion.accept(Boolean.FALSE);
+            return;
+        }
+        long modificationCount = mModificationCount;
+        SAVE_EXECUTOR.execute(() -> {
+            Boolean success = Boolean.FALSE;
+            try {
+                success = task.call();
+            } catch (Exception exception) {
+                Log.error(exception);
+            }
+            Boolean result = success;
+            EventQueue.invokeLater(() -> {
+                if (result.booleanValue()) {
+                    saveCompleted(modificationCount);
+                }
+                onCompletion.accept(result);
+            });
+        });
+    }
+
+    /**
+     * Runs a task on the thread that writes data files, after any writes already pending.
+     *
+     * @param task The task to run.
+     */
+    public static void runOnSaveThread(Runnable task) {
+        SAVE_EXECUTOR.execute(task);
+    }
+
+    private Callable<Boolean> createSaveTask(File file) throws IOException {
+        byte[] snapshot = createSnapshot();
+        return () -> Boolean.valueOf(write(snapshot, file));
+    }
+
+    private void saveCompleted(long modificationCount) {
+        if (mModificationCount == modificationCount) {
+            setModified(false);
+        }
+        mRecovered = false;
+    }
+
+    /**
+     * @return The contents of this data file, as the XML they are saved as. Being independent of
+     *         the data file, the snapshot may be written out on any thread.
+     */
+    public byte[] createSnapshot() throws IOException {
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        try (XMLWriter out = new XMLWriter(xml)) {
+            out.writeHeader();
+            save(out, true, false);
+            if (out.checkError()) {
+                throw new IOException();
+            }
+        }
+        return xml.toByteArray();
+    }
+
+    private static boolean write(byte[] snapshot, File file) {
         SafeFileUpdater transaction = new SafeFileUpdater();
-        boolean success = false;
         transaction.begin();
         try {
             File transactionFile = transaction.getTransactionFile(file);
-            try (XMLWriter out = new XMLWriter(new BufferedOutputStream(new FileOutputStream(transactionFile)))) {
-                out.writeHeader();
-                save(out, true, false);
-                success = !out.checkError();
-            }
-            if (success) {
-                success = false;
-                transaction.commit();
-                setModified(false);
-                success = true;
-            } else {
-                transaction.abort();
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(transactionFile))) {
+                out.write(snapshot);
             }
+            transaction.commit();
+            return true;
         } catch (Exception exception) {
             Log.error(exception);
             transaction.abort();
+            return false;
         }
-        return success;
     }
 
     /**
@@ -219,8 +354,19 @@ public abstract class DataFile implements Undoable {
         return mModified;
     }
 
+    /**
+     * @return A count that changes each time the data is modified, to determine whether changes
+     *         have been made since some earlier point.
+     */
+    public final long getModificationCount() {
+        return mModificationCount;
+    }
+
     /** @param modified Whether or not the data has been modified. */
     public final void setModified(boolean modified) {
+        if (modified) {
+            mModificationCount++;
+        }
         if (mModified != modified) {
             mModified = modified;
             for (DataModifiedListener listener : mDataModifiedListeners.toArray(new DataModifiedListener[mDataModifiedListeners.size()])) {
@@ -292,17 +438,37 @@ public abstract class DataFile implements Undoable {
     }
 
     /**
-     * Sends a notification to all interested consumers.
+     * Sends a notification to all interested consumers. Within a batch, a notification that
+     * repeats the value already sent for its type is dropped.
      *
      * @param type The notification type.
      * @param data Extra data specific to this notification.
      */
     public void notify(String type, Object data) {
+        if (isDuplicateInBatch(type, data)) {
+            mNotificationStats.eventCoalesced();
+            return;
+        }
         setModified(true);
         mNotifier.notify(this, type, data);
+        mNotificationStats.eventSent();
         notifyOccured();
     }
 
+    /**
+     * Only notifications that carry an immutable value are coalesced, since consumers of the
+     * others may need to read the current state of the data again.
+     *
+     * @return Whether the same value has already been sent for the type in the current batch.
+     */
+    private boolean isDuplicateInBatch(String type, Object data) {
+        if (mNotifier.getBatchLevel() > 0 && (data instanceof Number || data instanceof String || data instanceof Boolean)) {
+            return data.equals(mBatchValues.put(type, data));
+        }
+        mBatchValues.remove(type);
+        return false;
+    }
+
     /** Called when {@link #notify(String,Object)} is called. */
     protected void notifyOccured() {
         // Does nothing by default.
@@ -316,6 +482,10 @@ public abstract class DataFile implements Undoable {
             endNotifyAtBatchLevelOne();
         }
         mNotifier.endBatch();
+        if (mNotifier.getBatchLevel() == 0) {
+            mBatchValues.clear();
+            mNotificationStats.batchFinished();
+        }
     }
 
     /**
@@ -325,6 +495,11 @@ public abstract class DataFile implements Undoable {
         // Does nothing by default.
     }
 
+    /** @return The counts of the notifications this data file has sent. */
+    public NotificationStats getNotificationStats() {
+        return mNotificationStats;
+    }
+
     /**
      * Sends a notification to all interested consumers.
      *
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.common;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** The differences between two successive collections of list files. */
+public class ListCollectionChange {
+    private Map<Path, List<Object>> mDirectories;
+    private Set<Path>               mAdded;
+    private Set<Path>               mRemoved;
+
+    ListCollectionChange(LinkedHashMap<Path, List<Object>> directories, Set<Path> added, Set<Path> removed) {
+        mDirectories = Collections.unmodifiableMap(directories);
+        mAdded = Collections.unmodifiableSet(added);
+        mRemoved = Collections.unmodifiableSet(removed);
+    }
+
+    /** @return Whether nothing changed. */
+    public boolean isEmpty() {
+        return mDirectories.isEmpty();
+    }
+
+    /**
+     * @return The directories whose immediate contents changed, shallowest first, mapped to their
+     *         new contents in the same form as {@link ListCollectionThread#getLists()}. A
+     *         directory that no longer holds any list files maps to <code>null</code>. The
+     *         descendants of a directory in the map are never in the map themselves.
+     */
+    public Map<Path, List<Object>> getChangedDirectories() {
+        return mDirectories;
+    }
+
+    /** @return The list files that were added. */
+    public Set<Path> getAdded() {
+        return mAdded;
+    }
+
+    /** @return The list files that were removed. */
+    public Set<Path> getRemoved() {
+        return mRemoved;
+    }
+}
@@ -11,9 +11,6 @@
 
 package com.trollworks.gcs.common;
 
-import java.nio.file.Path;
-import java.util.List;
-
 /**
  * Objects that want to be called when the {@link ListCollectionThread} has new data must implement
  * this interface.
@@ -22,9 +19,8 @@ public interface ListCollectionListener {
     /**
      * Called whenever the {@link ListCollectionThread} has new data.
      *
-     * @param lists The data. The first object in the list (and any sub-lists) is always a
-     *            {@link String} representing the name of a directory. Each subsequent item in the
-     *            list is either another {@link List} or a {@link Path}.
+     * @param change The changes since the last call. The complete data is always available from
+     *            {@link ListCollectionThread#getLists()}.
      */
-    void dataFileListUpdated(List<Object> lists);
+    void dataFileListChanged(ListCollectionChange change);
 }
@@ -12,7 +12,6 @@
 package com.trollworks.gcs.common;
 
 import com.trollworks.gcs.app.GCS;
-import com.trollworks.toolkit.collections.Stack;
 import com.trollworks.toolkit.io.Log;
 import com.trollworks.toolkit.utility.FileType;
 import com.trollworks.toolkit.utility.PathUtils;
@@ -20,25 +19,41 @@ import com.trollworks.toolkit.utility.text.NumericComparator;
 
 import java.awt.EventQueue;
 import java.io.IOException;
-import java.nio.file.FileVisitOption;
-import java.nio.file.FileVisitResult;
-import java.nio.file.FileVisitor;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
-/** A thread that periodically updates the set of available list files. */
-public class ListCollectionThread extends Thread implements FileVisitor<Path>, Comparator<Object> {
+/**
+ * A thread that keeps the set of available list files up to date. The library is walked once, then
+ * watched for changes, so that only the directories that actually change are scanned again. Where
+ * the file system can't be watched, the library is walked again periodically instead, as are any
+ * directories that couldn't be registered for watching.
+ */
+public class ListCollectionThread extends Thread implements Comparator<Object> {
     private static final ListCollectionThread INSTANCE;
-    private List<Object>                      mLists;
-    private List<Object>                      mCurrent;
-    private Stack<List<Object>>               mStack;
+    private static final long                 POLL_INTERVAL = 5000;
+    private static final long                 SETTLE_DELAY  = 250;
+    private volatile List<Object>             mLists;
     private List<ListCollectionListener>      mListeners;
+    private Path                              mRoot;
+    private WatchService                      mWatcher;
+    private HashMap<Path, Directory>          mDirectories;
+    private HashMap<WatchKey, Directory>      mWatchedDirectories;
+    private LinkedHashSet<Directory>          mUnwatchedDirectories;
 
     static {
         INSTANCE = new ListCollectionThread();
@@ -55,6 +70,9 @@ public class ListCollectionThread extends Thread implements FileVisitor<Path>, C
         setPriority(NORM_PRIORITY);
         setDaemon(true);
         mListeners = new ArrayList<>();
+        mDirectories = new HashMap<>();
+        mWatchedDirectories = new HashMap<>();
+        mUnwatchedDirectories = new LinkedHashSet<>();
     }
 
     /** @param listener The {@link ListCollectionListener} to add. */
@@ -67,15 +85,14 @@ public class ListCollectionThread extends Thread implements FileVisitor<Path>, C
         mListeners.remove(listener);
     }
 
-    protected void notifyListeners() {
+    protected void notifyListeners(ListCollectionChange change) {
         ListCollectionListener[] listeners;
         synchronized (this) {
             listeners = mListeners.toArray(new ListCollectionListener[mListeners.size()]);
         }
-        List<Object> lists = getLists();
         for (ListCollectionListener listener : listeners) {
             try {
-                listener.dataFileListUpdated(lists);
+                listener.dataFileListChanged(change);
             } catch (Throwable throwable) {
                 Log.error(throwable);
             }
@@ -96,82 +113,336 @@ public class ListCollectionThread extends Thread implements FileVisitor<Path>, C
 
     @Override
     public void run() {
+        mRoot = GCS.getLibraryRootPath();
+        try {
+            mWatcher = mRoot.getFileSystem().newWatchService();
+        } catch (Exception exception) {
+            // Fall back to polling
+            mWatcher = null;
+        }
+        scan(mRoot);
+        mLists = collectLists();
         try {
             while (true) {
+                if (mWatcher != null) {
+                    waitForChanges();
+                } else {
+                    sleep(POLL_INTERVAL);
+                    rescan();
+                }
                 List<Object> lists = collectLists();
-                if (!lists.equals(mLists)) {
+                ListCollectionChange change = diff(mLists, lists);
+                if (!change.isEmpty()) {
                     mLists = lists;
-                    EventQueue.invokeLater(() -> notifyListeners());
+                    EventQueue.invokeLater(() -> notifyListeners(change));
                 }
-                sleep(5000);
             }
         } catch (InterruptedException outerIEx) {
             // Someone is trying to terminate us... let them.
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private List<Object> collectLists() {
-        mCurrent = new ArrayList<>();
-        mStack = new Stack<>();
+    /**
+     * Blocks until the watched directories change, then scans those that did. Should any
+     * directories have failed to be watched, waits no longer than the polling interval, and scans
+     * those each time as well.
+     */
+    private void waitForChanges() throws InterruptedException {
+        Set<Directory> dirty = new LinkedHashSet<>();
+        boolean overflow = false;
+        WatchKey key = mUnwatchedDirectories.isEmpty() ? mWatcher.take() : mWatcher.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+        while (key != null) {
+            Directory dir = mWatchedDirectories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    overflow = true;
+                }
+            }
+            if (dir != null) {
+                dirty.add(dir);
+            }
+            if (!key.reset()) {
+                // The directory is no longer accessible, so forget it and give its parent another
+                // look. Should it have been re-created, the parent will then scan and watch it anew.
+                mWatchedDirectories.remove(key);
+                if (dir != null) {
+                    Directory parent = mDirectories.get(dir.mPath.getParent());
+                    if (mDirectories.get(dir.mPath) == dir) {
+                        forget(dir);
+                    }
+                    if (parent != null) {
+                        dirty.add(parent);
+                    }
+                }
+            }
+            // Let a burst of changes, such as a copy of many files, settle before scanning
+            key = mWatcher.poll(SETTLE_DELAY, TimeUnit.MILLISECONDS);
+        }
+        for (Directory dir : new ArrayList<>(mUnwatchedDirectories)) {
+            // Try again, in case watches have been freed up since
+            if (watch(dir)) {
+                mUnwatchedDirectories.remove(dir);
+            }
+            dirty.add(dir);
+        }
+        if (overflow || !mDirectories.containsKey(mRoot)) {
+            rescan();
+        } else {
+            for (Directory dir : dirty) {
+                if (mDirectories.get(dir.mPath) == dir) {
+                    update(dir);
+                }
+            }
+        }
+    }
+
+    private void rescan() {
+        Directory root = mDirectories.get(mRoot);
+        if (root != null) {
+            forget(root);
+        }
+        scan(mRoot);
+    }
+
+    /** Scans a directory that hasn't been seen before, along with everything beneath it. */
+    private void scan(Path path) {
+        if (!Files.isDirectory(path)) {
+            return;
+        }
+        Directory dir = new Directory(path);
+        mDirectories.put(path, dir);
+        if (mWatcher != null && !watch(dir)) {
+            mUnwatchedDirectories.add(dir);
+        }
+        update(dir);
+    }
+
+    /**
+     * Registers a directory with the watch service. Should that fail, such as when the system's
+     * limit on watches has been reached, the directory must be polled instead.
+     *
+     * @return Whether the directory is now being watched.
+     */
+    private boolean watch(Directory dir) {
         try {
-            Files.walkFileTree(GCS.getLibraryRootPath(), EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, this);
+            dir.mKey = dir.mPath.register(mWatcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+            mWatchedDirectories.put(dir.mKey, dir);
+            return true;
+        } catch (Exception exception) {
+            // Only the first failure is worth reporting; the rest will almost always be the same
+            if (mUnwatchedDirectories.isEmpty()) {
+                Log.error(exception);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Scans the immediate contents of a directory again. Sub-directories that are new are scanned
+     * in full, while those that are gone are forgotten.
+     */
+    private void update(Directory dir) {
+        ArrayList<Path> files = new ArrayList<>();
+        Set<Path> directories = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.mPath)) {
+            for (Path path : stream) {
+                if (!shouldSkip(path)) {
+                    if (Files.isDirectory(path)) {
+                        if (!isLoop(path)) {
+                            directories.add(path);
+                        }
+                    } else if (isListFile(path)) {
+                        files.add(path);
+                    }
+                }
+            }
         } catch (Exception exception) {
             Log.error(exception);
         }
-        List<Object> result = mCurrent;
-        mCurrent = null;
-        mStack = null;
-        return result.isEmpty() ? new ArrayList<>() : (List<Object>) result.get(0);
+        dir.mFiles = files;
+        for (Path path : new ArrayList<>(dir.mDirectories)) {
+            if (!directories.contains(path)) {
+                Directory child = mDirectories.get(path);
+                if (child != null) {
+                    forget(child);
+                }
+            }
+        }
+        dir.mDirectories = new ArrayList<>(directories);
+        for (Path path : directories) {
+            if (!mDirectories.containsKey(path)) {
+                scan(path);
+            }
+        }
+    }
+
+    private void forget(Directory dir) {
+        mDirectories.remove(dir.mPath);
+        mUnwatchedDirectories.remove(dir);
+        if (dir.mKey != null) {
+            dir.mKey.cancel();
+            mWatchedDirectories.remove(dir.mKey);
+        }
+        for (Path path : dir.mDirectories) {
+            Directory child = mDirectories.get(path);
+            if (child != null) {
+                forget(child);
+            }
+        }
     }
 
     private static boolean shouldSkip(Path path) {
         return path.getFileName().toString().startsWith("."); //$NON-NLS-1$
     }
 
-    @Override
-    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-        if (shouldSkip(dir)) {
-            return FileVisitResult.SKIP_SUBTREE;
+    private static boolean isListFile(Path path) {
+        String ext = PathUtils.getExtension(path.getFileName());
+        for (String one : FileType.getOpenableExtensions()) {
+            if (one.equalsIgnoreCase(ext)) {
+                return true;
+            }
         }
-        mStack.push(mCurrent);
-        mCurrent = new ArrayList<>();
-        mCurrent.add(dir.getFileName().toString());
-        return FileVisitResult.CONTINUE;
+        return false;
     }
 
-    @Override
-    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-        if (!shouldSkip(file)) {
-            String ext = PathUtils.getExtension(file.getFileName());
-            for (String one : FileType.getOpenableExtensions()) {
-                if (one.equalsIgnoreCase(ext)) {
-                    mCurrent.add(file);
-                    break;
+    /** @return Whether the directory is a link back to one of its own ancestors. */
+    private static boolean isLoop(Path path) {
+        if (Files.isSymbolicLink(path)) {
+            try {
+                Path real = path.toRealPath();
+                for (Path parent = path.getParent(); parent != null; parent = parent.getParent()) {
+                    if (Files.isSameFile(real, parent)) {
+                        return true;
+                    }
                 }
+            } catch (IOException exception) {
+                return true;
             }
         }
-        return FileVisitResult.CONTINUE;
+        return false;
     }
 
-    @Override
-    public FileVisitResult visitFileFailed(Path file, IOException exception) throws IOException {
-        Log.error(exception);
-        return FileVisitResult.CONTINUE;
+    /** @return The current contents of the library, built from the directories already scanned. */
+    private List<Object> collectLists() {
+        Directory root = mDirectories.get(mRoot);
+        List<Object> lists = root != null ? collectLists(root) : null;
+        return lists != null ? lists : new ArrayList<>();
     }
 
-    @Override
-    public FileVisitResult postVisitDirectory(Path dir, IOException exception) throws IOException {
-        if (exception != null) {
-            Log.error(exception);
+    private List<Object> collectLists(Directory dir) {
+        List<Object> list = new ArrayList<>();
+        for (Path path : dir.mDirectories) {
+            Directory child = mDirectories.get(path);
+            if (child != null) {
+                List<Object> childList = collectLists(child);
+                if (childList != null) {
+                    list.add(childList);
+                }
+            }
+        }
+        list.addAll(dir.mFiles);
+        if (list.isEmpty()) {
+            return null;
+        }
+        Collections.sort(list, this);
+        list.add(0, dir.mPath.getFileName().toString());
+        return list;
+    }
+
+    private ListCollectionChange diff(List<Object> before, List<Object> after) {
+        LinkedHashMap<Path, List<Object>> directories = new LinkedHashMap<>();
+        diff(mRoot, before, after, directories);
+        Set<Path> added = new HashSet<>();
+        Set<Path> removed = new HashSet<>();
+        for (Path path : directories.keySet()) {
+            Set<Path> beforeFiles = new HashSet<>();
+            collectFiles(findDirectory(before, path), beforeFiles);
+            Set<Path> afterFiles = new HashSet<>();
+            collectFiles(directories.get(path), afterFiles);
+            for (Path file : afterFiles) {
+                if (!beforeFiles.contains(file)) {
+                    added.add(file);
+                }
+            }
+            for (Path file : beforeFiles) {
+                if (!afterFiles.contains(file)) {
+                    removed.add(file);
+                }
+            }
+        }
+        return new ListCollectionChange(directories, added, removed);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void diff(Path path, List<Object> before, List<Object> after, LinkedHashMap<Path, List<Object>> directories) {
+        if (before.equals(after)) {
+            return;
+        }
+        if (!haveSameEntries(before, after)) {
+            directories.put(path, after.size() > 1 ? after : null);
+            return;
+        }
+        int count = before.size();
+        for (int i = 1; i < count; i++) {
+            Object one = before.get(i);
+            if (one instanceof List) {
+                diff(path.resolve(getName(one)), (List<Object>) one, (List<Object>) after.get(i), directories);
+            }
+        }
+    }
+
+    private static boolean haveSameEntries(List<Object> before, List<Object> after) {
+        int count = before.size();
+        if (count != after.size()) {
+            return false;
         }
-        Collections.sort(mCurrent, this);
-        List<Object> restoring = mStack.pop();
-        if (mCurrent.size() > 1) {
-            restoring.add(mCurrent);
+        for (int i = 1; i < count; i++) {
+            Object one = before.get(i);
+            Object other = after.get(i);
+            if (one instanceof List) {
+                if (!(other instanceof List) || !getName(one).equals(getName(other))) {
+                    return false;
+                }
+            } else if (!one.equals(other)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> findDirectory(List<Object> lists, Path path) {
+        List<Object> current = lists;
+        for (Path name : mRoot.relativize(path)) {
+            if (current == null || name.toString().isEmpty()) {
+                break;
+            }
+            List<Object> next = null;
+            int count = current.size();
+            for (int i = 1; i < count; i++) {
+                Object one = current.get(i);
+                if (one instanceof List && getName(one).equals(name.toString())) {
+                    next = (List<Object>) one;
+                    break;
+                }
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private static void collectFiles(List<?> list, Set<Path> files) {
+        if (list != null) {
+            int count = list.size();
+            for (int i = 1; i < count; i++) {
+                Object one = list.get(i);
+                if (one instanceof Path) {
+                    files.add((Path) one);
+                } else if (one instanceof List) {
+                    collectFiles((List<?>) one, files);
+                }
+            }
         }
-        mCurrent = restoring;
-        return FileVisitResult.CONTINUE;
     }
 
     @Override
@@ -188,4 +459,16 @@ public class ListCollectionThread extends Thread implements FileVisitor<Path>, C
         }
         return ""; //$NON-NLS-1$
     }
+
+    /** A directory within the library, as of the last time it was scanned. */
+    private static class Directory {
+        Path            mPath;
+        WatchKey        mKey;
+        ArrayList<Path> mFiles       = new ArrayList<>();
+        ArrayList<Path> mDirectories = new ArrayList<>();
+
+        Directory(Path path) {
+            mPath = path;
+        }
+    }
 }
@@ -12,18 +12,28 @@
 package com.trollworks.gcs.common;
 
 import com.trollworks.gcs.widgets.outline.ListRow;
+import com.trollworks.toolkit.io.Log;
+import com.trollworks.toolkit.io.xml.XMLNodeType;
 import com.trollworks.toolkit.io.xml.XMLReader;
 import com.trollworks.toolkit.io.xml.XMLWriter;
 import com.trollworks.toolkit.ui.widget.outline.OutlineModel;
 import com.trollworks.toolkit.ui.widget.outline.Row;
 
+import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.TreeSet;
 
 /** A list of rows. */
 public abstract class ListFile extends DataFile {
-    private OutlineModel mModel = new OutlineModel();
+    private OutlineModel       mModel = new OutlineModel();
+    private File               mDeferredFile;
+    private long               mDeferredLastModified;
+    private ArrayList<ListRow> mDeferredRows;
+    private boolean            mDeferredDetailsLost;
 
     public ListFile() {
         setSortingMarksDirty(false);
@@ -34,6 +44,128 @@ public abstract class ListFile extends DataFile {
         loadList(reader, state);
     }
 
+    /**
+     * Loads the file, but defers loading the features, prerequisites and defaults of each row until
+     * they are first needed. Intended for large libraries, most of whose rows are only ever
+     * displayed. The details are skipped during the load, then read from the file for all rows at
+     * once the first time any row needs them.
+     *
+     * @param file The file to load.
+     */
+    public void loadDeferringDetails(File file) throws IOException {
+        LoadState state = new LoadState();
+        // Only lists being opened in their own window get here, so they may recover unsaved changes
+        state.mRecoverUnsavedChanges = true;
+        state.mDeferRowDetails = true;
+        synchronized (this) {
+            mDeferredFile = file;
+            mDeferredLastModified = file.lastModified();
+            mDeferredRows = new ArrayList<>();
+        }
+        load(file, state);
+    }
+
+    /**
+     * @param name The name of an XML tag.
+     * @return Whether the tag holds one of the rows of this list. Rows are only looked for
+     *         directly within the root tag or within other rows.
+     */
+    @SuppressWarnings("static-method")
+    public boolean isRowTag(String name) {
+        return false;
+    }
+
+    /**
+     * Called by each row as it starts to load.
+     *
+     * @param row The row being loaded.
+     * @param name The name of the row's XML tag.
+     * @return Whether the row should skip its details, leaving them to
+     *         {@link #loadDeferredDetails()}.
+     */
+    public synchronized boolean deferDetails(ListRow row, String name) {
+        if (mDeferredRows == null || isRecovered() || !isRowTag(name)) {
+            return false;
+        }
+        mDeferredRows.add(row);
+        return true;
+    }
+
+    /**
+     * Loads the details of every row that deferred them, by reading the file again. Does nothing
+     * once they have been loaded. May be called from any thread. Should the file have changed since
+     * it was loaded, or fail to be read, the rows keep their details unloaded and the list can no
+     * longer be saved, since doing so would discard them.
+     */
+    public synchronized void loadDeferredDetails() {
+        ArrayList<ListRow> rows = mDeferredRows;
+        if (rows == null) {
+            return;
+        }
+        mDeferredRows = null;
+        if (rows.isEmpty()) {
+            return;
+        }
+        mDeferredDetailsLost = true;
+        try {
+            if (mDeferredFile.lastModified() != mDeferredLastModified) {
+                throw new IOException(mDeferredFile.getPath());
+            }
+            try (XMLReader reader = new XMLReader(new FileReader(mDeferredFile))) {
+                Iterator<ListRow> iterator = rows.iterator();
+                XMLNodeType type = reader.next();
+                while (type != XMLNodeType.END_DOCUMENT) {
+                    if (type == XMLNodeType.START_TAG) {
+                        String name = reader.getName();
+                        if (matchesRootTag(name)) {
+                            String marker = reader.getMarker();
+                            do {
+                                if (reader.next() == XMLNodeType.START_TAG) {
+                                    name = reader.getName();
+                                    if (isRowTag(name) && iterator.hasNext()) {
+                                        iterator.next().loadDeferredDetails(reader, this, iterator);
+                                    } else {
+                                        reader.skipTag(name);
+                                    }
+                                }
+                            } while (reader.withinMarker(marker));
+                            break;
+                        }
+                        reader.skipTag(name);
+                        type = reader.getType();
+                    } else {
+                        type = reader.next();
+                    }
+                }
+            }
+            for (ListRow row : rows) {
+                if (row.hasDeferredDetails()) {
+                    throw new IOException(mDeferredFile.getPath());
+                }
+            }
+            mDeferredDetailsLost = false;
+        } catch (Exception exception) {
+            Log.error(exception);
+        }
+    }
+
+    /**
+     * @return Whether some rows deferred their details and they could not be loaded. The list
+     *         refuses to be saved if so.
+     */
+    public synchronized boolean areDeferredDetailsLost() {
+        return mDeferredDetailsLost;
+    }
+
+    @Override
+    public byte[] createSnapshot() throws IOException {
+        loadDeferredDetails();
+        if (areDeferredDetailsLost()) {
+            throw new IOException(mDeferredFile.getPath());
+        }
+        return super.createSnapshot();
+    }
+
     /**
      * Called to load the individual rows.
      *
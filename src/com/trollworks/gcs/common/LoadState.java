@@ -30,4 +30,14 @@ public class LoadState {
     public HashMap<Object, OldWeapon> mOldWeapons       = new HashMap<>();
     /** Used to convert old equipment data. */
     public boolean                    mDefaultCarried;
+    /**
+     * Whether unsaved changes recorded in a {@link SaveJournal} should be recovered. Only set when
+     * a document is being opened for editing.
+     */
+    public boolean                    mRecoverUnsavedChanges;
+    /**
+     * Whether the rows of a {@link ListFile} may defer loading their details until they are first
+     * needed.
+     */
+    public boolean                    mDeferRowDetails;
 }
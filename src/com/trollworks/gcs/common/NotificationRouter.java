@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps notification types to a bitmask of the categories a consumer has assigned to them, so that
+ * a consumer can route a notification with a single lookup and a few bit tests, rather than a
+ * chain of string comparisons. Notification types are interned into small integer codes shared
+ * by all routers, and each router compiles the mask for a code the first time it is seen.
+ */
+public class NotificationRouter {
+    private static final ConcurrentHashMap<String, Integer> CODES        = new ConcurrentHashMap<>();
+    private static final int                                UNKNOWN      = -1;
+    private ArrayList<String>                               mTypes       = new ArrayList<>();
+    private ArrayList<Integer>                              mTypeMasks   = new ArrayList<>();
+    private ArrayList<String>                               mPrefixes    = new ArrayList<>();
+    private ArrayList<Integer>                              mPrefixMasks = new ArrayList<>();
+    private volatile int[]                                  mMasks       = new int[0];
+
+    /**
+     * @param type A notification type.
+     * @return The code for the notification type. The same type always returns the same code.
+     */
+    public static int getCode(String type) {
+        Integer code = CODES.get(type);
+        if (code == null) {
+            synchronized (CODES) {
+                code = CODES.get(type);
+                if (code == null) {
+                    code = Integer.valueOf(CODES.size());
+                    CODES.put(type, code);
+                }
+            }
+        }
+        return code.intValue();
+    }
+
+    /**
+     * Assigns categories to notification types. Must be called before the router is used.
+     *
+     * @param mask The categories to add to the types.
+     * @param types The notification types.
+     */
+    public synchronized void add(int mask, String... types) {
+        for (String type : types) {
+            mTypes.add(type);
+            mTypeMasks.add(Integer.valueOf(mask));
+        }
+        mMasks = new int[0];
+    }
+
+    /**
+     * Assigns categories to every notification type that starts with one of the prefixes. Must be
+     * called before the router is used.
+     *
+     * @param mask The categories to add to the matching types.
+     * @param prefixes The notification type prefixes.
+     */
+    public synchronized void addPrefix(int mask, String... prefixes) {
+        for (String prefix : prefixes) {
+            mPrefixes.add(prefix);
+            mPrefixMasks.add(Integer.valueOf(mask));
+        }
+        mMasks = new int[0];
+    }
+
+    /**
+     * @param type A notification type.
+     * @return The categories assigned to the notification type, or zero if it has none.
+     */
+    public int getMask(String type) {
+        int code = getCode(type);
+        int[] masks = mMasks;
+        if (code < masks.length && masks[code] != UNKNOWN) {
+            return masks[code];
+        }
+        return compile(code, type);
+    }
+
+    private synchronized int compile(int code, String type) {
+        int mask = 0;
+        int count = mTypes.size();
+        for (int i = 0; i < count; i++) {
+            if (mTypes.get(i).equals(type)) {
+                mask |= mTypeMasks.get(i).intValue();
+            }
+        }
+        count = mPrefixes.size();
+        for (int i = 0; i < count; i++) {
+            if (type.startsWith(mPrefixes.get(i))) {
+                mask |= mPrefixMasks.get(i).intValue();
+            }
+        }
+        int[] masks = mMasks;
+        if (code >= masks.length) {
+            int length = masks.length;
+            masks = Arrays.copyOf(masks, Math.max(code + 1, length * 2));
+            Arrays.fill(masks, length, masks.length, UNKNOWN);
+        }
+        masks[code] = mask;
+        mMasks = masks;
+        return mask;
+    }
+}
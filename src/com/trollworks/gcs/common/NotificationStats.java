@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.common;
+
+/** Counts the notifications a {@link DataFile} sends within each notification batch. */
+public class NotificationStats {
+    private long mBatches;
+    private long mEvents;
+    private long mCoalesced;
+    private int  mBatchEvents;
+    private int  mBatchCoalesced;
+    private int  mLastBatchEvents;
+    private int  mLastBatchCoalesced;
+    private int  mLargestBatch;
+
+    void eventSent() {
+        mEvents++;
+        mBatchEvents++;
+    }
+
+    void eventCoalesced() {
+        mCoalesced++;
+        mBatchCoalesced++;
+    }
+
+    void batchFinished() {
+        mBatches++;
+        mLastBatchEvents = mBatchEvents;
+        mLastBatchCoalesced = mBatchCoalesced;
+        if (mBatchEvents > mLargestBatch) {
+            mLargestBatch = mBatchEvents;
+        }
+        mBatchEvents = 0;
+        mBatchCoalesced = 0;
+    }
+
+    /** @return The number of notification batches that have finished. */
+    public long getBatchCount() {
+        return mBatches;
+    }
+
+    /** @return The number of notifications sent, both within and outside of batches. */
+    public long getEventCount() {
+        return mEvents;
+    }
+
+    /** @return The number of notifications dropped as duplicates of one sent earlier in a batch. */
+    public long getCoalescedCount() {
+        return mCoalesced;
+    }
+
+    /** @return The number of notifications sent in the most recently finished batch. */
+    public int getLastBatchEventCount() {
+        return mLastBatchEvents;
+    }
+
+    /** @return The number of notifications dropped in the most recently finished batch. */
+    public int getLastBatchCoalescedCount() {
+        return mLastBatchCoalesced;
+    }
+
+    /** @return The largest number of notifications sent in a single batch. */
+    public int getLargestBatchEventCount() {
+        return mLargestBatch;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.common;
+
+import com.trollworks.toolkit.io.Log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+
+/**
+ * A journal of the unsaved states of a data file, kept alongside it so that changes may be
+ * recovered after a crash. Each record holds only the bytes that differ from the state before it,
+ * so the small edits typical between autosaves cost little to record. A record that was only
+ * partially written is ignored when the journal is read back. Not thread-safe; all access should
+ * occur on the thread that saves data files.
+ */
+public class SaveJournal {
+    private static final int MAGIC = 0x47434A31;
+    private File             mFile;
+    private byte[]           mLast;
+    private long             mSize;
+
+    /** @param dataFile The data file to keep a journal for. */
+    public SaveJournal(File dataFile) {
+        mFile = getJournalFile(dataFile);
+    }
+
+    /**
+     * @param dataFile The data file.
+     * @return The file its journal is kept in.
+     */
+    public static File getJournalFile(File dataFile) {
+        return new File(dataFile.getParentFile(), "." + dataFile.getName() + ".journal"); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    /**
+     * Records a new state of the data file.
+     *
+     * @param snapshot The state, as returned by {@link DataFile#createSnapshot()}.
+     */
+    public void append(byte[] snapshot) throws IOException {
+        if (mLast != null && mSize > (long) snapshot.length * 4) {
+            // The deltas now outweigh the data itself, so start over from the current state
+            discard();
+        }
+        byte[] previous = mLast != null ? mLast : new byte[0];
+        int max = Math.min(previous.length, snapshot.length);
+        int prefix = 0;
+        while (prefix < max && previous[prefix] == snapshot[prefix]) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix && previous[previous.length - 1 - suffix] == snapshot[snapshot.length - 1 - suffix]) {
+            suffix++;
+        }
+        int length = snapshot.length - prefix - suffix;
+        boolean create = mLast == null;
+        try (FileOutputStream fos = new FileOutputStream(mFile, !create)) {
+            DataOutputStream out = new DataOutputStream(fos);
+            if (create) {
+                out.writeInt(MAGIC);
+            }
+            out.writeInt(prefix);
+            out.writeInt(suffix);
+            out.writeInt(length);
+            out.write(snapshot, prefix, length);
+            out.writeInt(checksum(prefix, suffix, snapshot, prefix, length));
+            out.flush();
+            fos.getFD().sync();
+            mSize = fos.getChannel().size();
+        }
+        mLast = snapshot;
+    }
+
+    /** Removes the journal, typically because its data file has just been saved. */
+    public void discard() {
+        mLast = null;
+        mSize = 0;
+        try {
+            Files.deleteIfExists(mFile.toPath());
+        } catch (IOException exception) {
+            Log.error(exception);
+        }
+    }
+
+    /**
+     * @param dataFile The data file to recover.
+     * @return The most recent state recorded for the data file, or <code>null</code> if there is
+     *         no journal or it is older than the data file.
+     */
+    public static byte[] recover(File dataFile) {
+        File file = getJournalFile(dataFile);
+        if (!file.isFile() || file.lastModified() < dataFile.lastModified()) {
+            return null;
+        }
+        byte[] state = null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            byte[] current = new byte[0];
+            while (true) {
+                int prefix = in.readInt();
+                int suffix = in.readInt();
+                int length = in.readInt();
+                if (prefix < 0 || suffix < 0 || length < 0 || prefix + suffix > current.length) {
+                    break;
+                }
+                byte[] next = new byte[prefix + length + suffix];
+                System.arraycopy(current, 0, next, 0, prefix);
+                in.readFully(next, prefix, length);
+                System.arraycopy(current, current.length - suffix, next, prefix + length, suffix);
+                if (in.readInt() != checksum(prefix, suffix, next, prefix, length)) {
+                    break;
+                }
+                current = next;
+                state = current;
+            }
+        } catch (EOFException exception) {
+            // The last record was only partially written; the one before it is used.
+        } catch (IOException exception) {
+            Log.error(exception);
+        }
+        return state != null && state.length > 0 ? state : null;
+    }
+
+    private static int checksum(int prefix, int suffix, byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        for (int shift = 0; shift < 32; shift += 8) {
+            crc.update(prefix >>> shift);
+            crc.update(suffix >>> shift);
+        }
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+}
@@ -61,7 +61,7 @@ public enum StringCompareType {
 
         @Override
         public boolean matches(String qualifier, String data) {
-            return data.toLowerCase().indexOf(qualifier.toLowerCase()) != -1;
+            return containsIgnoreCase(data, qualifier);
         }
     },
     /** The comparison for "does not contain". */
@@ -73,7 +73,7 @@ public enum StringCompareType {
 
         @Override
         public boolean matches(String qualifier, String data) {
-            return data.toLowerCase().indexOf(qualifier.toLowerCase()) == -1;
+            return !containsIgnoreCase(data, qualifier);
         }
     },
     /** The comparison for "starts with". */
@@ -85,7 +85,7 @@ public enum StringCompareType {
 
         @Override
         public boolean matches(String qualifier, String data) {
-            return data.toLowerCase().startsWith(qualifier.toLowerCase());
+            return startsWithIgnoreCase(data, qualifier);
         }
     },
     /** The comparison for "does not start with". */
@@ -97,7 +97,7 @@ public enum StringCompareType {
 
         @Override
         public boolean matches(String qualifier, String data) {
-            return !data.toLowerCase().startsWith(qualifier.toLowerCase());
+            return !startsWithIgnoreCase(data, qualifier);
         }
     },
     /** The comparison for "ends with". */
@@ -109,7 +109,7 @@ public enum StringCompareType {
 
         @Override
         public boolean matches(String qualifier, String data) {
-            return data.toLowerCase().endsWith(qualifier.toLowerCase());
+            return endsWithIgnoreCase(data, qualifier);
         }
     },
     /** The comparison for "does not end with". */
@@ -121,7 +121,7 @@ public enum StringCompareType {
 
         @Override
         public boolean matches(String qualifier, String data) {
-            return !data.toLowerCase().endsWith(qualifier.toLowerCase());
+            return !endsWithIgnoreCase(data, qualifier);
         }
     };
 
@@ -188,6 +188,29 @@ public enum StringCompareType {
         return builder.toString();
     }
 
+    // The following compare in place, rather than lower-casing copies of both strings on every
+    // call, since prerequisites are checked against every row of a character many times over.
+
+    private static boolean containsIgnoreCase(String data, String qualifier) {
+        int length = qualifier.length();
+        int last = data.length() - length;
+        for (int i = 0; i <= last; i++) {
+            if (data.regionMatches(true, i, qualifier, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWithIgnoreCase(String data, String qualifier) {
+        return data.regionMatches(true, 0, qualifier, 0, qualifier.length());
+    }
+
+    private static boolean endsWithIgnoreCase(String data, String qualifier) {
+        int length = qualifier.length();
+        return data.regionMatches(true, data.length() - length, qualifier, 0, length);
+    }
+
     /**
      * Performs a comparison.
      *
@@ -99,6 +99,14 @@ public class StringCriteria {
         mQualifier = qualifier != null ? qualifier : ""; //$NON-NLS-1$
     }
 
+    /**
+     * @return The only value, ignoring case, that this criteria can match, or <code>null</code> if
+     *         more than one value can match.
+     */
+    public String getExactMatch() {
+        return mType == StringCompareType.IS ? mQualifier : null;
+    }
+
     /**
      * @param data The data to match against.
      * @return Whether the data matches this criteria.
@@ -112,7 +112,7 @@ public class Equipment extends ListRow implements HasSourceReference {
     private double                 mValue;
     private WeightValue            mWeight;
     private double                 mExtendedValue;
-    private WeightValue            mExtendedWeight;
+    private long                   mExtendedWeight;
     private String                 mReference;
     private ArrayList<WeaponStats> mWeapons;
 
@@ -131,7 +131,6 @@ public class Equipment extends ListRow implements HasSourceReference {
         mLegalityClass = DEFAULT_LEGALITY_CLASS;
         mReference = EMPTY;
         mWeight = new WeightValue(0, SheetPreferences.getWeightUnits());
-        mExtendedWeight = new WeightValue(mWeight);
         mWeapons = new ArrayList<>();
     }
 
@@ -153,8 +152,7 @@ public class Equipment extends ListRow implements HasSourceReference {
         mValue = equipment.mValue;
         mWeight = new WeightValue(equipment.mWeight);
         mExtendedValue = mQuantity * mValue;
-        mExtendedWeight = new WeightValue(mWeight);
-        mExtendedWeight.setValue(mExtendedWeight.getValue() * mQuantity);
+        mExtendedWeight = FixedWeight.toFixed(mWeight) * mQuantity;
         mReference = equipment.mReference;
         mWeapons = new ArrayList<>(equipment.mWeapons.size());
         for (WeaponStats weapon : equipment.mWeapons) {
@@ -288,6 +286,11 @@ public class Equipment extends ListRow implements HasSourceReference {
         }
     }
 
+    @Override
+    protected boolean isDetailTag(String name) {
+        return !SkillDefault.TAG_ROOT.equals(name) && super.isDetailTag(name);
+    }
+
     @Override
     protected void finishedLoading(LoadState state) {
         OldWeapon oldWeapon = state.mOldWeapons.remove(this);
@@ -456,49 +459,42 @@ public class Equipment extends ListRow implements HasSourceReference {
     }
 
     private boolean updateExtendedWeight(boolean okToNotify) {
-        WeightValue saved = mExtendedWeight;
+        long saved = mExtendedWeight;
         int count = getChildCount();
         WeightUnits units = mWeight.getUnits();
-        mExtendedWeight = new WeightValue(mWeight.getValue() * mQuantity, units);
-        WeightValue contained = new WeightValue(0, units);
+        boolean gurpsMetric = SheetPreferences.areGurpsMetricRulesUsed();
+        long contained = 0;
+        mExtendedWeight = FixedWeight.toFixed(mWeight) * mQuantity;
         for (int i = 0; i < count; i++) {
             Equipment one = (Equipment) getChild(i);
             if (one.isCarried()) {
-                WeightValue weight = one.mExtendedWeight;
-                if (SheetPreferences.areGurpsMetricRulesUsed()) {
-                    if (units.isMetric()) {
-                        weight = GURPSCharacter.convertToGurpsMetric(weight);
-                    } else {
-                        weight = GURPSCharacter.convertFromGurpsMetric(weight);
-                    }
-                }
-                contained.add(weight);
+                contained += FixedWeight.convert(one.mExtendedWeight, one.mWeight.getUnits(), units, gurpsMetric);
             }
         }
         int percentage = 0;
-        WeightValue reduction = new WeightValue(0, units);
+        long reduction = 0;
         for (Feature feature : getFeatures()) {
             if (feature instanceof ContainedWeightReduction) {
                 ContainedWeightReduction cwr = (ContainedWeightReduction) feature;
                 if (cwr.isPercentage()) {
                     percentage += cwr.getPercentageReduction();
                 } else {
-                    reduction.add(cwr.getAbsoluteReduction());
+                    reduction += cwr.getAbsoluteReduction(units);
                 }
             }
         }
         if (percentage > 0) {
             if (percentage >= 100) {
-                contained = new WeightValue(0, units);
+                contained = 0;
             } else {
-                contained.subtract(new WeightValue(contained.getNormalizedValue() * percentage / 100, units));
+                contained -= contained * percentage / 100;
             }
         }
-        contained.subtract(reduction);
-        if (contained.getNormalizedValue() > 0) {
-            mExtendedWeight.add(contained);
+        contained -= reduction;
+        if (contained > 0) {
+            mExtendedWeight += contained;
         }
-        if (!saved.equals(mExtendedWeight)) {
+        if (saved != mExtendedWeight) {
             if (okToNotify) {
                 notify(ID_EXTENDED_WEIGHT, this);
             }
@@ -550,6 +546,11 @@ public class Equipment extends ListRow implements HasSourceReference {
 
     /** @return The extended weight. */
     public WeightValue getExtendedWeight() {
+        return FixedWeight.toWeightValue(mExtendedWeight, mWeight.getUnits());
+    }
+
+    /** @return The extended weight, in {@link FixedWeight} form, in the units of the weight. */
+    public long getExtendedWeightFixed() {
         return mExtendedWeight;
     }
 
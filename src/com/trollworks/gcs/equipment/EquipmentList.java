@@ -66,4 +66,9 @@ public class EquipmentList extends ListFile {
             }
         } while (reader.withinMarker(marker));
     }
+
+    @Override
+    public boolean isRowTag(String name) {
+        return Equipment.TAG_EQUIPMENT.equals(name) || Equipment.TAG_EQUIPMENT_CONTAINER.equals(name);
+    }
 }
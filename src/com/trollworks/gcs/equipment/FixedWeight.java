@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.equipment;
+
+import com.trollworks.toolkit.utility.units.WeightUnits;
+import com.trollworks.toolkit.utility.units.WeightValue;
+
+/**
+ * Fixed-point weight arithmetic. A weight is held as a <code>long</code> count of millionths of
+ * some {@link WeightUnits}, which the caller keeps track of, so that totals can be rolled up
+ * without allocating a {@link WeightValue} for each step. {@link WeightValue}s are only created
+ * where a weight is displayed or saved.
+ */
+public class FixedWeight {
+    /** The number of fixed-point steps in one unit of weight. */
+    public static final long SCALE = 1000000L;
+
+    private FixedWeight() {
+    }
+
+    /**
+     * @param value A weight, in any units.
+     * @return The weight in fixed-point form, in the same units.
+     */
+    public static long toFixed(double value) {
+        return Math.round(value * SCALE);
+    }
+
+    /**
+     * @param weight A weight.
+     * @return The weight in fixed-point form, in the weight's own units.
+     */
+    public static long toFixed(WeightValue weight) {
+        return toFixed(weight.getValue());
+    }
+
+    /**
+     * @param fixed A weight in fixed-point form.
+     * @return The weight as a floating-point number, in the same units.
+     */
+    public static double toDouble(long fixed) {
+        return (double) fixed / SCALE;
+    }
+
+    /**
+     * @param fixed A weight in fixed-point form.
+     * @param units The units of the weight.
+     * @return A new {@link WeightValue} holding the weight.
+     */
+    public static WeightValue toWeightValue(long fixed, WeightUnits units) {
+        return new WeightValue(toDouble(fixed), units);
+    }
+
+    /**
+     * Converts a fixed-point weight from one set of units to another.
+     *
+     * @param fixed A weight in fixed-point form.
+     * @param from The units of the weight.
+     * @param to The units to convert to.
+     * @param gurpsMetric Whether the GURPS Metric rules should be used when converting between
+     *            metric and imperial units. Callers converting many weights should look this up
+     *            once.
+     * @return The converted weight in fixed-point form.
+     */
+    public static long convert(long fixed, WeightUnits from, WeightUnits to, boolean gurpsMetric) {
+        if (from == to || fixed == 0) {
+            return fixed;
+        }
+        double value = fixed;
+        if (gurpsMetric && from.isMetric() != to.isMetric()) {
+            // Mirrors GURPSCharacter.convertToGurpsMetric() and convertFromGurpsMetric()
+            switch (from) {
+                case LB:
+                    value /= 2;
+                    from = WeightUnits.KG;
+                    break;
+                case LT:
+                case TN:
+                    from = WeightUnits.T;
+                    break;
+                case OZ:
+                    value *= 30;
+                    from = WeightUnits.G;
+                    break;
+                case G:
+                    value /= 30;
+                    from = WeightUnits.OZ;
+                    break;
+                case KG:
+                    value *= 2;
+                    from = WeightUnits.LB;
+                    break;
+                case T:
+                    from = WeightUnits.LT;
+                    break;
+                default:
+                    break;
+            }
+            if (from == to) {
+                return Math.round(value);
+            }
+        }
+        return Math.round(to.convert(from, value));
+    }
+}
@@ -12,10 +12,12 @@
 package com.trollworks.gcs.feature;
 
 import com.trollworks.gcs.equipment.Equipment;
+import com.trollworks.gcs.equipment.FixedWeight;
 import com.trollworks.gcs.preferences.SheetPreferences;
 import com.trollworks.toolkit.io.xml.XMLReader;
 import com.trollworks.toolkit.io.xml.XMLWriter;
 import com.trollworks.toolkit.utility.text.Numbers;
+import com.trollworks.toolkit.utility.units.WeightUnits;
 import com.trollworks.toolkit.utility.units.WeightValue;
 
 import java.io.IOException;
@@ -133,6 +135,19 @@ public class ContainedWeightReduction implements Feature {
         return (WeightValue) mValue;
     }
 
+    /**
+     * @param units The units to return the reduction in.
+     * @return The absolute weight reduction, in {@link FixedWeight} form. Will return 0 if
+     *         {@link #isPercentage()} returns true.
+     */
+    public long getAbsoluteReduction(WeightUnits units) {
+        if (isPercentage()) {
+            return 0;
+        }
+        WeightValue reduction = (WeightValue) mValue;
+        return FixedWeight.convert(FixedWeight.toFixed(reduction), reduction.getUnits(), units, false);
+    }
+
     /**
      * Sets an absolute weight reduction to use.
      *
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.feature;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The features in effect for a character, bucketed by key and by feature type as they are added.
+ * Bonus and cost reduction totals are summed as features are added, so looking them up afterwards
+ * does not need to revisit the features. Totals for {@link AttributeBonus}es and
+ * {@link CostReduction}s are also kept in arrays indexed by attribute, so the fixed attributes
+ * can be looked up without a key at all.
+ * <p>
+ * Since totals are calculated as features are added, the level of any {@link Bonus} must be set
+ * before it is added, and the index must be rebuilt if a feature changes.
+ */
+public class FeatureIndex {
+    private static final int        LIMITATION_COUNT = AttributeBonusLimitation.values().length;
+    private HashMap<String, Bucket> mBuckets         = new HashMap<>();
+    private int[]                   mAttributeIntegerBonuses;
+    private double[]                mAttributeBonuses;
+    private int[]                   mAttributeCostReductions;
+
+    /** Creates a new, empty, feature index. */
+    public FeatureIndex() {
+        int count = BonusAttributeType.values().length;
+        mAttributeIntegerBonuses = new int[count * LIMITATION_COUNT];
+        mAttributeBonuses = new double[count * LIMITATION_COUNT];
+        mAttributeCostReductions = new int[count];
+    }
+
+    /** @param feature The feature to add. */
+    public void add(Feature feature) {
+        String key = feature.getKey().toLowerCase();
+        Bucket bucket = mBuckets.get(key);
+        if (bucket == null) {
+            bucket = new Bucket();
+            mBuckets.put(key, bucket);
+        }
+        if (feature instanceof Bonus) {
+            if (feature instanceof WeaponBonus) {
+                bucket.mWeaponBonuses.add((WeaponBonus) feature);
+            } else {
+                LeveledAmount amount = ((Bonus) feature).getAmount();
+                int integerAmount = amount.getIntegerAdjustedAmount();
+                double adjustedAmount = amount.getAdjustedAmount();
+                bucket.mIntegerBonus += integerAmount;
+                bucket.mBonus += adjustedAmount;
+                if (feature instanceof SkillBonus) {
+                    bucket.mSkillBonuses.add((SkillBonus) feature);
+                } else if (feature instanceof SpellBonus) {
+                    bucket.mSpellBonuses.add((SpellBonus) feature);
+                } else if (feature instanceof AttributeBonus) {
+                    AttributeBonus bonus = (AttributeBonus) feature;
+                    int index = getAttributeIndex(bonus.getAttribute(), bonus.getLimitation());
+                    mAttributeIntegerBonuses[index] += integerAmount;
+                    mAttributeBonuses[index] += adjustedAmount;
+                }
+            }
+        } else if (feature instanceof CostReduction) {
+            CostReduction reduction = (CostReduction) feature;
+            bucket.mCostReduction += reduction.getPercentage();
+            mAttributeCostReductions[reduction.getAttribute().ordinal()] += reduction.getPercentage();
+        }
+    }
+
+    private Bucket getBucket(String key) {
+        return mBuckets.get(key.toLowerCase());
+    }
+
+    private static int getAttributeIndex(BonusAttributeType attribute, AttributeBonusLimitation limitation) {
+        return attribute.ordinal() * LIMITATION_COUNT + limitation.ordinal();
+    }
+
+    /**
+     * @param attribute The attribute.
+     * @return The total bonus for the attribute, without any limitation.
+     */
+    public int getAttributeIntegerBonus(BonusAttributeType attribute) {
+        return getAttributeIntegerBonus(attribute, AttributeBonusLimitation.NONE);
+    }
+
+    /**
+     * @param attribute The attribute.
+     * @param limitation The limitation.
+     * @return The total bonus for the attribute with the specified limitation.
+     */
+    public int getAttributeIntegerBonus(BonusAttributeType attribute, AttributeBonusLimitation limitation) {
+        return mAttributeIntegerBonuses[getAttributeIndex(attribute, limitation)];
+    }
+
+    /**
+     * @param attribute The attribute.
+     * @return The total bonus for the attribute, without any limitation.
+     */
+    public double getAttributeBonus(BonusAttributeType attribute) {
+        return mAttributeBonuses[getAttributeIndex(attribute, AttributeBonusLimitation.NONE)];
+    }
+
+    /**
+     * @param attribute The attribute.
+     * @return The total cost reduction for the attribute, as a percentage. Not capped.
+     */
+    public int getAttributeCostReduction(BonusAttributeType attribute) {
+        return mAttributeCostReductions[attribute.ordinal()];
+    }
+
+    /**
+     * @param key The feature key.
+     * @return The total of the non-weapon bonuses for the key, using integer amounts.
+     */
+    public int getIntegerBonus(String key) {
+        Bucket bucket = getBucket(key);
+        return bucket != null ? bucket.mIntegerBonus : 0;
+    }
+
+    /**
+     * @param key The feature key.
+     * @return The total of the non-weapon bonuses for the key.
+     */
+    public double getBonus(String key) {
+        Bucket bucket = getBucket(key);
+        return bucket != null ? bucket.mBonus : 0;
+    }
+
+    /**
+     * @param key The feature key.
+     * @return The total cost reduction for the key, as a percentage. Not capped.
+     */
+    public int getCostReduction(String key) {
+        Bucket bucket = getBucket(key);
+        return bucket != null ? bucket.mCostReduction : 0;
+    }
+
+    /**
+     * @param key The feature key.
+     * @return The weapon bonuses for the key.
+     */
+    public List<WeaponBonus> getWeaponBonuses(String key) {
+        Bucket bucket = getBucket(key);
+        return bucket != null ? Collections.unmodifiableList(bucket.mWeaponBonuses) : Collections.emptyList();
+    }
+
+    /**
+     * @param key The feature key.
+     * @return The skill bonuses for the key.
+     */
+    public List<SkillBonus> getSkillBonuses(String key) {
+        Bucket bucket = getBucket(key);
+        return bucket != null ? Collections.unmodifiableList(bucket.mSkillBonuses) : Collections.emptyList();
+    }
+
+    /**
+     * @param key The feature key.
+     * @return The spell bonuses for the key.
+     */
+    public List<SpellBonus> getSpellBonuses(String key) {
+        Bucket bucket = getBucket(key);
+        return bucket != null ? Collections.unmodifiableList(bucket.mSpellBonuses) : Collections.emptyList();
+    }
+
+    private static class Bucket {
+        ArrayList<WeaponBonus> mWeaponBonuses = new ArrayList<>(0);
+        ArrayList<SkillBonus>  mSkillBonuses  = new ArrayList<>(0);
+        ArrayList<SpellBonus>  mSpellBonuses  = new ArrayList<>(0);
+        int                    mIntegerBonus;
+        double                 mBonus;
+        int                    mCostReduction;
+    }
+}
@@ -13,8 +13,10 @@ package com.trollworks.gcs.library;
 
 import com.trollworks.gcs.advantage.AdvantageList;
 import com.trollworks.gcs.advantage.AdvantagesDockable;
+import com.trollworks.gcs.app.GCS;
 import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.character.SheetDockable;
+import com.trollworks.gcs.common.ListCollectionChange;
 import com.trollworks.gcs.common.ListCollectionListener;
 import com.trollworks.gcs.common.ListCollectionThread;
 import com.trollworks.gcs.common.Workspace;
@@ -28,6 +30,8 @@ import com.trollworks.gcs.spell.SpellList;
 import com.trollworks.gcs.spell.SpellsDockable;
 import com.trollworks.gcs.template.Template;
 import com.trollworks.gcs.template.TemplateDockable;
+import com.trollworks.gcs.widgets.outline.ListOutline;
+import com.trollworks.gcs.widgets.outline.ListRow;
 import com.trollworks.toolkit.annotation.Localize;
 import com.trollworks.toolkit.io.Log;
 import com.trollworks.toolkit.ui.image.StdImage;
@@ -41,6 +45,7 @@ import com.trollworks.toolkit.ui.widget.dock.DockContainer;
 import com.trollworks.toolkit.ui.widget.dock.DockLayout;
 import com.trollworks.toolkit.ui.widget.dock.DockLocation;
 import com.trollworks.toolkit.ui.widget.dock.Dockable;
+import com.trollworks.toolkit.ui.widget.outline.Row;
 import com.trollworks.toolkit.ui.widget.search.Search;
 import com.trollworks.toolkit.ui.widget.search.SearchTarget;
 import com.trollworks.toolkit.ui.widget.tree.FieldAccessor;
@@ -58,6 +63,7 @@ import com.trollworks.toolkit.utility.PathUtils;
 import com.trollworks.toolkit.utility.notification.Notifier;
 
 import java.awt.BorderLayout;
+import java.awt.EventQueue;
 import java.awt.KeyboardFocusManager;
 import java.io.File;
 import java.io.IOException;
@@ -66,6 +72,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.swing.Icon;
@@ -116,6 +123,8 @@ public class LibraryExplorerDockable extends Dockable implements DocumentListene
         mNotifier = new Notifier();
         TreeRoot root = new TreeRoot(mNotifier);
         fillTree(listCollectionThread.getLists(), root);
+        // Start building the index of the library's contents, so that it is ready for searches
+        LibraryIndex.get();
         mTreePanel = new TreePanel(root);
         mTreePanel.setShowHeader(false);
         mTreePanel.addColumn(new TextTreeColumn(TITLE, this, this));
@@ -203,7 +212,7 @@ public class LibraryExplorerDockable extends Dockable implements DocumentListene
     }
 
     @Override
-    public void dataFileListUpdated(List<Object> lists) {
+    public void dataFileListChanged(ListCollectionChange change) {
         TreeRoot root = mTreePanel.getRoot();
         Set<String> selected = new HashSet<>();
         for (TreeRow row : mTreePanel.getExplicitlySelectedRows()) {
@@ -216,13 +225,53 @@ public class LibraryExplorerDockable extends Dockable implements DocumentListene
             }
         }
         mNotifier.startBatch();
-        root.removeRow(new ArrayList<>(root.getChildren()));
-        fillTree(lists, root);
+        Path libraryRoot = GCS.getLibraryRootPath();
+        for (Map.Entry<Path, List<Object>> entry : change.getChangedDirectories().entrySet()) {
+            TreeContainerRow dir = findDirectoryRow(root, libraryRoot.relativize(entry.getKey()));
+            if (dir == null) {
+                // The tree is out of step with the change, so rebuild all of it
+                root.removeRow(new ArrayList<>(root.getChildren()));
+                fillTree(ListCollectionThread.get().getLists(), root);
+                break;
+            }
+            List<Object> lists = entry.getValue();
+            if (lists == null && dir != root) {
+                List<TreeRow> rows = new ArrayList<>();
+                rows.add(dir);
+                dir.getParent().removeRow(rows);
+            } else {
+                dir.removeRow(new ArrayList<>(dir.getChildren()));
+                if (lists != null) {
+                    fillTree(lists, dir);
+                }
+            }
+        }
         mNotifier.endBatch();
         mTreePanel.setOpen(true, collectRowsToOpen(root, open, null));
         mTreePanel.select(collectRows(root, selected, null));
     }
 
+    private static TreeContainerRow findDirectoryRow(TreeRoot root, Path relativePath) {
+        TreeContainerRow current = root;
+        for (Path name : relativePath) {
+            String dirName = name.toString();
+            if (!dirName.isEmpty()) {
+                TreeContainerRow next = null;
+                for (TreeRow row : current.getChildren()) {
+                    if (row instanceof LibraryDirectoryRow && dirName.equals(((LibraryDirectoryRow) row).getName())) {
+                        next = (TreeContainerRow) row;
+                        break;
+                    }
+                }
+                if (next == null) {
+                    return null;
+                }
+                current = next;
+            }
+        }
+        return current;
+    }
+
     private List<TreeContainerRow> collectRowsToOpen(TreeContainerRow parent, Set<String> selectors, List<TreeContainerRow> list) {
         if (list == null) {
             list = new ArrayList<>();
@@ -278,6 +327,23 @@ public class LibraryExplorerDockable extends Dockable implements DocumentListene
         }
     }
 
+    private void open(LibraryIndex.Hit hit) {
+        FileProxy proxy = open(hit.getPath());
+        if (proxy instanceof LibraryDockable) {
+            LibraryDockable dockable = (LibraryDockable) proxy;
+            ListRow row = hit.findRow(dockable.getDataFile());
+            if (row != null) {
+                for (Row parent = row.getParent(); parent != null; parent = parent.getParent()) {
+                    parent.setOpen(true);
+                }
+                ListOutline outline = dockable.getOutline();
+                outline.getModel().select(row, false);
+                EventQueue.invokeLater(() -> outline.scrollSelectionIntoView());
+                outline.requestFocus();
+            }
+        }
+    }
+
     public Dockable getDockableFor(Path path) {
         for (Dockable dockable : getDockContainer().getDock().getDockables()) {
             if (dockable instanceof FileProxy) {
@@ -319,10 +385,10 @@ public class LibraryExplorerDockable extends Dockable implements DocumentListene
                         proxy = openLibrary(path);
                         break;
                     case GURPSCharacter.EXTENSION:
-                        proxy = dockSheet(new SheetDockable(new GURPSCharacter(path.toFile())));
+                        proxy = dockSheet(new SheetDockable(new GURPSCharacter(path.toFile(), true)));
                         break;
                     case Template.EXTENSION:
-                        proxy = dockTemplate(new TemplateDockable(new Template(path.toFile())));
+                        proxy = dockTemplate(new TemplateDockable(new Template(path.toFile(), true)));
                         break;
                     case FileType.PDF_EXTENSION:
                         proxy = dockPdf(new PdfDockable(new PdfRef(null, path.toFile(), 0), 1, null));
@@ -349,28 +415,28 @@ public class LibraryExplorerDockable extends Dockable implements DocumentListene
 
     private FileProxy openAdvantageList(Path path) throws IOException {
         AdvantageList list = new AdvantageList();
-        list.load(path.toFile());
+        list.loadDeferringDetails(path.toFile());
         list.getModel().setLocked(true);
         return dockLibrary(new AdvantagesDockable(list));
     }
 
     private FileProxy openEquipmentList(Path path) throws IOException {
         EquipmentList list = new EquipmentList();
-        list.load(path.toFile());
+        list.loadDeferringDetails(path.toFile());
         list.getModel().setLocked(true);
         return dockLibrary(new EquipmentDockable(list));
     }
 
     private FileProxy openSkillList(Path path) throws IOException {
         SkillList list = new SkillList();
-        list.load(path.toFile());
+        list.loadDeferringDetails(path.toFile());
         list.getModel().setLocked(true);
         return dockLibrary(new SkillsDockable(list));
     }
 
     private FileProxy openSpellList(Path path) throws IOException {
         SpellList list = new SpellList();
-        list.load(path.toFile());
+        list.loadDeferringDetails(path.toFile());
         list.getModel().setLocked(true);
         return dockLibrary(new SpellsDockable(list));
     }
@@ -564,8 +630,8 @@ public class LibraryExplorerDockable extends Dockable implements DocumentListene
     @Override
     public List<Object> search(String filter) {
         ArrayList<Object> list = new ArrayList<>();
-        filter = filter.toLowerCase();
-        collect(mTreePanel.getRoot(), filter, list);
+        collect(mTreePanel.getRoot(), filter.toLowerCase(), list);
+        list.addAll(LibraryIndex.get().search(filter));
         return list;
     }
 
@@ -589,6 +655,11 @@ public class LibraryExplorerDockable extends Dockable implements DocumentListene
             if (one instanceof TreeRow) {
                 list.add((TreeRow) one);
 
+            } else if (one instanceof LibraryIndex.Hit) {
+                if (list.isEmpty()) {
+                    open((LibraryIndex.Hit) one);
+                    return;
+                }
             }
         }
         mTreePanel.setParentsOpen(list);
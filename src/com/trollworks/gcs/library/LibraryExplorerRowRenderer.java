@@ -12,13 +12,14 @@
 package com.trollworks.gcs.library;
 
 import com.trollworks.toolkit.ui.image.StdImage;
+import com.trollworks.toolkit.utility.FileType;
 
 import java.awt.Component;
 
 import javax.swing.DefaultListCellRenderer;
 import javax.swing.JList;
 
-/** An item renderer for {@link LibraryExplorerRow}s. */
+/** An item renderer for {@link LibraryExplorerRow}s and {@link LibraryIndex.Hit}s. */
 public class LibraryExplorerRowRenderer extends DefaultListCellRenderer {
     @Override
     public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
@@ -28,6 +29,10 @@ public class LibraryExplorerRowRenderer extends DefaultListCellRenderer {
             LibraryExplorerRow row = (LibraryExplorerRow) value;
             title = row.getName();
             icon = row.getIcon();
+        } else if (value instanceof LibraryIndex.Hit) {
+            LibraryIndex.Hit hit = (LibraryIndex.Hit) value;
+            title = hit.toString();
+            icon = FileType.getIconsForFile(hit.getPath().toFile()).getImage(16);
         } else {
             title = value.toString();
             icon = null;
@@ -0,0 +1,456 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.library;
+
+import com.trollworks.gcs.advantage.AdvantageList;
+import com.trollworks.gcs.app.GCS;
+import com.trollworks.gcs.common.HasSourceReference;
+import com.trollworks.gcs.common.ListCollectionChange;
+import com.trollworks.gcs.common.ListCollectionListener;
+import com.trollworks.gcs.common.ListCollectionThread;
+import com.trollworks.gcs.common.ListFile;
+import com.trollworks.gcs.equipment.EquipmentList;
+import com.trollworks.gcs.skill.Skill;
+import com.trollworks.gcs.skill.SkillList;
+import com.trollworks.gcs.spell.Spell;
+import com.trollworks.gcs.spell.SpellList;
+import com.trollworks.gcs.widgets.outline.ListRow;
+import com.trollworks.toolkit.io.Log;
+import com.trollworks.toolkit.ui.widget.outline.RowIterator;
+import com.trollworks.toolkit.utility.PathUtils;
+import com.trollworks.toolkit.utility.text.NumericComparator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A full-text index of the rows in every list file within the library. The index is built in the
+ * background, kept on disk within the library so that it survives between sessions, and refreshed
+ * a file at a time as files are added, removed or modified.
+ */
+public class LibraryIndex extends Thread implements ListCollectionListener {
+    private static final LibraryIndex       INSTANCE;
+    private static final String             INDEX_FILE_NAME  = ".library_index"; //$NON-NLS-1$
+    private static final int                INDEX_MAGIC      = 0x47435349;
+    private static final int                INDEX_VERSION    = 1;
+    private static final long               REFRESH_INTERVAL = 30000;
+    private static final int                MAX_HITS         = 200;
+    private Path                            mRoot;
+    private HashMap<Path, IndexedFile>      mFiles;
+    private volatile TreeMap<String, Hit[]> mTokens;
+    private boolean                         mRefreshRequested;
+
+    static {
+        INSTANCE = new LibraryIndex();
+        INSTANCE.start();
+    }
+
+    /** @return The one and only instance of the library index. */
+    public static final LibraryIndex get() {
+        return INSTANCE;
+    }
+
+    private LibraryIndex() {
+        super("Library Index"); //$NON-NLS-1$
+        setPriority(MIN_PRIORITY);
+        setDaemon(true);
+        mFiles = new HashMap<>();
+        mTokens = new TreeMap<>();
+    }
+
+    /**
+     * Finds the rows that contain every word of the filter, either in full or as the start of a
+     * longer word.
+     *
+     * @param filter The text to search for.
+     * @return The matching rows, which will be empty until the index has been built.
+     */
+    public List<Hit> search(String filter) {
+        List<String> words = tokenize(filter);
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+        TreeMap<String, Hit[]> tokens = mTokens;
+        Set<Hit> matches = null;
+        for (String word : words) {
+            Set<Hit> wordMatches = new HashSet<>();
+            for (Hit[] hits : tokens.subMap(word, word + Character.MAX_VALUE).values()) {
+                for (Hit hit : hits) {
+                    if (matches == null || matches.contains(hit)) {
+                        wordMatches.add(hit);
+                    }
+                }
+            }
+            matches = wordMatches;
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+        List<Hit> result = new ArrayList<>(matches);
+        Collections.sort(result);
+        return result.size() > MAX_HITS ? new ArrayList<>(result.subList(0, MAX_HITS)) : result;
+    }
+
+    /** Requests that the index check the library for changes. */
+    public synchronized void refresh() {
+        mRefreshRequested = true;
+        notifyAll();
+    }
+
+    @Override
+    public void dataFileListChanged(ListCollectionChange change) {
+        refresh();
+    }
+
+    @Override
+    public void run() {
+        mRoot = GCS.getLibraryRootPath();
+        boolean dirty = !load();
+        publish();
+        ListCollectionThread.get().addListener(this);
+        try {
+            while (true) {
+                if (update() || dirty) {
+                    publish();
+                    save();
+                    dirty = false;
+                }
+                synchronized (this) {
+                    if (!mRefreshRequested) {
+                        wait(REFRESH_INTERVAL);
+                    }
+                    mRefreshRequested = false;
+                }
+            }
+        } catch (InterruptedException outerIEx) {
+            // Someone is trying to terminate us... let them.
+        }
+    }
+
+    /** @return Whether anything changed. */
+    private boolean update() {
+        Set<Path> paths = new HashSet<>();
+        collectPaths(ListCollectionThread.get().getLists(), paths);
+        boolean changed = mFiles.keySet().retainAll(paths);
+        for (Path path : paths) {
+            long lastModified;
+            long size;
+            try {
+                lastModified = Files.getLastModifiedTime(path).toMillis();
+                size = Files.size(path);
+            } catch (IOException exception) {
+                continue;
+            }
+            IndexedFile file = mFiles.get(path);
+            if (file == null || file.mLastModified != lastModified || file.mSize != size) {
+                List<Hit> hits;
+                try {
+                    hits = indexRows(path);
+                } catch (Exception exception) {
+                    // Don't try again until the file is modified
+                    Log.error(exception);
+                    hits = new ArrayList<>();
+                }
+                mFiles.put(path, new IndexedFile(path, lastModified, size, hits));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static void collectPaths(List<?> lists, Set<Path> paths) {
+        int count = lists.size();
+        for (int i = 1; i < count; i++) {
+            Object entry = lists.get(i);
+            if (entry instanceof List<?>) {
+                collectPaths((List<?>) entry, paths);
+            } else if (isIndexable((Path) entry)) {
+                paths.add((Path) entry);
+            }
+        }
+    }
+
+    private static boolean isIndexable(Path path) {
+        switch (PathUtils.getExtension(path)) {
+            case AdvantageList.EXTENSION:
+            case EquipmentList.EXTENSION:
+            case SkillList.EXTENSION:
+            case SpellList.EXTENSION:
+            case LibraryFile.EXTENSION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static List<Hit> indexRows(Path path) throws IOException {
+        List<Hit> hits = new ArrayList<>();
+        switch (PathUtils.getExtension(path)) {
+            case AdvantageList.EXTENSION:
+                indexRows(path, loadList(new AdvantageList(), path), hits);
+                break;
+            case EquipmentList.EXTENSION:
+                indexRows(path, loadList(new EquipmentList(), path), hits);
+                break;
+            case SkillList.EXTENSION:
+                indexRows(path, loadList(new SkillList(), path), hits);
+                break;
+            case SpellList.EXTENSION:
+                indexRows(path, loadList(new SpellList(), path), hits);
+                break;
+            case LibraryFile.EXTENSION:
+                LibraryFile library = new LibraryFile(path.toFile());
+                indexRows(path, library.getAdvantageList(), hits);
+                indexRows(path, library.getSkillList(), hits);
+                indexRows(path, library.getSpellList(), hits);
+                indexRows(path, library.getEquipmentList(), hits);
+                break;
+            default:
+                break;
+        }
+        return hits;
+    }
+
+    private static ListFile loadList(ListFile list, Path path) throws IOException {
+        list.load(path.toFile());
+        return list;
+    }
+
+    private static void indexRows(Path path, ListFile list, List<Hit> hits) {
+        String listTag = list.getXMLTagName();
+        int index = 0;
+        for (ListRow row : new RowIterator<ListRow>(list.getModel())) {
+            StringBuilder text = new StringBuilder();
+            if (row instanceof Skill) {
+                append(text, ((Skill) row).getSpecialization());
+            } else if (row instanceof Spell) {
+                append(text, ((Spell) row).getCollege());
+            }
+            append(text, row.getCategoriesAsString());
+            append(text, row.getNotes());
+            if (row instanceof HasSourceReference) {
+                append(text, ((HasSourceReference) row).getReference());
+            }
+            hits.add(new Hit(path, listTag, index++, row.toString(), text.toString()));
+        }
+    }
+
+    private static void append(StringBuilder buffer, String text) {
+        if (text != null && !text.isEmpty()) {
+            buffer.append(text);
+            buffer.append('\n');
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            if (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                if (start == -1) {
+                    start = i;
+                }
+            } else if (start != -1) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /** Rebuilds the token map from the indexed files and makes it available to searches. */
+    private void publish() {
+        HashMap<String, List<Hit>> tokens = new HashMap<>();
+        for (IndexedFile file : mFiles.values()) {
+            for (Hit hit : file.mHits) {
+                Set<String> seen = new HashSet<>(tokenize(hit.mTitle));
+                seen.addAll(tokenize(hit.mText));
+                for (String token : seen) {
+                    List<Hit> hits = tokens.get(token);
+                    if (hits == null) {
+                        hits = new ArrayList<>();
+                        tokens.put(token, hits);
+                    }
+                    hits.add(hit);
+                }
+            }
+        }
+        TreeMap<String, Hit[]> map = new TreeMap<>();
+        for (Map.Entry<String, List<Hit>> entry : tokens.entrySet()) {
+            List<Hit> hits = entry.getValue();
+            map.put(entry.getKey(), hits.toArray(new Hit[hits.size()]));
+        }
+        mTokens = map;
+    }
+
+    /** @return Whether the index on disk was loaded. */
+    private boolean load() {
+        Path indexPath = mRoot.resolve(INDEX_FILE_NAME);
+        if (!Files.isRegularFile(indexPath)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(indexPath))))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION) {
+                return false;
+            }
+            int fileCount = in.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                Path path = mRoot.resolve(in.readUTF());
+                long lastModified = in.readLong();
+                long size = in.readLong();
+                int hitCount = in.readInt();
+                List<Hit> hits = new ArrayList<>(hitCount);
+                for (int j = 0; j < hitCount; j++) {
+                    hits.add(new Hit(path, in.readUTF(), in.readInt(), in.readUTF(), in.readUTF()));
+                }
+                mFiles.put(path, new IndexedFile(path, lastModified, size, hits));
+            }
+            return true;
+        } catch (Exception exception) {
+            // A damaged index is simply rebuilt
+            mFiles.clear();
+            return false;
+        }
+    }
+
+    private void save() {
+        Path indexPath = mRoot.resolve(INDEX_FILE_NAME);
+        Path tmpPath = mRoot.resolve(INDEX_FILE_NAME + ".tmp"); //$NON-NLS-1$
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmpPath))))) {
+                out.writeInt(INDEX_MAGIC);
+                out.writeInt(INDEX_VERSION);
+                out.writeInt(mFiles.size());
+                for (IndexedFile file : mFiles.values()) {
+                    out.writeUTF(mRoot.relativize(file.mPath).toString());
+                    out.writeLong(file.mLastModified);
+                    out.writeLong(file.mSize);
+                    out.writeInt(file.mHits.size());
+                    for (Hit hit : file.mHits) {
+                        out.writeUTF(hit.mListTag);
+                        out.writeInt(hit.mRowIndex);
+                        out.writeUTF(truncate(hit.mTitle));
+                        out.writeUTF(truncate(hit.mText));
+                    }
+                }
+            }
+            Files.move(tmpPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception exception) {
+            Log.error(exception);
+        }
+    }
+
+    /** @return The text, cut short if needed to fit within the limits of modified UTF-8. */
+    private static String truncate(String text) {
+        return text.length() > 16000 ? text.substring(0, 16000) : text;
+    }
+
+    private static class IndexedFile {
+        Path      mPath;
+        long      mLastModified;
+        long      mSize;
+        List<Hit> mHits;
+
+        IndexedFile(Path path, long lastModified, long size, List<Hit> hits) {
+            mPath = path;
+            mLastModified = lastModified;
+            mSize = size;
+            mHits = hits;
+        }
+    }
+
+    /** A row found within the library. */
+    public static class Hit implements Comparable<Hit> {
+        Path   mPath;
+        String mListTag;
+        int    mRowIndex;
+        String mTitle;
+        String mText;
+
+        Hit(Path path, String listTag, int rowIndex, String title, String text) {
+            mPath = path;
+            mListTag = listTag;
+            mRowIndex = rowIndex;
+            mTitle = title;
+            mText = text;
+        }
+
+        /** @return The file the row is in. */
+        public Path getPath() {
+            return mPath;
+        }
+
+        /** @return The title of the row. */
+        public String getTitle() {
+            return mTitle;
+        }
+
+        /**
+         * @param list A list loaded from the file the row is in.
+         * @return The row within the list, or <code>null</code> if the list doesn't hold it.
+         */
+        public ListRow findRow(ListFile list) {
+            if (mListTag.equals(list.getXMLTagName())) {
+                ListRow byTitle = null;
+                int index = 0;
+                for (ListRow row : new RowIterator<ListRow>(list.getModel())) {
+                    boolean sameTitle = mTitle.equals(row.toString());
+                    if (index++ == mRowIndex && sameTitle) {
+                        return row;
+                    }
+                    if (sameTitle && byTitle == null) {
+                        byTitle = row;
+                    }
+                }
+                return byTitle;
+            }
+            return null;
+        }
+
+        @Override
+        public int compareTo(Hit other) {
+            int result = NumericComparator.compareStrings(mTitle, other.mTitle);
+            if (result == 0) {
+                result = mPath.compareTo(other.mPath);
+                if (result == 0) {
+                    result = mListTag.compareTo(other.mListTag);
+                    if (result == 0) {
+                        result = Integer.compare(mRowIndex, other.mRowIndex);
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return mTitle + " (" + PathUtils.getLeafName(mPath.getFileName(), false) + ")"; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+}
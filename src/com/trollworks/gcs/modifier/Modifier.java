@@ -11,6 +11,7 @@
 
 package com.trollworks.gcs.modifier;
 
+import com.trollworks.gcs.advantage.Advantage;
 import com.trollworks.gcs.common.DataFile;
 import com.trollworks.gcs.common.LoadState;
 import com.trollworks.gcs.widgets.outline.ListRow;
@@ -94,6 +95,7 @@ public class Modifier extends ListRow implements Comparable<Modifier> {
     private Affects               mAffects;
     private boolean               mEnabled;
     private boolean               mReadOnly;
+    private Advantage             mOwner;
 
     /**
      * Creates a new {@link Modifier}.
@@ -166,6 +168,7 @@ public class Modifier extends ListRow implements Comparable<Modifier> {
     public boolean setEnabled(boolean enabled) {
         if (mEnabled != enabled) {
             mEnabled = enabled;
+            invalidateOwnerPoints();
             notifySingle(ID_ENABLED);
             return true;
         }
@@ -205,6 +208,22 @@ public class Modifier extends ListRow implements Comparable<Modifier> {
         return mReadOnly ? READ_ONLY : super.getModifierNotes();
     }
 
+    /** @return The {@link Advantage} this {@link Modifier} has been applied to, if any. */
+    public Advantage getOwner() {
+        return mOwner;
+    }
+
+    /** @param owner The {@link Advantage} this {@link Modifier} has been applied to. */
+    public void setOwner(Advantage owner) {
+        mOwner = owner;
+    }
+
+    private void invalidateOwnerPoints() {
+        if (mOwner != null) {
+            mOwner.invalidateAdjustedPointsOfTree();
+        }
+    }
+
     /** @return An exact clone of this modifier. */
     public Modifier cloneModifier() {
         return new Modifier(mDataFile, this);
@@ -227,6 +246,7 @@ public class Modifier extends ListRow implements Comparable<Modifier> {
     public boolean setCostType(CostType costType) {
         if (costType != mCostType) {
             mCostType = costType;
+            invalidateOwnerPoints();
             notifySingle(ID_COST_MODIFIER);
             return true;
         }
@@ -245,6 +265,7 @@ public class Modifier extends ListRow implements Comparable<Modifier> {
     public boolean setCost(int cost) {
         if (mCost != cost) {
             mCost = cost;
+            invalidateOwnerPoints();
             notifySingle(ID_COST_MODIFIER);
             return true;
         }
@@ -263,6 +284,7 @@ public class Modifier extends ListRow implements Comparable<Modifier> {
     public boolean setCostMultiplier(double multiplier) {
         if (mCostMultiplier != multiplier) {
             mCostMultiplier = multiplier;
+            invalidateOwnerPoints();
             notifySingle(ID_COST_MODIFIER);
             return true;
         }
@@ -284,6 +306,7 @@ public class Modifier extends ListRow implements Comparable<Modifier> {
         }
         if (mLevels != levels) {
             mLevels = levels;
+            invalidateOwnerPoints();
             notifySingle(ID_COST_MODIFIER);
             return true;
         }
@@ -480,6 +503,7 @@ public class Modifier extends ListRow implements Comparable<Modifier> {
     public boolean setAffects(Affects affects) {
         if (affects != mAffects) {
             mAffects = affects;
+            invalidateOwnerPoints();
             notifySingle(ID_AFFECTS);
             return true;
         }
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.page;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes opaque images as 24-bit RGB PNG files, with a configurable compression level and row
+ * filter. An encoder holds no per-image state, so one may be shared by several threads.
+ */
+public class PNGEncoder {
+    private static final byte[] SIGNATURE       = { (byte) 137, 80, 78, 71, 13, 10, 26, 10 };
+    private static final int    BYTES_PER_PIXEL = 3;
+    private static final int    IDAT_SIZE       = 65536;
+    private int                 mLevel;
+    private PNGFilter           mFilter;
+
+    /**
+     * Creates a new {@link PNGEncoder}.
+     *
+     * @param level The compression level, from {@link Deflater#NO_COMPRESSION} to
+     *            {@link Deflater#BEST_COMPRESSION}.
+     * @param filter The row filter to apply.
+     */
+    public PNGEncoder(int level, PNGFilter filter) {
+        mLevel = Math.max(Math.min(level, Deflater.BEST_COMPRESSION), Deflater.NO_COMPRESSION);
+        mFilter = filter;
+    }
+
+    /**
+     * @param file The file to write to.
+     * @param image The image to write. Any alpha is discarded.
+     * @param dpi The resolution to record in the file.
+     * @throws IOException if the file could not be written.
+     */
+    public void write(File file, BufferedImage image, int dpi) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.write(SIGNATURE);
+            Chunk header = new Chunk("IHDR", out); //$NON-NLS-1$
+            header.writeInt(width);
+            header.writeInt(height);
+            header.write(8); // Bit depth
+            header.write(2); // Color type: RGB
+            header.write(0); // Compression method
+            header.write(0); // Filter method
+            header.write(0); // Interlace method
+            header.close();
+            Chunk physical = new Chunk("pHYs", out); //$NON-NLS-1$
+            int pixelsPerMeter = (int) Math.round(dpi / 0.0254);
+            physical.writeInt(pixelsPerMeter);
+            physical.writeInt(pixelsPerMeter);
+            physical.write(1); // Unit: meters
+            physical.close();
+            writeImageData(image, width, height, out);
+            new Chunk("IEND", out).close(); //$NON-NLS-1$
+        }
+    }
+
+    private void writeImageData(BufferedImage image, int width, int height, DataOutputStream out) throws IOException {
+        boolean packed = image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_INT_ARGB;
+        int rowBytes = width * BYTES_PER_PIXEL;
+        int[] pixels = new int[width];
+        byte[] previous = new byte[rowBytes];
+        byte[] current = new byte[rowBytes];
+        byte[][] filtered = new byte[PNGFilter.ADAPTIVE.ordinal()][rowBytes];
+        Deflater deflater = new Deflater(mLevel);
+        try (DeflaterOutputStream zip = new DeflaterOutputStream(new IDATStream(out), deflater, IDAT_SIZE)) {
+            for (int y = 0; y < height; y++) {
+                if (packed) {
+                    image.getRaster().getDataElements(0, y, width, 1, pixels);
+                } else {
+                    image.getRGB(0, y, width, 1, pixels, 0, width);
+                }
+                for (int x = 0, i = 0; x < width; x++) {
+                    int pixel = pixels[x];
+                    current[i++] = (byte) (pixel >> 16);
+                    current[i++] = (byte) (pixel >> 8);
+                    current[i++] = (byte) pixel;
+                }
+                int type = mFilter == PNGFilter.ADAPTIVE ? chooseFilter(current, previous, filtered) : applyFilter(mFilter.ordinal(), current, previous, filtered[mFilter.ordinal()]);
+                zip.write(type);
+                zip.write(filtered[type]);
+                byte[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** @return The filter type that produced the smallest sum of absolute differences. */
+    private static int chooseFilter(byte[] current, byte[] previous, byte[][] filtered) {
+        int best = 0;
+        long bestSum = Long.MAX_VALUE;
+        for (int type = 0; type < filtered.length; type++) {
+            applyFilter(type, current, previous, filtered[type]);
+            long sum = 0;
+            for (byte one : filtered[type]) {
+                sum += Math.abs(one);
+            }
+            if (sum < bestSum) {
+                bestSum = sum;
+                best = type;
+            }
+        }
+        return best;
+    }
+
+    private static int applyFilter(int type, byte[] current, byte[] previous, byte[] result) {
+        int length = current.length;
+        for (int i = 0; i < length; i++) {
+            int x = current[i] & 0xFF;
+            int a = i >= BYTES_PER_PIXEL ? current[i - BYTES_PER_PIXEL] & 0xFF : 0;
+            int b = previous[i] & 0xFF;
+            switch (type) {
+                case 1:
+                    x -= a;
+                    break;
+                case 2:
+                    x -= b;
+                    break;
+                case 3:
+                    x -= (a + b) >>> 1;
+                    break;
+                case 4:
+                    x -= paeth(a, b, i >= BYTES_PER_PIXEL ? previous[i - BYTES_PER_PIXEL] & 0xFF : 0);
+                    break;
+                default:
+                    break;
+            }
+            result[i] = (byte) x;
+        }
+        return type;
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    /** Accumulates a chunk's data, then writes it with its length and CRC when closed. */
+    private static class Chunk extends DataOutputStream {
+        private String                mType;
+        private OutputStream          mOut;
+        private ByteArrayOutputStream mData;
+
+        Chunk(String type, OutputStream out) {
+            this(type, out, new ByteArrayOutputStream());
+        }
+
+        private Chunk(String type, OutputStream out, ByteArrayOutputStream data) {
+            super(data);
+            mType = type;
+            mOut = out;
+            mData = data;
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeChunk(mOut, mType, mData.toByteArray(), mData.size());
+        }
+    }
+
+    /** Splits the compressed stream into IDAT chunks. */
+    private static class IDATStream extends OutputStream {
+        private OutputStream mOut;
+        private byte[]       mBuffer = new byte[IDAT_SIZE];
+        private int          mCount;
+
+        IDATStream(OutputStream out) {
+            mOut = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (mCount == mBuffer.length) {
+                flushChunk();
+            }
+            mBuffer[mCount++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] data, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (mCount == mBuffer.length) {
+                    flushChunk();
+                }
+                int amount = Math.min(length, mBuffer.length - mCount);
+                System.arraycopy(data, offset, mBuffer, mCount, amount);
+                mCount += amount;
+                offset += amount;
+                length -= amount;
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            if (mCount > 0) {
+                writeChunk(mOut, "IDAT", mBuffer, mCount); //$NON-NLS-1$
+                mCount = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Leave the underlying stream open for the trailing chunks.
+            flushChunk();
+        }
+    }
+
+    private static void writeChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        writeInt(out, length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        writeInt(out, (int) crc.getValue());
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
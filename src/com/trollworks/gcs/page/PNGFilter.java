@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.page;
+
+import com.trollworks.toolkit.annotation.Localize;
+import com.trollworks.toolkit.utility.Localization;
+
+/**
+ * The row filters a {@link PNGEncoder} may apply before compressing. The ordinals of all but
+ * {@link #ADAPTIVE} match the filter type codes in the PNG specification.
+ */
+public enum PNGFilter {
+    NONE {
+        @Override
+        public String toString() {
+            return NONE_TITLE;
+        }
+    },
+    SUB {
+        @Override
+        public String toString() {
+            return SUB_TITLE;
+        }
+    },
+    UP {
+        @Override
+        public String toString() {
+            return UP_TITLE;
+        }
+    },
+    AVERAGE {
+        @Override
+        public String toString() {
+            return AVERAGE_TITLE;
+        }
+    },
+    PAETH {
+        @Override
+        public String toString() {
+            return PAETH_TITLE;
+        }
+    },
+    /** Picks whichever of the other filters looks most compressible, row by row. */
+    ADAPTIVE {
+        @Override
+        public String toString() {
+            return ADAPTIVE_TITLE;
+        }
+    };
+
+    @Localize("None")
+    protected static String NONE_TITLE;
+    @Localize("Sub")
+    protected static String SUB_TITLE;
+    @Localize("Up")
+    protected static String UP_TITLE;
+    @Localize("Average")
+    protected static String AVERAGE_TITLE;
+    @Localize("Paeth")
+    protected static String PAETH_TITLE;
+    @Localize("Adaptive")
+    protected static String ADAPTIVE_TITLE;
+
+    static {
+        Localization.initialize();
+    }
+}
@@ -38,6 +38,7 @@ import java.io.File;
 import javax.swing.Icon;
 import javax.swing.JLabel;
 import javax.swing.JScrollPane;
+import javax.swing.JTextField;
 import javax.swing.KeyStroke;
 import javax.swing.SwingConstants;
 import javax.swing.text.DefaultFormatterFactory;
@@ -57,6 +58,8 @@ public class PdfDockable extends Dockable implements FileProxy, CloseHandler {
     private static String SCALE_DOC_DOWN;
     @Localize("Actual Size")
     private static String ACTUAL_SIZE;
+    @Localize("Find in Document")
+    private static String FIND;
 
     static {
         Localization.initialize();
@@ -74,6 +77,7 @@ public class PdfDockable extends Dockable implements FileProxy, CloseHandler {
     private JLabel      mPageStatus;
     private IconButton  mPreviousPageButton;
     private IconButton  mNextPageButton;
+    private JTextField  mFindField;
 
     public PdfDockable(PdfRef pdfRef, int page, String highlight) {
         super(new BorderLayout());
@@ -114,6 +118,10 @@ public class PdfDockable extends Dockable implements FileProxy, CloseHandler {
         mToolbar.add(mPreviousPageButton);
         mNextPageButton = new IconButton(StdImage.get("PageDown"), formatWithKey(NEXT_PAGE, KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0)), () -> mPanel.nextPage()); //$NON-NLS-1$
         mToolbar.add(mNextPageButton);
+        mFindField = new JTextField(12);
+        mFindField.setToolTipText(FIND);
+        mFindField.addActionListener(event -> mPanel.find(mFindField.getText()));
+        mToolbar.add(mFindField);
 
         add(mToolbar, BorderLayout.NORTH);
         mPanel = new PdfPanel(this, mPdf, pdfRef, page, highlight);
@@ -174,6 +182,7 @@ public class PdfDockable extends Dockable implements FileProxy, CloseHandler {
         try {
             getDockContainer().close(this);
         } finally {
+            mPanel.dispose();
             if (mPdf != null) {
                 try {
                     mPdf.close();
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.pdfview;
+
+import java.awt.EventQueue;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDPageLabels;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+/**
+ * Renders the pages of a PDF on a background thread and keeps the most recently used pages
+ * around, up to a limit on the memory they occupy. Pages that are needed for display are rendered
+ * ahead of pages being fetched in anticipation of their use. The same thread extracts and searches
+ * the text of the document, since a {@link PDDocument} may only be used by one thread at a time.
+ * For the same reason, the page count, page labels and page sizes the display needs are read once,
+ * before the thread starts.
+ */
+class PdfPageCache {
+    private static final long                 MAX_BYTES = 96L * 1024 * 1024;
+    private int                               mPageCount;
+    private Map<String, Integer>              mPageIndicesByLabel;
+    private float[]                           mPageWidths;
+    private float[]                           mPageHeights;
+    private PDFRenderer                       mRenderer;
+    private PdfTextIndex                      mTextIndex;
+    private ExecutorService                   mExecutor;
+    private LinkedHashMap<Key, BufferedImage> mImages;
+    private ArrayDeque<Key>                   mQueue;
+    private HashMap<Key, Runnable>            mPending;
+    private long                              mBytes;
+
+    PdfPageCache(PDDocument pdf) {
+        mPageCount = pdf.getNumberOfPages();
+        try {
+            PDPageLabels pageLabels = pdf.getDocumentCatalog().getPageLabels();
+            if (pageLabels != null) {
+                mPageIndicesByLabel = pageLabels.getPageIndicesByLabels();
+            }
+        } catch (Exception exception) {
+            // Had no catalog... page numbers will be used as-is
+        }
+        if (mPageIndicesByLabel == null) {
+            mPageIndicesByLabel = Collections.emptyMap();
+        }
+        mPageWidths = new float[mPageCount];
+        mPageHeights = new float[mPageCount];
+        for (int i = 0; i < mPageCount; i++) {
+            PDRectangle cropBox = pdf.getPage(i).getCropBox();
+            mPageWidths[i] = cropBox.getWidth();
+            mPageHeights[i] = cropBox.getHeight();
+        }
+        mRenderer = new PDFRenderer(pdf);
+        mTextIndex = new PdfTextIndex(pdf);
+        mExecutor = Executors.newSingleThreadExecutor((runnable) -> {
+            Thread thread = new Thread(runnable, "PDF Renderer"); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+        mImages = new LinkedHashMap<>(16, 0.75f, true);
+        mQueue = new ArrayDeque<>();
+        mPending = new HashMap<>();
+    }
+
+    /** @return The number of pages in the document. */
+    int getPageCount() {
+        return mPageCount;
+    }
+
+    /**
+     * @param label A page label, as printed on the page.
+     * @return The index of the page with the label, or <code>null</code> if there is none.
+     */
+    Integer getPageIndexForLabel(String label) {
+        return mPageIndicesByLabel.get(label);
+    }
+
+    /**
+     * @param pageIndex The page to measure.
+     * @return The width of the page's crop box, in points.
+     */
+    float getPageWidth(int pageIndex) {
+        return mPageWidths[pageIndex];
+    }
+
+    /**
+     * @param pageIndex The page to measure.
+     * @return The height of the page's crop box, in points.
+     */
+    float getPageHeight(int pageIndex) {
+        return mPageHeights[pageIndex];
+    }
+
+    /**
+     * @param key The page to retrieve.
+     * @return The rendered page, or <code>null</code> if it hasn't been rendered yet.
+     */
+    synchronized BufferedImage get(Key key) {
+        return mImages.get(key);
+    }
+
+    /**
+     * @param pageIndex The page to retrieve.
+     * @return The most recently used rendering of the page at any scale or highlight, or
+     *         <code>null</code> if there is none.
+     */
+    synchronized BufferedImage getAny(int pageIndex) {
+        BufferedImage img = null;
+        for (Map.Entry<Key, BufferedImage> entry : mImages.entrySet()) {
+            if (entry.getKey().mPageIndex == pageIndex) {
+                img = entry.getValue();
+            }
+        }
+        return img;
+    }
+
+    /**
+     * Renders a page, if it isn't already in the cache or on its way.
+     *
+     * @param key The page to render.
+     * @param urgent Whether the page is needed for display now, rather than being fetched in
+     *            anticipation of its use.
+     * @param onLoaded Called on the event dispatch thread once the page has been rendered.
+     */
+    synchronized void request(Key key, boolean urgent, Runnable onLoaded) {
+        if (mExecutor == null || key.mPageIndex < 0 || key.mPageIndex >= mPageCount || mImages.containsKey(key)) {
+            return;
+        }
+        if (!mPending.containsKey(key)) {
+            mPending.put(key, onLoaded);
+            if (urgent) {
+                mQueue.addFirst(key);
+            } else {
+                mQueue.addLast(key);
+            }
+            mExecutor.execute(this::renderNext);
+        } else {
+            if (onLoaded != null) {
+                mPending.put(key, onLoaded);
+            }
+            if (urgent && mQueue.remove(key)) {
+                // Move it to the front, since it is now needed for display
+                mQueue.addFirst(key);
+            }
+        }
+    }
+
+    private void renderNext() {
+        Key key;
+        synchronized (this) {
+            key = mQueue.pollFirst();
+        }
+        if (key != null) {
+            BufferedImage img = PdfRenderer.create(mRenderer, mTextIndex, key.mPageIndex, key.mScale, key.mHighlight);
+            Runnable onLoaded;
+            synchronized (this) {
+                onLoaded = mPending.remove(key);
+                if (img == null || mExecutor == null) {
+                    return;
+                }
+                mImages.put(key, img);
+                mBytes += getByteCount(img);
+                Iterator<BufferedImage> iterator = mImages.values().iterator();
+                while (mBytes > MAX_BYTES && mImages.size() > 1) {
+                    mBytes -= getByteCount(iterator.next());
+                    iterator.remove();
+                }
+            }
+            if (onLoaded != null) {
+                EventQueue.invokeLater(onLoaded);
+            }
+        }
+    }
+
+    /**
+     * Searches the document for a page containing some text.
+     *
+     * @param text The text to find. Case is ignored.
+     * @param startIndex The page to start searching from.
+     * @param onFound Called on the event dispatch thread with the index of the first page at or
+     *            after the start page, wrapping around to the beginning, that contains the text,
+     *            or -1 if no page does.
+     */
+    synchronized void find(String text, int startIndex, IntConsumer onFound) {
+        if (mExecutor != null) {
+            mExecutor.execute(() -> {
+                int pageIndex = mTextIndex.findPage(text, startIndex);
+                EventQueue.invokeLater(() -> onFound.accept(pageIndex));
+            });
+        }
+    }
+
+    private static long getByteCount(BufferedImage img) {
+        return (long) img.getWidth() * img.getHeight() * 4;
+    }
+
+    /** Stops rendering and waits for any page in progress, so that the PDF may be closed. */
+    void dispose() {
+        ExecutorService executor;
+        synchronized (this) {
+            executor = mExecutor;
+            mExecutor = null;
+            mQueue.clear();
+            mPending.clear();
+            mImages.clear();
+            mBytes = 0;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Identifies a rendering of a page. */
+    static class Key {
+        int    mPageIndex;
+        float  mScale;
+        String mHighlight;
+
+        Key(int pageIndex, float scale, String highlight) {
+            mPageIndex = pageIndex;
+            mScale = scale;
+            mHighlight = highlight;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj instanceof Key) {
+                Key other = (Key) obj;
+                return mPageIndex == other.mPageIndex && mScale == other.mScale && (mHighlight == null ? other.mHighlight == null : mHighlight.equals(other.mHighlight));
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 31 * mPageIndex + Float.floatToIntBits(mScale);
+            return mHighlight != null ? 31 * hash + mHighlight.hashCode() : hash;
+        }
+    }
+}
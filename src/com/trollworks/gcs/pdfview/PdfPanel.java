@@ -30,27 +30,24 @@ import javax.swing.Scrollable;
 import javax.swing.SwingConstants;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDPage;
-import org.apache.pdfbox.pdmodel.common.PDPageLabels;
-import org.apache.pdfbox.pdmodel.common.PDRectangle;
 
 /** A panel that will display a single page of a PDF. */
 public class PdfPanel extends JPanel implements KeyListener, MouseListener, Scrollable {
     public static final float[] SCALES      = { 0.33f, 0.5f, 0.75f, 1f, 1.25f, 1.5f, 1.75f, 2f };
     private PdfDockable         mOwner;
-    private PDDocument          mPdf;
     private int                 mPageIndex;
     private int                 mScaleIndex = Arrays.binarySearch(SCALES, 1f);
     private String              mHighlight;
-    private BufferedImage       mImg;
+    private PdfPageCache        mCache;
     private int                 mWidth;
     private int                 mHeight;
-    private boolean             mNeedLoad;
     private boolean             mIgnorePageChange;
 
     public PdfPanel(PdfDockable owner, PDDocument pdf, PdfRef pdfRef, int page, String highlight) {
         mOwner = owner;
-        mPdf = pdf;
+        if (pdf != null) {
+            mCache = new PdfPageCache(pdf);
+        }
         setFocusable(true);
         addMouseListener(this);
         addKeyListener(this);
@@ -58,19 +55,12 @@ public class PdfPanel extends JPanel implements KeyListener, MouseListener, Scro
     }
 
     public void goToPage(PdfRef pdfRef, int page, String highlight) {
-        if (!mIgnorePageChange && mPdf != null) {
+        if (!mIgnorePageChange && mCache != null) {
             int lastPageIndex = mPageIndex;
             mPageIndex = page;
-            try {
-                PDPageLabels pageLabels = mPdf.getDocumentCatalog().getPageLabels();
-                if (pageLabels != null) {
-                    Integer result = pageLabels.getPageIndicesByLabels().get(Integer.toString(page));
-                    if (result != null) {
-                        mPageIndex = result.intValue();
-                    }
-                }
-            } catch (Exception exception) {
-                // Had no catalog... we will just use the original page number
+            Integer result = mCache.getPageIndexForLabel(Integer.toString(page));
+            if (result != null) {
+                mPageIndex = result.intValue();
             }
             mPageIndex += pdfRef.getPageToIndexOffset();
             if (mPageIndex != lastPageIndex || isHighlightNew(highlight)) {
@@ -85,7 +75,7 @@ public class PdfPanel extends JPanel implements KeyListener, MouseListener, Scro
     }
 
     public int goToPageIndex(int pageIndex, String highlight) {
-        if (!mIgnorePageChange && mPdf != null && (mPageIndex != pageIndex || isHighlightNew(highlight)) && pageIndex >= 0 && pageIndex < mPdf.getNumberOfPages()) {
+        if (!mIgnorePageChange && mCache != null && (mPageIndex != pageIndex || isHighlightNew(highlight)) && pageIndex >= 0 && pageIndex < mCache.getPageCount()) {
             mPageIndex = pageIndex;
             mHighlight = highlight;
             markPageForLoading();
@@ -94,7 +84,7 @@ public class PdfPanel extends JPanel implements KeyListener, MouseListener, Scro
     }
 
     public void previousPage() {
-        if (!mIgnorePageChange && mPdf != null && mPageIndex > 0) {
+        if (!mIgnorePageChange && mCache != null && mPageIndex > 0) {
             mPageIndex--;
             mHighlight = null;
             markPageForLoading();
@@ -102,7 +92,7 @@ public class PdfPanel extends JPanel implements KeyListener, MouseListener, Scro
     }
 
     public void nextPage() {
-        if (!mIgnorePageChange && mPdf != null && mPageIndex < mPdf.getNumberOfPages()) {
+        if (!mIgnorePageChange && mCache != null && mPageIndex < mCache.getPageCount()) {
             mPageIndex++;
             mHighlight = null;
             markPageForLoading();
@@ -110,21 +100,21 @@ public class PdfPanel extends JPanel implements KeyListener, MouseListener, Scro
     }
 
     public void zoomIn() {
-        if (mPdf != null && mScaleIndex < SCALES.length - 1) {
+        if (mCache != null && mScaleIndex < SCALES.length - 1) {
             mScaleIndex++;
             markPageForLoading();
         }
     }
 
     public void zoomOut() {
-        if (mPdf != null && mScaleIndex > 0) {
+        if (mCache != null && mScaleIndex > 0) {
             mScaleIndex--;
             markPageForLoading();
         }
     }
 
     public void actualSize() {
-        if (mPdf != null) {
+        if (mCache != null) {
             int actualSizeIndex = Arrays.binarySearch(SCALES, 1f);
             if (actualSizeIndex != mScaleIndex) {
                 mScaleIndex = actualSizeIndex;
@@ -134,18 +124,14 @@ public class PdfPanel extends JPanel implements KeyListener, MouseListener, Scro
     }
 
     private void markPageForLoading() {
-        int numberOfPages = mPdf.getNumberOfPages();
+        int numberOfPages = mCache.getPageCount();
         if (mPageIndex >= 0 && mPageIndex == numberOfPages) {
             mPageIndex = numberOfPages - 1;
         }
         if (mPageIndex >= 0 && mPageIndex < numberOfPages) {
-            PDPage page = mPdf.getPage(mPageIndex);
-            PDRectangle cropBox = page.getCropBox();
             float scale = SCALES[mScaleIndex] * Toolkit.getDefaultToolkit().getScreenResolution();
-            mWidth = (int) Math.ceil(cropBox.getWidth() / 72 * scale);
-            mHeight = (int) Math.ceil(cropBox.getHeight() / 72 * scale);
-            mImg = null;
-            mNeedLoad = true;
+            mWidth = (int) Math.ceil(mCache.getPageWidth(mPageIndex) / 72 * scale);
+            mHeight = (int) Math.ceil(mCache.getPageHeight(mPageIndex) / 72 * scale);
             Dimension size = new Dimension(mWidth, mHeight);
             UIUtilities.setOnlySize(this, size);
             setSize(size);
@@ -156,15 +142,50 @@ public class PdfPanel extends JPanel implements KeyListener, MouseListener, Scro
         }
     }
 
+    /**
+     * Shows the next page that contains some text, with the text highlighted. Searching again for
+     * the same text moves on to the page after.
+     *
+     * @param text The text to find. Case is ignored.
+     */
+    public void find(String text) {
+        if (mCache != null && text != null && !text.isEmpty()) {
+            int startIndex = text.equals(mHighlight) ? mPageIndex + 1 : mPageIndex;
+            mCache.find(text, startIndex, (pageIndex) -> {
+                if (pageIndex != -1) {
+                    goToPageIndex(pageIndex, text);
+                } else {
+                    Toolkit.getDefaultToolkit().beep();
+                }
+            });
+        }
+    }
+
+    /** Stops any rendering in progress and releases the rendered pages. */
+    public void dispose() {
+        if (mCache != null) {
+            mCache.dispose();
+            mCache = null;
+        }
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        if (mNeedLoad && mPdf != null) {
-            mImg = PdfRenderer.create(mPdf, mPageIndex, SCALES[mScaleIndex] * (GraphicsUtilities.isRetinaDisplay(g) ? 2 : 1), mHighlight);
-            mNeedLoad = false;
-        }
-        if (mImg != null) {
-            g.drawImage(mImg, 0, 0, mWidth, mHeight, this);
+        if (mCache != null) {
+            float scale = SCALES[mScaleIndex] * (GraphicsUtilities.isRetinaDisplay(g) ? 2 : 1);
+            PdfPageCache.Key key = new PdfPageCache.Key(mPageIndex, scale, mHighlight);
+            BufferedImage img = mCache.get(key);
+            if (img == null) {
+                mCache.request(key, true, this::repaint);
+                // Until the page is ready, show it at whatever scale it was last rendered at
+                img = mCache.getAny(mPageIndex);
+            }
+            mCache.request(new PdfPageCache.Key(mPageIndex + 1, scale, null), false, null);
+            mCache.request(new PdfPageCache.Key(mPageIndex - 1, scale, null), false, null);
+            if (img != null) {
+                g.drawImage(img, 0, 0, mWidth, mHeight, this);
+            }
         }
     }
 
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.pdfview;
+
+import com.trollworks.toolkit.io.DummyWriter;
+import com.trollworks.toolkit.io.Log;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.fontbox.util.BoundingBox;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType3Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+/**
+ * The text of each page of a PDF, along with the box each character occupies on its page. Pages
+ * are extracted the first time they are needed. The text is kept for the life of the index, while
+ * the boxes may be discarded under memory pressure and extracted again later. Not thread-safe; it
+ * should only be used from the thread that renders the document.
+ */
+class PdfTextIndex {
+    private static final char        RUN_SEPARATOR = '\n';
+    private PDDocument               mPdf;
+    private String[]                 mText;
+    private SoftReference<float[]>[] mBoxes;
+
+    @SuppressWarnings("unchecked")
+    PdfTextIndex(PDDocument pdf) {
+        mPdf = pdf;
+        int count = pdf.getNumberOfPages();
+        mText = new String[count];
+        mBoxes = new SoftReference[count];
+    }
+
+    /**
+     * @param pageIndex The page to retrieve.
+     * @return The lower-cased text of the page. Separately extracted runs of text are separated by
+     *         a newline, so a search for text without a newline never spans two runs.
+     */
+    String getText(int pageIndex) {
+        if (mText[pageIndex] == null) {
+            extract(pageIndex);
+        }
+        return mText[pageIndex];
+    }
+
+    /**
+     * @param pageIndex The page to search.
+     * @param text The text to find. Case is ignored.
+     * @return The outlines of every occurrence of the text on the page, in unscaled page
+     *         coordinates, or <code>null</code> if the text isn't on the page.
+     */
+    Shape findOccurrences(int pageIndex, String text) {
+        text = text.toLowerCase();
+        String pageText = getText(pageIndex);
+        int index = pageText.indexOf(text);
+        if (index == -1 || text.isEmpty()) {
+            return null;
+        }
+        float[] boxes = mBoxes[pageIndex].get();
+        if (boxes == null) {
+            extract(pageIndex);
+            pageText = mText[pageIndex];
+            boxes = mBoxes[pageIndex].get();
+        }
+        Path2D.Float path = new Path2D.Float();
+        while (index != -1) {
+            int last = index + text.length() - 1;
+            for (int i = index; i <= last; i++) {
+                int offset = i * 8;
+                path.moveTo(boxes[offset], boxes[offset + 1]);
+                path.lineTo(boxes[offset + 2], boxes[offset + 3]);
+                path.lineTo(boxes[offset + 4], boxes[offset + 5]);
+                path.lineTo(boxes[offset + 6], boxes[offset + 7]);
+                path.closePath();
+            }
+            index = pageText.indexOf(text, last + 1);
+        }
+        return path;
+    }
+
+    /**
+     * @param text The text to find. Case is ignored.
+     * @param startIndex The page to start searching from.
+     * @return The index of the first page at or after the start page, wrapping around to the
+     *         beginning, that contains the text, or -1 if no page does.
+     */
+    int findPage(String text, int startIndex) {
+        text = text.toLowerCase();
+        int count = mText.length;
+        for (int i = 0; i < count; i++) {
+            int pageIndex = (startIndex + i) % count;
+            if (getText(pageIndex).contains(text)) {
+                return pageIndex;
+            }
+        }
+        return -1;
+    }
+
+    private void extract(int pageIndex) {
+        try {
+            Extractor extractor = new Extractor();
+            extractor.setSortByPosition(true);
+            extractor.setStartPage(pageIndex + 1);
+            extractor.setEndPage(pageIndex + 1);
+            try (DummyWriter writer = new DummyWriter()) {
+                extractor.writeText(mPdf, writer);
+            }
+            mText[pageIndex] = extractor.mText.toString();
+            mBoxes[pageIndex] = new SoftReference<>(Arrays.copyOf(extractor.mBoxes, extractor.mText.length() * 8));
+        } catch (Exception exception) {
+            Log.error(exception);
+            mText[pageIndex] = ""; //$NON-NLS-1$
+            mBoxes[pageIndex] = new SoftReference<>(new float[0]);
+        }
+    }
+
+    private static class Extractor extends PDFTextStripper {
+        StringBuilder mText  = new StringBuilder();
+        float[]       mBoxes = new float[4096];
+
+        Extractor() throws IOException {
+            super();
+        }
+
+        @Override
+        protected void writeString(String text, List<TextPosition> textPositions) throws IOException {
+            if (mText.length() > 0) {
+                addChar(RUN_SEPARATOR, null);
+            }
+            text = text.toLowerCase();
+            int size = textPositions.size();
+            if (size == 0) {
+                return;
+            }
+            PDPage currentPage = getCurrentPage();
+            PDRectangle pageBoundingBox = currentPage.getBBox();
+            AffineTransform flip = new AffineTransform();
+            flip.translate(0, pageBoundingBox.getHeight());
+            flip.scale(1, -1);
+            int rotation = currentPage.getRotation();
+            if (rotation != 0) {
+                PDRectangle mediaBox = currentPage.getMediaBox();
+                float mediaHeight = mediaBox.getHeight();
+                float mediaWidth = mediaBox.getWidth();
+                AffineTransform rotate = new AffineTransform();
+                switch (rotation) {
+                    case 90:
+                        rotate.translate(mediaHeight, 0);
+                        break;
+                    case 270:
+                        rotate.translate(0, mediaWidth);
+                        break;
+                    case 180:
+                        rotate.translate(mediaWidth, mediaHeight);
+                        break;
+                    default:
+                        break;
+                }
+                rotate.rotate(Math.toRadians(rotation));
+                rotate.concatenate(flip);
+                flip = rotate;
+            }
+            int length = text.length();
+            for (int i = 0; i < length; i++) {
+                TextPosition pos = textPositions.get(Math.min(i, size - 1));
+                PDFont font = pos.getFont();
+                BoundingBox bbox = font.getBoundingBox();
+                Rectangle2D.Float rect = new Rectangle2D.Float(0, bbox.getLowerLeftY(), font.getWidth(pos.getCharacterCodes()[0]), bbox.getHeight());
+                AffineTransform at = pos.getTextMatrix().createAffineTransform();
+                if (font instanceof PDType3Font) {
+                    at.concatenate(font.getFontMatrix().createAffineTransform());
+                } else {
+                    at.scale(1 / 1000f, 1 / 1000f);
+                }
+                at.preConcatenate(flip);
+                addChar(text.charAt(i), at.createTransformedShape(rect));
+            }
+        }
+
+        private void addChar(char ch, Shape shape) {
+            int offset = mText.length() * 8;
+            if (offset + 8 > mBoxes.length) {
+                mBoxes = Arrays.copyOf(mBoxes, mBoxes.length * 2);
+            }
+            mText.append(ch);
+            if (shape != null) {
+                float[] coords = new float[6];
+                PathIterator iterator = shape.getPathIterator(null);
+                for (int corner = 0; corner < 4 && !iterator.isDone(); corner++) {
+                    iterator.currentSegment(coords);
+                    mBoxes[offset++] = coords[0];
+                    mBoxes[offset++] = coords[1];
+                    iterator.next();
+                }
+            }
+        }
+    }
+}
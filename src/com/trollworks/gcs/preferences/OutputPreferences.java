@@ -13,6 +13,7 @@ package com.trollworks.gcs.preferences;
 
 import com.trollworks.gcs.app.GCS;
 import com.trollworks.gcs.app.GCSImages;
+import com.trollworks.gcs.page.PNGFilter;
 import com.trollworks.toolkit.annotation.Localize;
 import com.trollworks.toolkit.io.Log;
 import com.trollworks.toolkit.io.xml.XMLNodeType;
@@ -32,6 +33,7 @@ import com.trollworks.toolkit.ui.widget.WindowUtils;
 import com.trollworks.toolkit.utility.Localization;
 import com.trollworks.toolkit.utility.PathUtils;
 import com.trollworks.toolkit.utility.Preferences;
+import com.trollworks.toolkit.utility.text.Enums;
 import com.trollworks.toolkit.utility.text.Text;
 import com.trollworks.toolkit.utility.units.LengthUnits;
 
@@ -50,6 +52,7 @@ import java.io.StringReader;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
+import java.util.zip.Deflater;
 
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
@@ -78,6 +81,14 @@ public class OutputPreferences extends PreferencePanel implements ActionListener
     @Localize(locale = "de", value = "{0} DPI")
     @Localize(locale = "es", value = "{0} ppp")
     private static String DPI_FORMAT;
+    @Localize("PNG compression level")
+    private static String PNG_COMPRESSION;
+    @Localize("The compression level to use when saving sheets as PNG files. Lower levels are faster, but produce larger files.")
+    private static String PNG_COMPRESSION_TOOLTIP;
+    @Localize("with filter")
+    private static String PNG_FILTER;
+    @Localize("The row filter to apply before compressing PNG files. Adaptive usually produces the smallest files.")
+    private static String PNG_FILTER_TOOLTIP;
     @Localize("Text Export Template")
     private static String TEXT_TEMPLATE_OVERRIDE;
     @Localize("Choose\u2026")
@@ -126,23 +137,29 @@ public class OutputPreferences extends PreferencePanel implements ActionListener
         Localization.initialize();
     }
 
-    private static final String MODULE                    = "Output";                                          												//$NON-NLS-1$
-    private static final int    DEFAULT_PNG_RESOLUTION    = 200;
-    private static final String PNG_RESOLUTION_KEY        = "PNGResolution";                                   										//$NON-NLS-1$
-    private static final int[]  DPI                       = { 72, 96, 144, 150, 200, 300 };
-    private static final String USE_TEMPLATE_OVERRIDE_KEY = "UseTextTemplateOverride";                         							//$NON-NLS-1$
-    private static final String TEMPLATE_OVERRIDE_KEY     = "TextTemplateOverride";                            								//$NON-NLS-1$
-    private static final String GURPS_CALCULATOR_KEY_KEY  = "GurpsCalculatorKey";                              									//$NON-NLS-1$
-    public static final String  BASE_GURPS_CALCULATOR_URL = "http://www.gurpscalculator.com";                  						//$NON-NLS-1$
-    public static final String  GURPS_CALCULATOR_URL      = BASE_GURPS_CALCULATOR_URL + "/Character/ImportGCS";	//$NON-NLS-1$
-    private static final String DEFAULT_PAGE_SETTINGS_KEY = "DefaultPageSettings";                             								//$NON-NLS-1$
-    private JComboBox<String>   mPNGResolutionCombo;
-    private JCheckBox           mUseTextTemplateOverride;
-    private JTextField          mTextTemplatePath;
-    private JButton             mTextTemplatePicker;
-    private JButton             mGurpsCalculatorLink;
-    private JTextField          mGurpsCalculatorKey;
-    private JCheckBox           mUseNativePrinter;
+    private static final String    MODULE                    = "Output";                                          												//$NON-NLS-1$
+    private static final int       DEFAULT_PNG_RESOLUTION    = 200;
+    private static final String    PNG_RESOLUTION_KEY        = "PNGResolution";                                   										//$NON-NLS-1$
+    private static final int[]     DPI                       = { 72, 96, 144, 150, 200, 300 };
+    private static final int       DEFAULT_PNG_COMPRESSION   = 6;
+    private static final String    PNG_COMPRESSION_KEY       = "PNGCompression";                                  										//$NON-NLS-1$
+    private static final PNGFilter DEFAULT_PNG_FILTER        = PNGFilter.ADAPTIVE;
+    private static final String    PNG_FILTER_KEY            = "PNGFilter";                                       										//$NON-NLS-1$
+    private static final String    USE_TEMPLATE_OVERRIDE_KEY = "UseTextTemplateOverride";                         							//$NON-NLS-1$
+    private static final String    TEMPLATE_OVERRIDE_KEY     = "TextTemplateOverride";                            								//$NON-NLS-1$
+    private static final String    GURPS_CALCULATOR_KEY_KEY  = "GurpsCalculatorKey";                              									//$NON-NLS-1$
+    public static final String     BASE_GURPS_CALCULATOR_URL = "http://www.gurpscalculator.com";                  						//$NON-NLS-1$
+    public static final String     GURPS_CALCULATOR_URL      = BASE_GURPS_CALCULATOR_URL + "/Character/ImportGCS";	//$NON-NLS-1$
+    private static final String    DEFAULT_PAGE_SETTINGS_KEY = "DefaultPageSettings";                             								//$NON-NLS-1$
+    private JComboBox<String>      mPNGResolutionCombo;
+    private JComboBox<Integer>     mPNGCompressionCombo;
+    private JComboBox<PNGFilter>   mPNGFilterCombo;
+    private JCheckBox              mUseTextTemplateOverride;
+    private JTextField             mTextTemplatePath;
+    private JButton                mTextTemplatePicker;
+    private JButton                mGurpsCalculatorLink;
+    private JTextField             mGurpsCalculatorKey;
+    private JCheckBox              mUseNativePrinter;
 
     /** Initializes the services controlled by these preferences. */
     public static void initialize() {
@@ -173,6 +190,16 @@ public class OutputPreferences extends PreferencePanel implements ActionListener
         return Preferences.getInstance().getIntValue(MODULE, PNG_RESOLUTION_KEY, DEFAULT_PNG_RESOLUTION);
     }
 
+    /** @return The compression level to use when saving the sheet as a PNG, from 0 to 9. */
+    public static int getPNGCompressionLevel() {
+        return Preferences.getInstance().getIntValue(MODULE, PNG_COMPRESSION_KEY, DEFAULT_PNG_COMPRESSION);
+    }
+
+    /** @return The row filter to use when saving the sheet as a PNG. */
+    public static PNGFilter getPNGFilter() {
+        return Enums.extract(Preferences.getInstance().getStringValue(MODULE, PNG_FILTER_KEY), PNGFilter.values(), DEFAULT_PNG_FILTER);
+    }
+
     /** @return Whether the default text template has been overridden. */
     public static boolean isTextTemplateOverridden() {
         return Preferences.getInstance().getBooleanValue(MODULE, USE_TEMPLATE_OVERRIDE_KEY);
@@ -293,6 +320,15 @@ public class OutputPreferences extends PreferencePanel implements ActionListener
         row.add(createLabel(PNG_RESOLUTION_POST, PNG_RESOLUTION_TOOLTIP, SwingConstants.LEFT));
         column.add(row);
 
+        row = new FlexRow();
+        row.add(createLabel(PNG_COMPRESSION, PNG_COMPRESSION_TOOLTIP));
+        mPNGCompressionCombo = createPNGCompressionPopup();
+        row.add(mPNGCompressionCombo);
+        row.add(createLabel(PNG_FILTER, PNG_FILTER_TOOLTIP));
+        mPNGFilterCombo = createPNGFilterPopup();
+        row.add(mPNGFilterCombo);
+        column.add(row);
+
         column.add(new FlexSpacer(0, 0, false, true));
 
         column.apply(this);
@@ -353,6 +389,29 @@ public class OutputPreferences extends PreferencePanel implements ActionListener
         return combo;
     }
 
+    private JComboBox<Integer> createPNGCompressionPopup() {
+        JComboBox<Integer> combo = new JComboBox<>();
+        setupCombo(combo, PNG_COMPRESSION_TOOLTIP);
+        for (int i = Deflater.NO_COMPRESSION; i <= Deflater.BEST_COMPRESSION; i++) {
+            combo.addItem(Integer.valueOf(i));
+        }
+        combo.setSelectedItem(Integer.valueOf(getPNGCompressionLevel()));
+        combo.addActionListener(this);
+        combo.setMaximumRowCount(combo.getItemCount());
+        UIUtilities.setOnlySize(combo, combo.getPreferredSize());
+        return combo;
+    }
+
+    private JComboBox<PNGFilter> createPNGFilterPopup() {
+        JComboBox<PNGFilter> combo = new JComboBox<>(PNGFilter.values());
+        setupCombo(combo, PNG_FILTER_TOOLTIP);
+        combo.setSelectedItem(getPNGFilter());
+        combo.addActionListener(this);
+        combo.setMaximumRowCount(combo.getItemCount());
+        UIUtilities.setOnlySize(combo, combo.getPreferredSize());
+        return combo;
+    }
+
     private JTextField createTextField(String tooltip, String value) {
         JTextField field = new JTextField(value);
         field.setToolTipText(Text.wrapPlainTextForToolTip(tooltip));
@@ -370,6 +429,10 @@ public class OutputPreferences extends PreferencePanel implements ActionListener
         Object source = event.getSource();
         if (source == mPNGResolutionCombo) {
             Preferences.getInstance().setValue(MODULE, PNG_RESOLUTION_KEY, DPI[mPNGResolutionCombo.getSelectedIndex()]);
+        } else if (source == mPNGCompressionCombo) {
+            Preferences.getInstance().setValue(MODULE, PNG_COMPRESSION_KEY, ((Integer) mPNGCompressionCombo.getSelectedItem()).intValue());
+        } else if (source == mPNGFilterCombo) {
+            Preferences.getInstance().setValue(MODULE, PNG_FILTER_KEY, Enums.toId((PNGFilter) mPNGFilterCombo.getSelectedItem()));
         } else if (source == mTextTemplatePicker) {
             File file = StdFileDialog.showOpenDialog(this, SELECT_TEXT_TEMPLATE);
             if (file != null) {
@@ -394,13 +457,15 @@ public class OutputPreferences extends PreferencePanel implements ActionListener
                 break;
             }
         }
+        mPNGCompressionCombo.setSelectedItem(Integer.valueOf(DEFAULT_PNG_COMPRESSION));
+        mPNGFilterCombo.setSelectedItem(DEFAULT_PNG_FILTER);
         mUseTextTemplateOverride.setSelected(false);
         mUseNativePrinter.setSelected(false);
     }
 
     @Override
     public boolean isSetToDefaults() {
-        return getPNGResolution() == DEFAULT_PNG_RESOLUTION && isTextTemplateOverridden() == false && !PrintManager.useNativeDialogs() && mGurpsCalculatorKey.getText().equals(""); //$NON-NLS-1$
+        return getPNGResolution() == DEFAULT_PNG_RESOLUTION && getPNGCompressionLevel() == DEFAULT_PNG_COMPRESSION && getPNGFilter() == DEFAULT_PNG_FILTER && isTextTemplateOverridden() == false && !PrintManager.useNativeDialogs() && mGurpsCalculatorKey.getText().equals(""); //$NON-NLS-1$
     }
 
     @Override
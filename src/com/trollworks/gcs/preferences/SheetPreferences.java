@@ -163,6 +163,8 @@ public class SheetPreferences extends PreferencePanel implements ActionListener,
     @Localize(locale = "ru", value = "Автоматически называть новых персонажей")
     @Localize(locale = "es", value = "Dar nombre automáticamente a los personajes nuevos")
     private static String AUTO_NAME;
+    @Localize("Periodically record unsaved changes so they can be recovered after a crash")
+    private static String AUTOSAVE;
     @Localize("The units to use for display of generated lengths")
     @Localize(locale = "de", value = "Die Einheit, in der die berechnete Länge angezeigt wird.")
     @Localize(locale = "ru", value = "Единицы измерения создаваемых длин")
@@ -240,6 +242,8 @@ public class SheetPreferences extends PreferencePanel implements ActionListener,
     /** The auto-naming preference key. */
     public static final String       AUTO_NAME_PREF_KEY               = Preferences.getModuleKey(MODULE, AUTO_NAME_KEY);
     private static final boolean     DEFAULT_AUTO_NAME                = true;
+    private static final String      AUTOSAVE_KEY                     = "Autosave";                                                   													//$NON-NLS-1$
+    private static final boolean     DEFAULT_AUTOSAVE                 = true;
     private static final String      LENGTH_UNITS_KEY                 = "LengthUnits";                                                												//$NON-NLS-1$
     /** The default length units preference key. */
     public static final String       LENGTH_UNITS_PREF_KEY            = Preferences.getModuleKey(MODULE, LENGTH_UNITS_KEY);
@@ -276,6 +280,7 @@ public class SheetPreferences extends PreferencePanel implements ActionListener,
     private JCheckBox                mIncludeUnspentPointsInTotal;
     private JCheckBox                mUseGurpsMetricRules;
     private JCheckBox                mAutoName;
+    private JCheckBox                mAutosave;
 
     /** Initializes the services controlled by these preferences. */
     public static void initialize() {
@@ -344,6 +349,11 @@ public class SheetPreferences extends PreferencePanel implements ActionListener,
         return Preferences.getInstance().getBooleanValue(MODULE, AUTO_NAME_KEY, DEFAULT_AUTO_NAME);
     }
 
+    /** @return Whether unsaved changes should be periodically recorded for recovery. */
+    public static boolean isAutosaveEnabled() {
+        return Preferences.getInstance().getBooleanValue(MODULE, AUTOSAVE_KEY, DEFAULT_AUTOSAVE);
+    }
+
     /** @return The {@link Scales} to use when opening a new scalable file. */
     public static Scales getInitialUIScale() {
         double value = Preferences.getInstance().getDoubleValue(MODULE, SCALE_KEY, DEFAULT_SCALE.getScale().getScale());
@@ -411,6 +421,9 @@ public class SheetPreferences extends PreferencePanel implements ActionListener,
         mAutoName = createCheckBox(AUTO_NAME, null, isNewCharacterAutoNamed());
         column.add(mAutoName);
 
+        mAutosave = createCheckBox(AUTOSAVE, null, isAutosaveEnabled());
+        column.add(mAutosave);
+
         mUseOptionalIQRules = createCheckBox(OPTIONAL_IQ_RULES, null, areOptionalIQRulesUsed());
         column.add(mUseOptionalIQRules);
 
@@ -541,6 +554,7 @@ public class SheetPreferences extends PreferencePanel implements ActionListener,
         mLengthUnitsCombo.setSelectedIndex(DEFAULT_LENGTH_UNITS.ordinal());
         mWeightUnitsCombo.setSelectedIndex(DEFAULT_WEIGHT_UNITS.ordinal());
         mAutoName.setSelected(DEFAULT_AUTO_NAME);
+        mAutosave.setSelected(DEFAULT_AUTOSAVE);
         mUseOptionalDiceRules.setSelected(DEFAULT_OPTIONAL_DICE_RULES);
         mUseOptionalIQRules.setSelected(DEFAULT_OPTIONAL_IQ_RULES);
         mUseOptionalModifierRules.setSelected(DEFAULT_OPTIONAL_MODIFIER_RULES);
@@ -552,7 +566,7 @@ public class SheetPreferences extends PreferencePanel implements ActionListener,
 
     @Override
     public boolean isSetToDefaults() {
-        return Profile.getDefaultPlayerName().equals(System.getProperty("user.name")) && Profile.getDefaultCampaign().equals("") && Profile.getDefaultPortraitPath().equals(Profile.DEFAULT_PORTRAIT) && Profile.getDefaultTechLevel().equals(Profile.DEFAULT_TECH_LEVEL) && getInitialPoints() == DEFAULT_INITIAL_POINTS && getInitialUIScale() == DEFAULT_SCALE && areOptionalDiceRulesUsed() == DEFAULT_OPTIONAL_DICE_RULES && areOptionalIQRulesUsed() == DEFAULT_OPTIONAL_IQ_RULES && areOptionalModifierRulesUsed() == DEFAULT_OPTIONAL_MODIFIER_RULES && areOptionalStrengthRulesUsed() == DEFAULT_OPTIONAL_STRENGTH_RULES && areOptionalReducedSwingUsed() == DEFAULT_OPTIONAL_REDUCED_SWING && isNewCharacterAutoNamed() == DEFAULT_AUTO_NAME; //$NON-NLS-1$ //$NON-NLS-2$
+        return Profile.getDefaultPlayerName().equals(System.getProperty("user.name")) && Profile.getDefaultCampaign().equals("") && Profile.getDefaultPortraitPath().equals(Profile.DEFAULT_PORTRAIT) && Profile.getDefaultTechLevel().equals(Profile.DEFAULT_TECH_LEVEL) && getInitialPoints() == DEFAULT_INITIAL_POINTS && getInitialUIScale() == DEFAULT_SCALE && areOptionalDiceRulesUsed() == DEFAULT_OPTIONAL_DICE_RULES && areOptionalIQRulesUsed() == DEFAULT_OPTIONAL_IQ_RULES && areOptionalModifierRulesUsed() == DEFAULT_OPTIONAL_MODIFIER_RULES && areOptionalStrengthRulesUsed() == DEFAULT_OPTIONAL_STRENGTH_RULES && areOptionalReducedSwingUsed() == DEFAULT_OPTIONAL_REDUCED_SWING && isNewCharacterAutoNamed() == DEFAULT_AUTO_NAME && isAutosaveEnabled() == DEFAULT_AUTOSAVE; //$NON-NLS-1$ //$NON-NLS-2$
     }
 
     private void setPortrait(String path) {
@@ -607,6 +621,8 @@ public class SheetPreferences extends PreferencePanel implements ActionListener,
             Preferences.getInstance().setValue(MODULE, GURPS_METRIC_RULES_KEY, mUseGurpsMetricRules.isSelected());
         } else if (source == mAutoName) {
             Preferences.getInstance().setValue(MODULE, AUTO_NAME_KEY, mAutoName.isSelected());
+        } else if (source == mAutosave) {
+            Preferences.getInstance().setValue(MODULE, AUTOSAVE_KEY, mAutosave.isSelected());
         }
         adjustResetButton();
     }
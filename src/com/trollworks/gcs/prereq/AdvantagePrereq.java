@@ -12,6 +12,7 @@
 package com.trollworks.gcs.prereq;
 
 import com.trollworks.gcs.advantage.Advantage;
+import com.trollworks.gcs.character.DependencyGraph;
 import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.criteria.IntegerCriteria;
 import com.trollworks.gcs.criteria.StringCompareType;
@@ -125,13 +126,19 @@ public class AdvantagePrereq extends NameLevelPrereq {
         return new AdvantagePrereq(parent, this);
     }
 
+    @Override
+    protected int getEvaluationCost() {
+        return getNameCriteria().getExactMatch() != null ? COST_LOOKUP : COST_SCAN;
+    }
+
     @Override
     public boolean satisfied(GURPSCharacter character, ListRow exclude, StringBuilder builder, String prefix) {
         boolean satisfied = false;
         StringCriteria nameCriteria = getNameCriteria();
         IntegerCriteria levelCriteria = getLevelCriteria();
 
-        for (Advantage advantage : character.getAdvantagesIterator(false)) {
+        String exactName = nameCriteria.getExactMatch();
+        for (Advantage advantage : exactName != null ? character.getAdvantagesNamed(exactName) : character.getAdvantagesIterator(false)) {
             if (exclude != advantage && nameCriteria.matches(advantage.getName())) {
                 String notes = advantage.getNotes();
                 String modifierNotes = advantage.getModifierNotes();
@@ -174,6 +181,11 @@ public class AdvantagePrereq extends NameLevelPrereq {
         mNotesCriteria.setQualifier(ListRow.nameNameables(map, mNotesCriteria.getQualifier()));
     }
 
+    @Override
+    public void fillWithDependencyKeys(HashSet<String> set) {
+        set.add(DependencyGraph.advantageKey(getNameCriteria().getExactMatch()));
+    }
+
     /** @return The notes comparison object. */
     public StringCriteria getNotesCriteria() {
         return mNotesCriteria;
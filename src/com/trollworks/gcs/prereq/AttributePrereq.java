@@ -11,6 +11,7 @@
 
 package com.trollworks.gcs.prereq;
 
+import com.trollworks.gcs.character.DependencyGraph;
 import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.criteria.IntegerCriteria;
 import com.trollworks.gcs.criteria.NumericCompareType;
@@ -24,6 +25,7 @@ import com.trollworks.toolkit.utility.text.Enums;
 
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.HashSet;
 
 /** A Attribute prerequisite. */
 public class AttributePrereq extends HasPrereq {
@@ -179,6 +181,11 @@ public class AttributePrereq extends HasPrereq {
         return mValueCompare;
     }
 
+    @Override
+    protected int getEvaluationCost() {
+        return COST_TRIVIAL;
+    }
+
     @Override
     public boolean satisfied(GURPSCharacter character, ListRow exclude, StringBuilder builder, String prefix) {
         boolean satisfied = mValueCompare.matches(getAttributeValue(character, mWhich) + getAttributeValue(character, mCombinedWith));
@@ -191,4 +198,12 @@ public class AttributePrereq extends HasPrereq {
         }
         return satisfied;
     }
+
+    @Override
+    public void fillWithDependencyKeys(HashSet<String> set) {
+        set.add(DependencyGraph.attributeKey(mWhich));
+        if (mCombinedWith != null) {
+            set.add(DependencyGraph.attributeKey(mCombinedWith));
+        }
+    }
 }
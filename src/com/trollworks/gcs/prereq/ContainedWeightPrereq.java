@@ -15,6 +15,7 @@ import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.criteria.NumericCompareType;
 import com.trollworks.gcs.criteria.WeightCriteria;
 import com.trollworks.gcs.equipment.Equipment;
+import com.trollworks.gcs.equipment.FixedWeight;
 import com.trollworks.gcs.preferences.SheetPreferences;
 import com.trollworks.gcs.widgets.outline.ListRow;
 import com.trollworks.toolkit.annotation.Localize;
@@ -119,6 +120,11 @@ public class ContainedWeightPrereq extends HasPrereq {
         return mWeightCompare;
     }
 
+    @Override
+    protected int getEvaluationCost() {
+        return COST_TRIVIAL;
+    }
+
     @Override
     public boolean satisfied(GURPSCharacter character, ListRow exclude, StringBuilder builder, String prefix) {
         boolean satisfied = false;
@@ -126,8 +132,8 @@ public class ContainedWeightPrereq extends HasPrereq {
             Equipment equipment = (Equipment) exclude;
             satisfied = !equipment.canHaveChildren();
             if (!satisfied) {
-                WeightValue weight = new WeightValue(equipment.getExtendedWeight());
-                weight.subtract(equipment.getWeight());
+                WeightValue weight = equipment.getWeight();
+                weight = FixedWeight.toWeightValue(equipment.getExtendedWeightFixed() - FixedWeight.toFixed(weight), weight.getUnits());
                 satisfied = mWeightCompare.matches(weight);
             }
         }
@@ -11,6 +11,7 @@
 
 package com.trollworks.gcs.prereq;
 
+import com.trollworks.gcs.character.DependencyGraph;
 import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.widgets.outline.ListRow;
 import com.trollworks.toolkit.io.xml.XMLWriter;
@@ -20,8 +21,14 @@ import java.util.HashSet;
 
 /** The abstract base class prerequisite criteria and prerequisite lists. */
 public abstract class Prereq {
+    /** The cost of a check that only looks at a single value. */
+    protected static final int COST_TRIVIAL = 1;
+    /** The cost of a check that looks up rows by name. */
+    protected static final int COST_LOOKUP  = 4;
+    /** The cost of a check that has to examine every row of a list. */
+    protected static final int COST_SCAN    = 16;
     /** The owning prerequisite list, if any. */
-    protected PrereqList mParent;
+    protected PrereqList       mParent;
 
     /**
      * Creates a new prerequisite.
@@ -64,6 +71,25 @@ public abstract class Prereq {
      */
     public abstract boolean satisfied(GURPSCharacter character, ListRow exclude, StringBuilder builder, String prefix);
 
+    /**
+     * @param character The character to check.
+     * @param exclude The data to exclude from the check.
+     * @return Whether or not this prerequisite is satisfied by the specified character. This may
+     *         be cheaper than asking for a description as well, since checks can stop as soon as
+     *         the outcome is known.
+     */
+    public boolean satisfied(GURPSCharacter character, ListRow exclude) {
+        return satisfied(character, exclude, null, null);
+    }
+
+    /**
+     * @return The relative cost of checking this prerequisite, used to check the cheapest
+     *         prerequisites of a list first.
+     */
+    protected int getEvaluationCost() {
+        return COST_SCAN;
+    }
+
     /**
      * Creates a deep clone of the prerequisite.
      * 
@@ -81,4 +107,12 @@ public abstract class Prereq {
     public void applyNameableKeys(HashMap<String, String> map) {
         // Do nothing by default
     }
+
+    /**
+     * @param set The set to add the {@link DependencyGraph} keys for the character data this
+     *            prerequisite reads to.
+     */
+    public void fillWithDependencyKeys(HashSet<String> set) {
+        // Do nothing by default
+    }
 }
@@ -11,6 +11,7 @@
 
 package com.trollworks.gcs.prereq;
 
+import com.trollworks.gcs.character.DependencyGraph;
 import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.criteria.IntegerCriteria;
 import com.trollworks.gcs.criteria.NumericCompareType;
@@ -25,6 +26,7 @@ import com.trollworks.toolkit.utility.text.Numbers;
 import java.io.IOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -54,6 +56,7 @@ public class PrereqList extends Prereq {
     private boolean             mAll;
     private IntegerCriteria     mWhenTLCriteria;
     private ArrayList<Prereq>   mPrereqs;
+    private Prereq[]            mEvaluationOrder;
 
     /**
      * Creates a new prerequisite list.
@@ -219,6 +222,7 @@ public class PrereqList extends Prereq {
      */
     public void add(int index, Prereq prereq) {
         mPrereqs.add(index, prereq);
+        mEvaluationOrder = null;
     }
 
     /**
@@ -229,10 +233,50 @@ public class PrereqList extends Prereq {
     public void remove(Prereq prereq) {
         if (mPrereqs.contains(prereq)) {
             mPrereqs.remove(prereq);
+            mEvaluationOrder = null;
             prereq.mParent = null;
         }
     }
 
+    @Override
+    public boolean satisfied(GURPSCharacter character, ListRow exclude) {
+        if (isWhenTLEnabled(mWhenTLCriteria)) {
+            if (!mWhenTLCriteria.matches(Numbers.extractInteger(character.getDescription().getTechLevel(), 0, false))) {
+                return true;
+            }
+        }
+        Prereq[] order = getEvaluationOrder();
+        if (order.length == 0) {
+            return true;
+        }
+        for (Prereq prereq : order) {
+            if (prereq.satisfied(character, exclude) != mAll) {
+                return !mAll;
+            }
+        }
+        return mAll;
+    }
+
+    /** @return The children, cheapest to check first. */
+    private Prereq[] getEvaluationOrder() {
+        Prereq[] order = mEvaluationOrder;
+        if (order == null) {
+            order = mPrereqs.toArray(new Prereq[mPrereqs.size()]);
+            Arrays.sort(order, (p1, p2) -> Integer.compare(p1.getEvaluationCost(), p2.getEvaluationCost()));
+            mEvaluationOrder = order;
+        }
+        return order;
+    }
+
+    @Override
+    protected int getEvaluationCost() {
+        int cost = COST_TRIVIAL;
+        for (Prereq prereq : mPrereqs) {
+            cost += prereq.getEvaluationCost();
+        }
+        return cost;
+    }
+
     @Override
     public boolean satisfied(GURPSCharacter character, ListRow exclude, StringBuilder builder, String prefix) {
         if (isWhenTLEnabled(mWhenTLCriteria)) {
@@ -281,4 +325,14 @@ public class PrereqList extends Prereq {
             prereq.applyNameableKeys(map);
         }
     }
+
+    @Override
+    public void fillWithDependencyKeys(HashSet<String> set) {
+        if (isWhenTLEnabled(mWhenTLCriteria)) {
+            set.add(DependencyGraph.TECH_LEVEL);
+        }
+        for (Prereq prereq : mPrereqs) {
+            prereq.fillWithDependencyKeys(set);
+        }
+    }
 }
@@ -11,6 +11,7 @@
 
 package com.trollworks.gcs.prereq;
 
+import com.trollworks.gcs.character.DependencyGraph;
 import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.criteria.IntegerCriteria;
 import com.trollworks.gcs.criteria.StringCompareType;
@@ -124,6 +125,11 @@ public class SkillPrereq extends NameLevelPrereq {
         return new SkillPrereq(parent, this);
     }
 
+    @Override
+    protected int getEvaluationCost() {
+        return getNameCriteria().getExactMatch() != null ? COST_LOOKUP : COST_SCAN;
+    }
+
     @Override
     public boolean satisfied(GURPSCharacter character, ListRow exclude, StringBuilder builder, String prefix) {
         boolean satisfied = false;
@@ -135,7 +141,8 @@ public class SkillPrereq extends NameLevelPrereq {
             techLevel = ((Skill) exclude).getTechLevel();
         }
 
-        for (Skill skill : character.getSkillsIterator()) {
+        String exactName = nameCriteria.getExactMatch();
+        for (Skill skill : exactName != null ? character.getSkillsNamed(exactName) : character.getSkillsIterator()) {
             if (exclude != skill && nameCriteria.matches(skill.getName()) && mSpecializationCriteria.matches(skill.getSpecialization())) {
                 satisfied = levelCriteria.matches(skill.getLevel());
                 if (satisfied && techLevel != null) {
@@ -181,6 +188,11 @@ public class SkillPrereq extends NameLevelPrereq {
         mSpecializationCriteria.setQualifier(ListRow.nameNameables(map, mSpecializationCriteria.getQualifier()));
     }
 
+    @Override
+    public void fillWithDependencyKeys(HashSet<String> set) {
+        set.add(DependencyGraph.skillKey(getNameCriteria().getExactMatch()));
+    }
+
     /** @return The specialization comparison object. */
     public StringCriteria getSpecializationCriteria() {
         return mSpecializationCriteria;
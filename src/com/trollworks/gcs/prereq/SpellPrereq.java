@@ -11,6 +11,7 @@
 
 package com.trollworks.gcs.prereq;
 
+import com.trollworks.gcs.character.DependencyGraph;
 import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.criteria.IntegerCriteria;
 import com.trollworks.gcs.criteria.NumericCompareType;
@@ -221,6 +222,11 @@ public class SpellPrereq extends HasPrereq {
         return mQuantityCriteria;
     }
 
+    @Override
+    protected int getEvaluationCost() {
+        return (mType == TAG_NAME || mType == TAG_COLLEGE) && mStringCriteria.getExactMatch() != null ? COST_LOOKUP : COST_SCAN;
+    }
+
     @Override
     public boolean satisfied(GURPSCharacter character, ListRow exclude, StringBuilder builder, String prefix) {
         HashSet<String> colleges = new HashSet<>();
@@ -232,7 +238,16 @@ public class SpellPrereq extends HasPrereq {
             techLevel = ((Spell) exclude).getTechLevel();
         }
 
-        for (Spell spell : character.getSpellsIterator()) {
+        Iterable<Spell> spells;
+        String exactMatch = mStringCriteria.getExactMatch();
+        if (mType == TAG_NAME && exactMatch != null) {
+            spells = character.getSpellsNamed(exactMatch);
+        } else if (mType == TAG_COLLEGE && exactMatch != null) {
+            spells = character.getSpellsInCollege(exactMatch);
+        } else {
+            spells = character.getSpellsIterator();
+        }
+        for (Spell spell : spells) {
             if (exclude != spell && spell.getPoints() > 0) {
                 boolean ok;
 
@@ -296,4 +311,9 @@ public class SpellPrereq extends HasPrereq {
             mStringCriteria.setQualifier(ListRow.nameNameables(map, mStringCriteria.getQualifier()));
         }
     }
+
+    @Override
+    public void fillWithDependencyKeys(HashSet<String> set) {
+        set.add(DependencyGraph.spellKey(mType == TAG_NAME ? mStringCriteria.getExactMatch() : null));
+    }
 }
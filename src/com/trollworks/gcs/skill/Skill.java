@@ -12,6 +12,7 @@
 package com.trollworks.gcs.skill;
 
 import com.trollworks.gcs.app.GCSImages;
+import com.trollworks.gcs.character.DependencyGraph;
 import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.common.DataFile;
 import com.trollworks.gcs.common.HasSourceReference;
@@ -482,7 +483,12 @@ public class Skill extends ListRow implements HasSourceReference {
         int savedLevel = mLevel;
         int savedRelativeLevel = mRelativeLevel;
         SkillLevel level = calculateLevelSelf();
+        SkillLevelMemo memo = SkillLevelMemo.current();
 
+        if (memo != null) {
+            // Our default may have changed, so any level resolved for us earlier is now stale.
+            memo.invalidate(this);
+        }
         mLevel = level.mLevel;
         mRelativeLevel = level.mRelativeLevel;
 
@@ -501,15 +507,25 @@ public class Skill extends ListRow implements HasSourceReference {
     /** @return The calculated skill level. */
     protected SkillLevel calculateLevelSelf() {
         mDefaultedFrom = getBestDefaultWithPoints();
-        return calculateLevel(getCharacter(), getName(), getSpecialization(), getDefaults(), getAttribute(), getDifficulty(), getPoints(), new HashSet<String>(), getEncumbrancePenaltyMultiplier());
+        return calculateLevel(getCharacter(), getName(), getSpecialization(), getDefaults(), getAttribute(), getDifficulty(), getPoints(), new HashSet<Skill>(), getEncumbrancePenaltyMultiplier());
     }
 
     /**
      * @param excludes Skills to exclude, other than this one.
      * @return The calculated level.
      */
-    public int getLevel(HashSet<String> excludes) {
-        return calculateLevel(getCharacter(), getName(), getSpecialization(), getDefaults(), getAttribute(), getDifficulty(), getPoints(), excludes, getEncumbrancePenaltyMultiplier()).mLevel;
+    public int getLevel(HashSet<Skill> excludes) {
+        // The excludes only limit which skills are considered when choosing a default, which has
+        // already been done for this skill, so the result can be shared regardless of them.
+        SkillLevelMemo memo = SkillLevelMemo.current();
+        SkillLevel level = memo != null ? memo.get(this) : null;
+        if (level == null) {
+            level = calculateLevel(getCharacter(), getName(), getSpecialization(), getDefaults(), getAttribute(), getDifficulty(), getPoints(), excludes, getEncumbrancePenaltyMultiplier());
+            if (memo != null) {
+                memo.put(this, level);
+            }
+        }
+        return level.mLevel;
     }
 
     /** @return The attribute. */
@@ -703,7 +719,7 @@ public class Skill extends ListRow implements HasSourceReference {
      * @param encPenaltyMult The encumbrance penalty multiplier.
      * @return The calculated skill level.
      */
-    public SkillLevel calculateLevel(GURPSCharacter character, String name, String specialization, List<SkillDefault> defaults, SkillAttribute attribute, SkillDifficulty difficulty, int points, HashSet<String> excludes, int encPenaltyMult) {
+    public SkillLevel calculateLevel(GURPSCharacter character, String name, String specialization, List<SkillDefault> defaults, SkillAttribute attribute, SkillDifficulty difficulty, int points, HashSet<Skill> excludes, int encPenaltyMult) {
         int relativeLevel = difficulty.getBaseRelativeLevel();
         int level = attribute.getBaseSkillLevel(character);
         if (level != Integer.MIN_VALUE) {
@@ -844,13 +860,12 @@ public class Skill extends ListRow implements HasSourceReference {
             if (!defaults.isEmpty()) {
                 int best = Integer.MIN_VALUE;
                 SkillDefault bestSkill = null;
-                String exclude = toString();
-                HashSet<String> excludes = new HashSet<>();
-                excludes.add(exclude);
+                HashSet<Skill> excludes = new HashSet<>();
+                excludes.add(this);
                 for (SkillDefault skillDefault : defaults) {
                     // For skill-based defaults, prune out any that already use a default that we
                     // are involved with
-                    if (!skillDefault.equals(excludedDefault) && !isInDefaultChain(this, skillDefault, new HashSet<>())) {
+                    if (!skillDefault.equals(excludedDefault) && !isInDefaultChain(this, skillDefault, createVisitedSet())) {
                         int level = skillDefault.getType().getSkillLevel(character, skillDefault, excludes);
                         if (level > best) {
                             best = level;
@@ -859,13 +874,17 @@ public class Skill extends ListRow implements HasSourceReference {
                         }
                     }
                 }
-                excludes.remove(exclude);
                 return bestSkill;
             }
         }
         return null;
     }
 
+    private static Set<Skill> createVisitedSet() {
+        SkillLevelMemo memo = SkillLevelMemo.current();
+        return memo != null ? memo.getVisitedSet() : new HashSet<>();
+    }
+
     private boolean isInDefaultChain(Skill skill, SkillDefault skillDefault, Set<Skill> lookedAt) {
         GURPSCharacter character = getCharacter();
         if (character != null && skillDefault != null && skillDefault.getType().isSkillBased()) {
@@ -898,6 +917,14 @@ public class Skill extends ListRow implements HasSourceReference {
         }
     }
 
+    @Override
+    public void fillWithDependencyKeys(HashSet<String> set) {
+        super.fillWithDependencyKeys(set);
+        if (mEncumbrancePenaltyMultiplier > 0) {
+            set.add(DependencyGraph.ENCUMBRANCE);
+        }
+    }
+
     @Override
     public void applyNameableKeys(HashMap<String, String> map) {
         super.applyNameableKeys(map);
@@ -924,7 +951,7 @@ public class Skill extends ListRow implements HasSourceReference {
      */
     protected static Skill getBaseSkill(GURPSCharacter character, SkillDefault skillDefault) {
         if (character != null && skillDefault != null && skillDefault.getType().isSkillBased()) {
-            return character.getBestSkillNamed(skillDefault.getName(), skillDefault.getSpecialization(), true, new HashSet<String>());
+            return character.getBestSkillNamed(skillDefault.getName(), skillDefault.getSpecialization(), true, new HashSet<Skill>());
         }
         return null;
     }
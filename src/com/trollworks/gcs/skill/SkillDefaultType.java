@@ -27,7 +27,7 @@ public enum SkillDefaultType {
         }
 
         @Override
-        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
             return finalLevel(skillDefault, Math.min(SkillAttribute.ST.getBaseSkillLevel(character), 20));
         }
     },
@@ -39,7 +39,7 @@ public enum SkillDefaultType {
         }
 
         @Override
-        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
             return finalLevel(skillDefault, Math.min(SkillAttribute.DX.getBaseSkillLevel(character), 20));
         }
     },
@@ -51,7 +51,7 @@ public enum SkillDefaultType {
         }
 
         @Override
-        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
             return finalLevel(skillDefault, Math.min(SkillAttribute.IQ.getBaseSkillLevel(character), 20));
         }
     },
@@ -63,7 +63,7 @@ public enum SkillDefaultType {
         }
 
         @Override
-        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
             return finalLevel(skillDefault, Math.min(SkillAttribute.HT.getBaseSkillLevel(character), 20));
         }
     },
@@ -75,7 +75,7 @@ public enum SkillDefaultType {
         }
 
         @Override
-        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
             return finalLevel(skillDefault, Math.min(SkillAttribute.Will.getBaseSkillLevel(character), 20));
         }
     },
@@ -87,7 +87,7 @@ public enum SkillDefaultType {
         }
 
         @Override
-        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
             return finalLevel(skillDefault, Math.min(SkillAttribute.Per.getBaseSkillLevel(character), 20));
         }
     },
@@ -99,7 +99,7 @@ public enum SkillDefaultType {
         }
 
         @Override
-        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
             int best = Integer.MIN_VALUE;
             for (Skill skill : character.getSkillNamed(skillDefault.getName(), skillDefault.getSpecialization(), true, excludes)) {
                 int level = skill.getLevel();
@@ -111,7 +111,7 @@ public enum SkillDefaultType {
         }
 
         @Override
-        public int getSkillLevel(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+        public int getSkillLevel(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
             int best = Integer.MIN_VALUE;
             for (Skill skill : character.getSkillNamed(skillDefault.getName(), skillDefault.getSpecialization(), true, excludes)) {
                 if (skill.getLevel() > best) {
@@ -137,7 +137,7 @@ public enum SkillDefaultType {
         }
 
         @Override
-        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
             int best = Integer.MIN_VALUE;
             for (Skill skill : character.getSkillNamed(skillDefault.getName(), skillDefault.getSpecialization(), true, excludes)) {
                 int level = skill.getLevel();
@@ -149,7 +149,7 @@ public enum SkillDefaultType {
         }
 
         @Override
-        public int getSkillLevel(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+        public int getSkillLevel(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
             int best = Integer.MIN_VALUE;
             for (Skill skill : character.getSkillNamed(skillDefault.getName(), skillDefault.getSpecialization(), true, excludes)) {
                 if (skill.getLevel() > best) {
@@ -175,7 +175,7 @@ public enum SkillDefaultType {
         }
 
         @Override
-        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
             int best = Integer.MIN_VALUE;
             for (Skill skill : character.getSkillNamed(skillDefault.getName(), skillDefault.getSpecialization(), true, excludes)) {
                 int level = skill.getLevel();
@@ -187,7 +187,7 @@ public enum SkillDefaultType {
         }
 
         @Override
-        public int getSkillLevel(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+        public int getSkillLevel(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
             int best = Integer.MIN_VALUE;
             for (Skill skill : character.getSkillNamed(skillDefault.getName(), skillDefault.getSpecialization(), true, excludes)) {
                 if (skill.getLevel() > best) {
@@ -213,7 +213,7 @@ public enum SkillDefaultType {
         }
 
         @Override
-        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+        public int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
             return finalLevel(skillDefault, SkillAttribute.Base10.getBaseSkillLevel(character));
         }
     };
@@ -296,7 +296,7 @@ public enum SkillDefaultType {
      * @param excludes Exclude these {@link Skill}s from consideration.
      * @return The base skill level for this {@link SkillDefaultType}.
      */
-    public abstract int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes);
+    public abstract int getSkillLevelFast(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes);
 
     /**
      * @param character The character to work with.
@@ -304,7 +304,7 @@ public enum SkillDefaultType {
      * @param excludes Exclude these {@link Skill}s from consideration.
      * @return The base skill level for this {@link SkillDefaultType}.
      */
-    public int getSkillLevel(GURPSCharacter character, SkillDefault skillDefault, HashSet<String> excludes) {
+    public int getSkillLevel(GURPSCharacter character, SkillDefault skillDefault, HashSet<Skill> excludes) {
         return getSkillLevelFast(character, skillDefault, excludes);
     }
 
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.skill;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Remembers the skill levels resolved while recalculating a batch of skills, so that default
+ * chains shared by many skills are only resolved once per batch. A memo is bound to the thread that
+ * started it and may be nested; the outermost {@link #end()} discards it.
+ */
+public class SkillLevelMemo {
+    private static final ThreadLocal<SkillLevelMemo> CURRENT  = new ThreadLocal<>();
+    private IdentityHashMap<Skill, SkillLevel>       mLevels  = new IdentityHashMap<>();
+    private Set<Skill>                               mVisited = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int                                      mDepth;
+    private int                                      mHits;
+    private int                                      mMisses;
+
+    /**
+     * Starts a memo for the current thread, or joins the one already in progress. Must be paired
+     * with a call to {@link #end()}.
+     *
+     * @return The memo.
+     */
+    public static SkillLevelMemo begin() {
+        SkillLevelMemo memo = CURRENT.get();
+        if (memo == null) {
+            memo = new SkillLevelMemo();
+            CURRENT.set(memo);
+        }
+        memo.mDepth++;
+        return memo;
+    }
+
+    /** @return The memo in progress on the current thread, or <code>null</code>. */
+    static SkillLevelMemo current() {
+        return CURRENT.get();
+    }
+
+    /** Ends the memo. The outermost call discards it. */
+    public void end() {
+        if (--mDepth == 0) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * @param skill The skill.
+     * @return The level previously resolved for the skill, or <code>null</code>.
+     */
+    SkillLevel get(Skill skill) {
+        SkillLevel level = mLevels.get(skill);
+        if (level != null) {
+            mHits++;
+        } else {
+            mMisses++;
+        }
+        return level;
+    }
+
+    /**
+     * @param skill The skill.
+     * @param level The level resolved for the skill.
+     */
+    void put(Skill skill, SkillLevel level) {
+        mLevels.put(skill, level);
+    }
+
+    /** @param skill The skill whose inputs have changed. */
+    void invalidate(Skill skill) {
+        mLevels.remove(skill);
+    }
+
+    /** @return An empty set for tracking the skills visited while walking a default chain. */
+    Set<Skill> getVisitedSet() {
+        mVisited.clear();
+        return mVisited;
+    }
+
+    /** @return The number of lookups that were satisfied by the memo. */
+    public int getHits() {
+        return mHits;
+    }
+
+    /** @return The number of lookups that had to be calculated. */
+    public int getMisses() {
+        return mMisses;
+    }
+}
@@ -69,4 +69,9 @@ public class SkillList extends ListFile {
             }
         } while (reader.withinMarker(marker));
     }
+
+    @Override
+    public boolean isRowTag(String name) {
+        return Skill.TAG_SKILL.equals(name) || Skill.TAG_SKILL_CONTAINER.equals(name) || Technique.TAG_TECHNIQUE.equals(name);
+    }
 }
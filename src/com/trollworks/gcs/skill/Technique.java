@@ -11,6 +11,7 @@
 
 package com.trollworks.gcs.skill;
 
+import com.trollworks.gcs.character.DependencyGraph;
 import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.common.DataFile;
 import com.trollworks.gcs.common.LoadState;
@@ -248,7 +249,7 @@ public class Technique extends Skill {
      */
     public boolean satisfied(StringBuilder builder, String prefix) {
         if (mDefault.getType().isSkillBased()) {
-            Skill skill = getCharacter().getBestSkillNamed(mDefault.getName(), mDefault.getSpecialization(), false, new HashSet<String>());
+            Skill skill = getCharacter().getBestSkillNamed(mDefault.getName(), mDefault.getSpecialization(), false, new HashSet<Skill>());
             boolean satisfied = skill != null && skill.getPoints() > 0;
             if (!satisfied && builder != null) {
                 if (skill == null) {
@@ -390,6 +391,14 @@ public class Technique extends Skill {
         mDefault.applyNameableKeys(map);
     }
 
+    @Override
+    public void fillWithDependencyKeys(HashSet<String> set) {
+        super.fillWithDependencyKeys(set);
+        if (mDefault.getType().isSkillBased()) {
+            set.add(DependencyGraph.skillKey(mDefault.getName()));
+        }
+    }
+
     @Override
     public String getModifierNotes() {
         StringBuilder buffer = new StringBuilder(super.getModifierNotes());
@@ -66,4 +66,9 @@ public class SpellList extends ListFile {
             }
         } while (reader.withinMarker(marker));
     }
+
+    @Override
+    public boolean isRowTag(String name) {
+        return Spell.TAG_SPELL.equals(name) || Spell.TAG_SPELL_CONTAINER.equals(name);
+    }
 }
@@ -98,8 +98,22 @@ public class Template extends DataFile {
      *             sheet.
      */
     public Template(File file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * Creates a new template from the specified file.
+     *
+     * @param file The file to load the data from.
+     * @param recoverUnsavedChanges Whether unsaved changes recorded for the file should be
+     *            recovered.
+     * @throws IOException if the data cannot be read or the file doesn't contain a valid template.
+     */
+    public Template(File file, boolean recoverUnsavedChanges) throws IOException {
         this();
-        load(file);
+        LoadState state = new LoadState();
+        state.mRecoverUnsavedChanges = recoverUnsavedChanges;
+        load(file, state);
     }
 
     @Override
@@ -298,6 +312,9 @@ public class Template extends DataFile {
     @Override
     public void notify(String type, Object data) {
         super.notify(type, data);
+        if (Advantage.ID_LIST_CHANGED.equals(type)) {
+            Advantage.invalidateAdjustedPoints(mAdvantages);
+        }
         if (Advantage.ID_POINTS.equals(type) || Advantage.ID_ROUND_COST_DOWN.equals(type) || Advantage.ID_LEVELS.equals(type) || Advantage.ID_LIST_CHANGED.equals(type)) {
             mNeedAdvantagesPointCalculation = true;
         }
@@ -313,20 +330,20 @@ public class Template extends DataFile {
     protected void endNotifyAtBatchLevelOne() {
         if (mNeedAdvantagesPointCalculation) {
             calculateAdvantagePoints();
-            notify(ID_ADVANTAGE_POINTS, new Integer(getAdvantagePoints()));
-            notify(ID_DISADVANTAGE_POINTS, new Integer(getDisadvantagePoints()));
-            notify(ID_QUIRK_POINTS, new Integer(getQuirkPoints()));
+            notify(ID_ADVANTAGE_POINTS, Integer.valueOf(getAdvantagePoints()));
+            notify(ID_DISADVANTAGE_POINTS, Integer.valueOf(getDisadvantagePoints()));
+            notify(ID_QUIRK_POINTS, Integer.valueOf(getQuirkPoints()));
         }
         if (mNeedSkillPointCalculation) {
             calculateSkillPoints();
-            notify(ID_SKILL_POINTS, new Integer(getSkillPoints()));
+            notify(ID_SKILL_POINTS, Integer.valueOf(getSkillPoints()));
         }
         if (mNeedSpellPointCalculation) {
             calculateSpellPoints();
-            notify(ID_SPELL_POINTS, new Integer(getSpellPoints()));
+            notify(ID_SPELL_POINTS, Integer.valueOf(getSpellPoints()));
         }
         if (mNeedAdvantagesPointCalculation || mNeedSkillPointCalculation || mNeedSpellPointCalculation) {
-            notify(ID_TOTAL_POINTS, new Integer(getTotalPoints()));
+            notify(ID_TOTAL_POINTS, Integer.valueOf(getTotalPoints()));
         }
     }
 
@@ -18,10 +18,10 @@ import com.trollworks.gcs.preferences.SheetPreferences;
 import com.trollworks.gcs.skill.Skill;
 import com.trollworks.gcs.skill.Technique;
 import com.trollworks.gcs.spell.Spell;
+import com.trollworks.gcs.widgets.outline.BulkRowInsertion;
 import com.trollworks.gcs.widgets.outline.ListOutline;
 import com.trollworks.gcs.widgets.outline.ListRow;
 import com.trollworks.gcs.widgets.outline.RowItemRenderer;
-import com.trollworks.gcs.widgets.outline.RowPostProcessor;
 import com.trollworks.toolkit.annotation.Localize;
 import com.trollworks.toolkit.ui.Fonts;
 import com.trollworks.toolkit.ui.UIUtilities;
@@ -54,7 +54,6 @@ import java.util.List;
 import javax.swing.JComboBox;
 import javax.swing.JScrollPane;
 import javax.swing.ListCellRenderer;
-import javax.swing.undo.StateEdit;
 
 /** A list of advantages and disadvantages from a library. */
 public class TemplateDockable extends CommonDockable implements NotifierTarget, SearchTarget, RetargetableFocus {
@@ -96,7 +95,7 @@ public class TemplateDockable extends CommonDockable implements NotifierTarget,
         scroller.setBorder(null);
         scroller.getViewport().setBackground(Color.LIGHT_GRAY);
         add(scroller, BorderLayout.CENTER);
-        dataFile.setModified(false);
+        dataFile.setModified(dataFile.isRecovered());
         StdUndoManager undoManager = getUndoManager();
         undoManager.discardAllEdits();
         dataFile.setUndoManager(undoManager);
@@ -277,103 +276,20 @@ public class TemplateDockable extends CommonDockable implements NotifierTarget,
      * @param rows The rows to add.
      */
     public void addRows(List<Row> rows) {
-        HashMap<ListOutline, StateEdit> map = new HashMap<>();
-        HashMap<Outline, ArrayList<Row>> selMap = new HashMap<>();
-        HashMap<Outline, ArrayList<ListRow>> nameMap = new HashMap<>();
-        ListOutline outline = null;
-
+        BulkRowInsertion insertion = new BulkRowInsertion(getDataFile(), ADD_ROWS);
         for (Row row : rows) {
             if (row instanceof Advantage) {
-                outline = mTemplate.getAdvantageOutline();
-                if (!map.containsKey(outline)) {
-                    map.put(outline, new StateEdit(outline.getModel(), ADD_ROWS));
-                }
-                row = new Advantage(getDataFile(), (Advantage) row, true);
-                addCompleteRow(outline, row, selMap);
+                insertion.add(mTemplate.getAdvantageOutline(), new Advantage(getDataFile(), (Advantage) row, true));
             } else if (row instanceof Technique) {
-                outline = mTemplate.getSkillOutline();
-                if (!map.containsKey(outline)) {
-                    map.put(outline, new StateEdit(outline.getModel(), ADD_ROWS));
-                }
-                row = new Technique(getDataFile(), (Technique) row, true);
-                addCompleteRow(outline, row, selMap);
+                insertion.add(mTemplate.getSkillOutline(), new Technique(getDataFile(), (Technique) row, true));
             } else if (row instanceof Skill) {
-                outline = mTemplate.getSkillOutline();
-                if (!map.containsKey(outline)) {
-                    map.put(outline, new StateEdit(outline.getModel(), ADD_ROWS));
-                }
-                row = new Skill(getDataFile(), (Skill) row, true, true);
-                addCompleteRow(outline, row, selMap);
+                insertion.add(mTemplate.getSkillOutline(), new Skill(getDataFile(), (Skill) row, true, true));
             } else if (row instanceof Spell) {
-                outline = mTemplate.getSpellOutline();
-                if (!map.containsKey(outline)) {
-                    map.put(outline, new StateEdit(outline.getModel(), ADD_ROWS));
-                }
-                row = new Spell(getDataFile(), (Spell) row, true, true);
-                addCompleteRow(outline, row, selMap);
+                insertion.add(mTemplate.getSpellOutline(), new Spell(getDataFile(), (Spell) row, true, true));
             } else if (row instanceof Equipment) {
-                outline = mTemplate.getEquipmentOutline();
-                if (!map.containsKey(outline)) {
-                    map.put(outline, new StateEdit(outline.getModel(), ADD_ROWS));
-                }
-                row = new Equipment(getDataFile(), (Equipment) row, true);
-                addCompleteRow(outline, row, selMap);
-            } else {
-                row = null;
-            }
-            if (row instanceof ListRow) {
-                ArrayList<ListRow> process = nameMap.get(outline);
-
-                if (process == null) {
-                    process = new ArrayList<>();
-                    nameMap.put(outline, process);
-                }
-                addRowsToBeProcessed(process, (ListRow) row);
-            }
-        }
-        for (ListOutline anOutline : map.keySet()) {
-            OutlineModel model = anOutline.getModel();
-
-            model.select(selMap.get(anOutline), false);
-            StateEdit edit = map.get(anOutline);
-            edit.end();
-            anOutline.postUndo(edit);
-            anOutline.scrollSelectionIntoView();
-            anOutline.requestFocus();
-        }
-        if (!nameMap.isEmpty()) {
-            EventQueue.invokeLater(new RowPostProcessor(nameMap));
-        }
-    }
-
-    private void addRowsToBeProcessed(ArrayList<ListRow> list, ListRow row) {
-        int count = row.getChildCount();
-
-        list.add(row);
-
-        for (int i = 0; i < count; i++) {
-            addRowsToBeProcessed(list, (ListRow) row.getChild(i));
-        }
-    }
-
-    private void addCompleteRow(Outline outline, Row row, HashMap<Outline, ArrayList<Row>> selMap) {
-        ArrayList<Row> selection = selMap.get(outline);
-
-        addCompleteRow(outline.getModel(), row);
-        outline.contentSizeMayHaveChanged();
-        if (selection == null) {
-            selection = new ArrayList<>();
-            selMap.put(outline, selection);
-        }
-        selection.add(row);
-    }
-
-    private void addCompleteRow(OutlineModel outlineModel, Row row) {
-        outlineModel.addRow(row);
-        if (row.isOpen() && row.hasChildren()) {
-            for (Row child : row.getChildren()) {
-                addCompleteRow(outlineModel, child);
+                insertion.add(mTemplate.getEquipmentOutline(), new Equipment(getDataFile(), (Equipment) row, true));
             }
         }
+        insertion.perform();
     }
 }
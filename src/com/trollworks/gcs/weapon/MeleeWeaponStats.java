@@ -13,6 +13,7 @@ package com.trollworks.gcs.weapon;
 
 import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.common.DataFile;
+import com.trollworks.gcs.skill.Skill;
 import com.trollworks.gcs.skill.SkillDefault;
 import com.trollworks.gcs.skill.SkillDefaultType;
 import com.trollworks.gcs.widgets.outline.ListRow;
@@ -40,6 +41,8 @@ public class MeleeWeaponStats extends WeaponStats {
     private String              mReach;
     private String              mParry;
     private String              mBlock;
+    private String              mCachedParry;
+    private String              mCachedBlock;
 
     /**
      * Creates a new {@link MeleeWeaponStats}.
@@ -119,7 +122,22 @@ public class MeleeWeaponStats extends WeaponStats {
 
     /** @return The parry, fully resolved for the user's skills, if possible. */
     public String getResolvedParry() {
-        return getResolvedValue(mParry, SkillDefaultType.Parry);
+        DataFile df = getOwner().getDataFile();
+        if (df instanceof GURPSCharacter) {
+            refreshCache((GURPSCharacter) df);
+            if (mCachedParry == null) {
+                mCachedParry = getResolvedValue(mParry, SkillDefaultType.Parry);
+            }
+            return mCachedParry;
+        }
+        return mParry;
+    }
+
+    @Override
+    protected void clearCache() {
+        super.clearCache();
+        mCachedParry = null;
+        mCachedBlock = null;
     }
 
     private String getResolvedValue(String input, SkillDefaultType baseDefaultType) {
@@ -165,7 +183,7 @@ public class MeleeWeaponStats extends WeaponStats {
                                 int best = Integer.MIN_VALUE;
                                 for (SkillDefault skillDefault : getDefaults()) {
                                     SkillDefaultType type = skillDefault.getType();
-                                    int level = type.getSkillLevelFast(character, skillDefault, new HashSet<String>());
+                                    int level = type.getSkillLevelFast(character, skillDefault, new HashSet<Skill>());
                                     if (level != Integer.MIN_VALUE && type != baseDefaultType) {
                                         level = level / 2 + 3 + (baseDefaultType == SkillDefaultType.Parry ? character.getParryBonus() : character.getBlockBonus());
                                     }
@@ -201,6 +219,7 @@ public class MeleeWeaponStats extends WeaponStats {
         parry = sanitize(parry);
         if (!mParry.equals(parry)) {
             mParry = parry;
+            discardCache();
             notifySingle(ID_PARRY);
         }
     }
@@ -212,7 +231,15 @@ public class MeleeWeaponStats extends WeaponStats {
 
     /** @return The block, fully resolved for the user's skills, if possible. */
     public String getResolvedBlock() {
-        return getResolvedValue(mBlock, SkillDefaultType.Block);
+        DataFile df = getOwner().getDataFile();
+        if (df instanceof GURPSCharacter) {
+            refreshCache((GURPSCharacter) df);
+            if (mCachedBlock == null) {
+                mCachedBlock = getResolvedValue(mBlock, SkillDefaultType.Block);
+            }
+            return mCachedBlock;
+        }
+        return mBlock;
     }
 
     /**
@@ -224,6 +251,7 @@ public class MeleeWeaponStats extends WeaponStats {
         block = sanitize(block);
         if (!mBlock.equals(block)) {
             mBlock = block;
+            discardCache();
             notifySingle(ID_BLOCK);
         }
     }
@@ -54,6 +54,10 @@ public abstract class WeaponStats {
     private String                  mStrength;
     private String                  mUsage;
     private ArrayList<SkillDefault> mDefaults;
+    private GURPSCharacter          mCachedFor;
+    private int                     mCachedGeneration;
+    private String                  mCachedDamage;
+    private int                     mCachedSkillLevel;
 
     /**
      * Creates a new weapon.
@@ -171,6 +175,7 @@ public abstract class WeaponStats {
     public boolean setDefaults(List<SkillDefault> defaults) {
         if (!mDefaults.equals(defaults)) {
             mDefaults = new ArrayList<>(defaults);
+            discardCache();
             return true;
         }
         return false;
@@ -215,6 +220,35 @@ public abstract class WeaponStats {
         return mDamage;
     }
 
+    /**
+     * Prepares the cache of resolved values for use with the specified character, discarding its
+     * contents if anything they depend upon has changed since they were calculated.
+     *
+     * @param character The character the values are to be resolved against.
+     */
+    protected void refreshCache(GURPSCharacter character) {
+        int generation = character.getWeaponStatsGeneration();
+        if (mCachedFor != character || mCachedGeneration != generation) {
+            mCachedFor = character;
+            mCachedGeneration = generation;
+            clearCache();
+        }
+    }
+
+    /**
+     * Called to clear the cached resolved values. Sub-classes that cache values of their own must
+     * call through to this method.
+     */
+    protected void clearCache() {
+        mCachedDamage = null;
+        mCachedSkillLevel = Integer.MIN_VALUE;
+    }
+
+    /** Forces the resolved values to be recalculated upon next use. */
+    protected void discardCache() {
+        mCachedFor = null;
+    }
+
     /** @return The damage, fully resolved for the user's sw or thr, if possible. */
     public String getResolvedDamage() {
         DataFile df = mOwner.getDataFile();
@@ -222,6 +256,10 @@ public abstract class WeaponStats {
 
         if (df instanceof GURPSCharacter) {
             GURPSCharacter character = (GURPSCharacter) df;
+            refreshCache(character);
+            if (mCachedDamage != null) {
+                return mCachedDamage;
+            }
             HashSet<WeaponBonus> bonuses = new HashSet<>();
 
             for (SkillDefault one : getDefaults()) {
@@ -230,7 +268,8 @@ public abstract class WeaponStats {
                     bonuses.addAll(character.getWeaponComparedBonusesFor(Skill.ID_NAME + "/" + one.getName(), one.getName(), one.getSpecialization())); //$NON-NLS-1$
                 }
             }
-            damage = resolveDamage(damage, bonuses);
+            mCachedDamage = resolveDamage(damage, bonuses).trim();
+            return mCachedDamage;
         }
         return damage.trim();
     }
@@ -408,6 +447,7 @@ public abstract class WeaponStats {
         damage = sanitize(damage);
         if (!mDamage.equals(damage)) {
             mDamage = damage;
+            discardCache();
             notifySingle(ID_DAMAGE);
         }
     }
@@ -417,7 +457,12 @@ public abstract class WeaponStats {
         DataFile df = mOwner.getDataFile();
 
         if (df instanceof GURPSCharacter) {
-            return getSkillLevel((GURPSCharacter) df);
+            GURPSCharacter character = (GURPSCharacter) df;
+            refreshCache(character);
+            if (mCachedSkillLevel == Integer.MIN_VALUE) {
+                mCachedSkillLevel = getSkillLevel(character);
+            }
+            return mCachedSkillLevel;
         }
         return 0;
     }
@@ -426,7 +471,7 @@ public abstract class WeaponStats {
         int best = Integer.MIN_VALUE;
         for (SkillDefault skillDefault : getDefaults()) {
             SkillDefaultType type = skillDefault.getType();
-            int level = type.getSkillLevelFast(character, skillDefault, new HashSet<String>());
+            int level = type.getSkillLevelFast(character, skillDefault, new HashSet<Skill>());
             if (level > best) {
                 best = level;
             }
@@ -495,6 +540,7 @@ public abstract class WeaponStats {
         strength = sanitize(strength);
         if (!mStrength.equals(strength)) {
             mStrength = strength;
+            discardCache();
             notifySingle(ID_STRENGTH);
         }
     }
@@ -511,6 +557,7 @@ public abstract class WeaponStats {
      */
     public void setOwner(ListRow owner) {
         mOwner = owner;
+        discardCache();
     }
 
     @Override
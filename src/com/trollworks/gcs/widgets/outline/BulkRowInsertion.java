@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 1998-2017 by Richard A. Wilkes. All rights reserved.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, version 2.0. If a copy of the MPL was not distributed with
+ * this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ *
+ * This Source Code Form is "Incompatible With Secondary Licenses", as
+ * defined by the Mozilla Public License, version 2.0.
+ */
+
+package com.trollworks.gcs.widgets.outline;
+
+import com.trollworks.gcs.common.DataFile;
+import com.trollworks.toolkit.ui.widget.outline.Outline;
+import com.trollworks.toolkit.ui.widget.outline.OutlineModel;
+import com.trollworks.toolkit.ui.widget.outline.Row;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.undo.CompoundEdit;
+import javax.swing.undo.StateEdit;
+
+/**
+ * Adds a batch of rows to the outlines of a {@link DataFile} as a single operation. Notifications
+ * are held until the whole batch is in place, so the data file recalculates once, and a single
+ * undo entry covers every outline that was touched.
+ */
+public class BulkRowInsertion {
+    private DataFile                                       mDataFile;
+    private String                                         mName;
+    private LinkedHashMap<ListOutline, ArrayList<ListRow>> mBatches;
+
+    /**
+     * Creates a new, empty, {@link BulkRowInsertion}.
+     *
+     * @param dataFile The data file that owns the outlines.
+     * @param name The name for the undo event.
+     */
+    public BulkRowInsertion(DataFile dataFile, String name) {
+        mDataFile = dataFile;
+        mName = name;
+        mBatches = new LinkedHashMap<>();
+    }
+
+    /**
+     * Queues a row to be added.
+     *
+     * @param outline The outline to add the row to.
+     * @param row The row to add. Its open descendants will also be added.
+     */
+    public void add(ListOutline outline, ListRow row) {
+        ArrayList<ListRow> rows = mBatches.get(outline);
+        if (rows == null) {
+            rows = new ArrayList<>();
+            mBatches.put(outline, rows);
+        }
+        rows.add(row);
+    }
+
+    /** Adds the queued rows, then selects them. */
+    public void perform() {
+        if (mBatches.isEmpty()) {
+            return;
+        }
+        CompoundEdit edit = new CompoundEdit();
+        HashMap<Outline, ArrayList<ListRow>> processMap = new HashMap<>();
+        mDataFile.startNotify();
+        try {
+            for (Map.Entry<ListOutline, ArrayList<ListRow>> entry : mBatches.entrySet()) {
+                ListOutline outline = entry.getKey();
+                ArrayList<ListRow> rows = entry.getValue();
+                StateEdit stateEdit = new StateEdit(outline.getModel(), mName);
+                outline.appendRows(rows);
+                stateEdit.end();
+                edit.addEdit(stateEdit);
+                ArrayList<ListRow> process = new ArrayList<>();
+                for (ListRow row : rows) {
+                    addRowsToBeProcessed(process, row);
+                }
+                processMap.put(outline, process);
+            }
+        } finally {
+            mDataFile.endNotify();
+        }
+        edit.end();
+        ListOutline first = null;
+        for (Map.Entry<ListOutline, ArrayList<ListRow>> entry : mBatches.entrySet()) {
+            ListOutline outline = entry.getKey();
+            OutlineModel model = outline.getModel();
+            model.select(new ArrayList<Row>(entry.getValue()), false);
+            outline.scrollSelectionIntoView();
+            outline.requestFocus();
+            if (first == null) {
+                first = outline;
+            }
+        }
+        first.postUndo(edit);
+        EventQueue.invokeLater(new RowPostProcessor(processMap));
+    }
+
+    private static void addRowsToBeProcessed(ArrayList<ListRow> list, ListRow row) {
+        int count = row.getChildCount();
+
+        list.add(row);
+        for (int i = 0; i < count; i++) {
+            addRowsToBeProcessed(list, (ListRow) row.getChild(i));
+        }
+    }
+}
@@ -29,6 +29,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import javax.swing.undo.StateEdit;
 
@@ -47,6 +48,8 @@ public class ListOutline extends Outline implements Runnable, ActionListener {
     /** The owning data file. */
     protected DataFile mDataFile;
     private String     mRowSetChangedID;
+    private boolean    mDeferRowSetChanged;
+    private boolean    mRowSetChangedPending;
 
     /**
      * Create a new outline.
@@ -70,13 +73,21 @@ public class ListOutline extends Outline implements Runnable, ActionListener {
     @Override
     public void rowsAdded(OutlineModel model, Row[] rows) {
         super.rowsAdded(model, rows);
-        mDataFile.notifySingle(mRowSetChangedID, null);
+        rowSetChanged();
     }
 
     @Override
     public void rowsWereRemoved(OutlineModel model, Row[] rows) {
         super.rowsWereRemoved(model, rows);
-        mDataFile.notifySingle(mRowSetChangedID, null);
+        rowSetChanged();
+    }
+
+    private void rowSetChanged() {
+        if (mDeferRowSetChanged) {
+            mRowSetChangedPending = true;
+        } else {
+            mDataFile.notifySingle(mRowSetChangedID, null);
+        }
     }
 
     /** @return The notification ID to use when the row set changes. */
@@ -173,6 +184,40 @@ public class ListOutline extends Outline implements Runnable, ActionListener {
         return insertAt;
     }
 
+    /**
+     * Appends rows, along with the descendants of those that are open, to the end of the outline.
+     * The row set changed notification is sent once for the whole batch, rather than once for each
+     * row.
+     *
+     * @param rows The rows to append.
+     */
+    public void appendRows(List<? extends ListRow> rows) {
+        OutlineModel model = getModel();
+        mDeferRowSetChanged = true;
+        mRowSetChangedPending = false;
+        try {
+            for (ListRow row : rows) {
+                appendCompleteRow(model, row);
+            }
+        } finally {
+            mDeferRowSetChanged = false;
+        }
+        if (mRowSetChangedPending) {
+            mRowSetChangedPending = false;
+            mDataFile.notifySingle(mRowSetChangedID, null);
+        }
+        contentSizeMayHaveChanged();
+    }
+
+    private static void appendCompleteRow(OutlineModel model, Row row) {
+        model.addRow(row);
+        if (row.isOpen() && row.hasChildren()) {
+            for (Row child : row.getChildren()) {
+                appendCompleteRow(model, child);
+            }
+        }
+    }
+
     @Override
     public void actionPerformed(ActionEvent event) {
         Object source = event.getSource();
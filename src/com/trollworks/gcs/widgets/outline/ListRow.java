@@ -11,8 +11,10 @@
 
 package com.trollworks.gcs.widgets.outline;
 
+import com.trollworks.gcs.character.DependencyGraph;
 import com.trollworks.gcs.character.GURPSCharacter;
 import com.trollworks.gcs.common.DataFile;
+import com.trollworks.gcs.common.ListFile;
 import com.trollworks.gcs.common.LoadState;
 import com.trollworks.gcs.feature.AttributeBonus;
 import com.trollworks.gcs.feature.ContainedWeightReduction;
@@ -41,9 +43,11 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Supplier;
 
 /** A common row super-class for the model. */
 public abstract class ListRow extends Row {
@@ -58,8 +62,10 @@ public abstract class ListRow extends Row {
     private ArrayList<SkillDefault> mDefaults;
     private boolean                 mIsSatisfied;
     private String                  mUnsatisfiedReason;
+    private Supplier<String>        mUnsatisfiedReasonSupplier;
     private String                  mNotes;
     private TreeSet<String>         mCategories;
+    private volatile boolean        mDetailsDeferred;
 
     /**
      * Extracts any "nameable" portions of the buffer and puts their keys into the provided set.
@@ -143,6 +149,7 @@ public abstract class ListRow extends Row {
      */
     public ListRow(DataFile dataFile, ListRow rowToClone) {
         this(dataFile, rowToClone.canHaveChildren());
+        rowToClone.loadDeferredDetails();
         setOpen(rowToClone.isOpen());
         mNotes = rowToClone.mNotes;
 
@@ -167,6 +174,8 @@ public abstract class ListRow extends Row {
         }
         if (obj instanceof ListRow) {
             ListRow row = (ListRow) obj;
+            loadDeferredDetails();
+            row.loadDeferredDetails();
             if (mNotes.equals(row.mNotes) && mCategories.equals(row.mCategories)) {
                 if (mDefaults.equals(row.mDefaults)) {
                     if (mPrereqList.equals(row.mPrereqList)) {
@@ -226,17 +235,33 @@ public abstract class ListRow extends Row {
         mIsSatisfied = satisfied;
         if (satisfied) {
             mUnsatisfiedReason = null;
+            mUnsatisfiedReasonSupplier = null;
         }
     }
 
     /** @return The reason {@link #isSatisfied()} is returning <code>false</code>. */
-    public String getReasonForUnsatisfied() {
+    public synchronized String getReasonForUnsatisfied() {
+        Supplier<String> supplier = mUnsatisfiedReasonSupplier;
+        if (supplier != null) {
+            mUnsatisfiedReason = supplier.get();
+            mUnsatisfiedReasonSupplier = null;
+        }
         return mUnsatisfiedReason;
     }
 
     /** @param reason The reason {@link #isSatisfied()} is returning <code>false</code>. */
-    public void setReasonForUnsatisfied(String reason) {
+    public synchronized void setReasonForUnsatisfied(String reason) {
         mUnsatisfiedReason = reason;
+        mUnsatisfiedReasonSupplier = null;
+    }
+
+    /**
+     * @param reason Produces the reason {@link #isSatisfied()} is returning <code>false</code>. It
+     *            won't be called until the reason is asked for.
+     */
+    public synchronized void setLazyReasonForUnsatisfied(Supplier<String> reason) {
+        mUnsatisfiedReason = null;
+        mUnsatisfiedReasonSupplier = reason;
     }
 
     /**
@@ -247,6 +272,8 @@ public abstract class ListRow extends Row {
      */
     public final void load(XMLReader reader, LoadState state) throws IOException {
         String marker = reader.getMarker();
+        boolean deferDetails = state.mDeferRowDetails && !state.mForUndo && mDataFile instanceof ListFile && ((ListFile) mDataFile).deferDetails(this, reader.getName());
+        mDetailsDeferred = false;
         state.mDataItemVersion = reader.getAttributeAsInteger(LoadState.ATTRIBUTE_VERSION, 0);
         if (state.mDataItemVersion > getXMLTagVersion()) {
             throw VersionException.createTooNew();
@@ -256,24 +283,10 @@ public abstract class ListRow extends Row {
         do {
             if (reader.next() == XMLNodeType.START_TAG) {
                 String name = reader.getName();
-                if (AttributeBonus.TAG_ROOT.equals(name)) {
-                    mFeatures.add(new AttributeBonus(reader));
-                } else if (DRBonus.TAG_ROOT.equals(name)) {
-                    mFeatures.add(new DRBonus(reader));
-                } else if (SkillBonus.TAG_ROOT.equals(name)) {
-                    mFeatures.add(new SkillBonus(reader));
-                } else if (SpellBonus.TAG_ROOT.equals(name)) {
-                    mFeatures.add(new SpellBonus(reader));
-                } else if (WeaponBonus.TAG_ROOT.equals(name)) {
-                    mFeatures.add(new WeaponBonus(reader));
-                } else if (CostReduction.TAG_ROOT.equals(name)) {
-                    mFeatures.add(new CostReduction(reader));
-                } else if (ContainedWeightReduction.TAG_ROOT.equals(name)) {
-                    mFeatures.add(new ContainedWeightReduction(reader));
-                } else if (PrereqList.TAG_ROOT.equals(name)) {
-                    mPrereqList = new PrereqList(null, reader);
-                } else if (!(this instanceof Technique) && SkillDefault.TAG_ROOT.equals(name)) {
-                    mDefaults.add(new SkillDefault(reader));
+                if (deferDetails && isDetailTag(name)) {
+                    reader.skipTag(name);
+                } else if (loadDetail(reader, name)) {
+                    // Nothing else to do.
                 } else if (TAG_NOTES.equals(name)) {
                     mNotes = reader.readText();
                 } else if (TAG_CATEGORIES.equals(name)) {
@@ -294,6 +307,81 @@ public abstract class ListRow extends Row {
             }
         } while (reader.withinMarker(marker));
         finishedLoading(state);
+        mDetailsDeferred = deferDetails;
+    }
+
+    private boolean loadDetail(XMLReader reader, String name) throws IOException {
+        if (AttributeBonus.TAG_ROOT.equals(name)) {
+            mFeatures.add(new AttributeBonus(reader));
+        } else if (DRBonus.TAG_ROOT.equals(name)) {
+            mFeatures.add(new DRBonus(reader));
+        } else if (SkillBonus.TAG_ROOT.equals(name)) {
+            mFeatures.add(new SkillBonus(reader));
+        } else if (SpellBonus.TAG_ROOT.equals(name)) {
+            mFeatures.add(new SpellBonus(reader));
+        } else if (WeaponBonus.TAG_ROOT.equals(name)) {
+            mFeatures.add(new WeaponBonus(reader));
+        } else if (CostReduction.TAG_ROOT.equals(name)) {
+            mFeatures.add(new CostReduction(reader));
+        } else if (ContainedWeightReduction.TAG_ROOT.equals(name)) {
+            mFeatures.add(new ContainedWeightReduction(reader));
+        } else if (PrereqList.TAG_ROOT.equals(name)) {
+            mPrereqList = new PrereqList(null, reader);
+        } else if (!(this instanceof Technique) && SkillDefault.TAG_ROOT.equals(name)) {
+            mDefaults.add(new SkillDefault(reader));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param name The name of a sub-element of this row.
+     * @return Whether the sub-element may be left unloaded until {@link #loadDeferredDetails()} is
+     *         called. Only elements that aren't needed to display the row should be deferred, nor
+     *         any that are read while loading, such as the defaults used to convert old weapons.
+     */
+    protected boolean isDetailTag(String name) {
+        // Contained weight reductions are left out, since they alter the displayed weight
+        return AttributeBonus.TAG_ROOT.equals(name) || DRBonus.TAG_ROOT.equals(name) || SkillBonus.TAG_ROOT.equals(name) || SpellBonus.TAG_ROOT.equals(name) || WeaponBonus.TAG_ROOT.equals(name) || CostReduction.TAG_ROOT.equals(name) || PrereqList.TAG_ROOT.equals(name) || !(this instanceof Technique) && SkillDefault.TAG_ROOT.equals(name);
+    }
+
+    /**
+     * Loads any details that were deferred when this row was loaded. Must be called before the
+     * features, prerequisites or defaults are used. May be called from any thread.
+     */
+    protected final void loadDeferredDetails() {
+        if (mDetailsDeferred) {
+            ((ListFile) mDataFile).loadDeferredDetails();
+        }
+    }
+
+    /** @return Whether this row's features, prerequisites and defaults have yet to be loaded. */
+    public final boolean hasDeferredDetails() {
+        return mDetailsDeferred;
+    }
+
+    /**
+     * Loads the details this row deferred, along with those of the rows nested within it. Called by
+     * {@link ListFile#loadDeferredDetails()}.
+     *
+     * @param reader The XML reader to load from, positioned at the start of this row.
+     * @param file The list being read.
+     * @param rows The rows that deferred their details, in document order, following this one.
+     */
+    public final void loadDeferredDetails(XMLReader reader, ListFile file, Iterator<ListRow> rows) throws IOException {
+        String marker = reader.getMarker();
+        do {
+            if (reader.next() == XMLNodeType.START_TAG) {
+                String name = reader.getName();
+                if (file.isRowTag(name) && rows.hasNext()) {
+                    rows.next().loadDeferredDetails(reader, file, rows);
+                } else if (!mDetailsDeferred || !isDetailTag(name) || !loadDetail(reader, name)) {
+                    reader.skipTag(name);
+                }
+            }
+        } while (reader.withinMarker(marker));
+        mDetailsDeferred = false;
     }
 
     /**
@@ -348,6 +436,7 @@ public abstract class ListRow extends Row {
      * @param forUndo Whether this is being called to save undo state.
      */
     public void save(XMLWriter out, boolean forUndo) {
+        loadDeferredDetails();
         out.startTag(getXMLTagName());
         out.writeAttribute(LoadState.ATTRIBUTE_VERSION, getXMLTagVersion());
         if (canHaveChildren()) {
@@ -470,6 +559,7 @@ public abstract class ListRow extends Row {
 
     /** @return The features provided by this data row. */
     public List<Feature> getFeatures() {
+        loadDeferredDetails();
         return Collections.unmodifiableList(mFeatures);
     }
 
@@ -478,6 +568,7 @@ public abstract class ListRow extends Row {
      * @return Whether there was a change or not.
      */
     public boolean setFeatures(List<Feature> features) {
+        loadDeferredDetails();
         if (!mFeatures.equals(features)) {
             mFeatures = new ArrayList<>(features);
             return true;
@@ -559,6 +650,7 @@ public abstract class ListRow extends Row {
 
     /** @return The prerequisites needed by this data row. */
     public PrereqList getPrereqs() {
+        loadDeferredDetails();
         return mPrereqList;
     }
 
@@ -567,6 +659,7 @@ public abstract class ListRow extends Row {
      * @return Whether there was a change or not.
      */
     public boolean setPrereqs(PrereqList prereqs) {
+        loadDeferredDetails();
         if (!mPrereqList.equals(prereqs)) {
             mPrereqList = (PrereqList) prereqs.clone(null);
             return true;
@@ -576,6 +669,7 @@ public abstract class ListRow extends Row {
 
     /** @return The defaults for this row. */
     public List<SkillDefault> getDefaults() {
+        loadDeferredDetails();
         return Collections.unmodifiableList(mDefaults);
     }
 
@@ -584,6 +678,7 @@ public abstract class ListRow extends Row {
      * @return Whether there was a change or not.
      */
     public boolean setDefaults(List<SkillDefault> defaults) {
+        loadDeferredDetails();
         if (!mDefaults.equals(defaults)) {
             mDefaults = new ArrayList<>(defaults);
             return true;
@@ -614,6 +709,7 @@ public abstract class ListRow extends Row {
 
     /** @param set The nameable keys. */
     public void fillWithNameableKeys(HashSet<String> set) {
+        loadDeferredDetails();
         extractNameables(set, mNotes);
         for (SkillDefault def : mDefaults) {
             def.fillWithNameableKeys(set);
@@ -626,6 +722,7 @@ public abstract class ListRow extends Row {
 
     /** @param map The map of nameable keys to names to apply. */
     public void applyNameableKeys(HashMap<String, String> map) {
+        loadDeferredDetails();
         mNotes = nameNameables(map, mNotes);
         for (SkillDefault def : mDefaults) {
             def.applyNameableKeys(map);
@@ -636,6 +733,20 @@ public abstract class ListRow extends Row {
         mPrereqList.applyNameableKeys(map);
     }
 
+    /**
+     * @param set The set to add the {@link DependencyGraph} keys for the character data this row's
+     *            prerequisites and defaults read to.
+     */
+    public void fillWithDependencyKeys(HashSet<String> set) {
+        loadDeferredDetails();
+        mPrereqList.fillWithDependencyKeys(set);
+        for (SkillDefault def : mDefaults) {
+            if (def.getType().isSkillBased()) {
+                set.add(DependencyGraph.skillKey(def.getName()));
+            }
+        }
+    }
+
     /** @return The notes. */
     public String getNotes() {
         return mNotes;